@@ -0,0 +1,56 @@
+package com.intracom.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the JMH command line options, e.g.
+ * {@code java -jar target/benchmarks.jar RegistrationsBenchmark -p services=1000}.
+ * <p>
+ * Unless given on the command line, every benchmark reports its throughput in
+ * ops/s and its latency percentiles (-bm thrpt,sample), the allocation rate
+ * per operation of the GC profiler (-prof gc), and the results are written to
+ * jmh-result.json (-rf json) to be compared between builds. Logging of the
+ * benchmarked components is limited to warnings.
+ */
+public class BenchmarkRunner
+{
+    private static final String LOGGING = "-Dlogback.configurationFile=logback-benchmarks.xml";
+
+    private BenchmarkRunner()
+    {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException
+    {
+        var commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats())
+        {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        var jvmArgs = new ArrayList<String>(commandLine.getJvmArgsAppend().orElse(List.of()));
+        jvmArgs.add(0, LOGGING);
+
+        var options = new OptionsBuilder().parent(commandLine).jvmArgsAppend(jvmArgs.toArray(String[]::new));
+        if (commandLine.getBenchModes().isEmpty())
+            options.mode(Mode.Throughput).mode(Mode.SampleTime);
+        if (commandLine.getProfilers().stream().noneMatch(profiler -> profiler.getKlass().equals("gc") || profiler.getKlass().equals(GCProfiler.class.getName())))
+            options.addProfiler(GCProfiler.class);
+        if (!commandLine.getResultFormat().hasValue())
+            options.resultFormat(ResultFormatType.JSON);
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,109 @@
+package com.intracom.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.intracom.common.web.ContentCodec;
+import com.intracom.model.Message;
+import com.intracom.model.RegistryWatch;
+import com.intracom.model.ServiceDiscovery;
+import com.intracom.model.ServiceRegistry;
+
+/**
+ * Cost of encoding and decoding registry lookup and watch responses in each
+ * {@link ContentCodec}, and of the round trips of the chat requests and replies
+ * forwarded by the handler. Payload sizes are printed by {@link PayloadSizes}.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar CodecBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecBenchmark
+{
+    private static final TypeReference<List<Message>> MESSAGE_LIST = new TypeReference<>()
+    {
+    };
+
+    @Param({ "1", "10", "100" })
+    public int services;
+
+    @Param({ "JSON", "SMILE" })
+    public ContentCodec codec;
+
+    private ServiceRegistry serviceRegistry;
+    private RegistryWatch registryWatch;
+    private ObjectWriter registryWriter;
+    private ObjectWriter watchWriter;
+    private byte[] encodedRegistry;
+    private byte[] encodedWatch;
+    private ServiceDiscovery serviceDiscovery;
+    private List<Message> messages;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        this.serviceRegistry = Payloads.serviceRegistry(this.services);
+        this.registryWatch = Payloads.registryWatch(this.services);
+        this.registryWriter = ContentCodec.writersFor(ServiceRegistry.class).get(this.codec);
+        this.watchWriter = ContentCodec.writersFor(RegistryWatch.class).get(this.codec);
+        this.encodedRegistry = this.registryWriter.writeValueAsBytes(this.serviceRegistry);
+        this.encodedWatch = this.watchWriter.writeValueAsBytes(this.registryWatch);
+        this.serviceDiscovery = Payloads.serviceDiscovery(this.services);
+        this.messages = Payloads.messages(this.services);
+    }
+
+    @Benchmark
+    public byte[] encodeServiceRegistry() throws IOException
+    {
+        return this.registryWriter.writeValueAsBytes(this.serviceRegistry);
+    }
+
+    @Benchmark
+    public ServiceRegistry decodeServiceRegistry() throws IOException
+    {
+        return this.codec.decode(this.encodedRegistry, ServiceRegistry.class);
+    }
+
+    @Benchmark
+    public byte[] encodeRegistryWatch() throws IOException
+    {
+        return this.watchWriter.writeValueAsBytes(this.registryWatch);
+    }
+
+    @Benchmark
+    public RegistryWatch decodeRegistryWatch() throws IOException
+    {
+        return this.codec.decode(this.encodedWatch, RegistryWatch.class);
+    }
+
+    @Benchmark
+    public ServiceDiscovery roundTripServiceDiscovery() throws IOException
+    {
+        return this.codec.decode(this.codec.writerFor(ServiceDiscovery.class).writeValueAsBytes(this.serviceDiscovery), ServiceDiscovery.class);
+    }
+
+    @Benchmark
+    public List<Message> roundTripMessages() throws IOException
+    {
+        return this.codec.readerFor(MESSAGE_LIST).readValue(this.codec.writerFor(MESSAGE_LIST).writeValueAsBytes(this.messages));
+    }
+}
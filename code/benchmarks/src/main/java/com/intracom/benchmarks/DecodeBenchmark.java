@@ -0,0 +1,78 @@
+package com.intracom.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.intracom.common.web.ContentCodec;
+import com.intracom.model.ServiceRegistry;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.reactivex.core.buffer.Buffer;
+
+/**
+ * Cost of decoding a request body received as a Vert.x {@link Buffer}: through
+ * a JSON tree and its String, from a copy of the bytes, and in one pass from
+ * the buffer with {@link ContentCodec#decode(Buffer, Class)}.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar DecodeBenchmark -prof gc} to
+ * compare the bytes allocated per decode ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecodeBenchmark
+{
+    @Param({ "1", "10", "100" })
+    public int services;
+
+    /**
+     * Bodies read from the network are usually held in direct buffers
+     */
+    @Param({ "false", "true" })
+    public boolean direct;
+
+    private Buffer body;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        var bytes = ContentCodec.writersFor(ServiceRegistry.class).get(ContentCodec.JSON).writeValueAsBytes(Payloads.serviceRegistry(this.services));
+        if (this.direct)
+            this.body = Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(Unpooled.directBuffer(bytes.length).writeBytes(bytes)));
+        else
+            this.body = Buffer.buffer(bytes);
+    }
+
+    @Benchmark
+    public ServiceRegistry decodeJsonTree() throws IOException
+    {
+        return ContentCodec.JSON.getMapper().readValue(this.body.toJsonObject().toString(), ServiceRegistry.class);
+    }
+
+    @Benchmark
+    public ServiceRegistry decodeBytes() throws IOException
+    {
+        return ContentCodec.JSON.decode(this.body.getBytes(), ServiceRegistry.class);
+    }
+
+    @Benchmark
+    public ServiceRegistry decodeBuffer() throws IOException
+    {
+        return ContentCodec.JSON.decode(this.body, ServiceRegistry.class);
+    }
+}
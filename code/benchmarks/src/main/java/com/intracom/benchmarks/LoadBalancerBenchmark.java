@@ -0,0 +1,67 @@
+package com.intracom.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.intracom.model.Service;
+import com.intracom.sd.InflightRequests;
+import com.intracom.sd.LoadBalancer;
+import com.intracom.sd.LoadBalancingStrategy;
+
+/**
+ * Selection of the backend service of a forwarded request by each
+ * {@link LoadBalancingStrategy}, with the routing keys of many users over the
+ * same snapshot of registered services.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar LoadBalancerBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBalancerBenchmark
+{
+    private static final int USERS = 1024;
+
+    @Param({ "3", "30", "300" })
+    public int services;
+
+    @Param({ "RANDOM", "ROUND_ROBIN", "LEAST_OUTSTANDING", "POWER_OF_TWO_CHOICES", "CONSISTENT_HASH" })
+    public LoadBalancingStrategy strategy;
+
+    private List<Service> registered;
+    private String[] users;
+    private LoadBalancer loadBalancer;
+    private int next;
+
+    @Setup
+    public void setup()
+    {
+        this.registered = List.copyOf(Payloads.services(this.services));
+        this.users = new String[USERS];
+        for (int i = 0; i < USERS; i++)
+            this.users[i] = Payloads.user(i);
+        this.loadBalancer = LoadBalancer.create(this.strategy, new InflightRequests());
+    }
+
+    @Benchmark
+    public Service select()
+    {
+        this.next = (this.next + 1) & (USERS - 1);
+        return this.loadBalancer.select(this.registered, this.users[this.next]);
+    }
+}
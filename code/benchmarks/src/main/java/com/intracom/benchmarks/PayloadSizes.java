@@ -0,0 +1,53 @@
+package com.intracom.benchmarks;
+
+import java.io.IOException;
+
+import com.intracom.common.web.ContentCodec;
+import com.intracom.model.RegistryWatch;
+import com.intracom.model.ServiceRegistry;
+
+/**
+ * Print the encoded size of registry lookup and watch responses in each
+ * {@link ContentCodec}, complementing the timings of {@link CodecBenchmark}.
+ * <p>
+ * Run with
+ * {@code java -cp target/benchmarks.jar com.intracom.benchmarks.PayloadSizes}.
+ */
+public final class PayloadSizes
+{
+    private static final int[] SERVICES = { 1, 10, 100, 1000 };
+
+    private PayloadSizes()
+    {
+    }
+
+    public static void main(String[] args) throws IOException
+    {
+        var registryWriters = ContentCodec.writersFor(ServiceRegistry.class);
+        var watchWriters = ContentCodec.writersFor(RegistryWatch.class);
+
+        System.out.printf("%-14s %9s %12s %12s %7s%n", "Body", "Services", "JSON bytes", "Smile bytes", "Ratio");
+        for (var services : SERVICES)
+        {
+            var serviceRegistry = Payloads.serviceRegistry(services);
+            print("ServiceRegistry",
+                  services,
+                  registryWriters.get(ContentCodec.JSON).writeValueAsBytes(serviceRegistry).length,
+                  registryWriters.get(ContentCodec.SMILE).writeValueAsBytes(serviceRegistry).length);
+
+            var registryWatch = Payloads.registryWatch(services);
+            print("RegistryWatch",
+                  services,
+                  watchWriters.get(ContentCodec.JSON).writeValueAsBytes(registryWatch).length,
+                  watchWriters.get(ContentCodec.SMILE).writeValueAsBytes(registryWatch).length);
+        }
+    }
+
+    private static void print(String body,
+                              int services,
+                              int json,
+                              int smile)
+    {
+        System.out.printf("%-14s %9d %12d %12d %7.2f%n", body, services, json, smile, (double) smile / json);
+    }
+}
@@ -0,0 +1,116 @@
+package com.intracom.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.DateTime;
+
+import com.intracom.model.Message;
+import com.intracom.model.Message.MessageBuilder;
+import com.intracom.model.RegistrationEvent;
+import com.intracom.model.RegistrationEvent.RegistrationEventBuilder;
+import com.intracom.model.RegistryWatch;
+import com.intracom.model.RegistryWatch.RegistryWatchBuilder;
+import com.intracom.model.Request;
+import com.intracom.model.Request.RequestBuilder;
+import com.intracom.model.Service;
+import com.intracom.model.Service.ServiceBuilder;
+import com.intracom.model.ServiceDiscovery;
+import com.intracom.model.ServiceDiscovery.ServiceDiscoveryBuilder;
+import com.intracom.model.ServiceRegistry;
+import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
+
+/**
+ * Registry bodies of a given size, shaped like the ones of a chat-server
+ * deployment
+ */
+final class Payloads
+{
+    private static final DateTime TIMESTAMP = new DateTime(1_650_000_000_000L);
+
+    private Payloads()
+    {
+    }
+
+    static List<Service> services(int count)
+    {
+        var services = new ArrayList<Service>(count);
+        for (int i = 0; i < count; i++)
+            services.add(new ServiceBuilder().withHost("10.244." + (i / 250) + "." + (i % 250 + 1)) //
+                                             .withName("chat-server-5d9c7b8f6-" + String.format("%05d", i))
+                                             .withPort(Double.valueOf(8080))
+                                             .withTimestamp(TIMESTAMP.plusMillis(i))
+                                             .build());
+        return services;
+    }
+
+    /**
+     * @return lookup response with the given number of services
+     */
+    static ServiceRegistry serviceRegistry(int count)
+    {
+        return new ServiceRegistryBuilder().withFunction("chat") //
+                                           .withServices(services(count))
+                                           .build();
+    }
+
+    /**
+     * @return watch response with one change event per service
+     */
+    static RegistryWatch registryWatch(int count)
+    {
+        var events = new ArrayList<RegistrationEvent>(count);
+        var services = services(count);
+        for (int i = 0; i < count; i++)
+            events.add(new RegistrationEventBuilder().withType(RegistrationEvent.Type.UPDATED) //
+                                                     .withVersion(Long.valueOf(1000 + i))
+                                                     .withService(services.get(i))
+                                                     .build());
+        return new RegistryWatchBuilder().withFunction("chat") //
+                                         .withInstance("0f8fad5b-d9cb-469f-a165-70867728950e")
+                                         .withVersion(Long.valueOf(1000 + count))
+                                         .withEvents(events)
+                                         .build();
+    }
+
+    /**
+     * @return discovery request of the chat function with the given number of
+     *         requests
+     */
+    static ServiceDiscovery serviceDiscovery(int count)
+    {
+        var requests = new ArrayList<Request>(count);
+        for (int i = 0; i < count; i++)
+            requests.add(new RequestBuilder().withUser(user(i)) //
+                                             .withMessage("Lorem ipsum dolor sit amet, consectetur adipiscing elit.")
+                                             .withTimestamp(TIMESTAMP.plusMillis(i))
+                                             .withRecipients(List.of(user(i + 1), user(i + 2)))
+                                             .build());
+        return new ServiceDiscoveryBuilder().withFunction("chat") //
+                                            .withRequests(requests)
+                                            .build();
+    }
+
+    /**
+     * @return replies to a batch of the given number of requests
+     */
+    static List<Message> messages(int count)
+    {
+        var messages = new ArrayList<Message>(count);
+        for (int i = 0; i < count; i++)
+            messages.add(new MessageBuilder().withId(Long.valueOf(i)) //
+                                             .withUser(user(i))
+                                             .withMessage("Quisque faucibus lectus id turpis aliquet venenatis.")
+                                             .withRecipient(Boolean.TRUE)
+                                             .build());
+        return messages;
+    }
+
+    /**
+     * @return the name of a user, also used as routing key
+     */
+    static String user(int index)
+    {
+        return "user-" + index;
+    }
+}
@@ -0,0 +1,97 @@
+package com.intracom.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.intracom.model.Service;
+import com.intracom.model.ServiceRegistry;
+import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
+import com.intracom.sd.Registrations;
+
+/**
+ * Registry operations on one function with up to 100k registered services:
+ * the heartbeat of a registered service, the lookup of the services of the
+ * function and the reconciliation with a pod list in which every pod exists.
+ * <p>
+ * The registrations are created again for every iteration, so leases and
+ * change history of re-registrations do not pile up over the whole run.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar RegistrationsBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistrationsBenchmark
+{
+    private static final String FUNCTION = "chat";
+
+    @Param({ "10", "1000", "100000" })
+    public int services;
+
+    private List<ServiceRegistry> heartbeats;
+    private Set<String> pods;
+    private Registrations registrations;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        var registered = Payloads.services(this.services);
+        this.heartbeats = new ArrayList<>(this.services);
+        this.pods = new HashSet<>(this.services);
+        for (Service service : registered)
+        {
+            this.heartbeats.add(new ServiceRegistryBuilder().withFunction(FUNCTION) //
+                                                            .withServices(List.of(service))
+                                                            .build());
+            this.pods.add(service.getName());
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration()
+    {
+        this.registrations = new Registrations();
+        this.registrations.addRegistrations(FUNCTION, Payloads.services(this.services));
+        this.next = 0;
+    }
+
+    @Benchmark
+    public boolean addRegistration()
+    {
+        var heartbeat = this.heartbeats.get(this.next);
+        this.next = this.next + 1 == this.services ? 0 : this.next + 1;
+        return this.registrations.addRegistration(heartbeat);
+    }
+
+    @Benchmark
+    public List<Service> getRegistrations()
+    {
+        return this.registrations.getRegistrations(FUNCTION);
+    }
+
+    @Benchmark
+    public void applyExpiration()
+    {
+        this.registrations.applyExpiration(this.pods).blockingAwait();
+    }
+}
@@ -0,0 +1,89 @@
+package com.intracom.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.intracom.common.utilities.ServiceModule;
+import com.intracom.common.web.ContentCodec;
+import com.intracom.model.ServiceRegistry;
+
+/**
+ * Cost of encoding and decoding registry lookups with the generated bean
+ * (de)serializers of the services and with the hand-rolled ones of
+ * {@link ServiceModule}.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar ServiceCodecBenchmark -prof gc}
+ * to compare the bytes allocated per operation ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ServiceCodecBenchmark
+{
+    @Param({ "10", "100" })
+    public int services;
+
+    @Param({ "JSON", "SMILE" })
+    public ContentCodec codec;
+
+    @Param({ "false", "true" })
+    public boolean handRolled;
+
+    private ServiceRegistry serviceRegistry;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        ObjectMapper mapper;
+        if (this.handRolled)
+            mapper = this.codec.getMapper();
+        else if (this.codec == ContentCodec.SMILE)
+            mapper = SmileMapper.builder().addModules(new Jdk8Module(), new JodaModule()).serializationInclusion(JsonInclude.Include.NON_NULL).build();
+        else
+            mapper = JsonMapper.builder().addModules(new Jdk8Module(), new JodaModule()).serializationInclusion(JsonInclude.Include.NON_NULL).build();
+
+        this.serviceRegistry = Payloads.serviceRegistry(this.services);
+        this.writer = mapper.writerFor(ServiceRegistry.class).without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.reader = mapper.readerFor(ServiceRegistry.class);
+        this.encoded = this.writer.writeValueAsBytes(this.serviceRegistry);
+    }
+
+    @Benchmark
+    public byte[] encodeServiceRegistry() throws IOException
+    {
+        return this.writer.writeValueAsBytes(this.serviceRegistry);
+    }
+
+    @Benchmark
+    public ServiceRegistry decodeServiceRegistry() throws IOException
+    {
+        return this.reader.readValue(this.encoded);
+    }
+}
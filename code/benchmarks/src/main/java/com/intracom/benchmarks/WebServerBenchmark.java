@@ -0,0 +1,119 @@
+package com.intracom.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.intracom.common.web.ContentCodec;
+import com.intracom.common.web.VertxBuilder;
+import com.intracom.common.web.WebClient;
+import com.intracom.common.web.WebServer;
+import com.intracom.model.ServiceRegistry;
+import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
+import io.vertx.reactivex.ext.web.RoutingContext;
+
+/**
+ * Round trip of a registry lookup through {@link WebServer} and
+ * {@link WebClient} on the loopback interface of the same JVM: the query is
+ * encoded, sent and decoded by the server, which answers with an encoded
+ * lookup response, like the cached one of the registry, that the client
+ * decodes.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar WebServerBenchmark}; add
+ * {@code -t 8} to measure concurrent lookups.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WebServerBenchmark
+{
+    private static final String HOST = "127.0.0.1";
+    private static final String REGISTRY_PATH = "/registrations";
+
+    @Param({ "1", "100" })
+    public int services;
+
+    @Param({ "JSON", "SMILE" })
+    public ContentCodec codec;
+
+    private Vertx vertx;
+    private WebServer server;
+    private WebClient client;
+    private Buffer query;
+    private Buffer lookup;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        this.vertx = new VertxBuilder().build();
+        this.query = Buffer.buffer(this.codec.writerFor(ServiceRegistry.class).writeValueAsBytes(new ServiceRegistryBuilder().withFunction("chat").build()));
+        this.lookup = Buffer.buffer(this.codec.writerFor(ServiceRegistry.class).writeValueAsBytes(Payloads.serviceRegistry(this.services)));
+
+        this.server = WebServer.builder() //
+                               .withHost(HOST)
+                               .withPort(0)
+                               .build(this.vertx);
+        this.server.configureRouter(router -> router.get(REGISTRY_PATH).handler(rc -> rc.request().bodyHandler(body -> this.respond(rc, body))));
+        this.server.startListener().blockingAwait();
+        this.client = WebClient.builder().build(this.vertx);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        this.client.close().blockingAwait();
+        this.server.stopListener().blockingAwait();
+        this.vertx.rxClose().blockingAwait();
+    }
+
+    @Benchmark
+    public ServiceRegistry lookup()
+    {
+        return this.client.get()
+                          .flatMap(webClient -> webClient.get(this.server.actualPort(), HOST, REGISTRY_PATH)
+                                                         .putHeader(HttpHeaderNames.CONTENT_TYPE.toString(), this.codec.getMediaType())
+                                                         .putHeader(HttpHeaderNames.ACCEPT.toString(), this.codec.getMediaType())
+                                                         .rxSendBuffer(this.query))
+                          .map(resp -> ContentCodec.ofContentType(resp.getHeader(HttpHeaderNames.CONTENT_TYPE.toString()))
+                                                   .decode(resp.body(), ServiceRegistry.class))
+                          .blockingGet();
+    }
+
+    private void respond(RoutingContext rc,
+                         Buffer body)
+    {
+        try
+        {
+            var codec = ContentCodec.ofContentType(rc.request().getHeader(HttpHeaderNames.CONTENT_TYPE));
+            var serviceRegistry = codec.decode(body, ServiceRegistry.class);
+            rc.response()
+              .setStatusCode(serviceRegistry.getFunction() == null ? HttpResponseStatus.BAD_REQUEST.code() : HttpResponseStatus.OK.code())
+              .putHeader(HttpHeaderNames.CONTENT_TYPE, ContentCodec.negotiate(rc.request().getHeader(HttpHeaderNames.ACCEPT)).getMediaType())
+              .end(this.lookup);
+        }
+        catch (IOException e)
+        {
+            rc.response().setStatusCode(HttpResponseStatus.BAD_REQUEST.code()).end();
+        }
+    }
+}
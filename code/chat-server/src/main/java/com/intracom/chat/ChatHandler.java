@@ -1,18 +1,17 @@
 package com.intracom.chat;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.joda.JodaModule;
-import com.intracom.common.utilities.Jackson;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.intracom.common.web.ContentCodec;
 import com.intracom.common.web.WebServer;
 import com.intracom.model.Message;
 import com.intracom.model.Message.MessageBuilder;
@@ -30,9 +29,15 @@ public class ChatHandler
 {
     private static final Logger log = LoggerFactory.getLogger(ChatHandler.class);
     private static final URI CHAT_MESSAGES_URI = URI.create("/chat/messages");
+    private static final URI CHAT_MESSAGES_BATCH_URI = URI.create("/chat/messages/batch");
+    private static final TypeReference<List<Request>> REQUEST_LIST = new TypeReference<>()
+    {
+    };
+    private static final TypeReference<List<Message>> MESSAGE_LIST = new TypeReference<>()
+    {
+    };
     private static final String DUMMY_USER = "JohnDoe";
     private static final String DUMMY_MSG_0 = "Quisque faucibus lectus id turpis aliquet venenatis.";
-    private static final ObjectMapper json = Jackson.om();
     private static final String DUMMY_MESSAGE_1 = "Lorem ipsum dolor sit amet, consectetur adipiscing elit.";
     private static final String DUMMY_MESSAGE_2 = "Duis fermentum lacus vitae egestas molestie.";
     private static final String DUMMY_MESSAGE_3 = "Nullam sed tortor id mauris suscipit interdum.";
@@ -76,11 +81,14 @@ public class ChatHandler
         // configure web server routers
         this.server.configureRouter(router -> router.get(CHAT_MESSAGES_URI.getPath()) //
                                                     .handler(this::fetchMessage));
+        this.server.configureRouter(router -> router.get(CHAT_MESSAGES_BATCH_URI.getPath()) //
+                                                    .handler(this::fetchMessages));
     }
 
     public Completable start()
     {
         return Completable.complete() //
+                          .andThen(ContentCodec.warmUp(Request.class, Message.class, REQUEST_LIST.getType(), MESSAGE_LIST.getType()))
                           .andThen(this.server.startListener()) //
                           .onErrorResumeNext(t -> this.stop().andThen(Completable.error(t)));
     }
@@ -104,23 +112,16 @@ public class ChatHandler
             log.info("Handle fetch message request");
             try
             {
-                Request request = json.readValue(buffer.toJsonObject().toString(), Request.class);
+                Request request = ContentCodec.JSON.decode(buffer, Request.class);
                 log.info("Request data: {}", request);
 
-                Message reply = new MessageBuilder(DUMMY_MESSAGE).withId(this.getRandomId())
-                                                                 .withMessage(this.getRandomMessage())
-                                                                 .withOwner(request.getUser())
-                                                                 .withOwner(request.getUser())
-                                                                 .withRecipient(false)
-                                                                 .build();
+                Message reply = this.createReply(request);
 
                 routingContext.response() //
                               .setStatusCode(HttpResponseStatus.ACCEPTED.code())
-                              .end(json.registerModule(new JodaModule()) //
-                                       .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS) //
-                                       .writeValueAsString(reply));
+                              .end(ContentCodec.JSON.writerFor(Message.class).writeValueAsString(reply));
             }
-            catch (JsonProcessingException e)
+            catch (IOException e)
             {
                 log.error("Fetch message request data with invalid format");
                 routingContext.response() // create response object
@@ -130,6 +131,44 @@ public class ChatHandler
         });
     }
 
+    /**
+     * Reply to a list of requests with one call. The replies are returned as a
+     * list in the order of the requests.
+     */
+    public void fetchMessages(RoutingContext routingContext)
+    {
+        routingContext.request().bodyHandler(buffer ->
+        {
+            log.info("Handle fetch messages batch request");
+            try
+            {
+                List<Request> requests = ContentCodec.JSON.decode(buffer, REQUEST_LIST);
+                log.info("Batch of {} requests", requests.size());
+
+                var replies = requests.stream().map(this::createReply).collect(Collectors.toList());
+                routingContext.response() //
+                              .setStatusCode(HttpResponseStatus.ACCEPTED.code())
+                              .end(ContentCodec.JSON.writerFor(MESSAGE_LIST).writeValueAsString(replies));
+            }
+            catch (IOException e)
+            {
+                log.error("Fetch messages request data with invalid format");
+                routingContext.response() // create response object
+                              .setStatusCode(HttpResponseStatus.BAD_REQUEST.code()) // set response code 400
+                              .end(); // complete with response action
+            }
+        });
+    }
+
+    private Message createReply(Request request)
+    {
+        return new MessageBuilder(DUMMY_MESSAGE).withId(this.getRandomId())
+                                                .withMessage(this.getRandomMessage())
+                                                .withOwner(request.getUser())
+                                                .withRecipient(false)
+                                                .build();
+    }
+
     public List<String> getDummyMessages()
     {
         return DUMMY_MESSAGES;
@@ -10,21 +10,20 @@ import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.intracom.common.utilities.Jackson;
+import com.intracom.common.web.ContentCodec;
 import com.intracom.common.web.WebClient;
 import com.intracom.model.Service;
 import com.intracom.model.Service.ServiceBuilder;
 import com.intracom.model.ServiceRegistry;
 import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
 
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.reactivex.Completable;
 import io.reactivex.Single;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.functions.Predicate;
 import io.reactivex.schedulers.Schedulers;
-import io.vertx.core.json.JsonObject;
 import io.vertx.reactivex.core.buffer.Buffer;
 import io.vertx.reactivex.ext.web.client.HttpResponse;
 
@@ -35,11 +34,13 @@ public class RegistrationHandler
 {
     private static final Logger log = LoggerFactory.getLogger(RegistrationHandler.class);
     private static final URI REGISTRY_URI = URI.create("/registrations");
-    private static final ObjectMapper json = Jackson.om();
+    private static final URI REGISTRY_LEASE_URI = URI.create("/registrations/lease");
+    private static final String LEASE_ID_HEADER = "Lease-Id";
 
     private final WebClient client;
     private final ServerParameters params;
     private Disposable updater = null;
+    private volatile String leaseId = null;
 
     public RegistrationHandler(ServerParameters params)
     {
@@ -54,7 +55,8 @@ public class RegistrationHandler
                                                 this.params.getRegistryHost(), //
                                                 REGISTRY_URI.getPath())
                                            .ssl(false)
-                                           .rxSendJson(new JsonObject(json.writeValueAsString(this.generateData())))
+                                           .putHeader(HttpHeaderNames.CONTENT_TYPE.toString(), ContentCodec.JSON.getMediaType())
+                                           .rxSendBuffer(Buffer.buffer(ContentCodec.JSON.writerFor(ServiceRegistry.class).writeValueAsBytes(this.generateData())))
                                            .doOnError(t -> log.error("Something went wrong during registration of service: {}", t.getMessage()))
                                            .doOnSuccess(resp -> log.debug("Registration response with statusCode: {}, statudMessage: {}, body: {}",
                                                                           resp.statusCode(),
@@ -62,6 +64,40 @@ public class RegistrationHandler
                                                                           resp.bodyAsString())));
     }
 
+    /**
+     * Renew the lease of the registered service, without sending the service data
+     */
+    public Single<HttpResponse<Buffer>> renew()
+    {
+        return this.client.get().flatMap(wc ->
+        {
+            var request = wc.put(this.params.getRegistryPort(), //
+                                 this.params.getRegistryHost(), //
+                                 REGISTRY_LEASE_URI.getPath())
+                            .ssl(false)
+                            .addQueryParam("function", this.params.getFunction())
+                            .addQueryParam("name", this.params.getServerPodname());
+            var lease = this.leaseId;
+            if (lease != null && !lease.isEmpty())
+                request.addQueryParam("lease", lease);
+
+            return request.rxSend()
+                          .doOnError(t -> log.error("Something went wrong during lease renewal of service: {}", t.getMessage()))
+                          .doOnSuccess(resp -> log.debug("Lease renewal response with statusCode: {}, statudMessage: {}",
+                                                         resp.statusCode(),
+                                                         resp.statusMessage()));
+        });
+    }
+
+    /**
+     * @return the lease id of the current registration, null if the service is
+     *         not registered
+     */
+    public String getLeaseId()
+    {
+        return this.leaseId;
+    }
+
     public Completable start()
     {
         return Completable.fromAction(() ->
@@ -104,20 +140,54 @@ public class RegistrationHandler
 
     }
 
-    private Single<Object> update()
+    /**
+     * Renew the lease of the registration, or register the service if it is not
+     * registered yet or the registry does not know the lease
+     */
+    private Single<Integer> update()
+    {
+        if (this.leaseId == null)
+            return this.register();
+
+        return this.renew().flatMap(resp ->
+        {
+            if (resp.statusCode() == HttpResponseStatus.NO_CONTENT.code())
+            {
+                log.debug("Lease of service successfully renewed");
+                return Single.just(resp.statusCode());
+            }
+            else if (resp.statusCode() == HttpResponseStatus.NOT_FOUND.code())
+            {
+                log.info("Lease of service not found, registering again");
+                this.leaseId = null;
+                return this.register();
+            }
+            else
+            {
+                log.error("Failed to renew lease of service");
+                return Single.error(new RuntimeException("Lease renewal failed with code:" + resp.statusCode() + ", result message:"
+                                                         + resp.statusMessage()));
+            }
+        });
+    }
+
+    private Single<Integer> register()
     {
-        return this.put().map(resp ->
+        return this.put().flatMap(resp ->
         {
             if (resp.statusCode() == HttpResponseStatus.CREATED.code())
             {
                 log.info("Service successfully registered");
-                return Completable.complete();
+                // registries without leases do not return a lease id, renew by name only
+                var lease = resp.getHeader(LEASE_ID_HEADER);
+                this.leaseId = lease == null ? "" : lease;
+                return Single.just(resp.statusCode());
             }
             else
             {
                 log.error("Failed to register service");
-                return Completable.error(new RuntimeException("PUT request failed with code:" + resp.statusCode() + ", result message:" + resp.statusMessage()
-                                                              + " and body:" + resp.bodyAsString()));
+                return Single.error(new RuntimeException("PUT request failed with code:" + resp.statusCode() + ", result message:" + resp.statusMessage()
+                                                         + " and body:" + resp.bodyAsString()));
             }
         });
     }
@@ -1,10 +1,12 @@
 package com.intracom.chat;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
@@ -14,10 +16,12 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.intracom.chat.ServerParameters.ServerParametersBuilder;
 import com.intracom.common.utilities.Jackson;
 import com.intracom.common.web.WebServer;
+import com.intracom.model.Message;
 import com.intracom.model.Request;
 import com.intracom.model.Request.RequestBuilder;
 import com.intracom.model.ServiceDiscovery.ServiceDiscoveryBuilder;
@@ -25,12 +29,14 @@ import com.intracom.model.ServiceDiscovery.ServiceDiscoveryBuilder;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.vertx.core.http.HttpVersion;
 import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.buffer.Buffer;
 
 public class ChatHandlerTest
 {
 
     private static final Logger log = LoggerFactory.getLogger(ChatHandlerTest.class);
     private static final URI CHAT_MESSAGES_URI = URI.create("/chat/messages");
+    private static final URI CHAT_MESSAGES_BATCH_URI = URI.create("/chat/messages/batch");
     private static final ObjectMapper json = Jackson.om();
     private static final String CHAT_SERVER_LOCAL_HOST = "127.0.0.76";
     private static final Integer CHAT_SERVER_LOCAL_PORT = 8081;
@@ -106,6 +112,38 @@ public class ChatHandlerTest
         }
     }
 
+    @Test
+    public void batchRequest() throws JsonProcessingException
+    {
+        log.info(">>> Class: {}. Test: {}", ChatHandlerTest.class.getName(), "Test batch request to ChatHandler");
+
+        var requests = new ArrayList<Request>();
+        for (int i = 0; i < 5; i++)
+            requests.add(new RequestBuilder("user-" + i, "message " + i, new DateTime(), new ArrayList<>()).build());
+
+        var response = client.get(CHAT_SERVER_LOCAL_PORT, //
+                                  CHAT_SERVER_LOCAL_HOST, //
+                                  CHAT_MESSAGES_BATCH_URI.getPath())
+                             .putHeader("Content-Type", "application/json")
+                             .rxSendBuffer(Buffer.buffer(json.writeValueAsString(requests)))
+                             .blockingGet();
+        assertEquals(response.statusCode(), HttpResponseStatus.ACCEPTED.code());
+
+        List<Message> replies = json.readValue(response.bodyAsString(), new TypeReference<List<Message>>()
+        {
+        });
+        assertEquals(replies.size(), requests.size(), "One reply per request expected");
+        for (int i = 0; i < replies.size(); i++)
+            assertEquals(replies.get(i).getOwner().orElse(null), "user-" + i, "Replies must keep the order of requests");
+
+        var invalid = client.get(CHAT_SERVER_LOCAL_PORT, //
+                                 CHAT_SERVER_LOCAL_HOST, //
+                                 CHAT_MESSAGES_BATCH_URI.getPath())
+                            .rxSendBuffer(Buffer.buffer("{\"user\":\"not a list\"}"))
+                            .blockingGet();
+        assertEquals(invalid.statusCode(), HttpResponseStatus.BAD_REQUEST.code());
+    }
+
     @BeforeClass
     public void beforeClass() throws NumberFormatException, UnknownHostException
     {
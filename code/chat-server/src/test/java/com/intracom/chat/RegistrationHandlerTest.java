@@ -30,6 +30,7 @@ public class RegistrationHandlerTest
 {
     private static final Logger log = LoggerFactory.getLogger(RegistrationHandlerTest.class);
     private static final URI REGISTRY_URI = URI.create("/registrations");
+    private static final URI REGISTRY_LEASE_URI = URI.create("/registrations/lease");
     private static final String REGISTRY_SERVER_LOCAL_HOST = "127.0.0.76";
     private static final Integer REGISTRY_SERVER_LOCAL_PORT = 8082;
     private static final ObjectMapper json = Jackson.om();
@@ -99,6 +100,17 @@ public class RegistrationHandlerTest
             });
         }));
 
+        // renew leases of the expected service only
+        this.registryServiceServer.configureRouter(router -> router.put(REGISTRY_LEASE_URI.getPath()).handler(routingContext ->
+        {
+            var request = routingContext.request();
+            log.info("Lease renewal request received {}", request.uri());
+            var known = CHAT_FUNCTION.equals(request.getParam("function")) && expectedService.getName().equals(request.getParam("name"));
+            routingContext.response() // create response object
+                          .setStatusCode(known ? HttpResponseStatus.NO_CONTENT.code() : HttpResponseStatus.NOT_FOUND.code()) // set response code 204 or 404
+                          .end(); // complete with response action
+        }));
+
         // starting web server
         this.registryServiceServer.startListener().blockingAwait();
         log.info("Registry Service server started.");
@@ -161,4 +173,32 @@ public class RegistrationHandlerTest
             testObserver.dispose();
         }
     }
+
+    @Test
+    public void checkLeaseRenewal() throws NumberFormatException, UnknownHostException
+    {
+        log.info(">>> Class: {}. Test: {}", RegistrationHandlerTest.class.getName(), "Test lease renewal request to Registry");
+
+        var renewalParams = new ServerParametersBuilder().withServerPodname("my-pod-name") //
+                                                         .withServerHost("my-chat-service") //
+                                                         .withServiceAddress("1.1.1.1") //
+                                                         .withServerPort(666) //
+                                                         .withServerFunction(CHAT_FUNCTION) //
+                                                         .withRegistryHost(REGISTRY_SERVER_LOCAL_HOST)
+                                                         .withRegistryPort(REGISTRY_SERVER_LOCAL_PORT) //
+                                                         .build();
+        var renewalHandler = new RegistrationHandler(renewalParams);
+        try
+        {
+            // renewal carries no service data
+            var response = renewalHandler.renew().blockingGet();
+            assertTrue(response.statusCode() == HttpResponseStatus.NO_CONTENT.code(), "Failed to renew lease of registered service");
+            assertTrue(renewalHandler.getLeaseId() == null, "Lease id must only be set by registration");
+        }
+        finally
+        {
+            renewalHandler.stop().blockingAwait();
+            renewalParams.getVertx().close();
+        }
+    }
 }
@@ -2,7 +2,10 @@ package com.intracom.common.utilities;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.MapperBuilder;
 import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.joda.JodaModule;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -11,6 +14,7 @@ import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
 public class Jackson
 {
     private static final JsonMapper OM = alteredObjectMapper();
+    private static final SmileMapper SMILE = alteredSmileMapper();
 
     private Jackson()
     {
@@ -18,18 +22,36 @@ public class Jackson
 
     public static JsonMapper alteredObjectMapper()
     {
-        return JsonMapper.builder()
-                         .addModules(new ParameterNamesModule(), //
-                                     new Jdk8Module(), //
-                                     new JavaTimeModule(), //
-                                     new JodaModule()) //
-                         .serializationInclusion(JsonInclude.Include.NON_NULL)
-                         .configure(DeserializationFeature.USE_LONG_FOR_INTS, true)
-                         .build();
+        return configure(JsonMapper.builder()).build();
+    }
+
+    /**
+     * @return mapper of the binary Smile encoding, configured like the JSON
+     *         mapper so both encode the same data model
+     */
+    public static SmileMapper alteredSmileMapper()
+    {
+        return configure(SmileMapper.builder()).build();
     }
 
     public static JsonMapper om()
     {
         return OM;
     }
-}
\ No newline at end of file
+
+    public static SmileMapper smile()
+    {
+        return SMILE;
+    }
+
+    private static <M extends ObjectMapper, B extends MapperBuilder<M, B>> B configure(B builder)
+    {
+        return builder.addModules(new ParameterNamesModule(), //
+                                  new Jdk8Module(), //
+                                  new JavaTimeModule(), //
+                                  new JodaModule(), //
+                                  new ServiceModule()) //
+                      .serializationInclusion(JsonInclude.Include.NON_NULL)
+                      .configure(DeserializationFeature.USE_LONG_FOR_INTS, true);
+    }
+}
@@ -0,0 +1,238 @@
+package com.intracom.common.utilities;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.Year;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.ResolvableDeserializer;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.intracom.model.Service;
+
+/**
+ * Hand-rolled serializer and deserializer of {@link Service}, the element
+ * repeated in every lookup, watch, replication and journal record.
+ * <p>
+ * The fields are written and read straight from the stream in schema order,
+ * without bean introspection, property lookups or buffering, and the service
+ * is created once with its constructor. Timestamps in the UTC form the Joda
+ * serializer writes by default are parsed in place, without a formatter.
+ * <p>
+ * The encoding is the one of the generated bean, except that a missing
+ * timestamp is omitted instead of being written as null. Timestamps are
+ * written by the Joda serializer, so WRITE_DATES_AS_TIMESTAMPS is honored.
+ * Unknown fields are rejected like the bean does, unless
+ * FAIL_ON_UNKNOWN_PROPERTIES is disabled.
+ */
+public class ServiceModule extends SimpleModule
+{
+    private static final long serialVersionUID = 1L;
+
+    public ServiceModule()
+    {
+        super(ServiceModule.class.getSimpleName());
+        this.addSerializer(Service.class, new ServiceSerializer());
+        this.addDeserializer(Service.class, new ServiceDeserializer());
+    }
+
+    /**
+     * @return the epoch millis of a timestamp of the form
+     *         yyyy-MM-ddTHH:mm:ss.SSSZ, Long.MIN_VALUE if the text has another
+     *         form or is not a valid date
+     */
+    public static long parseUtcMillis(char[] text,
+                                      int offset,
+                                      int length)
+    {
+        if (length != 24 || text[offset + 4] != '-' || text[offset + 7] != '-' || text[offset + 10] != 'T' || text[offset + 13] != ':'
+            || text[offset + 16] != ':' || text[offset + 19] != '.' || text[offset + 23] != 'Z')
+            return Long.MIN_VALUE;
+
+        var year = digits(text, offset, 4);
+        var month = digits(text, offset + 5, 2);
+        var day = digits(text, offset + 8, 2);
+        var hour = digits(text, offset + 11, 2);
+        var minute = digits(text, offset + 14, 2);
+        var second = digits(text, offset + 17, 2);
+        var millis = digits(text, offset + 20, 3);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month) || hour < 0 || hour > 23 || minute < 0
+            || minute > 59 || second < 0 || second > 59 || millis < 0)
+            return Long.MIN_VALUE;
+
+        return ((LocalDate.of(year, month, day).toEpochDay() * 24 + hour) * 60 + minute) * 60_000L + second * 1000L + millis;
+    }
+
+    /**
+     * @return the value of the decimal digits, -1 if there are other characters
+     */
+    private static int digits(char[] text,
+                              int offset,
+                              int count)
+    {
+        var value = 0;
+        for (int i = offset; i < offset + count; i++)
+        {
+            var digit = text[i] - '0';
+            if (digit < 0 || digit > 9)
+                return -1;
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year,
+                                     int month)
+    {
+        switch (month)
+        {
+            case 2:
+                return Year.isLeap(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    static class ServiceSerializer extends StdSerializer<Service> implements ResolvableSerializer
+    {
+        private static final long serialVersionUID = 1L;
+
+        private transient JsonSerializer<Object> timestamps;
+
+        ServiceSerializer()
+        {
+            super(Service.class);
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException
+        {
+            this.timestamps = provider.findValueSerializer(DateTime.class);
+        }
+
+        @Override
+        public void serialize(Service service,
+                              JsonGenerator gen,
+                              SerializerProvider provider) throws IOException
+        {
+            gen.writeStartObject(service);
+            if (service.getHost() != null)
+                gen.writeStringField("host", service.getHost());
+            if (service.getPort() != null)
+                gen.writeNumberField("port", service.getPort().doubleValue());
+            if (service.getName() != null)
+                gen.writeStringField("name", service.getName());
+            var timestamp = service.getTimestamp().orElse(null);
+            if (timestamp != null)
+            {
+                gen.writeFieldName("timestamp");
+                this.timestamps.serialize(timestamp, gen, provider);
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    static class ServiceDeserializer extends StdDeserializer<Service> implements ResolvableDeserializer
+    {
+        private static final long serialVersionUID = 1L;
+
+        private transient JsonDeserializer<Object> timestamps;
+
+        ServiceDeserializer()
+        {
+            super(Service.class);
+        }
+
+        @Override
+        public void resolve(DeserializationContext ctxt) throws JsonMappingException
+        {
+            this.timestamps = ctxt.findRootValueDeserializer(ctxt.constructType(DateTime.class));
+        }
+
+        @Override
+        public Service deserialize(JsonParser p,
+                                   DeserializationContext ctxt) throws IOException
+        {
+            String field;
+            if (p.isExpectedStartObjectToken())
+                field = p.nextFieldName();
+            else if (p.hasToken(JsonToken.FIELD_NAME))
+                field = p.currentName();
+            else
+                return (Service) ctxt.handleUnexpectedToken(Service.class, p);
+
+            String host = null;
+            Double port = null;
+            String name = null;
+            DateTime timestamp = null;
+            for (; field != null; field = p.nextFieldName())
+            {
+                if (p.nextToken() == JsonToken.VALUE_NULL)
+                    continue;
+
+                switch (field)
+                {
+                    case "host":
+                        host = this.text(p, ctxt);
+                        break;
+                    case "port":
+                        port = this._parseDoublePrimitive(p, ctxt);
+                        break;
+                    case "name":
+                        name = this.text(p, ctxt);
+                        break;
+                    case "timestamp":
+                        timestamp = this.timestamp(p, ctxt);
+                        break;
+                    default:
+                        ctxt.handleUnknownProperty(p, this, Service.class, field);
+                        break;
+                }
+            }
+            return new Service(host, port, name, timestamp);
+        }
+
+        /**
+         * Timestamps in the UTC form written by the Joda serializer are parsed
+         * in place, any other form by the Joda deserializer
+         */
+        private DateTime timestamp(JsonParser p,
+                                   DeserializationContext ctxt) throws IOException
+        {
+            // without an explicit time zone dates are adjusted to UTC
+            if (p.currentToken() == JsonToken.VALUE_STRING && !ctxt.getConfig().hasExplicitTimeZone())
+            {
+                var millis = parseUtcMillis(p.getTextCharacters(), p.getTextOffset(), p.getTextLength());
+                if (millis != Long.MIN_VALUE)
+                    return new DateTime(millis, DateTimeZone.UTC);
+            }
+            return (DateTime) this.timestamps.deserialize(p, ctxt);
+        }
+
+        private String text(JsonParser p,
+                            DeserializationContext ctxt) throws IOException
+        {
+            // scalars are coerced to text like the bean properties are
+            if (p.currentToken().isScalarValue())
+                return p.getValueAsString();
+            return (String) ctxt.handleUnexpectedToken(String.class, p);
+        }
+    }
+}
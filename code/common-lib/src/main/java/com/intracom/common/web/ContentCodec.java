@@ -0,0 +1,233 @@
+package com.intracom.common.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.EnumMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.intracom.common.utilities.Jackson;
+
+import io.netty.buffer.ByteBufInputStream;
+import io.reactivex.Completable;
+import io.vertx.reactivex.core.buffer.Buffer;
+
+/**
+ * Encodings of request and response bodies.
+ * <p>
+ * JSON is understood by every client and stays the default. Smile is the
+ * binary form of the same data model; it is smaller and cheaper to parse, and
+ * is used between the components of the service discovery whenever the
+ * receiving side asks for it with an Accept header.
+ * <p>
+ * Readers and writers are immutable and shared per type, so handlers never
+ * reconfigure the mappers of {@link Jackson} on the request path.
+ */
+public enum ContentCodec
+{
+    JSON("application/json", Jackson.om()),
+    SMILE("application/x-jackson-smile", Jackson.smile());
+
+    /**
+     * Accept header of internal clients, Smile preferred over JSON
+     */
+    public static final String PREFER_SMILE = "application/x-jackson-smile, application/json;q=0.5";
+
+    private final String mediaType;
+    private final ObjectMapper mapper;
+    private final ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Type, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    ContentCodec(String mediaType,
+                 ObjectMapper mapper)
+    {
+        this.mediaType = mediaType;
+        this.mapper = mapper;
+    }
+
+    public String getMediaType()
+    {
+        return this.mediaType;
+    }
+
+    public ObjectMapper getMapper()
+    {
+        return this.mapper;
+    }
+
+    /**
+     * @return the shared reader of the type, created on first use
+     */
+    public ObjectReader readerFor(Class<?> type)
+    {
+        return this.readerFor((Type) type);
+    }
+
+    public ObjectReader readerFor(TypeReference<?> type)
+    {
+        return this.readerFor(type.getType());
+    }
+
+    /**
+     * @return the shared writer of the type, created on first use, writing dates
+     *         as ISO8601 strings
+     */
+    public ObjectWriter writerFor(Class<?> type)
+    {
+        return this.writerFor((Type) type);
+    }
+
+    public ObjectWriter writerFor(TypeReference<?> type)
+    {
+        return this.writerFor(type.getType());
+    }
+
+    public <T> T decode(byte[] body,
+                        Class<T> type) throws IOException
+    {
+        return this.readerFor(type).readValue(body);
+    }
+
+    /**
+     * Decode a body in one pass, straight from the bytes of the buffer. Heap
+     * buffers are parsed in place and other buffers through a stream, so the
+     * body is neither copied nor converted to a String or JSON tree first.
+     */
+    public <T> T decode(Buffer body,
+                        Class<T> type) throws IOException
+    {
+        return this.decode(body.getDelegate(), this.readerFor(type));
+    }
+
+    public <T> T decode(Buffer body,
+                        TypeReference<T> type) throws IOException
+    {
+        return this.decode(body.getDelegate(), this.readerFor(type));
+    }
+
+    public <T> T decode(io.vertx.core.buffer.Buffer body,
+                        Class<T> type) throws IOException
+    {
+        return this.decode(body, this.readerFor(type));
+    }
+
+    private <T> T decode(io.vertx.core.buffer.Buffer body,
+                         ObjectReader reader) throws IOException
+    {
+        // a duplicate sharing the content, not a copy
+        var byteBuf = body.getByteBuf();
+        if (byteBuf.hasArray())
+            return reader.readValue(byteBuf.array(), byteBuf.arrayOffset() + byteBuf.readerIndex(), byteBuf.readableBytes());
+
+        try (var stream = new ByteBufInputStream(byteBuf))
+        {
+            return reader.readValue((InputStream) stream);
+        }
+    }
+
+    private ObjectReader readerFor(Type type)
+    {
+        return this.readers.computeIfAbsent(type, t -> this.mapper.readerFor(this.mapper.constructType(t)));
+    }
+
+    private ObjectWriter writerFor(Type type)
+    {
+        return this.writers.computeIfAbsent(type,
+                                            t -> this.mapper.writerFor(this.mapper.constructType(t)) //
+                                                            .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+    }
+
+    /**
+     * @param contentType The Content-Type header of a body, may be null
+     * @return the codec of the body, JSON if the header is missing or unknown
+     */
+    public static ContentCodec ofContentType(String contentType)
+    {
+        return contentType != null && SMILE.mediaType.equalsIgnoreCase(mediaType(contentType)) ? SMILE : JSON;
+    }
+
+    /**
+     * @param accept The Accept header of a request, may be null
+     * @return Smile if the client accepts it, JSON otherwise
+     */
+    public static ContentCodec negotiate(String accept)
+    {
+        if (accept == null || accept.isBlank())
+            return JSON;
+
+        for (var range : accept.split(","))
+        {
+            if (SMILE.mediaType.equalsIgnoreCase(mediaType(range)) && isAcceptable(range))
+                return SMILE;
+        }
+        return JSON;
+    }
+
+    /**
+     * @return the shared writers of the type for every codec
+     */
+    public static EnumMap<ContentCodec, ObjectWriter> writersFor(Class<?> type)
+    {
+        var writers = new EnumMap<ContentCodec, ObjectWriter>(ContentCodec.class);
+        for (var codec : values())
+            writers.put(codec, codec.writerFor(type));
+        return writers;
+    }
+
+    /**
+     * Create the readers and writers of the types for every codec. Creating them
+     * introspects the types and resolves their (de)serializers, which would
+     * otherwise delay the first requests.
+     *
+     * @param types Classes, or the types of {@link TypeReference}s
+     */
+    public static Completable warmUp(Type... types)
+    {
+        return Completable.fromAction(() ->
+        {
+            for (var codec : values())
+            {
+                for (var type : types)
+                {
+                    codec.readerFor(type);
+                    codec.writerFor(type);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return false if the media range is excluded with a zero quality value
+     */
+    private static boolean isAcceptable(String range)
+    {
+        for (var parameter : range.split(";"))
+        {
+            parameter = parameter.trim();
+            if (parameter.startsWith("q="))
+            {
+                try
+                {
+                    return Double.parseDouble(parameter.substring(2)) > 0;
+                }
+                catch (NumberFormatException e)
+                {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String mediaType(String header)
+    {
+        var parameters = header.indexOf(';');
+        return (parameters < 0 ? header : header.substring(0, parameters)).trim();
+    }
+}
@@ -11,13 +11,15 @@ import io.vertx.reactivex.core.Vertx;
 public class WebClient
 {
     private static final Logger log = LoggerFactory.getLogger(WebClient.class);
+    private final Single<io.vertx.reactivex.core.http.HttpClient> httpClient;
     private final Single<io.vertx.reactivex.ext.web.client.WebClient> webClient;
 
     public WebClient(Vertx vertx,
                      WebClientBuilder builder)
     {
         final var init = Completable.complete();
-        this.webClient = init.andThen(Single.fromCallable(() -> io.vertx.reactivex.ext.web.client.WebClient.create(vertx, builder.options))).cache();
+        this.httpClient = init.andThen(Single.fromCallable(() -> vertx.createHttpClient(builder.options))).cache();
+        this.webClient = this.httpClient.map(client -> io.vertx.reactivex.ext.web.client.WebClient.wrap(client, builder.options)).cache();
     }
 
     public static WebClientBuilder builder()
@@ -30,6 +32,15 @@ public class WebClient
         return this.webClient;
     }
 
+    /**
+     * @return the HTTP client used by the web client, for requests that stream
+     *         their bodies
+     */
+    public Single<io.vertx.reactivex.core.http.HttpClient> getHttpClient()
+    {
+        return this.httpClient;
+    }
+
     public Completable close()
     {
         return Completable.complete() //
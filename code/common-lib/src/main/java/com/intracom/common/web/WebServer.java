@@ -2,27 +2,42 @@ package com.intracom.common.web;
 
 import java.net.URI;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.reactivex.Completable;
+import io.reactivex.Single;
 import io.reactivex.subjects.BehaviorSubject;
 import io.reactivex.subjects.Subject;
+import io.vertx.core.DeploymentOptions;
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.ext.web.handler.LoggerFormat;
+import io.vertx.reactivex.core.AbstractVerticle;
 import io.vertx.reactivex.core.Vertx;
 import io.vertx.reactivex.core.http.HttpConnection;
 import io.vertx.reactivex.core.http.HttpServer;
 import io.vertx.reactivex.ext.web.Router;
 import io.vertx.reactivex.ext.web.handler.LoggerHandler;
 
+/**
+ * HTTP server serving the routes of one {@link Router}.
+ * <p>
+ * With more than one instance configured, additional servers listening on the
+ * same address are deployed as verticles. Vert.x shares the listening socket
+ * between them and distributes new connections round robin, so requests are
+ * handled on as many event loops as instances. All instances share the router,
+ * so route handlers must be safe to run on several event loops concurrently.
+ */
 public class WebServer
 {
     private static final Logger log = LoggerFactory.getLogger(WebServer.class);
@@ -33,6 +48,8 @@ public class WebServer
     private final boolean listenAll;
     private final Vertx vertx;
     private final URI baseUri;
+    private final int instances;
+    private final List<String> deployments = new ArrayList<>();
     
     private AtomicBoolean terminating = new AtomicBoolean(false);
     
@@ -57,24 +74,11 @@ public class WebServer
         this.vertx = vertx;
         this.options = new HttpServerOptions(builder.options);
         this.listenAll = builder.listenAll;
+        this.instances = builder.instances;
         this.baseUri = createBaseUri(options);
         this.router = router != null ? router : Router.router(vertx);
         this.httpServer = vertx.createHttpServer(this.options);
-
-        this.httpServer.connectionHandler(connection ->
-        {
-            if (!this.terminating.get())
-            {
-                addConnection(connection);
-                connection.closeHandler(event -> removeConnection(connection));
-            }
-            else
-            {
-                log.warn("Server is terminating, closing down newly established connection {}", connection.remoteAddress());
-
-                drainConnection(5 * 1000L, connection);
-            }
-        });
+        this.trackConnections(this.httpServer);
 
         // Enable HTTP tracing, if configured in builder
         if (builder.httpTracing)
@@ -96,6 +100,24 @@ public class WebServer
         }
     }
     
+    private void trackConnections(HttpServer server)
+    {
+        server.connectionHandler(connection ->
+        {
+            if (!this.terminating.get())
+            {
+                addConnection(connection);
+                connection.closeHandler(event -> removeConnection(connection));
+            }
+            else
+            {
+                log.warn("Server is terminating, closing down newly established connection {}", connection.remoteAddress());
+
+                drainConnection(5 * 1000L, connection);
+            }
+        });
+    }
+
     private void addConnection(HttpConnection conn)
     {
 
@@ -185,20 +207,68 @@ public class WebServer
         return this.baseUri;
     }
 
+    /**
+     * @return the number of servers sharing the listening port
+     */
+    public int getInstances()
+    {
+        return this.instances;
+    }
+
     public Completable startListener()
     {
         Completable init = Completable.complete();
         return init.andThen(prepareListener()) //
-                   .andThen((listenAll ? //
-                                       httpServer.rxListen(options.getPort()) : httpServer.rxListen()))
+                   .andThen(this.listen(this.httpServer))
                    .doOnError(e -> log.error("error starting listener", e)) //
                    .ignoreElement()
-                   .doOnComplete(() -> log.info("Server started {}", this));
+                   .andThen(this.deployInstances())
+                   .doOnComplete(() -> log.info("Server started {} with {} instances", this, this.instances));
     }
 
     public Completable stopListener()
     {
-        return this.httpServer.rxClose().doOnComplete(() -> log.info("Server {} terminated", this));
+        return this.undeployInstances()
+                   .andThen(this.httpServer.rxClose())
+                   .doOnComplete(() -> log.info("Server {} terminated", this));
+    }
+
+    /**
+     * Deploy the additional instances, each listening on its own event loop
+     */
+    private Completable deployInstances()
+    {
+        if (this.instances <= 1)
+            return Completable.complete();
+
+        return this.vertx.rxDeployVerticle(ServerVerticle::new, new DeploymentOptions().setInstances(this.instances - 1))
+                         .doOnSuccess(deployment ->
+                         {
+                             synchronized (this)
+                             {
+                                 this.deployments.add(deployment);
+                             }
+                         })
+                         .ignoreElement();
+    }
+
+    private Completable undeployInstances()
+    {
+        return Completable.defer(() ->
+        {
+            final List<String> deployed;
+            synchronized (this)
+            {
+                deployed = List.copyOf(this.deployments);
+                this.deployments.clear();
+            }
+            return Completable.merge(deployed.stream().map(this.vertx::rxUndeploy).collect(Collectors.toList()));
+        });
+    }
+
+    private Single<HttpServer> listen(HttpServer server)
+    {
+        return this.listenAll ? server.rxListen(this.options.getPort()) : server.rxListen();
     }
 
     private Completable prepareListener()
@@ -244,4 +314,27 @@ public class WebServer
     {
         return this.vertx;
     }
+
+    /**
+     * Additional server instance, created on the event loop of the verticle
+     */
+    private final class ServerVerticle extends AbstractVerticle
+    {
+        private HttpServer server;
+
+        @Override
+        public Completable rxStart()
+        {
+            this.server = this.vertx.createHttpServer(WebServer.this.options);
+            WebServer.this.trackConnections(this.server);
+            this.server.requestHandler(WebServer.this.router);
+            return WebServer.this.listen(this.server).ignoreElement();
+        }
+
+        @Override
+        public Completable rxStop()
+        {
+            return this.server == null ? Completable.complete() : this.server.rxClose();
+        }
+    }
 }
@@ -3,23 +3,32 @@ package com.intracom.common.web;
 import java.util.Objects;
 import java.util.function.Consumer;
 
+import com.intracom.common.utilities.EnvParams;
+
 import io.vertx.core.http.HttpServerOptions;
 import io.vertx.reactivex.core.Vertx;
 
 public class WebServerBuilder
 {
+    private static final int DEFAULT_INSTANCES = 1;
 
     final HttpServerOptions options;
     String host;
     int port;
     boolean httpTracing = false;
     boolean listenAll = false;
+    int instances;
 
+    /**
+     * Builder with default options, the number of instances is taken from
+     * SERVER_INSTANCES
+     */
     public WebServerBuilder()
     {
         this.options = new HttpServerOptions();
         this.host = options.getHost();
         this.port = options.getPort();
+        this.instances = Integer.parseInt(EnvParams.get("SERVER_INSTANCES", DEFAULT_INSTANCES));
     }
 
     public WebServerBuilder(WebServerBuilder builder)
@@ -29,6 +38,7 @@ public class WebServerBuilder
         this.port = builder.port;
         this.httpTracing = builder.httpTracing;
         this.listenAll = builder.listenAll;
+        this.instances = builder.instances;
     }
 
     public WebServer build(Vertx vertx)
@@ -55,6 +65,19 @@ public class WebServerBuilder
         return this;
     }
 
+    /**
+     * @param instances The number of servers sharing the port, each handling
+     *                  requests on its own event loop
+     */
+    public WebServerBuilder withInstances(final int instances)
+    {
+        if (instances < 1)
+            throw new IllegalArgumentException("Invalid number of instances " + instances);
+
+        this.instances = instances;
+        return this;
+    }
+
     public WebServerBuilder withOptions(Consumer<HttpServerOptions> httpServerOptionSetter)
     {
         Objects.requireNonNull(httpServerOptionSetter);
@@ -0,0 +1,166 @@
+
+package com.intracom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+
+/**
+ * Batch Response
+ * <p>
+ * Aggregated responses of all requests of a service discovery request.
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "results"
+})
+@Generated("jsonschema2pojo")
+public class BatchResponse {
+
+    /**
+     * The results in the order of the requests.
+     * (Required)
+     * 
+     */
+    @JsonProperty("results")
+    @JsonPropertyDescription("The results in the order of the requests.")
+    private List<BatchResult> results = new ArrayList<BatchResult>();
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public BatchResponse() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public BatchResponse(BatchResponse source) {
+        super();
+        this.results = source.results;
+    }
+
+    /**
+     * 
+     * @param results
+     */
+    public BatchResponse(List<BatchResult> results) {
+        super();
+        this.results = results;
+    }
+
+    /**
+     * The results in the order of the requests.
+     * (Required)
+     * 
+     */
+    @JsonProperty("results")
+    public List<BatchResult> getResults() {
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(BatchResponse.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("results");
+        sb.append('=');
+        sb.append(((this.results == null)?"<null>":this.results));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.results == null)? 0 :this.results.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof BatchResponse) == false) {
+            return false;
+        }
+        BatchResponse rhs = ((BatchResponse) other);
+        return ((this.results == rhs.results)||((this.results!= null)&&this.results.equals(rhs.results)));
+    }
+
+    public static class BatchResponseBuilder
+        extends BatchResponse.BatchResponseBuilderBase<BatchResponse>
+    {
+
+
+        public BatchResponseBuilder() {
+            super();
+        }
+
+        public BatchResponseBuilder(BatchResponse source) {
+            super(source);
+        }
+
+        public BatchResponseBuilder(List<BatchResult> results) {
+            super(results);
+        }
+
+    }
+
+    public static abstract class BatchResponseBuilderBase<T extends BatchResponse >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public BatchResponseBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(BatchResponse.BatchResponseBuilder.class)) {
+                this.instance = ((T) new BatchResponse());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public BatchResponseBuilderBase(BatchResponse source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(BatchResponse.BatchResponseBuilder.class)) {
+                this.instance = ((T) new BatchResponse(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public BatchResponseBuilderBase(List<BatchResult> results) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(BatchResponse.BatchResponseBuilder.class)) {
+                this.instance = ((T) new BatchResponse(results));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public BatchResponse.BatchResponseBuilderBase withResults(List<BatchResult> results) {
+            ((BatchResponse) this.instance).results = results;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,229 @@
+
+package com.intracom.model;
+
+import java.util.Optional;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+
+/**
+ * Response to a single request of the batch
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "index",
+    "status",
+    "message"
+})
+@Generated("jsonschema2pojo")
+public class BatchResult {
+
+    /**
+     * The position of the request in the service discovery request.
+     * (Required)
+     * 
+     */
+    @JsonProperty("index")
+    @JsonPropertyDescription("The position of the request in the service discovery request.")
+    private Long index;
+    /**
+     * The HTTP status code returned for the request.
+     * (Required)
+     * 
+     */
+    @JsonProperty("status")
+    @JsonPropertyDescription("The HTTP status code returned for the request.")
+    private Long status;
+    /**
+     * Message
+     * <p>
+     * Definition of a message.
+     * 
+     */
+    @JsonProperty("message")
+    @JsonPropertyDescription("Definition of a message.")
+    private Message message;
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public BatchResult() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public BatchResult(BatchResult source) {
+        super();
+        this.index = source.index;
+        this.status = source.status;
+        this.message = source.message;
+    }
+
+    /**
+     * 
+     * @param index
+     * @param message
+     * @param status
+     */
+    public BatchResult(Long index, Long status, Message message) {
+        super();
+        this.index = index;
+        this.status = status;
+        this.message = message;
+    }
+
+    /**
+     * The position of the request in the service discovery request.
+     * (Required)
+     * 
+     */
+    @JsonProperty("index")
+    public Long getIndex() {
+        return index;
+    }
+
+    /**
+     * The HTTP status code returned for the request.
+     * (Required)
+     * 
+     */
+    @JsonProperty("status")
+    public Long getStatus() {
+        return status;
+    }
+
+    /**
+     * Message
+     * <p>
+     * Definition of a message.
+     * 
+     */
+    @JsonProperty("message")
+    public Optional<Message> getMessage() {
+        return Optional.ofNullable(message);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(BatchResult.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("index");
+        sb.append('=');
+        sb.append(((this.index == null)?"<null>":this.index));
+        sb.append(',');
+        sb.append("status");
+        sb.append('=');
+        sb.append(((this.status == null)?"<null>":this.status));
+        sb.append(',');
+        sb.append("message");
+        sb.append('=');
+        sb.append(((this.message == null)?"<null>":this.message));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.index == null)? 0 :this.index.hashCode()));
+        result = ((result* 31)+((this.message == null)? 0 :this.message.hashCode()));
+        result = ((result* 31)+((this.status == null)? 0 :this.status.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof BatchResult) == false) {
+            return false;
+        }
+        BatchResult rhs = ((BatchResult) other);
+        return ((((this.index == rhs.index)||((this.index!= null)&&this.index.equals(rhs.index)))&&((this.message == rhs.message)||((this.message!= null)&&this.message.equals(rhs.message))))&&((this.status == rhs.status)||((this.status!= null)&&this.status.equals(rhs.status))));
+    }
+
+    public static class BatchResultBuilder
+        extends BatchResult.BatchResultBuilderBase<BatchResult>
+    {
+
+
+        public BatchResultBuilder() {
+            super();
+        }
+
+        public BatchResultBuilder(BatchResult source) {
+            super(source);
+        }
+
+        public BatchResultBuilder(Long index, Long status, Message message) {
+            super(index, status, message);
+        }
+
+    }
+
+    public static abstract class BatchResultBuilderBase<T extends BatchResult >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public BatchResultBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(BatchResult.BatchResultBuilder.class)) {
+                this.instance = ((T) new BatchResult());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public BatchResultBuilderBase(BatchResult source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(BatchResult.BatchResultBuilder.class)) {
+                this.instance = ((T) new BatchResult(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public BatchResultBuilderBase(Long index, Long status, Message message) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(BatchResult.BatchResultBuilder.class)) {
+                this.instance = ((T) new BatchResult(index, status, message));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public BatchResult.BatchResultBuilderBase withIndex(Long index) {
+            ((BatchResult) this.instance).index = index;
+            return this;
+        }
+
+        public BatchResult.BatchResultBuilderBase withStatus(Long status) {
+            ((BatchResult) this.instance).status = status;
+            return this;
+        }
+
+        public BatchResult.BatchResultBuilderBase withMessage(Message message) {
+            ((BatchResult) this.instance).message = message;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,195 @@
+
+package com.intracom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+
+/**
+ * Bulk Registration
+ * <p>
+ * Registrations and lease renewals of many services of many functions in one request.
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "registrations",
+    "renewals"
+})
+@Generated("jsonschema2pojo")
+public class BulkRegistration {
+
+    /**
+     * The services to register, grouped by function. The services of a function are applied together.
+     * 
+     */
+    @JsonProperty("registrations")
+    @JsonPropertyDescription("The services to register, grouped by function. The services of a function are applied together.")
+    private List<ServiceRegistry> registrations = new ArrayList<ServiceRegistry>();
+    /**
+     * The leases to renew.
+     * 
+     */
+    @JsonProperty("renewals")
+    @JsonPropertyDescription("The leases to renew.")
+    private List<LeaseRenewal> renewals = new ArrayList<LeaseRenewal>();
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public BulkRegistration() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public BulkRegistration(BulkRegistration source) {
+        super();
+        this.registrations = source.registrations;
+        this.renewals = source.renewals;
+    }
+
+    /**
+     * 
+     * @param registrations
+     * @param renewals
+     */
+    public BulkRegistration(List<ServiceRegistry> registrations, List<LeaseRenewal> renewals) {
+        super();
+        this.registrations = registrations;
+        this.renewals = renewals;
+    }
+
+    /**
+     * The services to register, grouped by function. The services of a function are applied together.
+     * 
+     */
+    @JsonProperty("registrations")
+    public Optional<List<ServiceRegistry>> getRegistrations() {
+        return Optional.ofNullable(registrations);
+    }
+
+    /**
+     * The leases to renew.
+     * 
+     */
+    @JsonProperty("renewals")
+    public Optional<List<LeaseRenewal>> getRenewals() {
+        return Optional.ofNullable(renewals);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(BulkRegistration.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("registrations");
+        sb.append('=');
+        sb.append(((this.registrations == null)?"<null>":this.registrations));
+        sb.append(',');
+        sb.append("renewals");
+        sb.append('=');
+        sb.append(((this.renewals == null)?"<null>":this.renewals));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.renewals == null)? 0 :this.renewals.hashCode()));
+        result = ((result* 31)+((this.registrations == null)? 0 :this.registrations.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof BulkRegistration) == false) {
+            return false;
+        }
+        BulkRegistration rhs = ((BulkRegistration) other);
+        return (((this.renewals == rhs.renewals)||((this.renewals!= null)&&this.renewals.equals(rhs.renewals)))&&((this.registrations == rhs.registrations)||((this.registrations!= null)&&this.registrations.equals(rhs.registrations))));
+    }
+
+    public static class BulkRegistrationBuilder
+        extends BulkRegistration.BulkRegistrationBuilderBase<BulkRegistration>
+    {
+
+
+        public BulkRegistrationBuilder() {
+            super();
+        }
+
+        public BulkRegistrationBuilder(BulkRegistration source) {
+            super(source);
+        }
+
+        public BulkRegistrationBuilder(List<ServiceRegistry> registrations, List<LeaseRenewal> renewals) {
+            super(registrations, renewals);
+        }
+
+    }
+
+    public static abstract class BulkRegistrationBuilderBase<T extends BulkRegistration >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public BulkRegistrationBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(BulkRegistration.BulkRegistrationBuilder.class)) {
+                this.instance = ((T) new BulkRegistration());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public BulkRegistrationBuilderBase(BulkRegistration source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(BulkRegistration.BulkRegistrationBuilder.class)) {
+                this.instance = ((T) new BulkRegistration(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public BulkRegistrationBuilderBase(List<ServiceRegistry> registrations, List<LeaseRenewal> renewals) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(BulkRegistration.BulkRegistrationBuilder.class)) {
+                this.instance = ((T) new BulkRegistration(registrations, renewals));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public BulkRegistration.BulkRegistrationBuilderBase withRegistrations(List<ServiceRegistry> registrations) {
+            ((BulkRegistration) this.instance).registrations = registrations;
+            return this;
+        }
+
+        public BulkRegistration.BulkRegistrationBuilderBase withRenewals(List<LeaseRenewal> renewals) {
+            ((BulkRegistration) this.instance).renewals = renewals;
+            return this;
+        }
+
+    }
+
+}
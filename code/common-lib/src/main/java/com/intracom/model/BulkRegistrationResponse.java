@@ -0,0 +1,198 @@
+
+package com.intracom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+
+/**
+ * Bulk Registration Response
+ * <p>
+ * Results of all registrations and lease renewals of a bulk registration.
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "registrations",
+    "renewals"
+})
+@Generated("jsonschema2pojo")
+public class BulkRegistrationResponse {
+
+    /**
+     * The results of the registered services, in the order of the services in the request.
+     * (Required)
+     * 
+     */
+    @JsonProperty("registrations")
+    @JsonPropertyDescription("The results of the registered services, in the order of the services in the request.")
+    private List<RegistrationResult> registrations = new ArrayList<RegistrationResult>();
+    /**
+     * The results of the lease renewals, in the order of the renewals in the request.
+     * (Required)
+     * 
+     */
+    @JsonProperty("renewals")
+    @JsonPropertyDescription("The results of the lease renewals, in the order of the renewals in the request.")
+    private List<RegistrationResult> renewals = new ArrayList<RegistrationResult>();
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public BulkRegistrationResponse() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public BulkRegistrationResponse(BulkRegistrationResponse source) {
+        super();
+        this.registrations = source.registrations;
+        this.renewals = source.renewals;
+    }
+
+    /**
+     * 
+     * @param registrations
+     * @param renewals
+     */
+    public BulkRegistrationResponse(List<RegistrationResult> registrations, List<RegistrationResult> renewals) {
+        super();
+        this.registrations = registrations;
+        this.renewals = renewals;
+    }
+
+    /**
+     * The results of the registered services, in the order of the services in the request.
+     * (Required)
+     * 
+     */
+    @JsonProperty("registrations")
+    public List<RegistrationResult> getRegistrations() {
+        return registrations;
+    }
+
+    /**
+     * The results of the lease renewals, in the order of the renewals in the request.
+     * (Required)
+     * 
+     */
+    @JsonProperty("renewals")
+    public List<RegistrationResult> getRenewals() {
+        return renewals;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(BulkRegistrationResponse.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("registrations");
+        sb.append('=');
+        sb.append(((this.registrations == null)?"<null>":this.registrations));
+        sb.append(',');
+        sb.append("renewals");
+        sb.append('=');
+        sb.append(((this.renewals == null)?"<null>":this.renewals));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.renewals == null)? 0 :this.renewals.hashCode()));
+        result = ((result* 31)+((this.registrations == null)? 0 :this.registrations.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof BulkRegistrationResponse) == false) {
+            return false;
+        }
+        BulkRegistrationResponse rhs = ((BulkRegistrationResponse) other);
+        return (((this.renewals == rhs.renewals)||((this.renewals!= null)&&this.renewals.equals(rhs.renewals)))&&((this.registrations == rhs.registrations)||((this.registrations!= null)&&this.registrations.equals(rhs.registrations))));
+    }
+
+    public static class BulkRegistrationResponseBuilder
+        extends BulkRegistrationResponse.BulkRegistrationResponseBuilderBase<BulkRegistrationResponse>
+    {
+
+
+        public BulkRegistrationResponseBuilder() {
+            super();
+        }
+
+        public BulkRegistrationResponseBuilder(BulkRegistrationResponse source) {
+            super(source);
+        }
+
+        public BulkRegistrationResponseBuilder(List<RegistrationResult> registrations, List<RegistrationResult> renewals) {
+            super(registrations, renewals);
+        }
+
+    }
+
+    public static abstract class BulkRegistrationResponseBuilderBase<T extends BulkRegistrationResponse >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public BulkRegistrationResponseBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(BulkRegistrationResponse.BulkRegistrationResponseBuilder.class)) {
+                this.instance = ((T) new BulkRegistrationResponse());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public BulkRegistrationResponseBuilderBase(BulkRegistrationResponse source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(BulkRegistrationResponse.BulkRegistrationResponseBuilder.class)) {
+                this.instance = ((T) new BulkRegistrationResponse(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public BulkRegistrationResponseBuilderBase(List<RegistrationResult> registrations, List<RegistrationResult> renewals) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(BulkRegistrationResponse.BulkRegistrationResponseBuilder.class)) {
+                this.instance = ((T) new BulkRegistrationResponse(registrations, renewals));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public BulkRegistrationResponse.BulkRegistrationResponseBuilderBase withRegistrations(List<RegistrationResult> registrations) {
+            ((BulkRegistrationResponse) this.instance).registrations = registrations;
+            return this;
+        }
+
+        public BulkRegistrationResponse.BulkRegistrationResponseBuilderBase withRenewals(List<RegistrationResult> renewals) {
+            ((BulkRegistrationResponse) this.instance).renewals = renewals;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,225 @@
+
+package com.intracom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+
+/**
+ * Registered and recently removed services of a function
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "function",
+    "services",
+    "removals"
+})
+@Generated("jsonschema2pojo")
+public class FunctionState {
+
+    /**
+     * The server function.
+     * (Required)
+     * 
+     */
+    @JsonProperty("function")
+    @JsonPropertyDescription("The server function.")
+    private String function;
+    /**
+     * The registered services of the function.
+     * 
+     */
+    @JsonProperty("services")
+    @JsonPropertyDescription("The registered services of the function.")
+    private List<Service> services = new ArrayList<Service>();
+    /**
+     * The services removed from the function and not registered again since.
+     * 
+     */
+    @JsonProperty("removals")
+    @JsonPropertyDescription("The services removed from the function and not registered again since.")
+    private List<Removal> removals = new ArrayList<Removal>();
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public FunctionState() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public FunctionState(FunctionState source) {
+        super();
+        this.function = source.function;
+        this.services = source.services;
+        this.removals = source.removals;
+    }
+
+    /**
+     * 
+     * @param function
+     * @param removals
+     * @param services
+     */
+    public FunctionState(String function, List<Service> services, List<Removal> removals) {
+        super();
+        this.function = function;
+        this.services = services;
+        this.removals = removals;
+    }
+
+    /**
+     * The server function.
+     * (Required)
+     * 
+     */
+    @JsonProperty("function")
+    public String getFunction() {
+        return function;
+    }
+
+    /**
+     * The registered services of the function.
+     * 
+     */
+    @JsonProperty("services")
+    public Optional<List<Service>> getServices() {
+        return Optional.ofNullable(services);
+    }
+
+    /**
+     * The services removed from the function and not registered again since.
+     * 
+     */
+    @JsonProperty("removals")
+    public Optional<List<Removal>> getRemovals() {
+        return Optional.ofNullable(removals);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(FunctionState.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("function");
+        sb.append('=');
+        sb.append(((this.function == null)?"<null>":this.function));
+        sb.append(',');
+        sb.append("services");
+        sb.append('=');
+        sb.append(((this.services == null)?"<null>":this.services));
+        sb.append(',');
+        sb.append("removals");
+        sb.append('=');
+        sb.append(((this.removals == null)?"<null>":this.removals));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.removals == null)? 0 :this.removals.hashCode()));
+        result = ((result* 31)+((this.services == null)? 0 :this.services.hashCode()));
+        result = ((result* 31)+((this.function == null)? 0 :this.function.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof FunctionState) == false) {
+            return false;
+        }
+        FunctionState rhs = ((FunctionState) other);
+        return ((((this.removals == rhs.removals)||((this.removals!= null)&&this.removals.equals(rhs.removals)))&&((this.services == rhs.services)||((this.services!= null)&&this.services.equals(rhs.services))))&&((this.function == rhs.function)||((this.function!= null)&&this.function.equals(rhs.function))));
+    }
+
+    public static class FunctionStateBuilder
+        extends FunctionState.FunctionStateBuilderBase<FunctionState>
+    {
+
+
+        public FunctionStateBuilder() {
+            super();
+        }
+
+        public FunctionStateBuilder(FunctionState source) {
+            super(source);
+        }
+
+        public FunctionStateBuilder(String function, List<Service> services, List<Removal> removals) {
+            super(function, services, removals);
+        }
+
+    }
+
+    public static abstract class FunctionStateBuilderBase<T extends FunctionState >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public FunctionStateBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(FunctionState.FunctionStateBuilder.class)) {
+                this.instance = ((T) new FunctionState());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public FunctionStateBuilderBase(FunctionState source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(FunctionState.FunctionStateBuilder.class)) {
+                this.instance = ((T) new FunctionState(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public FunctionStateBuilderBase(String function, List<Service> services, List<Removal> removals) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(FunctionState.FunctionStateBuilder.class)) {
+                this.instance = ((T) new FunctionState(function, services, removals));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public FunctionState.FunctionStateBuilderBase withFunction(String function) {
+            ((FunctionState) this.instance).function = function;
+            return this;
+        }
+
+        public FunctionState.FunctionStateBuilderBase withServices(List<Service> services) {
+            ((FunctionState) this.instance).services = services;
+            return this;
+        }
+
+        public FunctionState.FunctionStateBuilderBase withRemovals(List<Removal> removals) {
+            ((FunctionState) this.instance).removals = removals;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,225 @@
+
+package com.intracom.model;
+
+import java.util.Optional;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+
+/**
+ * Renewal of the lease of a registered service
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "function",
+    "name",
+    "lease"
+})
+@Generated("jsonschema2pojo")
+public class LeaseRenewal {
+
+    /**
+     * The function the service is registered for.
+     * (Required)
+     * 
+     */
+    @JsonProperty("function")
+    @JsonPropertyDescription("The function the service is registered for.")
+    private String function;
+    /**
+     * The name of server service instance or pod name
+     * (Required)
+     * 
+     */
+    @JsonProperty("name")
+    @JsonPropertyDescription("The name of server service instance or pod name")
+    private String name;
+    /**
+     * The lease id returned on registration, renew whatever is registered under the name if missing.
+     * 
+     */
+    @JsonProperty("lease")
+    @JsonPropertyDescription("The lease id returned on registration, renew whatever is registered under the name if missing.")
+    private String lease;
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public LeaseRenewal() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public LeaseRenewal(LeaseRenewal source) {
+        super();
+        this.function = source.function;
+        this.name = source.name;
+        this.lease = source.lease;
+    }
+
+    /**
+     * 
+     * @param function
+     * @param name
+     * @param lease
+     */
+    public LeaseRenewal(String function, String name, String lease) {
+        super();
+        this.function = function;
+        this.name = name;
+        this.lease = lease;
+    }
+
+    /**
+     * The function the service is registered for.
+     * (Required)
+     * 
+     */
+    @JsonProperty("function")
+    public String getFunction() {
+        return function;
+    }
+
+    /**
+     * The name of server service instance or pod name
+     * (Required)
+     * 
+     */
+    @JsonProperty("name")
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The lease id returned on registration, renew whatever is registered under the name if missing.
+     * 
+     */
+    @JsonProperty("lease")
+    public Optional<String> getLease() {
+        return Optional.ofNullable(lease);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(LeaseRenewal.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("function");
+        sb.append('=');
+        sb.append(((this.function == null)?"<null>":this.function));
+        sb.append(',');
+        sb.append("name");
+        sb.append('=');
+        sb.append(((this.name == null)?"<null>":this.name));
+        sb.append(',');
+        sb.append("lease");
+        sb.append('=');
+        sb.append(((this.lease == null)?"<null>":this.lease));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.name == null)? 0 :this.name.hashCode()));
+        result = ((result* 31)+((this.lease == null)? 0 :this.lease.hashCode()));
+        result = ((result* 31)+((this.function == null)? 0 :this.function.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof LeaseRenewal) == false) {
+            return false;
+        }
+        LeaseRenewal rhs = ((LeaseRenewal) other);
+        return ((((this.name == rhs.name)||((this.name!= null)&&this.name.equals(rhs.name)))&&((this.lease == rhs.lease)||((this.lease!= null)&&this.lease.equals(rhs.lease))))&&((this.function == rhs.function)||((this.function!= null)&&this.function.equals(rhs.function))));
+    }
+
+    public static class LeaseRenewalBuilder
+        extends LeaseRenewal.LeaseRenewalBuilderBase<LeaseRenewal>
+    {
+
+
+        public LeaseRenewalBuilder() {
+            super();
+        }
+
+        public LeaseRenewalBuilder(LeaseRenewal source) {
+            super(source);
+        }
+
+        public LeaseRenewalBuilder(String function, String name, String lease) {
+            super(function, name, lease);
+        }
+
+    }
+
+    public static abstract class LeaseRenewalBuilderBase<T extends LeaseRenewal >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public LeaseRenewalBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(LeaseRenewal.LeaseRenewalBuilder.class)) {
+                this.instance = ((T) new LeaseRenewal());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public LeaseRenewalBuilderBase(LeaseRenewal source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(LeaseRenewal.LeaseRenewalBuilder.class)) {
+                this.instance = ((T) new LeaseRenewal(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public LeaseRenewalBuilderBase(String function, String name, String lease) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(LeaseRenewal.LeaseRenewalBuilder.class)) {
+                this.instance = ((T) new LeaseRenewal(function, name, lease));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public LeaseRenewal.LeaseRenewalBuilderBase withFunction(String function) {
+            ((LeaseRenewal) this.instance).function = function;
+            return this;
+        }
+
+        public LeaseRenewal.LeaseRenewalBuilderBase withName(String name) {
+            ((LeaseRenewal) this.instance).name = name;
+            return this;
+        }
+
+        public LeaseRenewal.LeaseRenewalBuilderBase withLease(String lease) {
+            ((LeaseRenewal) this.instance).lease = lease;
+            return this;
+        }
+
+    }
+
+}
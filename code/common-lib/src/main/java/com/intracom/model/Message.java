@@ -0,0 +1,289 @@
+
+package com.intracom.model;
+
+import java.util.Optional;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+
+/**
+ * Message
+ * <p>
+ * Definition of a message.
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "id",
+    "user",
+    "message",
+    "recipient",
+    "owner"
+})
+@Generated("jsonschema2pojo")
+public class Message {
+
+    /**
+     * An identifier uniquely identifying messages.
+     * 
+     */
+    @JsonProperty("id")
+    @JsonPropertyDescription("An identifier uniquely identifying messages.")
+    private Long id;
+    /**
+     * The message owner.
+     * (Required)
+     * 
+     */
+    @JsonProperty("user")
+    @JsonPropertyDescription("The message owner.")
+    private String user;
+    /**
+     * The message data, min length 1 char and max length 160 chars 
+     * (Required)
+     * 
+     */
+    @JsonProperty("message")
+    @JsonPropertyDescription("The message data, min length 1 char and max length 160 chars ")
+    private String message;
+    /**
+     * The indication if current user is recipient of message author.
+     * (Required)
+     * 
+     */
+    @JsonProperty("recipient")
+    @JsonPropertyDescription("The indication if current user is recipient of message author.")
+    private Boolean recipient;
+    /**
+     * The real owner if current user is not, NULL otherwise.
+     * 
+     */
+    @JsonProperty("owner")
+    @JsonPropertyDescription("The real owner if current user is not, NULL otherwise.")
+    private String owner;
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public Message() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public Message(Message source) {
+        super();
+        this.id = source.id;
+        this.user = source.user;
+        this.message = source.message;
+        this.recipient = source.recipient;
+        this.owner = source.owner;
+    }
+
+    /**
+     * 
+     * @param owner
+     * @param recipient
+     * @param id
+     * @param message
+     * @param user
+     */
+    public Message(Long id, String user, String message, Boolean recipient, String owner) {
+        super();
+        this.id = id;
+        this.user = user;
+        this.message = message;
+        this.recipient = recipient;
+        this.owner = owner;
+    }
+
+    /**
+     * An identifier uniquely identifying messages.
+     * 
+     */
+    @JsonProperty("id")
+    public Optional<Long> getId() {
+        return Optional.ofNullable(id);
+    }
+
+    /**
+     * The message owner.
+     * (Required)
+     * 
+     */
+    @JsonProperty("user")
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * The message data, min length 1 char and max length 160 chars 
+     * (Required)
+     * 
+     */
+    @JsonProperty("message")
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * The indication if current user is recipient of message author.
+     * (Required)
+     * 
+     */
+    @JsonProperty("recipient")
+    public Boolean getRecipient() {
+        return recipient;
+    }
+
+    /**
+     * The real owner if current user is not, NULL otherwise.
+     * 
+     */
+    @JsonProperty("owner")
+    public Optional<String> getOwner() {
+        return Optional.ofNullable(owner);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(Message.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("id");
+        sb.append('=');
+        sb.append(((this.id == null)?"<null>":this.id));
+        sb.append(',');
+        sb.append("user");
+        sb.append('=');
+        sb.append(((this.user == null)?"<null>":this.user));
+        sb.append(',');
+        sb.append("message");
+        sb.append('=');
+        sb.append(((this.message == null)?"<null>":this.message));
+        sb.append(',');
+        sb.append("recipient");
+        sb.append('=');
+        sb.append(((this.recipient == null)?"<null>":this.recipient));
+        sb.append(',');
+        sb.append("owner");
+        sb.append('=');
+        sb.append(((this.owner == null)?"<null>":this.owner));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.recipient == null)? 0 :this.recipient.hashCode()));
+        result = ((result* 31)+((this.owner == null)? 0 :this.owner.hashCode()));
+        result = ((result* 31)+((this.id == null)? 0 :this.id.hashCode()));
+        result = ((result* 31)+((this.message == null)? 0 :this.message.hashCode()));
+        result = ((result* 31)+((this.user == null)? 0 :this.user.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof Message) == false) {
+            return false;
+        }
+        Message rhs = ((Message) other);
+        return ((((((this.recipient == rhs.recipient)||((this.recipient!= null)&&this.recipient.equals(rhs.recipient)))&&((this.owner == rhs.owner)||((this.owner!= null)&&this.owner.equals(rhs.owner))))&&((this.id == rhs.id)||((this.id!= null)&&this.id.equals(rhs.id))))&&((this.message == rhs.message)||((this.message!= null)&&this.message.equals(rhs.message))))&&((this.user == rhs.user)||((this.user!= null)&&this.user.equals(rhs.user))));
+    }
+
+    public static class MessageBuilder
+        extends Message.MessageBuilderBase<Message>
+    {
+
+
+        public MessageBuilder() {
+            super();
+        }
+
+        public MessageBuilder(Message source) {
+            super(source);
+        }
+
+        public MessageBuilder(Long id, String user, String message, Boolean recipient, String owner) {
+            super(id, user, message, recipient, owner);
+        }
+
+    }
+
+    public static abstract class MessageBuilderBase<T extends Message >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public MessageBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Message.MessageBuilder.class)) {
+                this.instance = ((T) new Message());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public MessageBuilderBase(Message source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Message.MessageBuilder.class)) {
+                this.instance = ((T) new Message(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public MessageBuilderBase(Long id, String user, String message, Boolean recipient, String owner) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Message.MessageBuilder.class)) {
+                this.instance = ((T) new Message(id, user, message, recipient, owner));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public Message.MessageBuilderBase withId(Long id) {
+            ((Message) this.instance).id = id;
+            return this;
+        }
+
+        public Message.MessageBuilderBase withUser(String user) {
+            ((Message) this.instance).user = user;
+            return this;
+        }
+
+        public Message.MessageBuilderBase withMessage(String message) {
+            ((Message) this.instance).message = message;
+            return this;
+        }
+
+        public Message.MessageBuilderBase withRecipient(Boolean recipient) {
+            ((Message) this.instance).recipient = recipient;
+            return this;
+        }
+
+        public Message.MessageBuilderBase withOwner(String owner) {
+            ((Message) this.instance).owner = owner;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,276 @@
+
+package com.intracom.model;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+
+/**
+ * Single change of the registered services of a function
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "type",
+    "version",
+    "service"
+})
+@Generated("jsonschema2pojo")
+public class RegistrationEvent {
+
+    /**
+     * The kind of change.
+     * (Required)
+     * 
+     */
+    @JsonProperty("type")
+    @JsonPropertyDescription("The kind of change.")
+    private RegistrationEvent.Type type;
+    /**
+     * The version of the function registrations after the change.
+     * (Required)
+     * 
+     */
+    @JsonProperty("version")
+    @JsonPropertyDescription("The version of the function registrations after the change.")
+    private Long version;
+    /**
+     * Registered service of specific server function
+     * (Required)
+     * 
+     */
+    @JsonProperty("service")
+    @JsonPropertyDescription("Registered service of specific server function")
+    private Service service;
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public RegistrationEvent() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public RegistrationEvent(RegistrationEvent source) {
+        super();
+        this.type = source.type;
+        this.version = source.version;
+        this.service = source.service;
+    }
+
+    /**
+     * 
+     * @param service
+     * @param type
+     * @param version
+     */
+    public RegistrationEvent(RegistrationEvent.Type type, Long version, Service service) {
+        super();
+        this.type = type;
+        this.version = version;
+        this.service = service;
+    }
+
+    /**
+     * The kind of change.
+     * (Required)
+     * 
+     */
+    @JsonProperty("type")
+    public RegistrationEvent.Type getType() {
+        return type;
+    }
+
+    /**
+     * The version of the function registrations after the change.
+     * (Required)
+     * 
+     */
+    @JsonProperty("version")
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Registered service of specific server function
+     * (Required)
+     * 
+     */
+    @JsonProperty("service")
+    public Service getService() {
+        return service;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(RegistrationEvent.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("type");
+        sb.append('=');
+        sb.append(((this.type == null)?"<null>":this.type));
+        sb.append(',');
+        sb.append("version");
+        sb.append('=');
+        sb.append(((this.version == null)?"<null>":this.version));
+        sb.append(',');
+        sb.append("service");
+        sb.append('=');
+        sb.append(((this.service == null)?"<null>":this.service));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.type == null)? 0 :this.type.hashCode()));
+        result = ((result* 31)+((this.version == null)? 0 :this.version.hashCode()));
+        result = ((result* 31)+((this.service == null)? 0 :this.service.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof RegistrationEvent) == false) {
+            return false;
+        }
+        RegistrationEvent rhs = ((RegistrationEvent) other);
+        return ((((this.type == rhs.type)||((this.type!= null)&&this.type.equals(rhs.type)))&&((this.version == rhs.version)||((this.version!= null)&&this.version.equals(rhs.version))))&&((this.service == rhs.service)||((this.service!= null)&&this.service.equals(rhs.service))));
+    }
+
+    public static class RegistrationEventBuilder
+        extends RegistrationEvent.RegistrationEventBuilderBase<RegistrationEvent>
+    {
+
+
+        public RegistrationEventBuilder() {
+            super();
+        }
+
+        public RegistrationEventBuilder(RegistrationEvent source) {
+            super(source);
+        }
+
+        public RegistrationEventBuilder(RegistrationEvent.Type type, Long version, Service service) {
+            super(type, version, service);
+        }
+
+    }
+
+    public static abstract class RegistrationEventBuilderBase<T extends RegistrationEvent >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public RegistrationEventBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(RegistrationEvent.RegistrationEventBuilder.class)) {
+                this.instance = ((T) new RegistrationEvent());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public RegistrationEventBuilderBase(RegistrationEvent source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(RegistrationEvent.RegistrationEventBuilder.class)) {
+                this.instance = ((T) new RegistrationEvent(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public RegistrationEventBuilderBase(RegistrationEvent.Type type, Long version, Service service) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(RegistrationEvent.RegistrationEventBuilder.class)) {
+                this.instance = ((T) new RegistrationEvent(type, version, service));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public RegistrationEvent.RegistrationEventBuilderBase withType(RegistrationEvent.Type type) {
+            ((RegistrationEvent) this.instance).type = type;
+            return this;
+        }
+
+        public RegistrationEvent.RegistrationEventBuilderBase withVersion(Long version) {
+            ((RegistrationEvent) this.instance).version = version;
+            return this;
+        }
+
+        public RegistrationEvent.RegistrationEventBuilderBase withService(Service service) {
+            ((RegistrationEvent) this.instance).service = service;
+            return this;
+        }
+
+    }
+
+
+    /**
+     * The kind of change.
+     * 
+     */
+    @Generated("jsonschema2pojo")
+    public enum Type {
+
+        ADDED("ADDED"),
+        UPDATED("UPDATED"),
+        REMOVED("REMOVED");
+        private final String value;
+        private final static Map<String, RegistrationEvent.Type> CONSTANTS = new HashMap<String, RegistrationEvent.Type>();
+
+        static {
+            for (RegistrationEvent.Type c: values()) {
+                CONSTANTS.put(c.value, c);
+            }
+        }
+
+        Type(String value) {
+            this.value = value;
+        }
+
+        @Override
+        public String toString() {
+            return this.value;
+        }
+
+        @JsonValue
+        public String value() {
+            return this.value;
+        }
+
+        @JsonCreator
+        public static RegistrationEvent.Type fromValue(String value) {
+            RegistrationEvent.Type constant = CONSTANTS.get(value);
+            if (constant == null) {
+                throw new IllegalArgumentException(value);
+            } else {
+                return constant;
+            }
+        }
+
+    }
+
+}
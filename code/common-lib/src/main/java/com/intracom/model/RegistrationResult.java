@@ -0,0 +1,253 @@
+
+package com.intracom.model;
+
+import java.util.Optional;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+
+/**
+ * Result of the registration or lease renewal of a single service
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "function",
+    "name",
+    "status",
+    "lease"
+})
+@Generated("jsonschema2pojo")
+public class RegistrationResult {
+
+    /**
+     * The function of the service.
+     * 
+     */
+    @JsonProperty("function")
+    @JsonPropertyDescription("The function of the service.")
+    private String function;
+    /**
+     * The name of server service instance or pod name
+     * 
+     */
+    @JsonProperty("name")
+    @JsonPropertyDescription("The name of server service instance or pod name")
+    private String name;
+    /**
+     * The HTTP status code the single request would have returned.
+     * (Required)
+     * 
+     */
+    @JsonProperty("status")
+    @JsonPropertyDescription("The HTTP status code the single request would have returned.")
+    private Long status;
+    /**
+     * The lease id of the registration.
+     * 
+     */
+    @JsonProperty("lease")
+    @JsonPropertyDescription("The lease id of the registration.")
+    private String lease;
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public RegistrationResult() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public RegistrationResult(RegistrationResult source) {
+        super();
+        this.function = source.function;
+        this.name = source.name;
+        this.status = source.status;
+        this.lease = source.lease;
+    }
+
+    /**
+     * 
+     * @param function
+     * @param name
+     * @param lease
+     * @param status
+     */
+    public RegistrationResult(String function, String name, Long status, String lease) {
+        super();
+        this.function = function;
+        this.name = name;
+        this.status = status;
+        this.lease = lease;
+    }
+
+    /**
+     * The function of the service.
+     * 
+     */
+    @JsonProperty("function")
+    public Optional<String> getFunction() {
+        return Optional.ofNullable(function);
+    }
+
+    /**
+     * The name of server service instance or pod name
+     * 
+     */
+    @JsonProperty("name")
+    public Optional<String> getName() {
+        return Optional.ofNullable(name);
+    }
+
+    /**
+     * The HTTP status code the single request would have returned.
+     * (Required)
+     * 
+     */
+    @JsonProperty("status")
+    public Long getStatus() {
+        return status;
+    }
+
+    /**
+     * The lease id of the registration.
+     * 
+     */
+    @JsonProperty("lease")
+    public Optional<String> getLease() {
+        return Optional.ofNullable(lease);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(RegistrationResult.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("function");
+        sb.append('=');
+        sb.append(((this.function == null)?"<null>":this.function));
+        sb.append(',');
+        sb.append("name");
+        sb.append('=');
+        sb.append(((this.name == null)?"<null>":this.name));
+        sb.append(',');
+        sb.append("status");
+        sb.append('=');
+        sb.append(((this.status == null)?"<null>":this.status));
+        sb.append(',');
+        sb.append("lease");
+        sb.append('=');
+        sb.append(((this.lease == null)?"<null>":this.lease));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.name == null)? 0 :this.name.hashCode()));
+        result = ((result* 31)+((this.lease == null)? 0 :this.lease.hashCode()));
+        result = ((result* 31)+((this.function == null)? 0 :this.function.hashCode()));
+        result = ((result* 31)+((this.status == null)? 0 :this.status.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof RegistrationResult) == false) {
+            return false;
+        }
+        RegistrationResult rhs = ((RegistrationResult) other);
+        return (((((this.name == rhs.name)||((this.name!= null)&&this.name.equals(rhs.name)))&&((this.lease == rhs.lease)||((this.lease!= null)&&this.lease.equals(rhs.lease))))&&((this.function == rhs.function)||((this.function!= null)&&this.function.equals(rhs.function))))&&((this.status == rhs.status)||((this.status!= null)&&this.status.equals(rhs.status))));
+    }
+
+    public static class RegistrationResultBuilder
+        extends RegistrationResult.RegistrationResultBuilderBase<RegistrationResult>
+    {
+
+
+        public RegistrationResultBuilder() {
+            super();
+        }
+
+        public RegistrationResultBuilder(RegistrationResult source) {
+            super(source);
+        }
+
+        public RegistrationResultBuilder(String function, String name, Long status, String lease) {
+            super(function, name, status, lease);
+        }
+
+    }
+
+    public static abstract class RegistrationResultBuilderBase<T extends RegistrationResult >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public RegistrationResultBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(RegistrationResult.RegistrationResultBuilder.class)) {
+                this.instance = ((T) new RegistrationResult());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public RegistrationResultBuilderBase(RegistrationResult source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(RegistrationResult.RegistrationResultBuilder.class)) {
+                this.instance = ((T) new RegistrationResult(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public RegistrationResultBuilderBase(String function, String name, Long status, String lease) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(RegistrationResult.RegistrationResultBuilder.class)) {
+                this.instance = ((T) new RegistrationResult(function, name, status, lease));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public RegistrationResult.RegistrationResultBuilderBase withFunction(String function) {
+            ((RegistrationResult) this.instance).function = function;
+            return this;
+        }
+
+        public RegistrationResult.RegistrationResultBuilderBase withName(String name) {
+            ((RegistrationResult) this.instance).name = name;
+            return this;
+        }
+
+        public RegistrationResult.RegistrationResultBuilderBase withStatus(Long status) {
+            ((RegistrationResult) this.instance).status = status;
+            return this;
+        }
+
+        public RegistrationResult.RegistrationResultBuilderBase withLease(String lease) {
+            ((RegistrationResult) this.instance).lease = lease;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,321 @@
+
+package com.intracom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+
+/**
+ * Registry Watch
+ * <p>
+ * Changes of the registered services of a function since a known version.
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "function",
+    "instance",
+    "version",
+    "resync",
+    "services",
+    "events"
+})
+@Generated("jsonschema2pojo")
+public class RegistryWatch {
+
+    /**
+     * The watched server function.
+     * (Required)
+     * 
+     */
+    @JsonProperty("function")
+    @JsonPropertyDescription("The watched server function.")
+    private String function;
+    /**
+     * The registry instance the version belongs to. Versions of different instances are unrelated.
+     * 
+     */
+    @JsonProperty("instance")
+    @JsonPropertyDescription("The registry instance the version belongs to. Versions of different instances are unrelated.")
+    private String instance;
+    /**
+     * The version of the function registrations after the last included change.
+     * (Required)
+     * 
+     */
+    @JsonProperty("version")
+    @JsonPropertyDescription("The version of the function registrations after the last included change.")
+    private Long version;
+    /**
+     * True if the changes since the requested version are not available and services contains the complete registrations instead of events.
+     * (Required)
+     * 
+     */
+    @JsonProperty("resync")
+    @JsonPropertyDescription("True if the changes since the requested version are not available and services contains the complete registrations instead of events.")
+    private Boolean resync;
+    /**
+     * All registered services of the function, present on resync only.
+     * 
+     */
+    @JsonProperty("services")
+    @JsonPropertyDescription("All registered services of the function, present on resync only.")
+    private List<Service> services = new ArrayList<Service>();
+    /**
+     * The changes since the requested version, in version order.
+     * 
+     */
+    @JsonProperty("events")
+    @JsonPropertyDescription("The changes since the requested version, in version order.")
+    private List<RegistrationEvent> events = new ArrayList<RegistrationEvent>();
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public RegistryWatch() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public RegistryWatch(RegistryWatch source) {
+        super();
+        this.function = source.function;
+        this.instance = source.instance;
+        this.version = source.version;
+        this.resync = source.resync;
+        this.services = source.services;
+        this.events = source.events;
+    }
+
+    /**
+     * 
+     * @param instance
+     * @param resync
+     * @param function
+     * @param services
+     * @param version
+     * @param events
+     */
+    public RegistryWatch(String function, String instance, Long version, Boolean resync, List<Service> services, List<RegistrationEvent> events) {
+        super();
+        this.function = function;
+        this.instance = instance;
+        this.version = version;
+        this.resync = resync;
+        this.services = services;
+        this.events = events;
+    }
+
+    /**
+     * The watched server function.
+     * (Required)
+     * 
+     */
+    @JsonProperty("function")
+    public String getFunction() {
+        return function;
+    }
+
+    /**
+     * The registry instance the version belongs to. Versions of different instances are unrelated.
+     * 
+     */
+    @JsonProperty("instance")
+    public Optional<String> getInstance() {
+        return Optional.ofNullable(instance);
+    }
+
+    /**
+     * The version of the function registrations after the last included change.
+     * (Required)
+     * 
+     */
+    @JsonProperty("version")
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * True if the changes since the requested version are not available and services contains the complete registrations instead of events.
+     * (Required)
+     * 
+     */
+    @JsonProperty("resync")
+    public Boolean getResync() {
+        return resync;
+    }
+
+    /**
+     * All registered services of the function, present on resync only.
+     * 
+     */
+    @JsonProperty("services")
+    public Optional<List<Service>> getServices() {
+        return Optional.ofNullable(services);
+    }
+
+    /**
+     * The changes since the requested version, in version order.
+     * 
+     */
+    @JsonProperty("events")
+    public Optional<List<RegistrationEvent>> getEvents() {
+        return Optional.ofNullable(events);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(RegistryWatch.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("function");
+        sb.append('=');
+        sb.append(((this.function == null)?"<null>":this.function));
+        sb.append(',');
+        sb.append("instance");
+        sb.append('=');
+        sb.append(((this.instance == null)?"<null>":this.instance));
+        sb.append(',');
+        sb.append("version");
+        sb.append('=');
+        sb.append(((this.version == null)?"<null>":this.version));
+        sb.append(',');
+        sb.append("resync");
+        sb.append('=');
+        sb.append(((this.resync == null)?"<null>":this.resync));
+        sb.append(',');
+        sb.append("services");
+        sb.append('=');
+        sb.append(((this.services == null)?"<null>":this.services));
+        sb.append(',');
+        sb.append("events");
+        sb.append('=');
+        sb.append(((this.events == null)?"<null>":this.events));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.instance == null)? 0 :this.instance.hashCode()));
+        result = ((result* 31)+((this.resync == null)? 0 :this.resync.hashCode()));
+        result = ((result* 31)+((this.function == null)? 0 :this.function.hashCode()));
+        result = ((result* 31)+((this.services == null)? 0 :this.services.hashCode()));
+        result = ((result* 31)+((this.version == null)? 0 :this.version.hashCode()));
+        result = ((result* 31)+((this.events == null)? 0 :this.events.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof RegistryWatch) == false) {
+            return false;
+        }
+        RegistryWatch rhs = ((RegistryWatch) other);
+        return (((((((this.instance == rhs.instance)||((this.instance!= null)&&this.instance.equals(rhs.instance)))&&((this.resync == rhs.resync)||((this.resync!= null)&&this.resync.equals(rhs.resync))))&&((this.function == rhs.function)||((this.function!= null)&&this.function.equals(rhs.function))))&&((this.services == rhs.services)||((this.services!= null)&&this.services.equals(rhs.services))))&&((this.version == rhs.version)||((this.version!= null)&&this.version.equals(rhs.version))))&&((this.events == rhs.events)||((this.events!= null)&&this.events.equals(rhs.events))));
+    }
+
+    public static class RegistryWatchBuilder
+        extends RegistryWatch.RegistryWatchBuilderBase<RegistryWatch>
+    {
+
+
+        public RegistryWatchBuilder() {
+            super();
+        }
+
+        public RegistryWatchBuilder(RegistryWatch source) {
+            super(source);
+        }
+
+        public RegistryWatchBuilder(String function, String instance, Long version, Boolean resync, List<Service> services, List<RegistrationEvent> events) {
+            super(function, instance, version, resync, services, events);
+        }
+
+    }
+
+    public static abstract class RegistryWatchBuilderBase<T extends RegistryWatch >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public RegistryWatchBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(RegistryWatch.RegistryWatchBuilder.class)) {
+                this.instance = ((T) new RegistryWatch());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public RegistryWatchBuilderBase(RegistryWatch source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(RegistryWatch.RegistryWatchBuilder.class)) {
+                this.instance = ((T) new RegistryWatch(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public RegistryWatchBuilderBase(String function, String instance, Long version, Boolean resync, List<Service> services, List<RegistrationEvent> events) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(RegistryWatch.RegistryWatchBuilder.class)) {
+                this.instance = ((T) new RegistryWatch(function, instance, version, resync, services, events));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public RegistryWatch.RegistryWatchBuilderBase withFunction(String function) {
+            ((RegistryWatch) this.instance).function = function;
+            return this;
+        }
+
+        public RegistryWatch.RegistryWatchBuilderBase withInstance(String instance) {
+            ((RegistryWatch) this.instance).instance = instance;
+            return this;
+        }
+
+        public RegistryWatch.RegistryWatchBuilderBase withVersion(Long version) {
+            ((RegistryWatch) this.instance).version = version;
+            return this;
+        }
+
+        public RegistryWatch.RegistryWatchBuilderBase withResync(Boolean resync) {
+            ((RegistryWatch) this.instance).resync = resync;
+            return this;
+        }
+
+        public RegistryWatch.RegistryWatchBuilderBase withServices(List<Service> services) {
+            ((RegistryWatch) this.instance).services = services;
+            return this;
+        }
+
+        public RegistryWatch.RegistryWatchBuilderBase withEvents(List<RegistrationEvent> events) {
+            ((RegistryWatch) this.instance).events = events;
+            return this;
+        }
+
+    }
+
+}
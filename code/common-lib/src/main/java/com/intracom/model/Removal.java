@@ -0,0 +1,195 @@
+
+package com.intracom.model;
+
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.joda.time.DateTime;
+
+
+/**
+ * Removal of a service from a function
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "name",
+    "timestamp"
+})
+@Generated("jsonschema2pojo")
+public class Removal {
+
+    /**
+     * The name of the removed service instance or pod name.
+     * (Required)
+     * 
+     */
+    @JsonProperty("name")
+    @JsonPropertyDescription("The name of the removed service instance or pod name.")
+    private String name;
+    /**
+     * The time of the removal, according to ISO8601 format.
+     * (Required)
+     * 
+     */
+    @JsonProperty("timestamp")
+    @JsonPropertyDescription("The time of the removal, according to ISO8601 format.")
+    private DateTime timestamp;
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public Removal() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public Removal(Removal source) {
+        super();
+        this.name = source.name;
+        this.timestamp = source.timestamp;
+    }
+
+    /**
+     * 
+     * @param name
+     * @param timestamp
+     */
+    public Removal(String name, DateTime timestamp) {
+        super();
+        this.name = name;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * The name of the removed service instance or pod name.
+     * (Required)
+     * 
+     */
+    @JsonProperty("name")
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The time of the removal, according to ISO8601 format.
+     * (Required)
+     * 
+     */
+    @JsonProperty("timestamp")
+    public DateTime getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(Removal.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("name");
+        sb.append('=');
+        sb.append(((this.name == null)?"<null>":this.name));
+        sb.append(',');
+        sb.append("timestamp");
+        sb.append('=');
+        sb.append(((this.timestamp == null)?"<null>":this.timestamp));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.name == null)? 0 :this.name.hashCode()));
+        result = ((result* 31)+((this.timestamp == null)? 0 :this.timestamp.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof Removal) == false) {
+            return false;
+        }
+        Removal rhs = ((Removal) other);
+        return (((this.name == rhs.name)||((this.name!= null)&&this.name.equals(rhs.name)))&&((this.timestamp == rhs.timestamp)||((this.timestamp!= null)&&this.timestamp.equals(rhs.timestamp))));
+    }
+
+    public static class RemovalBuilder
+        extends Removal.RemovalBuilderBase<Removal>
+    {
+
+
+        public RemovalBuilder() {
+            super();
+        }
+
+        public RemovalBuilder(Removal source) {
+            super(source);
+        }
+
+        public RemovalBuilder(String name, DateTime timestamp) {
+            super(name, timestamp);
+        }
+
+    }
+
+    public static abstract class RemovalBuilderBase<T extends Removal >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public RemovalBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Removal.RemovalBuilder.class)) {
+                this.instance = ((T) new Removal());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public RemovalBuilderBase(Removal source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Removal.RemovalBuilder.class)) {
+                this.instance = ((T) new Removal(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public RemovalBuilderBase(String name, DateTime timestamp) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Removal.RemovalBuilder.class)) {
+                this.instance = ((T) new Removal(name, timestamp));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public Removal.RemovalBuilderBase withName(String name) {
+            ((Removal) this.instance).name = name;
+            return this;
+        }
+
+        public Removal.RemovalBuilderBase withTimestamp(DateTime timestamp) {
+            ((Removal) this.instance).timestamp = timestamp;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,198 @@
+
+package com.intracom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+
+/**
+ * Replication
+ * <p>
+ * Registrations replicated from one registry instance to its peers.
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "instance",
+    "functions"
+})
+@Generated("jsonschema2pojo")
+public class Replication {
+
+    /**
+     * The registry instance that sent the registrations.
+     * (Required)
+     * 
+     */
+    @JsonProperty("instance")
+    @JsonPropertyDescription("The registry instance that sent the registrations.")
+    private String instance;
+    /**
+     * The replicated functions.
+     * (Required)
+     * 
+     */
+    @JsonProperty("functions")
+    @JsonPropertyDescription("The replicated functions.")
+    private List<FunctionState> functions = new ArrayList<FunctionState>();
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public Replication() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public Replication(Replication source) {
+        super();
+        this.instance = source.instance;
+        this.functions = source.functions;
+    }
+
+    /**
+     * 
+     * @param instance
+     * @param functions
+     */
+    public Replication(String instance, List<FunctionState> functions) {
+        super();
+        this.instance = instance;
+        this.functions = functions;
+    }
+
+    /**
+     * The registry instance that sent the registrations.
+     * (Required)
+     * 
+     */
+    @JsonProperty("instance")
+    public String getInstance() {
+        return instance;
+    }
+
+    /**
+     * The replicated functions.
+     * (Required)
+     * 
+     */
+    @JsonProperty("functions")
+    public List<FunctionState> getFunctions() {
+        return functions;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(Replication.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("instance");
+        sb.append('=');
+        sb.append(((this.instance == null)?"<null>":this.instance));
+        sb.append(',');
+        sb.append("functions");
+        sb.append('=');
+        sb.append(((this.functions == null)?"<null>":this.functions));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.functions == null)? 0 :this.functions.hashCode()));
+        result = ((result* 31)+((this.instance == null)? 0 :this.instance.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof Replication) == false) {
+            return false;
+        }
+        Replication rhs = ((Replication) other);
+        return (((this.functions == rhs.functions)||((this.functions!= null)&&this.functions.equals(rhs.functions)))&&((this.instance == rhs.instance)||((this.instance!= null)&&this.instance.equals(rhs.instance))));
+    }
+
+    public static class ReplicationBuilder
+        extends Replication.ReplicationBuilderBase<Replication>
+    {
+
+
+        public ReplicationBuilder() {
+            super();
+        }
+
+        public ReplicationBuilder(Replication source) {
+            super(source);
+        }
+
+        public ReplicationBuilder(String instance, List<FunctionState> functions) {
+            super(instance, functions);
+        }
+
+    }
+
+    public static abstract class ReplicationBuilderBase<T extends Replication >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public ReplicationBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Replication.ReplicationBuilder.class)) {
+                this.instance = ((T) new Replication());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public ReplicationBuilderBase(Replication source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Replication.ReplicationBuilder.class)) {
+                this.instance = ((T) new Replication(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public ReplicationBuilderBase(String instance, List<FunctionState> functions) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Replication.ReplicationBuilder.class)) {
+                this.instance = ((T) new Replication(instance, functions));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public Replication.ReplicationBuilderBase withInstance(String instance) {
+            ((Replication) this.instance).instance = instance;
+            return this;
+        }
+
+        public Replication.ReplicationBuilderBase withFunctions(List<FunctionState> functions) {
+            ((Replication) this.instance).functions = functions;
+            return this;
+        }
+
+    }
+
+}
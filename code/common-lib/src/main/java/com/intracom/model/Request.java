@@ -0,0 +1,258 @@
+
+package com.intracom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.joda.time.DateTime;
+
+
+/**
+ * Application request configuration
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "user",
+    "message",
+    "timestamp",
+    "recipients"
+})
+@Generated("jsonschema2pojo")
+public class Request {
+
+    /**
+     * The user name.
+     * (Required)
+     * 
+     */
+    @JsonProperty("user")
+    @JsonPropertyDescription("The user name.")
+    private String user;
+    /**
+     * The message to set, min length 1 char and max length 160 chars 
+     * (Required)
+     * 
+     */
+    @JsonProperty("message")
+    @JsonPropertyDescription("The message to set, min length 1 char and max length 160 chars ")
+    private String message;
+    /**
+     * The timestamp of when Requestthe fault indication was created, according to ISO8601 format: YYYY-MM-DDTHH:MM:SS.mmmmmmz (z is the relative time zone offset in hours and minutes to UTC in the format +hh:mm or -hh:mm. If UTC is used z will be 'Z' instead of '+00:00').
+     * 
+     */
+    @JsonProperty("timestamp")
+    @JsonPropertyDescription("The timestamp of when Requestthe fault indication was created, according to ISO8601 format: YYYY-MM-DDTHH:MM:SS.mmmmmmz (z is the relative time zone offset in hours and minutes to UTC in the format +hh:mm or -hh:mm. If UTC is used z will be 'Z' instead of '+00:00').")
+    private DateTime timestamp;
+    /**
+     * User names of all recipients
+     * 
+     */
+    @JsonProperty("recipients")
+    @JsonPropertyDescription("User names of all recipients")
+    private List<String> recipients = new ArrayList<String>();
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public Request() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public Request(Request source) {
+        super();
+        this.user = source.user;
+        this.message = source.message;
+        this.timestamp = source.timestamp;
+        this.recipients = source.recipients;
+    }
+
+    /**
+     * 
+     * @param recipients
+     * @param message
+     * @param user
+     * @param timestamp
+     */
+    public Request(String user, String message, DateTime timestamp, List<String> recipients) {
+        super();
+        this.user = user;
+        this.message = message;
+        this.timestamp = timestamp;
+        this.recipients = recipients;
+    }
+
+    /**
+     * The user name.
+     * (Required)
+     * 
+     */
+    @JsonProperty("user")
+    public String getUser() {
+        return user;
+    }
+
+    /**
+     * The message to set, min length 1 char and max length 160 chars 
+     * (Required)
+     * 
+     */
+    @JsonProperty("message")
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * The timestamp of when Requestthe fault indication was created, according to ISO8601 format: YYYY-MM-DDTHH:MM:SS.mmmmmmz (z is the relative time zone offset in hours and minutes to UTC in the format +hh:mm or -hh:mm. If UTC is used z will be 'Z' instead of '+00:00').
+     * 
+     */
+    @JsonProperty("timestamp")
+    public Optional<DateTime> getTimestamp() {
+        return Optional.ofNullable(timestamp);
+    }
+
+    /**
+     * User names of all recipients
+     * 
+     */
+    @JsonProperty("recipients")
+    public Optional<List<String>> getRecipients() {
+        return Optional.ofNullable(recipients);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(Request.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("user");
+        sb.append('=');
+        sb.append(((this.user == null)?"<null>":this.user));
+        sb.append(',');
+        sb.append("message");
+        sb.append('=');
+        sb.append(((this.message == null)?"<null>":this.message));
+        sb.append(',');
+        sb.append("timestamp");
+        sb.append('=');
+        sb.append(((this.timestamp == null)?"<null>":this.timestamp));
+        sb.append(',');
+        sb.append("recipients");
+        sb.append('=');
+        sb.append(((this.recipients == null)?"<null>":this.recipients));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.message == null)? 0 :this.message.hashCode()));
+        result = ((result* 31)+((this.user == null)? 0 :this.user.hashCode()));
+        result = ((result* 31)+((this.recipients == null)? 0 :this.recipients.hashCode()));
+        result = ((result* 31)+((this.timestamp == null)? 0 :this.timestamp.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof Request) == false) {
+            return false;
+        }
+        Request rhs = ((Request) other);
+        return (((((this.message == rhs.message)||((this.message!= null)&&this.message.equals(rhs.message)))&&((this.user == rhs.user)||((this.user!= null)&&this.user.equals(rhs.user))))&&((this.recipients == rhs.recipients)||((this.recipients!= null)&&this.recipients.equals(rhs.recipients))))&&((this.timestamp == rhs.timestamp)||((this.timestamp!= null)&&this.timestamp.equals(rhs.timestamp))));
+    }
+
+    public static class RequestBuilder
+        extends Request.RequestBuilderBase<Request>
+    {
+
+
+        public RequestBuilder() {
+            super();
+        }
+
+        public RequestBuilder(Request source) {
+            super(source);
+        }
+
+        public RequestBuilder(String user, String message, DateTime timestamp, List<String> recipients) {
+            super(user, message, timestamp, recipients);
+        }
+
+    }
+
+    public static abstract class RequestBuilderBase<T extends Request >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public RequestBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Request.RequestBuilder.class)) {
+                this.instance = ((T) new Request());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public RequestBuilderBase(Request source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Request.RequestBuilder.class)) {
+                this.instance = ((T) new Request(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public RequestBuilderBase(String user, String message, DateTime timestamp, List<String> recipients) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Request.RequestBuilder.class)) {
+                this.instance = ((T) new Request(user, message, timestamp, recipients));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public Request.RequestBuilderBase withUser(String user) {
+            ((Request) this.instance).user = user;
+            return this;
+        }
+
+        public Request.RequestBuilderBase withMessage(String message) {
+            ((Request) this.instance).message = message;
+            return this;
+        }
+
+        public Request.RequestBuilderBase withTimestamp(DateTime timestamp) {
+            ((Request) this.instance).timestamp = timestamp;
+            return this;
+        }
+
+        public Request.RequestBuilderBase withRecipients(List<String> recipients) {
+            ((Request) this.instance).recipients = recipients;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,258 @@
+
+package com.intracom.model;
+
+import java.util.Optional;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import org.joda.time.DateTime;
+
+
+/**
+ * Registered service of specific server function
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "host",
+    "port",
+    "name",
+    "timestamp"
+})
+@Generated("jsonschema2pojo")
+public class Service {
+
+    /**
+     * The server service hostname or ip-address.
+     * (Required)
+     * 
+     */
+    @JsonProperty("host")
+    @JsonPropertyDescription("The server service hostname or ip-address.")
+    private String host;
+    /**
+     * The server service port.
+     * (Required)
+     * 
+     */
+    @JsonProperty("port")
+    @JsonPropertyDescription("The server service port.")
+    private Double port;
+    /**
+     * The name of server service instance or pod name
+     * (Required)
+     * 
+     */
+    @JsonProperty("name")
+    @JsonPropertyDescription("The name of server service instance or pod name")
+    private String name;
+    /**
+     * The timestamp when the service instance modified, according to ISO8601 format: YYYY-MM-DDTHH:MM:SS.mmmmmmz (z is the relative time zone offset in hours and minutes to UTC in the format +hh:mm or -hh:mm. If UTC is used z will be 'Z' instead of '+00:00').
+     * 
+     */
+    @JsonProperty("timestamp")
+    @JsonPropertyDescription("The timestamp when the service instance modified, according to ISO8601 format: YYYY-MM-DDTHH:MM:SS.mmmmmmz (z is the relative time zone offset in hours and minutes to UTC in the format +hh:mm or -hh:mm. If UTC is used z will be 'Z' instead of '+00:00').")
+    private DateTime timestamp;
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public Service() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public Service(Service source) {
+        super();
+        this.host = source.host;
+        this.port = source.port;
+        this.name = source.name;
+        this.timestamp = source.timestamp;
+    }
+
+    /**
+     * 
+     * @param port
+     * @param host
+     * @param name
+     * @param timestamp
+     */
+    public Service(String host, Double port, String name, DateTime timestamp) {
+        super();
+        this.host = host;
+        this.port = port;
+        this.name = name;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * The server service hostname or ip-address.
+     * (Required)
+     * 
+     */
+    @JsonProperty("host")
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * The server service port.
+     * (Required)
+     * 
+     */
+    @JsonProperty("port")
+    public Double getPort() {
+        return port;
+    }
+
+    /**
+     * The name of server service instance or pod name
+     * (Required)
+     * 
+     */
+    @JsonProperty("name")
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The timestamp when the service instance modified, according to ISO8601 format: YYYY-MM-DDTHH:MM:SS.mmmmmmz (z is the relative time zone offset in hours and minutes to UTC in the format +hh:mm or -hh:mm. If UTC is used z will be 'Z' instead of '+00:00').
+     * 
+     */
+    @JsonProperty("timestamp")
+    public Optional<DateTime> getTimestamp() {
+        return Optional.ofNullable(timestamp);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(Service.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("host");
+        sb.append('=');
+        sb.append(((this.host == null)?"<null>":this.host));
+        sb.append(',');
+        sb.append("port");
+        sb.append('=');
+        sb.append(((this.port == null)?"<null>":this.port));
+        sb.append(',');
+        sb.append("name");
+        sb.append('=');
+        sb.append(((this.name == null)?"<null>":this.name));
+        sb.append(',');
+        sb.append("timestamp");
+        sb.append('=');
+        sb.append(((this.timestamp == null)?"<null>":this.timestamp));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.host == null)? 0 :this.host.hashCode()));
+        result = ((result* 31)+((this.name == null)? 0 :this.name.hashCode()));
+        result = ((result* 31)+((this.port == null)? 0 :this.port.hashCode()));
+        result = ((result* 31)+((this.timestamp == null)? 0 :this.timestamp.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof Service) == false) {
+            return false;
+        }
+        Service rhs = ((Service) other);
+        return (((((this.host == rhs.host)||((this.host!= null)&&this.host.equals(rhs.host)))&&((this.name == rhs.name)||((this.name!= null)&&this.name.equals(rhs.name))))&&((this.port == rhs.port)||((this.port!= null)&&this.port.equals(rhs.port))))&&((this.timestamp == rhs.timestamp)||((this.timestamp!= null)&&this.timestamp.equals(rhs.timestamp))));
+    }
+
+    public static class ServiceBuilder
+        extends Service.ServiceBuilderBase<Service>
+    {
+
+
+        public ServiceBuilder() {
+            super();
+        }
+
+        public ServiceBuilder(Service source) {
+            super(source);
+        }
+
+        public ServiceBuilder(String host, Double port, String name, DateTime timestamp) {
+            super(host, port, name, timestamp);
+        }
+
+    }
+
+    public static abstract class ServiceBuilderBase<T extends Service >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public ServiceBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Service.ServiceBuilder.class)) {
+                this.instance = ((T) new Service());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public ServiceBuilderBase(Service source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Service.ServiceBuilder.class)) {
+                this.instance = ((T) new Service(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public ServiceBuilderBase(String host, Double port, String name, DateTime timestamp) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(Service.ServiceBuilder.class)) {
+                this.instance = ((T) new Service(host, port, name, timestamp));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public Service.ServiceBuilderBase withHost(String host) {
+            ((Service) this.instance).host = host;
+            return this;
+        }
+
+        public Service.ServiceBuilderBase withPort(Double port) {
+            ((Service) this.instance).port = port;
+            return this;
+        }
+
+        public Service.ServiceBuilderBase withName(String name) {
+            ((Service) this.instance).name = name;
+            return this;
+        }
+
+        public Service.ServiceBuilderBase withTimestamp(DateTime timestamp) {
+            ((Service) this.instance).timestamp = timestamp;
+            return this;
+        }
+
+    }
+
+}
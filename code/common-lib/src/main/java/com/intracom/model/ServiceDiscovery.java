@@ -0,0 +1,197 @@
+
+package com.intracom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+
+/**
+ * Chat Function
+ * <p>
+ * Definition of chat function schema model.
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "function",
+    "requests"
+})
+@Generated("jsonschema2pojo")
+public class ServiceDiscovery {
+
+    /**
+     * The function to be used by incoming request.
+     * (Required)
+     * 
+     */
+    @JsonProperty("function")
+    @JsonPropertyDescription("The function to be used by incoming request.")
+    private String function;
+    /**
+     * Requested changes.
+     * 
+     */
+    @JsonProperty("requests")
+    @JsonPropertyDescription("Requested changes.")
+    private List<Request> requests = new ArrayList<Request>();
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public ServiceDiscovery() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public ServiceDiscovery(ServiceDiscovery source) {
+        super();
+        this.function = source.function;
+        this.requests = source.requests;
+    }
+
+    /**
+     * 
+     * @param function
+     * @param requests
+     */
+    public ServiceDiscovery(String function, List<Request> requests) {
+        super();
+        this.function = function;
+        this.requests = requests;
+    }
+
+    /**
+     * The function to be used by incoming request.
+     * (Required)
+     * 
+     */
+    @JsonProperty("function")
+    public String getFunction() {
+        return function;
+    }
+
+    /**
+     * Requested changes.
+     * 
+     */
+    @JsonProperty("requests")
+    public Optional<List<Request>> getRequests() {
+        return Optional.ofNullable(requests);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(ServiceDiscovery.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("function");
+        sb.append('=');
+        sb.append(((this.function == null)?"<null>":this.function));
+        sb.append(',');
+        sb.append("requests");
+        sb.append('=');
+        sb.append(((this.requests == null)?"<null>":this.requests));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.function == null)? 0 :this.function.hashCode()));
+        result = ((result* 31)+((this.requests == null)? 0 :this.requests.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof ServiceDiscovery) == false) {
+            return false;
+        }
+        ServiceDiscovery rhs = ((ServiceDiscovery) other);
+        return (((this.function == rhs.function)||((this.function!= null)&&this.function.equals(rhs.function)))&&((this.requests == rhs.requests)||((this.requests!= null)&&this.requests.equals(rhs.requests))));
+    }
+
+    public static class ServiceDiscoveryBuilder
+        extends ServiceDiscovery.ServiceDiscoveryBuilderBase<ServiceDiscovery>
+    {
+
+
+        public ServiceDiscoveryBuilder() {
+            super();
+        }
+
+        public ServiceDiscoveryBuilder(ServiceDiscovery source) {
+            super(source);
+        }
+
+        public ServiceDiscoveryBuilder(String function, List<Request> requests) {
+            super(function, requests);
+        }
+
+    }
+
+    public static abstract class ServiceDiscoveryBuilderBase<T extends ServiceDiscovery >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public ServiceDiscoveryBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(ServiceDiscovery.ServiceDiscoveryBuilder.class)) {
+                this.instance = ((T) new ServiceDiscovery());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public ServiceDiscoveryBuilderBase(ServiceDiscovery source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(ServiceDiscovery.ServiceDiscoveryBuilder.class)) {
+                this.instance = ((T) new ServiceDiscovery(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public ServiceDiscoveryBuilderBase(String function, List<Request> requests) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(ServiceDiscovery.ServiceDiscoveryBuilder.class)) {
+                this.instance = ((T) new ServiceDiscovery(function, requests));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public ServiceDiscovery.ServiceDiscoveryBuilderBase withFunction(String function) {
+            ((ServiceDiscovery) this.instance).function = function;
+            return this;
+        }
+
+        public ServiceDiscovery.ServiceDiscoveryBuilderBase withRequests(List<Request> requests) {
+            ((ServiceDiscovery) this.instance).requests = requests;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+
+package com.intracom.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.annotation.processing.Generated;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+
+/**
+ * Service Registry
+ * <p>
+ * Definition of Service Registry model.
+ * 
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({
+    "function",
+    "services"
+})
+@Generated("jsonschema2pojo")
+public class ServiceRegistry {
+
+    /**
+     * The specific server function to be used by incoming service client.
+     * (Required)
+     * 
+     */
+    @JsonProperty("function")
+    @JsonPropertyDescription("The specific server function to be used by incoming service client.")
+    private String function;
+    /**
+     * Registered services of specific server function
+     * 
+     */
+    @JsonProperty("services")
+    @JsonPropertyDescription("Registered services of specific server function")
+    private List<Service> services = new ArrayList<Service>();
+
+    /**
+     * No args constructor for use in serialization
+     * 
+     */
+    public ServiceRegistry() {
+    }
+
+    /**
+     * 
+     * @param source
+     */
+    public ServiceRegistry(ServiceRegistry source) {
+        super();
+        this.function = source.function;
+        this.services = source.services;
+    }
+
+    /**
+     * 
+     * @param function
+     * @param services
+     */
+    public ServiceRegistry(String function, List<Service> services) {
+        super();
+        this.function = function;
+        this.services = services;
+    }
+
+    /**
+     * The specific server function to be used by incoming service client.
+     * (Required)
+     * 
+     */
+    @JsonProperty("function")
+    public String getFunction() {
+        return function;
+    }
+
+    /**
+     * Registered services of specific server function
+     * 
+     */
+    @JsonProperty("services")
+    public Optional<List<Service>> getServices() {
+        return Optional.ofNullable(services);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(ServiceRegistry.class.getName()).append('@').append(Integer.toHexString(System.identityHashCode(this))).append('[');
+        sb.append("function");
+        sb.append('=');
+        sb.append(((this.function == null)?"<null>":this.function));
+        sb.append(',');
+        sb.append("services");
+        sb.append('=');
+        sb.append(((this.services == null)?"<null>":this.services));
+        sb.append(',');
+        if (sb.charAt((sb.length()- 1)) == ',') {
+            sb.setCharAt((sb.length()- 1), ']');
+        } else {
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        int result = 1;
+        result = ((result* 31)+((this.function == null)? 0 :this.function.hashCode()));
+        result = ((result* 31)+((this.services == null)? 0 :this.services.hashCode()));
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if ((other instanceof ServiceRegistry) == false) {
+            return false;
+        }
+        ServiceRegistry rhs = ((ServiceRegistry) other);
+        return (((this.function == rhs.function)||((this.function!= null)&&this.function.equals(rhs.function)))&&((this.services == rhs.services)||((this.services!= null)&&this.services.equals(rhs.services))));
+    }
+
+    public static class ServiceRegistryBuilder
+        extends ServiceRegistry.ServiceRegistryBuilderBase<ServiceRegistry>
+    {
+
+
+        public ServiceRegistryBuilder() {
+            super();
+        }
+
+        public ServiceRegistryBuilder(ServiceRegistry source) {
+            super(source);
+        }
+
+        public ServiceRegistryBuilder(String function, List<Service> services) {
+            super(function, services);
+        }
+
+    }
+
+    public static abstract class ServiceRegistryBuilderBase<T extends ServiceRegistry >{
+
+        protected T instance;
+
+        @SuppressWarnings("unchecked")
+        public ServiceRegistryBuilderBase() {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(ServiceRegistry.ServiceRegistryBuilder.class)) {
+                this.instance = ((T) new ServiceRegistry());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public ServiceRegistryBuilderBase(ServiceRegistry source) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(ServiceRegistry.ServiceRegistryBuilder.class)) {
+                this.instance = ((T) new ServiceRegistry(source));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public ServiceRegistryBuilderBase(String function, List<Service> services) {
+            // Skip initialization when called from subclass
+            if (this.getClass().equals(ServiceRegistry.ServiceRegistryBuilder.class)) {
+                this.instance = ((T) new ServiceRegistry(function, services));
+            }
+        }
+
+        public T build() {
+            T result;
+            result = this.instance;
+            this.instance = null;
+            return result;
+        }
+
+        public ServiceRegistry.ServiceRegistryBuilderBase withFunction(String function) {
+            ((ServiceRegistry) this.instance).function = function;
+            return this;
+        }
+
+        public ServiceRegistry.ServiceRegistryBuilderBase withServices(List<Service> services) {
+            ((ServiceRegistry) this.instance).services = services;
+            return this;
+        }
+
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.intracom.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.intracom.common.web.ContentCodec;
+import com.intracom.model.Service.ServiceBuilder;
+import com.intracom.model.ServiceRegistry;
+import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
+
+import io.netty.buffer.Unpooled;
+import io.vertx.reactivex.core.buffer.Buffer;
+
+public class ContentCodecTest
+{
+    private static final TypeReference<List<ServiceRegistry>> REGISTRY_LIST = new TypeReference<>()
+    {
+    };
+
+    @Test
+    public void negotiationTest()
+    {
+        assertEquals(ContentCodec.negotiate(null), ContentCodec.JSON);
+        assertEquals(ContentCodec.negotiate("*/*"), ContentCodec.JSON, "External clients must get JSON");
+        assertEquals(ContentCodec.negotiate(ContentCodec.PREFER_SMILE), ContentCodec.SMILE);
+        assertEquals(ContentCodec.negotiate("application/json, application/x-jackson-smile;q=0.8"), ContentCodec.SMILE);
+        assertEquals(ContentCodec.negotiate("application/x-jackson-smile;q=0"), ContentCodec.JSON, "Excluded Smile must not be used");
+
+        assertEquals(ContentCodec.ofContentType(null), ContentCodec.JSON);
+        assertEquals(ContentCodec.ofContentType("application/json; charset=utf-8"), ContentCodec.JSON);
+        assertEquals(ContentCodec.ofContentType("Application/X-Jackson-Smile"), ContentCodec.SMILE);
+    }
+
+    @Test
+    public void roundTripTest() throws IOException
+    {
+        var serviceRegistry = new ServiceRegistryBuilder().withFunction("chat") //
+                                                          .withServices(List.of(new ServiceBuilder().withHost("10.0.0.1") //
+                                                                                                    .withName("pod-1")
+                                                                                                    .withPort(Double.valueOf(8080))
+                                                                                                    .withTimestamp(new DateTime(1_650_000_000_000L))
+                                                                                                    .build()))
+                                                          .build();
+        for (var codec : ContentCodec.values())
+        {
+            var encoded = ContentCodec.writersFor(ServiceRegistry.class).get(codec).writeValueAsBytes(serviceRegistry);
+            var decoded = codec.decode(encoded, ServiceRegistry.class);
+            assertEquals(decoded.getServices().get().get(0).getTimestamp().get().getMillis(), 1_650_000_000_000L);
+            assertEquals(decoded.getServices().get().get(0).getName(), "pod-1", "Failed to decode " + codec);
+        }
+    }
+
+    @Test
+    public void bufferDecodeTest() throws IOException
+    {
+        var encoded = ContentCodec.writersFor(ServiceRegistry.class)
+                                  .get(ContentCodec.JSON)
+                                  .writeValueAsBytes(new ServiceRegistryBuilder().withFunction("chat").build());
+
+        // heap buffer read from an offset into its array
+        var heap = Buffer.buffer("garbage").appendBytes(encoded).slice(7, 7 + encoded.length);
+        assertEquals(ContentCodec.JSON.decode(heap, ServiceRegistry.class).getFunction(), "chat");
+
+        // direct buffer read through a stream
+        var direct = Buffer.newInstance(io.vertx.core.buffer.Buffer.buffer(Unpooled.directBuffer().writeBytes(encoded)));
+        assertEquals(ContentCodec.JSON.decode(direct, ServiceRegistry.class).getFunction(), "chat");
+        assertEquals(direct.length(), encoded.length, "Decoding must not consume the buffer");
+    }
+
+    @Test
+    public void sharedReadersAndWritersTest() throws IOException
+    {
+        ContentCodec.warmUp(ServiceRegistry.class, REGISTRY_LIST.getType()).blockingAwait();
+        for (var codec : ContentCodec.values())
+        {
+            assertSame(codec.readerFor(ServiceRegistry.class), codec.readerFor(ServiceRegistry.class), "Readers must be shared");
+            assertSame(codec.writerFor(REGISTRY_LIST), codec.writerFor(REGISTRY_LIST), "Writers must be shared");
+            assertSame(ContentCodec.writersFor(ServiceRegistry.class).get(codec), codec.writerFor(ServiceRegistry.class));
+        }
+
+        // the shared mapper is not reconfigured by the writers
+        var timestamp = new DateTime(1_650_000_000_000L);
+        assertEquals(ContentCodec.JSON.getMapper().writeValueAsString(timestamp), "1650000000000");
+        assertTrue(ContentCodec.JSON.writerFor(DateTime.class).writeValueAsString(timestamp).startsWith("\"2022-04-15T"));
+    }
+}
@@ -0,0 +1,112 @@
+package com.intracom.common;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.exc.UnrecognizedPropertyException;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.joda.JodaModule;
+import com.intracom.common.utilities.Jackson;
+import com.intracom.common.utilities.ServiceModule;
+import com.intracom.model.Service;
+import com.intracom.model.Service.ServiceBuilder;
+import com.intracom.model.ServiceRegistry;
+import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
+
+public class ServiceModuleTest
+{
+    // the generated bean (de)serializers the module replaces
+    private static final ObjectMapper beans = JsonMapper.builder()
+                                                        .addModules(new Jdk8Module(), new JodaModule())
+                                                        .serializationInclusion(JsonInclude.Include.NON_NULL)
+                                                        .build();
+
+    @Test
+    public void beanEncodingTest() throws IOException
+    {
+        var serviceRegistry = new ServiceRegistryBuilder().withFunction("chat") //
+                                                          .withServices(List.of(new ServiceBuilder().withHost("10.0.0.1") //
+                                                                                                    .withName("pod-1")
+                                                                                                    .withPort(Double.valueOf(8080))
+                                                                                                    .withTimestamp(new DateTime(1_650_000_000_000L,
+                                                                                                                                DateTimeZone.UTC))
+                                                                                                    .build(),
+                                                                                new ServiceBuilder().withHost("10.0.0.2") //
+                                                                                                    .withName("pod-2")
+                                                                                                    .withPort(Double.valueOf(8081))
+                                                                                                    .build(),
+                                                                                new ServiceBuilder().withHost("10.0.0.3") //
+                                                                                                    .withName("pod-3")
+                                                                                                    .withPort(Double.valueOf(8082))
+                                                                                                    .withTimestamp(new DateTime(-1L,
+                                                                                                                                DateTimeZone.forOffsetHours(2)))
+                                                                                                    .build()))
+                                                          .build();
+
+        var timestamps = Jackson.om().writeValueAsString(serviceRegistry);
+        // the bean writes the empty optional timestamp as null
+        assertEquals(timestamps, beans.writeValueAsString(serviceRegistry).replace(",\"timestamp\":null", ""));
+
+        var iso = Jackson.om().writer().without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).writeValueAsString(serviceRegistry);
+        assertEquals(iso,
+                     beans.writer()
+                          .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                          .writeValueAsString(serviceRegistry)
+                          .replace(",\"timestamp\":null", ""));
+
+        for (var encoded : List.of(timestamps, iso))
+        {
+            var decoded = Jackson.om().readValue(encoded, ServiceRegistry.class);
+            assertEquals(decoded.getServices().get().get(0).getTimestamp(),
+                         beans.readValue(encoded, ServiceRegistry.class).getServices().get().get(0).getTimestamp());
+            assertEquals(decoded.getServices().get().get(0).getTimestamp().get().getMillis(), 1_650_000_000_000L);
+            assertEquals(decoded.getServices().get().get(1).getTimestamp(), serviceRegistry.getServices().get().get(1).getTimestamp());
+            assertEquals(decoded.getServices().get().get(1).getPort(), 8081.0);
+        }
+
+        var smile = Jackson.smile().writeValueAsBytes(serviceRegistry);
+        assertEquals(Jackson.smile().readValue(smile, ServiceRegistry.class).getServices().get().get(0).getName(), "pod-1");
+    }
+
+    @Test
+    public void lenientDecodingTest() throws IOException
+    {
+        var service = Jackson.om().readValue("{\"port\":\"8080\",\"host\":\"10.0.0.1\",\"name\":7,\"timestamp\":null}", Service.class);
+        assertEquals(service.getPort(), 8080.0, "Numeric text must be coerced");
+        assertEquals(service.getName(), "7", "Scalars must be coerced to text");
+        assertEquals(service.getTimestamp(), Optional.empty());
+
+        assertThrows(UnrecognizedPropertyException.class, () -> Jackson.om().readValue("{\"host\":\"10.0.0.1\",\"zone\":\"a\"}", Service.class));
+        var lenient = Jackson.om().readerFor(Service.class).without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        assertEquals(lenient.<Service>readValue("{\"zone\":{\"id\":[1]},\"host\":\"10.0.0.1\"}").getHost(), "10.0.0.1");
+    }
+
+    @Test
+    public void timestampTest() throws IOException
+    {
+        for (var text : List.of("1970-01-01T00:00:00.000Z", "2024-02-29T23:59:59.999Z", "1969-12-31T23:59:59.001Z", "2022-04-15T05:20:00.000Z"))
+        {
+            var service = Jackson.om().readValue("{\"timestamp\":\"" + text + "\"}", Service.class);
+            assertEquals(service.getTimestamp().get(), beans.readValue("{\"timestamp\":\"" + text + "\"}", Service.class).getTimestamp().get(), text);
+        }
+
+        // other forms and invalid dates are left to the Joda deserializer
+        assertEquals(ServiceModule.parseUtcMillis("2023-02-29T00:00:00.000Z".toCharArray(), 0, 24), Long.MIN_VALUE);
+        assertEquals(ServiceModule.parseUtcMillis("2023-02-28T00:00:00.000+01:00".toCharArray(), 0, 29), Long.MIN_VALUE);
+        assertEquals(Jackson.om().readValue("{\"timestamp\":\"2022-04-15T07:20:00.000+02:00\"}", Service.class).getTimestamp().get().getMillis(),
+                     1_650_000_000_000L);
+    }
+}
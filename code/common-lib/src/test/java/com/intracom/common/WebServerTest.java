@@ -1,11 +1,14 @@
 package com.intracom.common;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -86,6 +89,40 @@ public class WebServerTest
         server.stopListener().blockingAwait();
     }
 
+    @Test
+    public void instances() throws URISyntaxException
+    {
+        var host = "127.0.0.64";
+        var port = this.getPort(host);
+
+        var server = new WebServerBuilder().withHost(host) //
+                                           .withPort(port) //
+                                           .withInstances(4) //
+                                           .build(vertx);
+        server.configureRouter(router -> router.get() //
+                                               .handler(rc -> rc.response() //
+                                                                .end(Thread.currentThread().getName())));
+        server.startListener().blockingAwait();
+
+        // every connection is accepted by one of the instances, round robin
+        var eventLoops = Flowable.range(0, 8) //
+                                 .concatMapSingle(i ->
+                                 {
+                                     var client = new WebClientBuilder().build(this.vertx);
+                                     return client.get()
+                                                  .flatMap(c -> c.get(port, host, "/best/test").rxSend())
+                                                  .map(HttpResponse::bodyAsString)
+                                                  .doFinally(() -> client.close().subscribe());
+                                 })
+                                 .collect(HashSet<String>::new, Set::add)
+                                 .blockingGet();
+        log.info("Requests served on event loops {}", eventLoops);
+
+        assertEquals(server.getInstances(), 4);
+        assertTrue(eventLoops.size() > 1, "Requests must be served on several event loops");
+        server.stopListener().blockingAwait();
+    }
+
     @Test
     public void Termination() throws URISyntaxException
     {
@@ -0,0 +1,45 @@
+package com.intracom.sd;
+
+import java.util.Arrays;
+
+/**
+ * Available ways to forward the requests of a service discovery request that
+ * contains more than one request
+ */
+public enum BatchForwarding
+{
+    /**
+     * Every request is forwarded on its own, spread over the services
+     */
+    SPREAD("spread"),
+    /**
+     * Requests selecting the same service are sent to it with one batch call
+     */
+    GROUPED("grouped");
+
+    private final String value;
+
+    BatchForwarding(String value)
+    {
+        this.value = value;
+    }
+
+    public String value()
+    {
+        return this.value;
+    }
+
+    public static BatchForwarding fromValue(String value)
+    {
+        return Arrays.stream(values())
+                     .filter(forwarding -> forwarding.value.equalsIgnoreCase(value.trim()))
+                     .findFirst()
+                     .orElseThrow(() -> new IllegalArgumentException("Unknown batch forwarding " + value));
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.value;
+    }
+}
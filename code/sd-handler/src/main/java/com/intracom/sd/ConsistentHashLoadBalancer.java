@@ -0,0 +1,151 @@
+package com.intracom.sd;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.intracom.model.Service;
+
+/**
+ * Selection of the service owning the hash of the routing key on a hash ring,
+ * so requests of the same user reach the same service as long as it is
+ * registered. Requests without routing key are spread randomly.
+ */
+public class ConsistentHashLoadBalancer implements LoadBalancer
+{
+    private static final int VIRTUAL_NODES = 100;
+
+    volatile Ring ring = new Ring(List.of());
+
+    @Override
+    public Service select(List<Service> services,
+                          String routingKey)
+    {
+        return this.select(services, services, routingKey);
+    }
+
+    /**
+     * The ring holds the registered services and is rebuilt when they change,
+     * the candidates are found by walking the ring past the other services
+     */
+    @Override
+    public Service select(List<Service> registered,
+                          List<Service> candidates,
+                          String routingKey)
+    {
+        if (routingKey == null)
+            return candidates.get(ThreadLocalRandom.current().nextInt(candidates.size()));
+
+        var current = this.ring;
+        if (current.services != registered)
+        {
+            current = current.holds(registered) ? current.withServices(registered) : new Ring(registered);
+            this.ring = current;
+        }
+
+        return current.select(hash(routingKey), candidates);
+    }
+
+    /**
+     * 64 bit FNV-1a hash, followed by the murmur3 finalizer so that similar keys
+     * spread over the whole ring
+     */
+    static long hash(String key)
+    {
+        var hash = 0xcbf29ce484222325L;
+        for (var b : key.getBytes(StandardCharsets.UTF_8))
+        {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    static final class Ring
+    {
+        private final List<Service> services;
+        private final Map<String, Service> byName;
+        private final TreeMap<Long, String> nodes;
+
+        private Ring(List<Service> services)
+        {
+            this(services, new TreeMap<>());
+            for (var service : services)
+            {
+                for (int i = 0; i < VIRTUAL_NODES; i++)
+                    this.nodes.put(hash(service.getName() + "#" + i), service.getName());
+            }
+        }
+
+        private Ring(List<Service> services,
+                     TreeMap<Long, String> nodes)
+        {
+            this.services = services;
+            this.byName = new HashMap<>(services.size() * 2);
+            services.forEach(service -> this.byName.put(service.getName(), service));
+            this.nodes = nodes;
+        }
+
+        /**
+         * @return ring with the same nodes for another snapshot of the same
+         *         services
+         */
+        private Ring withServices(List<Service> services)
+        {
+            return new Ring(services, this.nodes);
+        }
+
+        /**
+         * @return true if the ring has nodes for exactly these services
+         */
+        private boolean holds(List<Service> services)
+        {
+            if (services.size() != this.services.size())
+                return false;
+
+            for (var service : services)
+            {
+                if (!this.byName.containsKey(service.getName()))
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return the first service of the list owning a node at or after the
+         *         hash
+         */
+        private Service select(long hash,
+                               List<Service> services)
+        {
+            var service = this.select(this.nodes.tailMap(hash).values(), services);
+            return service != null ? service : this.select(this.nodes.headMap(hash).values(), services);
+        }
+
+        private Service select(Collection<String> names,
+                               List<Service> services)
+        {
+            for (var name : names)
+            {
+                if (services == this.services)
+                    return this.byName.get(name);
+
+                for (var service : services)
+                {
+                    if (service.getName().equals(name))
+                        return service;
+                }
+            }
+            return null;
+        }
+    }
+}
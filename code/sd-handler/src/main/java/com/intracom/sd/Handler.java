@@ -18,6 +18,7 @@ public class Handler
     private static final Logger log = LoggerFactory.getLogger(Handler.class);
     private final WebServer server;
     private final WebClient client;
+    private final RequestHandler requestHandler;
     private final TerminateHook termination;
     private final Vertx vertx;
 
@@ -32,14 +33,15 @@ public class Handler
                                .withPort(params.getHandlerPort())
                                .build(this.vertx);
         this.client = WebClient.builder().build(params.getVertx());
-        var requestHandler = new RequestHandler(this.server, this.client, params);
-        requestHandler.createRouters();
+        this.requestHandler = new RequestHandler(this.server, this.client, params);
+        this.requestHandler.createRouters();
     }
 
     private Completable run()
     {
         return Completable.complete()//
                           .andThen(this.server.startListener())
+                          .andThen(this.requestHandler.start())
                           .andThen(this.termination.get())
                           .andThen(this.stop())
                           .onErrorResumeNext(t -> this.stop().andThen(Completable.error(t)));
@@ -56,6 +58,7 @@ public class Handler
         return Completable.complete()//
                           .doOnSubscribe(disp -> log.info("Initiated gracefull shutdown"))
                           .andThen(this.server.stopListener().onErrorComplete(logError))
+                          .andThen(this.requestHandler.stop().onErrorComplete(logError))
                           .andThen(this.client.close().onErrorComplete(logError))
                           .andThen(this.vertx.rxClose().onErrorComplete(logError));
 
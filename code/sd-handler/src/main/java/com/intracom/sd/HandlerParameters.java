@@ -2,6 +2,8 @@ package com.intracom.sd;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.HashMap;
+import java.util.Map;
 
 import com.intracom.common.utilities.EnvParams;
 import com.intracom.common.web.VertxBuilder;
@@ -11,11 +13,53 @@ import io.vertx.reactivex.core.Vertx;
 
 public class HandlerParameters
 {
+    private static final long DEFAULT_CACHE_TTL = 5L;
+    private static final long DEFAULT_CACHE_MAX_STALE = 60L;
+    private static final LoadBalancingStrategy DEFAULT_LOAD_BALANCER = LoadBalancingStrategy.RANDOM;
+    private static final int DEFAULT_OUTLIER_CONSECUTIVE_ERRORS = 5;
+    private static final long DEFAULT_OUTLIER_INTERVAL = 10L;
+    private static final long DEFAULT_OUTLIER_BASE_EJECTION_TIME = 30L;
+    private static final long DEFAULT_OUTLIER_MAX_EJECTION_TIME = 300L;
+    private static final int DEFAULT_OUTLIER_MAX_EJECTION_PERCENT = 50;
+    private static final double DEFAULT_OUTLIER_LATENCY_FACTOR = 3.0;
+    private static final int DEFAULT_RETRY_MAX = 2;
+    private static final double DEFAULT_RETRY_BUDGET_RATIO = 0.2;
+    private static final int DEFAULT_RETRY_BUDGET_MIN_PER_SECOND = 10;
+    private static final boolean DEFAULT_HEDGING = false;
+    private static final double DEFAULT_HEDGING_PERCENTILE = 95.0;
+    private static final boolean DEFAULT_STREAMING_PROXY = false;
+    private static final BatchForwarding DEFAULT_BATCH_FORWARDING = BatchForwarding.GROUPED;
+    private static final boolean DEFAULT_REGISTRY_REPLICA = false;
+    private static final long DEFAULT_REPLICA_WATCH_TIMEOUT = 30L;
+    private static final long DEFAULT_REPLICA_MAX_LAG = 10L;
+    private static final long DEFAULT_REPLICA_IDLE_TIMEOUT = 300L;
+
     private final Vertx vertx = new VertxBuilder().build();
     public int handlerPort;
     public String registryHost;
     public int registryPort;
     private String serviceAddress;
+    private long cacheTtl = DEFAULT_CACHE_TTL;
+    private long cacheMaxStale = DEFAULT_CACHE_MAX_STALE;
+    private LoadBalancingStrategy loadBalancer = DEFAULT_LOAD_BALANCER;
+    private Map<String, LoadBalancingStrategy> functionLoadBalancers = new HashMap<>();
+    private int outlierConsecutiveErrors = DEFAULT_OUTLIER_CONSECUTIVE_ERRORS;
+    private long outlierInterval = DEFAULT_OUTLIER_INTERVAL;
+    private long outlierBaseEjectionTime = DEFAULT_OUTLIER_BASE_EJECTION_TIME;
+    private long outlierMaxEjectionTime = DEFAULT_OUTLIER_MAX_EJECTION_TIME;
+    private int outlierMaxEjectionPercent = DEFAULT_OUTLIER_MAX_EJECTION_PERCENT;
+    private double outlierLatencyFactor = DEFAULT_OUTLIER_LATENCY_FACTOR;
+    private int retryMax = DEFAULT_RETRY_MAX;
+    private double retryBudgetRatio = DEFAULT_RETRY_BUDGET_RATIO;
+    private int retryBudgetMinPerSecond = DEFAULT_RETRY_BUDGET_MIN_PER_SECOND;
+    private boolean hedging = DEFAULT_HEDGING;
+    private double hedgingPercentile = DEFAULT_HEDGING_PERCENTILE;
+    private boolean streamingProxy = DEFAULT_STREAMING_PROXY;
+    private BatchForwarding batchForwarding = DEFAULT_BATCH_FORWARDING;
+    private boolean registryReplica = DEFAULT_REGISTRY_REPLICA;
+    private long replicaWatchTimeout = DEFAULT_REPLICA_WATCH_TIMEOUT;
+    private long replicaMaxLag = DEFAULT_REPLICA_MAX_LAG;
+    private long replicaIdleTimeout = DEFAULT_REPLICA_IDLE_TIMEOUT;
 
     private HandlerParameters(int handlerPort,
                               String registryHost,
@@ -53,6 +97,198 @@ public class HandlerParameters
         return this.serviceAddress;
     }
 
+    /**
+     * @return seconds that cached registrations are used without refresh
+     */
+    public long getCacheTtl()
+    {
+        return this.cacheTtl;
+    }
+
+    /**
+     * @return seconds that expired cached registrations are used while the
+     *         registry is unreachable
+     */
+    public long getCacheMaxStale()
+    {
+        return this.cacheMaxStale;
+    }
+
+    /**
+     * @param function The function name
+     * @return the load balancing strategy configured for the function, or the
+     *         default strategy
+     */
+    public LoadBalancingStrategy getLoadBalancer(String function)
+    {
+        return this.functionLoadBalancers.getOrDefault(function, this.loadBalancer);
+    }
+
+    /**
+     * @return the number of consecutive errors that eject a backend service
+     */
+    public int getOutlierConsecutiveErrors()
+    {
+        return this.outlierConsecutiveErrors;
+    }
+
+    /**
+     * @return seconds between the checks for backend services with outlying
+     *         latency
+     */
+    public long getOutlierInterval()
+    {
+        return this.outlierInterval;
+    }
+
+    /**
+     * @return seconds of the first ejection of a backend service, doubled on
+     *         every following ejection
+     */
+    public long getOutlierBaseEjectionTime()
+    {
+        return this.outlierBaseEjectionTime;
+    }
+
+    /**
+     * @return maximum seconds of an ejection
+     */
+    public long getOutlierMaxEjectionTime()
+    {
+        return this.outlierMaxEjectionTime;
+    }
+
+    /**
+     * @return maximum percentage of backend services ejected at the same time
+     */
+    public int getOutlierMaxEjectionPercent()
+    {
+        return this.outlierMaxEjectionPercent;
+    }
+
+    /**
+     * @return multiple of the median latency that ejects a backend service
+     */
+    public double getOutlierLatencyFactor()
+    {
+        return this.outlierLatencyFactor;
+    }
+
+    /**
+     * @return maximum number of retries of a forwarded request
+     */
+    public int getRetryMax()
+    {
+        return this.retryMax;
+    }
+
+    /**
+     * @return retries and hedged requests allowed per forwarded request
+     */
+    public double getRetryBudgetRatio()
+    {
+        return this.retryBudgetRatio;
+    }
+
+    /**
+     * @return retries and hedged requests allowed per second regardless of the
+     *         ratio
+     */
+    public int getRetryBudgetMinPerSecond()
+    {
+        return this.retryBudgetMinPerSecond;
+    }
+
+    /**
+     * @return true if slow requests are also sent to a second service
+     */
+    public boolean isHedging()
+    {
+        return this.hedging;
+    }
+
+    /**
+     * @return latency percentile of a function after which a request is hedged
+     */
+    public double getHedgingPercentile()
+    {
+        return this.hedgingPercentile;
+    }
+
+    /**
+     * @return true if only the routing fields of requests are parsed and backend
+     *         responses are streamed to the client
+     */
+    public boolean isStreamingProxy()
+    {
+        return this.streamingProxy;
+    }
+
+    /**
+     * @return how the requests of a service discovery request with more than one
+     *         request are forwarded
+     */
+    public BatchForwarding getBatchForwarding()
+    {
+        return this.batchForwarding;
+    }
+
+    /**
+     * @return true if registrations are looked up in an in-process replica of
+     *         the registry
+     */
+    public boolean isRegistryReplica()
+    {
+        return this.registryReplica;
+    }
+
+    /**
+     * @return seconds a watch request of the replica waits for changes
+     */
+    public long getReplicaWatchTimeout()
+    {
+        return this.replicaWatchTimeout;
+    }
+
+    /**
+     * @return seconds the replica may lag behind the registry before lookups
+     *         fall back to the registry
+     */
+    public long getReplicaMaxLag()
+    {
+        return this.replicaMaxLag;
+    }
+
+    /**
+     * @return seconds without lookups after which the replica stops watching a
+     *         function
+     */
+    public long getReplicaIdleTimeout()
+    {
+        return this.replicaIdleTimeout;
+    }
+
+    /**
+     * Parse load balancing strategies per function
+     * 
+     * @param value Comma separated list of function=strategy pairs
+     */
+    public static Map<String, LoadBalancingStrategy> parseLoadBalancers(String value)
+    {
+        var result = new HashMap<String, LoadBalancingStrategy>();
+        if (value == null || value.isBlank())
+            return result;
+
+        for (var pair : value.split(","))
+        {
+            var parts = pair.split("=");
+            if (parts.length != 2 || parts[0].isBlank())
+                throw new IllegalArgumentException("Invalid function load balancer " + pair);
+            result.put(parts[0].trim(), LoadBalancingStrategy.fromValue(parts[1]));
+        }
+        return result;
+    }
+
     @Override
     public String toString()
     {
@@ -61,15 +297,58 @@ public class HandlerParameters
         parameters.put("Service registry host", registryHost);
         parameters.put("Service registry port", registryPort);
         parameters.put("Service address", serviceAddress);
+        parameters.put("Service cache TTL", cacheTtl);
+        parameters.put("Service cache max stale", cacheMaxStale);
+        parameters.put("Load balancer", loadBalancer.value());
+        parameters.put("Function load balancers", functionLoadBalancers.toString());
+        parameters.put("Outlier consecutive errors", outlierConsecutiveErrors);
+        parameters.put("Outlier interval", outlierInterval);
+        parameters.put("Outlier base ejection time", outlierBaseEjectionTime);
+        parameters.put("Outlier max ejection time", outlierMaxEjectionTime);
+        parameters.put("Outlier max ejection percent", outlierMaxEjectionPercent);
+        parameters.put("Outlier latency factor", outlierLatencyFactor);
+        parameters.put("Retry max", retryMax);
+        parameters.put("Retry budget ratio", retryBudgetRatio);
+        parameters.put("Retry budget min per second", retryBudgetMinPerSecond);
+        parameters.put("Hedging", hedging);
+        parameters.put("Hedging percentile", hedgingPercentile);
+        parameters.put("Streaming proxy", streamingProxy);
+        parameters.put("Batch forwarding", batchForwarding.value());
+        parameters.put("Registry replica", registryReplica);
+        parameters.put("Replica watch timeout", replicaWatchTimeout);
+        parameters.put("Replica max lag", replicaMaxLag);
+        parameters.put("Replica idle timeout", replicaIdleTimeout);
         return parameters.encode();
     }
 
     public static HandlerParameters fromEnvironment() throws NumberFormatException, UnknownHostException
     {
-        return new HandlerParameters(Integer.parseInt(EnvParams.get("HANDLER_PORT", 8080)),
-                                     EnvParams.get("REGISTRY_HOST", "sd-registry"),
-                                     Integer.parseInt(EnvParams.get("REGISTRY_PORT", 8080)),
-                                     EnvParams.get("SERVICE_ADDRESS", InetAddress.getLocalHost().getHostAddress()));
+        var params = new HandlerParameters(Integer.parseInt(EnvParams.get("HANDLER_PORT", 8080)),
+                                           EnvParams.get("REGISTRY_HOST", "sd-registry"),
+                                           Integer.parseInt(EnvParams.get("REGISTRY_PORT", 8080)),
+                                           EnvParams.get("SERVICE_ADDRESS", InetAddress.getLocalHost().getHostAddress()));
+        params.cacheTtl = Long.parseLong(EnvParams.get("CACHE_TTL", DEFAULT_CACHE_TTL));
+        params.cacheMaxStale = Long.parseLong(EnvParams.get("CACHE_MAX_STALE", DEFAULT_CACHE_MAX_STALE));
+        params.loadBalancer = LoadBalancingStrategy.fromValue(EnvParams.get("LOAD_BALANCER", DEFAULT_LOAD_BALANCER.value()));
+        params.functionLoadBalancers = parseLoadBalancers(EnvParams.get("FUNCTION_LOAD_BALANCERS", ""));
+        params.outlierConsecutiveErrors = Integer.parseInt(EnvParams.get("OUTLIER_CONSECUTIVE_ERRORS", DEFAULT_OUTLIER_CONSECUTIVE_ERRORS));
+        params.outlierInterval = Long.parseLong(EnvParams.get("OUTLIER_INTERVAL", DEFAULT_OUTLIER_INTERVAL));
+        params.outlierBaseEjectionTime = Long.parseLong(EnvParams.get("OUTLIER_BASE_EJECTION_TIME", DEFAULT_OUTLIER_BASE_EJECTION_TIME));
+        params.outlierMaxEjectionTime = Long.parseLong(EnvParams.get("OUTLIER_MAX_EJECTION_TIME", DEFAULT_OUTLIER_MAX_EJECTION_TIME));
+        params.outlierMaxEjectionPercent = Integer.parseInt(EnvParams.get("OUTLIER_MAX_EJECTION_PERCENT", DEFAULT_OUTLIER_MAX_EJECTION_PERCENT));
+        params.outlierLatencyFactor = Double.parseDouble(EnvParams.get("OUTLIER_LATENCY_FACTOR", DEFAULT_OUTLIER_LATENCY_FACTOR));
+        params.retryMax = Integer.parseInt(EnvParams.get("RETRY_MAX", DEFAULT_RETRY_MAX));
+        params.retryBudgetRatio = Double.parseDouble(EnvParams.get("RETRY_BUDGET_RATIO", DEFAULT_RETRY_BUDGET_RATIO));
+        params.retryBudgetMinPerSecond = Integer.parseInt(EnvParams.get("RETRY_BUDGET_MIN_PER_SECOND", DEFAULT_RETRY_BUDGET_MIN_PER_SECOND));
+        params.hedging = Boolean.parseBoolean(EnvParams.get("HEDGING", DEFAULT_HEDGING));
+        params.hedgingPercentile = Double.parseDouble(EnvParams.get("HEDGING_PERCENTILE", DEFAULT_HEDGING_PERCENTILE));
+        params.streamingProxy = Boolean.parseBoolean(EnvParams.get("STREAMING_PROXY", DEFAULT_STREAMING_PROXY));
+        params.batchForwarding = BatchForwarding.fromValue(EnvParams.get("BATCH_FORWARDING", DEFAULT_BATCH_FORWARDING.value()));
+        params.registryReplica = Boolean.parseBoolean(EnvParams.get("REGISTRY_REPLICA", DEFAULT_REGISTRY_REPLICA));
+        params.replicaWatchTimeout = Long.parseLong(EnvParams.get("REPLICA_WATCH_TIMEOUT", DEFAULT_REPLICA_WATCH_TIMEOUT));
+        params.replicaMaxLag = Long.parseLong(EnvParams.get("REPLICA_MAX_LAG", DEFAULT_REPLICA_MAX_LAG));
+        params.replicaIdleTimeout = Long.parseLong(EnvParams.get("REPLICA_IDLE_TIMEOUT", DEFAULT_REPLICA_IDLE_TIMEOUT));
+        return params;
     }
 
     public static class HandlerParametersBuilder
@@ -122,5 +401,128 @@ public class HandlerParameters
             this.instance.serviceAddress = serviceAddress;
             return this;
         }
+
+        public HandlerParametersBuilder withCacheTtl(long cacheTtl)
+        {
+            this.instance.cacheTtl = cacheTtl;
+            return this;
+        }
+
+        public HandlerParametersBuilder withCacheMaxStale(long cacheMaxStale)
+        {
+            this.instance.cacheMaxStale = cacheMaxStale;
+            return this;
+        }
+
+        public HandlerParametersBuilder withLoadBalancer(LoadBalancingStrategy loadBalancer)
+        {
+            this.instance.loadBalancer = loadBalancer;
+            return this;
+        }
+
+        public HandlerParametersBuilder withOutlierConsecutiveErrors(int consecutiveErrors)
+        {
+            this.instance.outlierConsecutiveErrors = consecutiveErrors;
+            return this;
+        }
+
+        public HandlerParametersBuilder withOutlierInterval(long interval)
+        {
+            this.instance.outlierInterval = interval;
+            return this;
+        }
+
+        public HandlerParametersBuilder withOutlierBaseEjectionTime(long baseEjectionTime)
+        {
+            this.instance.outlierBaseEjectionTime = baseEjectionTime;
+            return this;
+        }
+
+        public HandlerParametersBuilder withOutlierMaxEjectionTime(long maxEjectionTime)
+        {
+            this.instance.outlierMaxEjectionTime = maxEjectionTime;
+            return this;
+        }
+
+        public HandlerParametersBuilder withOutlierMaxEjectionPercent(int maxEjectionPercent)
+        {
+            this.instance.outlierMaxEjectionPercent = maxEjectionPercent;
+            return this;
+        }
+
+        public HandlerParametersBuilder withOutlierLatencyFactor(double latencyFactor)
+        {
+            this.instance.outlierLatencyFactor = latencyFactor;
+            return this;
+        }
+
+        public HandlerParametersBuilder withRetryMax(int retryMax)
+        {
+            this.instance.retryMax = retryMax;
+            return this;
+        }
+
+        public HandlerParametersBuilder withRetryBudget(double ratio,
+                                                        int minPerSecond)
+        {
+            this.instance.retryBudgetRatio = ratio;
+            this.instance.retryBudgetMinPerSecond = minPerSecond;
+            return this;
+        }
+
+        public HandlerParametersBuilder withHedging(boolean hedging)
+        {
+            this.instance.hedging = hedging;
+            return this;
+        }
+
+        public HandlerParametersBuilder withHedgingPercentile(double percentile)
+        {
+            this.instance.hedgingPercentile = percentile;
+            return this;
+        }
+
+        public HandlerParametersBuilder withStreamingProxy(boolean streamingProxy)
+        {
+            this.instance.streamingProxy = streamingProxy;
+            return this;
+        }
+
+        public HandlerParametersBuilder withBatchForwarding(BatchForwarding batchForwarding)
+        {
+            this.instance.batchForwarding = batchForwarding;
+            return this;
+        }
+
+        public HandlerParametersBuilder withRegistryReplica(boolean registryReplica)
+        {
+            this.instance.registryReplica = registryReplica;
+            return this;
+        }
+
+        public HandlerParametersBuilder withReplicaWatchTimeout(long watchTimeout)
+        {
+            this.instance.replicaWatchTimeout = watchTimeout;
+            return this;
+        }
+
+        public HandlerParametersBuilder withReplicaMaxLag(long maxLag)
+        {
+            this.instance.replicaMaxLag = maxLag;
+            return this;
+        }
+
+        public HandlerParametersBuilder withReplicaIdleTimeout(long idleTimeout)
+        {
+            this.instance.replicaIdleTimeout = idleTimeout;
+            return this;
+        }
+
+        public HandlerParametersBuilder withFunctionLoadBalancer(String function,
+                                                                 LoadBalancingStrategy loadBalancer)
+        {
+            this.instance.functionLoadBalancers.put(function, loadBalancer);
+            return this;
+        }
     }
 }
\ No newline at end of file
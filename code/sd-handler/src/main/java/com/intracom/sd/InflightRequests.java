@@ -0,0 +1,40 @@
+package com.intracom.sd;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.intracom.model.Service;
+
+/**
+ * Number of forwarded requests that wait for a response, per backend service
+ */
+public class InflightRequests
+{
+    private final ConcurrentHashMap<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+
+    /**
+     * @return the key identifying the endpoint of a backend service
+     */
+    public static String endpoint(Service service)
+    {
+        return service.getHost() + ":" + service.getPort().intValue();
+    }
+
+    public void started(Service service)
+    {
+        this.requests.computeIfAbsent(endpoint(service), key -> new AtomicInteger()).incrementAndGet();
+    }
+
+    public void completed(Service service)
+    {
+        var counter = this.requests.get(endpoint(service));
+        if (counter != null)
+            counter.updateAndGet(value -> Math.max(value - 1, 0));
+    }
+
+    public int get(Service service)
+    {
+        var counter = this.requests.get(endpoint(service));
+        return counter == null ? 0 : counter.get();
+    }
+}
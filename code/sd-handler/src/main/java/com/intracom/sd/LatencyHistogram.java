@@ -0,0 +1,77 @@
+package com.intracom.sd;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate latency distribution of recent responses.
+ * <p>
+ * Latencies are counted in buckets that grow by 25%, so percentiles are
+ * accurate to a quarter of their value at a fixed cost per sample. Counts are
+ * halved when they exceed a limit, so that old samples fade out.
+ */
+public class LatencyHistogram
+{
+    private static final double GROWTH = 1.25;
+    private static final int BUCKETS = 64;
+    private static final long MAX_SAMPLES = 10_000;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    public void record(long latencyMillis)
+    {
+        this.counts.incrementAndGet(bucket(latencyMillis));
+    }
+
+    /**
+     * @return the number of samples currently in the histogram
+     */
+    public long count()
+    {
+        var total = 0L;
+        for (var i = 0; i < BUCKETS; i++)
+            total += this.counts.get(i);
+        return total;
+    }
+
+    /**
+     * @param percentile The percentile between 0 and 100
+     * @return the upper bound in milliseconds of the bucket containing the
+     *         percentile, 0 if there are no samples
+     */
+    public long percentile(double percentile)
+    {
+        var total = this.count();
+        if (total == 0)
+            return 0;
+
+        if (total > MAX_SAMPLES)
+        {
+            for (var i = 0; i < BUCKETS; i++)
+                this.counts.updateAndGet(i, count -> count / 2);
+            total = this.count();
+        }
+
+        var rank = Math.ceil(total * percentile / 100);
+        var seen = 0L;
+        for (var i = 0; i < BUCKETS; i++)
+        {
+            seen += this.counts.get(i);
+            if (seen >= rank)
+                return upperBound(i);
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    private static int bucket(long latencyMillis)
+    {
+        if (latencyMillis <= 1)
+            return 0;
+        return Math.min((int) Math.ceil(Math.log(latencyMillis) / LOG_GROWTH), BUCKETS - 1);
+    }
+
+    private static long upperBound(int bucket)
+    {
+        return (long) Math.ceil(Math.pow(GROWTH, bucket));
+    }
+}
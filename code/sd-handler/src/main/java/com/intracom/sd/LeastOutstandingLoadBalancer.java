@@ -0,0 +1,41 @@
+package com.intracom.sd;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.intracom.model.Service;
+
+/**
+ * Selection of the service with the fewest requests in flight. The scan starts
+ * at a random position, so ties are spread over the services.
+ */
+public class LeastOutstandingLoadBalancer implements LoadBalancer
+{
+    private final InflightRequests inflight;
+
+    public LeastOutstandingLoadBalancer(InflightRequests inflight)
+    {
+        this.inflight = inflight;
+    }
+
+    @Override
+    public Service select(List<Service> services,
+                          String routingKey)
+    {
+        var size = services.size();
+        var start = ThreadLocalRandom.current().nextInt(size);
+        Service selected = null;
+        var least = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++)
+        {
+            var service = services.get((start + i) % size);
+            var outstanding = this.inflight.get(service);
+            if (outstanding < least)
+            {
+                selected = service;
+                least = outstanding;
+            }
+        }
+        return selected;
+    }
+}
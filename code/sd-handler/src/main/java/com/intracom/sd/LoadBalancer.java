@@ -0,0 +1,62 @@
+package com.intracom.sd;
+
+import java.util.List;
+
+import com.intracom.model.Service;
+
+/**
+ * Selection of the backend service that receives a forwarded request
+ */
+public interface LoadBalancer
+{
+    /**
+     * @param services   The registered services of the function, never empty
+     * @param routingKey The key of the request used by affinity based
+     *                   strategies, may be null
+     * @return the selected service
+     */
+    Service select(List<Service> services,
+                   String routingKey);
+
+    /**
+     * @param registered The registered services of the function
+     * @param candidates The services available for selection, a non empty
+     *                   sublist of the registered services without ejected or
+     *                   already tried services
+     * @param routingKey The key of the request used by affinity based
+     *                   strategies, may be null
+     * @return the selected service
+     */
+    default Service select(List<Service> registered,
+                           List<Service> candidates,
+                           String routingKey)
+    {
+        return this.select(candidates, routingKey);
+    }
+
+    /**
+     * Create a load balancer for a function
+     * 
+     * @param strategy The load balancing strategy
+     * @param inflight The requests in flight per backend service, shared by all
+     *                 load balancers of the handler
+     */
+    static LoadBalancer create(LoadBalancingStrategy strategy,
+                               InflightRequests inflight)
+    {
+        switch (strategy)
+        {
+            case ROUND_ROBIN:
+                return new RoundRobinLoadBalancer();
+            case LEAST_OUTSTANDING:
+                return new LeastOutstandingLoadBalancer(inflight);
+            case POWER_OF_TWO_CHOICES:
+                return new PowerOfTwoChoicesLoadBalancer(inflight);
+            case CONSISTENT_HASH:
+                return new ConsistentHashLoadBalancer();
+            case RANDOM:
+            default:
+                return new RandomLoadBalancer();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.intracom.sd;
+
+import java.util.Arrays;
+
+/**
+ * Available strategies for the selection of a backend service
+ */
+public enum LoadBalancingStrategy
+{
+    RANDOM("random"),
+    ROUND_ROBIN("round-robin"),
+    LEAST_OUTSTANDING("least-outstanding"),
+    POWER_OF_TWO_CHOICES("power-of-two-choices"),
+    CONSISTENT_HASH("consistent-hash");
+
+    private final String value;
+
+    LoadBalancingStrategy(String value)
+    {
+        this.value = value;
+    }
+
+    public String value()
+    {
+        return this.value;
+    }
+
+    public static LoadBalancingStrategy fromValue(String value)
+    {
+        return Arrays.stream(values())
+                     .filter(strategy -> strategy.value.equalsIgnoreCase(value.trim()))
+                     .findFirst()
+                     .orElseThrow(() -> new IllegalArgumentException("Unknown load balancing strategy " + value));
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.value;
+    }
+}
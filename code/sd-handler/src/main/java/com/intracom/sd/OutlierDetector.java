@@ -0,0 +1,282 @@
+package com.intracom.sd;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intracom.model.Service;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Passive health checking of backend services based on forwarded responses.
+ * <p>
+ * An endpoint is ejected from selection after a number of consecutive errors,
+ * or during the periodic sweep if its average latency is a multiple of the
+ * median latency of all endpoints. The ejection time doubles with every
+ * ejection of the same endpoint and shrinks again while it stays healthy. No
+ * more than a percentage of the known endpoints is ejected at the same time.
+ */
+public class OutlierDetector
+{
+    private static final Logger log = LoggerFactory.getLogger(OutlierDetector.class);
+    private static final double LATENCY_WEIGHT = 0.2;
+    private static final int MIN_LATENCY_SAMPLES = 10;
+    private static final double MIN_OUTLIER_LATENCY_MILLIS = 10;
+
+    private final ConcurrentHashMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final int consecutiveErrors;
+    private final long intervalMillis;
+    private final long baseEjectionMillis;
+    private final long maxEjectionMillis;
+    private final int maxEjectionPercent;
+    private final double latencyFactor;
+    private final LongSupplier clock;
+    private Disposable sweeper = null;
+
+    /**
+     * @param consecutiveErrors  The number of consecutive errors that eject an
+     *                           endpoint
+     * @param intervalMillis     The period of the latency sweep
+     * @param baseEjectionMillis The time of the first ejection of an endpoint
+     * @param maxEjectionMillis  The maximum time of an ejection
+     * @param maxEjectionPercent The maximum percentage of ejected endpoints
+     * @param latencyFactor      The multiple of the median latency that marks an
+     *                           endpoint as outlier
+     * @param clock              The source of the current time in milliseconds
+     */
+    OutlierDetector(int consecutiveErrors,
+                    long intervalMillis,
+                    long baseEjectionMillis,
+                    long maxEjectionMillis,
+                    int maxEjectionPercent,
+                    double latencyFactor,
+                    LongSupplier clock)
+    {
+        this.consecutiveErrors = consecutiveErrors;
+        this.intervalMillis = intervalMillis;
+        this.baseEjectionMillis = baseEjectionMillis;
+        this.maxEjectionMillis = maxEjectionMillis;
+        this.maxEjectionPercent = maxEjectionPercent;
+        this.latencyFactor = latencyFactor;
+        this.clock = clock;
+    }
+
+    public OutlierDetector(HandlerParameters params)
+    {
+        this(params.getOutlierConsecutiveErrors(),
+             TimeUnit.SECONDS.toMillis(params.getOutlierInterval()),
+             TimeUnit.SECONDS.toMillis(params.getOutlierBaseEjectionTime()),
+             TimeUnit.SECONDS.toMillis(params.getOutlierMaxEjectionTime()),
+             params.getOutlierMaxEjectionPercent(),
+             params.getOutlierLatencyFactor(),
+             System::currentTimeMillis);
+    }
+
+    /**
+     * Record a successful response of a backend service
+     *
+     * @param service       The backend service
+     * @param latencyMillis The time until the response was received
+     */
+    public void success(Service service,
+                        long latencyMillis)
+    {
+        var endpoint = this.endpoint(service);
+        synchronized (endpoint)
+        {
+            endpoint.lastSeen = this.clock.getAsLong();
+            endpoint.errors = 0;
+            endpoint.latency = endpoint.samples == 0 ? latencyMillis : endpoint.latency + LATENCY_WEIGHT * (latencyMillis - endpoint.latency);
+            endpoint.samples++;
+        }
+    }
+
+    /**
+     * Record a failed request or an error response of a backend service
+     *
+     * @param service The backend service
+     */
+    public void failure(Service service)
+    {
+        var endpoint = this.endpoint(service);
+        var now = this.clock.getAsLong();
+        synchronized (endpoint)
+        {
+            endpoint.lastSeen = now;
+            endpoint.failed = true;
+            if (++endpoint.errors >= this.consecutiveErrors && !endpoint.isEjected(now) && this.canEject(now))
+                this.eject(InflightRequests.endpoint(service), endpoint, now, "consecutive errors");
+        }
+    }
+
+    /**
+     * @param service The backend service
+     * @return true if the service is currently excluded from selection
+     */
+    public boolean isEjected(Service service)
+    {
+        var endpoint = this.endpoints.get(InflightRequests.endpoint(service));
+        return endpoint != null && endpoint.isEjected(this.clock.getAsLong());
+    }
+
+    /**
+     * Remove the ejected services from a list of registered services
+     *
+     * @param services The registered services of a function
+     * @return the services available for selection, or all services if every
+     *         service is ejected
+     */
+    public List<Service> filter(List<Service> services)
+    {
+        var now = this.clock.getAsLong();
+        List<Service> available = null;
+        for (var i = 0; i < services.size(); i++)
+        {
+            var endpoint = this.endpoints.get(InflightRequests.endpoint(services.get(i)));
+            if (endpoint != null && endpoint.isEjected(now))
+            {
+                if (available == null)
+                    available = new ArrayList<>(services.subList(0, i));
+            }
+            else if (available != null)
+                available.add(services.get(i));
+        }
+
+        // keep the same list if nothing is ejected
+        if (available == null)
+            return services;
+
+        if (available.isEmpty())
+        {
+            log.warn("All {} services are ejected, ignoring outlier detection", services.size());
+            return services;
+        }
+        return available;
+    }
+
+    /**
+     * Start the periodic latency sweep
+     */
+    public Completable start()
+    {
+        return Completable.fromAction(() ->
+        {
+            if (this.sweeper == null)
+            {
+                this.sweeper = Flowable.interval(this.intervalMillis, this.intervalMillis, TimeUnit.MILLISECONDS)
+                                       .onBackpressureDrop()
+                                       .subscribe(tick -> this.sweep(), t -> log.error("Stopped outlier detection. Cause: {}", t.toString()));
+            }
+        });
+    }
+
+    public Completable stop()
+    {
+        return Completable.fromAction(() ->
+        {
+            if (this.sweeper != null)
+            {
+                this.sweeper.dispose();
+                this.sweeper = null;
+            }
+        });
+    }
+
+    /**
+     * Eject endpoints with outlying latency, re-admit healthy endpoints and forget
+     * endpoints that are no longer used
+     */
+    void sweep()
+    {
+        var now = this.clock.getAsLong();
+        var latencies = new ArrayList<Double>();
+        this.endpoints.forEach((key,
+                                endpoint) ->
+        {
+            synchronized (endpoint)
+            {
+                if (!endpoint.isEjected(now) && endpoint.samples >= MIN_LATENCY_SAMPLES)
+                    latencies.add(endpoint.latency);
+            }
+        });
+
+        if (latencies.size() >= 2)
+        {
+            latencies.sort(null);
+            var threshold = Math.max(latencies.get(latencies.size() / 2) * this.latencyFactor, MIN_OUTLIER_LATENCY_MILLIS);
+            this.endpoints.forEach((key,
+                                    endpoint) ->
+            {
+                synchronized (endpoint)
+                {
+                    if (!endpoint.isEjected(now) && endpoint.samples >= MIN_LATENCY_SAMPLES && endpoint.latency > threshold && this.canEject(now))
+                        this.eject(key, endpoint, now, "latency " + Math.round(endpoint.latency) + "ms");
+                }
+            });
+        }
+
+        this.endpoints.entrySet().removeIf(entry ->
+        {
+            var endpoint = entry.getValue();
+            synchronized (endpoint)
+            {
+                if (endpoint.isEjected(now))
+                    return false;
+
+                // every healthy interval halves the next ejection time
+                if (!endpoint.failed && endpoint.ejections > 0)
+                    endpoint.ejections--;
+                endpoint.failed = false;
+                return endpoint.ejections == 0 && now - endpoint.lastSeen > this.maxEjectionMillis;
+            }
+        });
+    }
+
+    private Endpoint endpoint(Service service)
+    {
+        return this.endpoints.computeIfAbsent(InflightRequests.endpoint(service), key -> new Endpoint());
+    }
+
+    private boolean canEject(long now)
+    {
+        var ejected = this.endpoints.values().stream().filter(endpoint -> endpoint.isEjected(now)).count();
+        return (ejected + 1) * 100 <= (long) this.maxEjectionPercent * this.endpoints.size();
+    }
+
+    private void eject(String key,
+                       Endpoint endpoint,
+                       long now,
+                       String reason)
+    {
+        var duration = Math.min(this.baseEjectionMillis << Math.min(endpoint.ejections, 30), this.maxEjectionMillis);
+        endpoint.ejections++;
+        endpoint.ejectedUntil = now + duration;
+        endpoint.errors = 0;
+        endpoint.samples = 0;
+        log.warn("Ejected {} for {}ms due to {}", key, duration, reason);
+    }
+
+    private static final class Endpoint
+    {
+        private int errors = 0;
+        private boolean failed = false;
+        private double latency = 0;
+        private long samples = 0;
+        private int ejections = 0;
+        private volatile long ejectedUntil = 0;
+        private long lastSeen = 0;
+
+        private boolean isEjected(long now)
+        {
+            return now < this.ejectedUntil;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.intracom.sd;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.intracom.model.Service;
+
+/**
+ * Selection of the less loaded of two random services
+ */
+public class PowerOfTwoChoicesLoadBalancer implements LoadBalancer
+{
+    private final InflightRequests inflight;
+
+    public PowerOfTwoChoicesLoadBalancer(InflightRequests inflight)
+    {
+        this.inflight = inflight;
+    }
+
+    @Override
+    public Service select(List<Service> services,
+                          String routingKey)
+    {
+        var size = services.size();
+        if (size == 1)
+            return services.get(0);
+
+        var random = ThreadLocalRandom.current();
+        var first = random.nextInt(size);
+        var second = random.nextInt(size - 1);
+        if (second >= first)
+            second++;
+
+        var firstService = services.get(first);
+        var secondService = services.get(second);
+        return this.inflight.get(secondService) < this.inflight.get(firstService) ? secondService : firstService;
+    }
+}
@@ -0,0 +1,19 @@
+package com.intracom.sd;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.intracom.model.Service;
+
+/**
+ * Uniform random selection
+ */
+public class RandomLoadBalancer implements LoadBalancer
+{
+    @Override
+    public Service select(List<Service> services,
+                          String routingKey)
+    {
+        return services.get(ThreadLocalRandom.current().nextInt(services.size()));
+    }
+}
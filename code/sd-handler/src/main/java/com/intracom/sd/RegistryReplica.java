@@ -0,0 +1,374 @@
+package com.intracom.sd;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intracom.common.web.ContentCodec;
+import com.intracom.common.web.WebClient;
+import com.intracom.model.RegistrationEvent;
+import com.intracom.model.RegistryWatch;
+import com.intracom.model.Service;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.buffer.Buffer;
+import io.vertx.reactivex.ext.web.client.HttpResponse;
+
+/**
+ * In-process read-only replica of the registrations of the registry.
+ * <p>
+ * Every function the registry returned services for is {@link #replicate
+ * replicated}: it is kept in sync with a long-poll watch on the registry change
+ * feed, which delivers the changes since the replicated version as they
+ * happen, or all services of the function if the changes are no longer
+ * available. Lookups of replicated functions are answered from memory without
+ * any request or decoding. A function that is not looked up for the idle
+ * timeout stops being replicated.
+ * <p>
+ * While a watch is established the replica is current, so its replication lag
+ * is 0. Once a watch fails, the lag is the time since the watch was lost. A
+ * function is cold until its first watch response and while its lag exceeds the
+ * maximum; lookups of cold functions return nothing, so callers fall back to
+ * the registry.
+ */
+public class RegistryReplica
+{
+    private static final Logger log = LoggerFactory.getLogger(RegistryReplica.class);
+    private static final URI REGISTRY_WATCH_URI = URI.create("/registrations/watch");
+    private static final long WATCH_GRACE_MILLIS = 5000L;
+    private static final long RETRY_DELAY_MILLIS = 1000L;
+
+    private final WebClient client;
+    private final String registryHost;
+    private final int registryPort;
+    private final long watchTimeoutSeconds;
+    private final long maxLagMillis;
+    private final long idleMillis;
+    private final ConcurrentHashMap<String, FunctionReplica> functions = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong watchFailures = new AtomicLong();
+
+    /**
+     * @param client              The client used for the registry watch
+     * @param registryHost        The registry host
+     * @param registryPort        The registry port
+     * @param watchTimeoutSeconds The time a watch request waits for changes
+     * @param maxLagMillis        The lag after which a function is cold again
+     * @param idleMillis          The time without lookups after which a
+     *                            function is no longer replicated
+     */
+    public RegistryReplica(WebClient client,
+                           String registryHost,
+                           int registryPort,
+                           long watchTimeoutSeconds,
+                           long maxLagMillis,
+                           long idleMillis)
+    {
+        this.client = client;
+        this.registryHost = registryHost;
+        this.registryPort = registryPort;
+        this.watchTimeoutSeconds = watchTimeoutSeconds;
+        this.maxLagMillis = maxLagMillis;
+        this.idleMillis = idleMillis;
+    }
+
+    public RegistryReplica(WebClient client,
+                           HandlerParameters params)
+    {
+        this(client,
+             params.getRegistryHost(),
+             params.getRegistryPort(),
+             params.getReplicaWatchTimeout(),
+             TimeUnit.SECONDS.toMillis(params.getReplicaMaxLag()),
+             TimeUnit.SECONDS.toMillis(params.getReplicaIdleTimeout()));
+    }
+
+    /**
+     * Get the replicated services of a function
+     *
+     * @param function The function name
+     * @return the registered services, empty if the function is not replicated
+     *         or cold
+     */
+    public Optional<List<Service>> get(String function)
+    {
+        var replica = this.functions.get(function);
+        if (replica == null)
+        {
+            this.misses.incrementAndGet();
+            return Optional.empty();
+        }
+
+        replica.read();
+        var snapshot = replica.snapshot;
+        if (snapshot != null && replica.lag() <= this.maxLagMillis)
+        {
+            this.hits.incrementAndGet();
+            return Optional.of(snapshot.services);
+        }
+
+        this.misses.incrementAndGet();
+        return Optional.empty();
+    }
+
+    /**
+     * Start the replication of a function, unless it is replicated already.
+     * Only called for functions the registry returned services for, so lookups
+     * of unknown functions do not start watches.
+     *
+     * @param function The function name
+     */
+    public void replicate(String function)
+    {
+        this.functions.computeIfAbsent(function, this::watch);
+    }
+
+    /**
+     * @param function The function name
+     * @return milliseconds the replica of the function lags behind the registry,
+     *         -1 if the function has not been replicated yet
+     */
+    public long getReplicationLag(String function)
+    {
+        var replica = this.functions.get(function);
+        return replica == null || replica.snapshot == null ? -1 : replica.lag();
+    }
+
+    /**
+     * @return the maximum replication lag in milliseconds of all replicated
+     *         functions
+     */
+    public long getReplicationLag()
+    {
+        return this.functions.values().stream().filter(replica -> replica.snapshot != null).mapToLong(FunctionReplica::lag).max().orElse(0L);
+    }
+
+    /**
+     * @param function The function name
+     * @return the replicated version of the function, 0 if none
+     */
+    public long getVersion(String function)
+    {
+        var replica = this.functions.get(function);
+        return replica == null || replica.snapshot == null ? 0L : replica.snapshot.version;
+    }
+
+    public long getHits()
+    {
+        return this.hits.get();
+    }
+
+    public long getMisses()
+    {
+        return this.misses.get();
+    }
+
+    public long getResyncs()
+    {
+        return this.resyncs.get();
+    }
+
+    public long getWatchFailures()
+    {
+        return this.watchFailures.get();
+    }
+
+    /**
+     * Stop the replication of all functions
+     */
+    public Completable stop()
+    {
+        return Completable.fromAction(() ->
+        {
+            this.functions.values().forEach(replica -> replica.watch.dispose());
+            this.functions.clear();
+        });
+    }
+
+    @Override
+    public String toString()
+    {
+        var statistics = new JsonObject();
+        statistics.put("functions", this.functions.size());
+        statistics.put("hits", this.hits.get());
+        statistics.put("misses", this.misses.get());
+        statistics.put("resyncs", this.resyncs.get());
+        statistics.put("watchFailures", this.watchFailures.get());
+        statistics.put("replicationLag", this.getReplicationLag());
+        return statistics.encode();
+    }
+
+    /**
+     * Start watching the registrations of a function until the replica is
+     * stopped or the function is idle. Failed watches are repeated after a
+     * delay.
+     */
+    private FunctionReplica watch(String function)
+    {
+        log.info("Start replication of function {}", function);
+        var replica = new FunctionReplica();
+        replica.watch = Completable.defer(() -> this.poll(function, replica))
+                                   .repeatUntil(() -> replica.isIdle(this.idleMillis))
+                                   .retryWhen(errors -> errors.takeWhile(t -> !replica.isIdle(this.idleMillis)).flatMap(t ->
+                                   {
+                                       this.watchFailures.incrementAndGet();
+                                       replica.lost();
+                                       log.warn("Watch of function {} failed: {}", function, t.getMessage());
+                                       return Flowable.timer(RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+                                   }))
+                                   .doFinally(() -> this.functions.remove(function, replica))
+                                   .subscribe(() -> log.info("Stopped replication of function {}", function),
+                                              t -> log.error("Stopped replication of function {}. Cause: {}", function, t.toString()));
+        return replica;
+    }
+
+    private Completable poll(String function,
+                             FunctionReplica replica)
+    {
+        var current = replica.snapshot;
+        var version = current == null ? 0L : current.version;
+
+        return this.client.get() // get client
+                          .flatMap(webClient ->
+                          {
+                              var request = webClient.get(this.registryPort, this.registryHost, REGISTRY_WATCH_URI.getPath())
+                                                     .addQueryParam("function", function)
+                                                     .addQueryParam("version", String.valueOf(version))
+                                                     .addQueryParam("timeout", String.valueOf(this.watchTimeoutSeconds))
+                                                     .timeout(TimeUnit.SECONDS.toMillis(this.watchTimeoutSeconds) + WATCH_GRACE_MILLIS);
+                              // versions are only valid at the registry instance that assigned them
+                              if (current != null && current.instance != null)
+                                  request.addQueryParam("instance", current.instance);
+                              return request.putHeader(HttpHeaderNames.ACCEPT.toString(), ContentCodec.PREFER_SMILE).rxSend();
+                          })
+                          .flatMap(resp -> Single.fromCallable(() -> this.apply(function, current, resp)))
+                          .doOnSuccess(replica::synced)
+                          .ignoreElement();
+    }
+
+    /**
+     * Apply a watch response to the replicated snapshot of a function
+     */
+    private Snapshot apply(String function,
+                           Snapshot current,
+                           HttpResponse<Buffer> resp) throws Exception
+    {
+        if (resp.statusCode() == HttpResponseStatus.NOT_MODIFIED.code())
+        {
+            // nothing changed since the known version, version 0 means no registrations
+            return current == null ? new Snapshot(null, 0L, new LinkedHashMap<>()) : current;
+        }
+        if (resp.statusCode() != HttpResponseStatus.OK.code())
+            throw new IllegalStateException("Registry watch failed with code:" + resp.statusCode() + ", result message:" + resp.statusMessage());
+
+        var watch = ContentCodec.ofContentType(resp.getHeader(HttpHeaderNames.CONTENT_TYPE.toString())).decode(resp.body(), RegistryWatch.class);
+        var services = new LinkedHashMap<String, Service>();
+        if (Boolean.TRUE.equals(watch.getResync()))
+        {
+            this.resyncs.incrementAndGet();
+            watch.getServices().orElse(List.of()).forEach(service -> services.put(service.getName(), service));
+            log.info("Resynchronized function {} at version {} with {} services", function, watch.getVersion(), services.size());
+        }
+        else
+        {
+            // without a snapshot the changes since version 0 are the whole history
+            // of the function
+            var known = current == null ? 0L : current.version;
+            if (current != null)
+                services.putAll(current.byName);
+            for (var event : watch.getEvents().orElse(List.of()))
+            {
+                if (event.getVersion() <= known)
+                    continue;
+
+                var service = event.getService();
+                if (event.getType() == RegistrationEvent.Type.REMOVED)
+                    services.remove(service.getName());
+                else
+                    services.put(service.getName(), service);
+            }
+            log.debug("Applied changes of function {} up to version {}", function, watch.getVersion());
+        }
+        return new Snapshot(watch.getInstance().orElse(null), watch.getVersion(), services);
+    }
+
+    /**
+     * Replication state of one function
+     */
+    private static final class FunctionReplica
+    {
+        private volatile Snapshot snapshot = null;
+        private volatile boolean connected = false;
+        private volatile long lostAt = 0L;
+        private volatile long readAt = System.currentTimeMillis();
+        private Disposable watch;
+
+        private void read()
+        {
+            this.readAt = System.currentTimeMillis();
+        }
+
+        private boolean isIdle(long idleMillis)
+        {
+            return System.currentTimeMillis() - this.readAt > idleMillis;
+        }
+
+        private void synced(Snapshot snapshot)
+        {
+            this.snapshot = snapshot;
+            this.connected = true;
+        }
+
+        private void lost()
+        {
+            if (this.connected)
+            {
+                this.connected = false;
+                this.lostAt = System.currentTimeMillis();
+            }
+        }
+
+        private long lag()
+        {
+            return this.connected ? 0L : System.currentTimeMillis() - this.lostAt;
+        }
+    }
+
+    /**
+     * Immutable replicated services of a function at a version of a registry
+     * instance
+     */
+    private static final class Snapshot
+    {
+        private final String instance;
+        private final long version;
+        private final Map<String, Service> byName;
+        private final List<Service> services;
+
+        private Snapshot(String instance,
+                         long version,
+                         LinkedHashMap<String, Service> byName)
+        {
+            this.instance = instance;
+            this.version = version;
+            this.byName = byName;
+            this.services = List.copyOf(byName.values());
+        }
+    }
+}
@@ -1,29 +1,51 @@
 package com.intracom.sd;
 
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonMappingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.intracom.common.utilities.Jackson;
+import com.intracom.common.web.ContentCodec;
 import com.intracom.common.web.WebClient;
 import com.intracom.common.web.WebServer;
+import com.intracom.model.BatchResponse;
+import com.intracom.model.BatchResponse.BatchResponseBuilder;
+import com.intracom.model.BatchResult;
+import com.intracom.model.BatchResult.BatchResultBuilder;
+import com.intracom.model.Message;
+import com.intracom.model.RegistryWatch;
+import com.intracom.model.Request;
 import com.intracom.model.Service;
 import com.intracom.model.ServiceDiscovery;
 import com.intracom.model.ServiceRegistry;
-import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
 
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpResponseStatus;
+import io.reactivex.Completable;
+import io.reactivex.Observable;
 import io.reactivex.Single;
-import io.vertx.core.json.JsonObject;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
 import io.vertx.reactivex.core.buffer.Buffer;
+import io.vertx.reactivex.core.http.HttpClientResponse;
 import io.vertx.reactivex.ext.web.RoutingContext;
 import io.vertx.reactivex.ext.web.client.HttpResponse;
 
@@ -35,11 +57,35 @@ public class RequestHandler
     private final WebServer server;
     private final WebClient client;
     private final HandlerParameters params;
+    private final ServiceCache serviceCache;
+    private final RegistryReplica replica;
+    private final InflightRequests inflight = new InflightRequests();
+    private final OutlierDetector outlierDetector;
+    private final RetryBudget retryBudget;
+    private final ConcurrentHashMap<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LoadBalancer> loadBalancers = new ConcurrentHashMap<>();
 
     private static final Logger log = LoggerFactory.getLogger(RequestHandler.class);
-    private static final ObjectMapper json = Jackson.om();
     private static final URI CHAT_MESSAGES_URI = URI.create("/chat/messages");
-    private static final URI REGISTRY_URI = URI.create("/registrations");
+    private static final URI CHAT_MESSAGES_BATCH_URI = URI.create("/chat/messages/batch");
+    private static final TypeReference<List<Message>> MESSAGE_LIST = new TypeReference<>()
+    {
+    };
+    private static final TypeReference<List<Request>> REQUEST_LIST = new TypeReference<>()
+    {
+    };
+    private static final int BATCH_CONCURRENCY = 32;
+    private static final Set<Integer> RETRY_STATUS_CODES = Set.of(HttpResponseStatus.BAD_GATEWAY.code(),
+                                                                  HttpResponseStatus.SERVICE_UNAVAILABLE.code(),
+                                                                  HttpResponseStatus.GATEWAY_TIMEOUT.code());
+    private static final long MIN_HEDGING_SAMPLES = 20;
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection",
+                                                                 "keep-alive",
+                                                                 "proxy-connection",
+                                                                 "transfer-encoding",
+                                                                 "te",
+                                                                 "trailer",
+                                                                 "upgrade");
 
     public RequestHandler(WebServer server,
                           WebClient client,
@@ -48,6 +94,49 @@ public class RequestHandler
         this.server = server;
         this.params = params;
         this.client = client;
+        this.serviceCache = new ServiceCache(client, params);
+        this.replica = params.isRegistryReplica() ? new RegistryReplica(client, params) : null;
+        this.outlierDetector = new OutlierDetector(params);
+        this.retryBudget = new RetryBudget(params);
+    }
+
+    public Completable start()
+    {
+        return ContentCodec.warmUp(ServiceDiscovery.class,
+                                   ServiceRegistry.class,
+                                   RegistryWatch.class,
+                                   BatchResponse.class,
+                                   Message.class,
+                                   MESSAGE_LIST.getType(),
+                                   REQUEST_LIST.getType(),
+                                   Request.class)
+                           .andThen(this.serviceCache.start())
+                           .andThen(this.outlierDetector.start());
+    }
+
+    public Completable stop()
+    {
+        return this.outlierDetector.stop() //
+                                   .andThen(this.replica == null ? Completable.complete() : this.replica.stop())
+                                   .andThen(this.serviceCache.stop());
+    }
+
+    public ServiceCache getServiceCache()
+    {
+        return this.serviceCache;
+    }
+
+    /**
+     * @return the in-process registry replica, null if not enabled
+     */
+    public RegistryReplica getRegistryReplica()
+    {
+        return this.replica;
+    }
+
+    public OutlierDetector getOutlierDetector()
+    {
+        return this.outlierDetector;
     }
 
     public void createRouters()
@@ -66,13 +155,19 @@ public class RequestHandler
 
     public void requestHandler(RoutingContext routingContext)
     {
+        if (this.params.isStreamingProxy())
+        {
+            this.proxyHandler(routingContext);
+            return;
+        }
+
         log.info("Request received by Handler service");
         routingContext.request().bodyHandler(buffer ->
         {
             log.info("Request body: {}", buffer.toString());
             try
             {
-                ServiceDiscovery serviceDiscovery = json.readValue(buffer.toJsonObject().toString(), ServiceDiscovery.class);
+                ServiceDiscovery serviceDiscovery = ContentCodec.JSON.decode(buffer, ServiceDiscovery.class);
                 log.info("Received service discovery request: {}", serviceDiscovery);
                 var function = serviceDiscovery.getFunction();
                 if (function.isBlank() || serviceDiscovery.getRequests().isEmpty())
@@ -85,66 +180,50 @@ public class RequestHandler
                 else
                 {
                     log.info("Successfully identified function {}", function);
-                    this.checkRegistrations(routingContext, serviceDiscovery) //
-                        .subscribe(cr ->
+                    this.lookup(function) //
+                        .subscribe(services ->
                         {
-                            log.info("Registry response with code:{}, result message:{} and body:{}", //
-                                     cr.statusCode(), //
-                                     cr.statusMessage(), //
-                                     cr.bodyAsJsonObject());
-                            if (cr.statusCode() == HttpResponseStatus.NO_CONTENT.code())
+                            if (services.isEmpty())
                             {
                                 log.error("No registrered services found.");
                                 routingContext.response() // create response object
                                               .setStatusCode(HttpResponseStatus.NO_CONTENT.code()) // set response code 204
                                               .end("Failed to identify service with requested function name");
+                                return;
                             }
-                            else if (cr.statusCode() == HttpResponseStatus.FOUND.code())
-                            {
-                                var serviceRegistry = json.readValue(cr.bodyAsString(), ServiceRegistry.class);
-                                log.info("Service registry response {}", serviceRegistry);
 
-                                // find best service
-                                var selectedService = this.findService(serviceRegistry.getServices());
-                                log.info("Selected service: {}", selectedService);
+                            var requests = serviceDiscovery.getRequests().get();
+                            if (requests.size() > 1)
+                            {
+                                this.respondBatch(routingContext, function, services, requests);
+                                return;
+                            }
 
-                                if (selectedService == null)
+                            // forward request to the best service, retry on other services
+                            this.retryBudget.deposit();
+                            this.forward(function,
+                                         services,
+                                         routingKey(serviceDiscovery),
+                                         service -> this.forwardRequest(service, function, requests.isEmpty() ? null : requests.get(0)),
+                                         HttpResponse::statusCode) //
+                                .subscribe(fwdResp ->
                                 {
+                                    log.info("Backend service response with code:{}, result message:{} and body:{}", //
+                                             fwdResp.statusCode(), //
+                                             fwdResp.statusMessage(), //
+                                             fwdResp.bodyAsJsonObject());
                                     routingContext.response() // create response object
-                                                  .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
-                                                  .end("Failed to identify service with requested function name");
-                                }
-                                else
-                                {
-                                    // forward request to identified service
-                                    this.forwardRequest(routingContext, selectedService, serviceDiscovery) //
-                                        .subscribe(fwdResp ->
-                                        {
-                                            log.info("Backend service response with code:{}, result message:{} and body:{}", //
-                                                     fwdResp.statusCode(), //
-                                                     fwdResp.statusMessage(), //
-                                                     fwdResp.bodyAsJsonObject());
-                                            routingContext.response() // create response object
-                                                          .setStatusCode(fwdResp.statusCode()) // set response code from backend service
-                                                          .setStatusMessage(fwdResp.statusMessage()) // set response code message
-                                                          .end(fwdResp.bodyAsString());
-                                        }, // complete with response action
-                                                   t ->
-                                                   {
-                                                       log.error("Error during the forward of request to backend service.", t);
-                                                       routingContext.response() // create response object
-                                                                     .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
-                                                                     .end(); // complete with response action
-                                                   });
-                                }
-                            }
-                            else
-                            {
-                                log.error("Registry checks failed due to wrong request");
-                                routingContext.response() // create response object
-                                              .setStatusCode(HttpResponseStatus.BAD_REQUEST.code()) // set response code 400
-                                              .end(); // complete with response action
-                            }
+                                                  .setStatusCode(fwdResp.statusCode()) // set response code from backend service
+                                                  .setStatusMessage(fwdResp.statusMessage()) // set response code message
+                                                  .end(fwdResp.bodyAsString());
+                                }, // complete with response action
+                                           t ->
+                                           {
+                                               log.error("Error during the forward of request to backend service.", t);
+                                               routingContext.response() // create response object
+                                                             .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                                                             .end(); // complete with response action
+                                           });
                         }, t ->
                         {
                             log.error("Error during checking for registered services.", t);
@@ -171,47 +250,522 @@ public class RequestHandler
         });
     }
 
-    private Single<HttpResponse<Buffer>> checkRegistrations(RoutingContext routingContext,
-                                                            ServiceDiscovery serviceDiscovery)
+    /**
+     * Proxy mode of the request handler. Only the routing fields of the request
+     * are parsed, the first request is forwarded as a slice of the received body
+     * and the backend response is piped to the client with back-pressure.
+     */
+    private void proxyHandler(RoutingContext routingContext)
     {
-        var data = new ServiceRegistryBuilder().withFunction(serviceDiscovery.getFunction()) //
-                                               .withServices(new ArrayList<String>()) //
-                                               .build();
+        routingContext.request().bodyHandler(buffer ->
+        {
+            RoutingFields fields;
+            try
+            {
+                fields = RoutingFields.parse(buffer);
+            }
+            catch (IOException e)
+            {
+                log.error("Request data contains invalid format: {}", e.getMessage());
+                routingContext.response() // create response object
+                              .setStatusCode(HttpResponseStatus.BAD_REQUEST.code()) // set response code 400
+                              .end(); // complete with response action
+                return;
+            }
 
-        log.info("host {}, port {}, uri {}", //
-                 this.params.getRegistryHost(),
-                 this.params.getRegistryPort(),
-                 REGISTRY_URI.getPath());
-
-        return this.client.get() // get client
-                          .flatMap(webClient -> webClient.get(this.params.getRegistryPort(), //
-                                                              this.params.getRegistryHost(), //
-                                                              REGISTRY_URI.getPath()) //
-                                                         .rxSendJsonObject(new JsonObject(json.writeValueAsString(data)))
-                                                         .doOnSubscribe(d -> log.info("Check registry for {} function services",
-                                                                                      serviceDiscovery.getFunction()))
-                                                         .doOnSuccess(resp -> log.info("Registry response with code:{}, result message {} and body:{}",
-                                                                                       resp.statusCode(),
-                                                                                       resp.statusMessage(),
-                                                                                       resp.bodyAsString()))
-                                                         .doOnError(ar -> log.error("Something went wrong during checking registry: {}", ar.getMessage())));
+            var function = fields.getFunction();
+            if (function == null || function.isBlank() || fields.getRequests() == 0)
+            {
+                log.error("Failed to indentify function or request data information");
+                routingContext.response() // create response object
+                              .setStatusCode(HttpResponseStatus.BAD_REQUEST.code()) // set response code 400
+                              .end(); // complete with response action
+                return;
+            }
+
+            var request = fields.getFirstRequest(buffer);
+            this.lookup(function) //
+                .subscribe(services ->
+                {
+                    if (services.isEmpty())
+                    {
+                        log.error("No registrered services found.");
+                        routingContext.response() // create response object
+                                      .setStatusCode(HttpResponseStatus.NO_CONTENT.code()) // set response code 204
+                                      .end("Failed to identify service with requested function name");
+                        return;
+                    }
+
+                    if (fields.getRequests() > 1)
+                    {
+                        List<Request> requests;
+                        try
+                        {
+                            requests = ContentCodec.JSON.decode(buffer, ServiceDiscovery.class).getRequests().orElseThrow();
+                        }
+                        catch (IOException e)
+                        {
+                            log.error("Request data contains invalid format: {}", e.getMessage());
+                            routingContext.response() // create response object
+                                          .setStatusCode(HttpResponseStatus.BAD_REQUEST.code()) // set response code 400
+                                          .end(); // complete with response action
+                            return;
+                        }
+                        this.respondBatch(routingContext, function, services, requests);
+                        return;
+                    }
+
+                    this.retryBudget.deposit();
+                    this.forward(function,
+                                 services,
+                                 fields.getUser(),
+                                 service -> this.proxyRequest(service, request),
+                                 HttpClientResponse::statusCode) //
+                        .flatMapCompletable(backendResponse ->
+                        {
+                            var response = routingContext.response() // create response object
+                                                         .setStatusCode(backendResponse.statusCode()) // set response code from backend service
+                                                         .setStatusMessage(backendResponse.statusMessage()); // set response code message
+                            backendResponse.headers()
+                                           .names()
+                                           .stream()
+                                           .filter(name -> !HOP_BY_HOP_HEADERS.contains(name.toLowerCase()))
+                                           .forEach(name -> response.putHeader(name, backendResponse.headers().getAll(name)));
+                            if (!response.headers().contains(HttpHeaderNames.CONTENT_LENGTH))
+                                response.setChunked(true);
+                            return backendResponse.rxPipeTo(response);
+                        })
+                        .subscribe(() -> log.debug("Proxied request of function {}", function), t ->
+                        {
+                            log.error("Error during the forward of request to backend service.", t);
+                            if (!routingContext.response().headWritten())
+                            {
+                                routingContext.response() // create response object
+                                              .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                                              .end(); // complete with response action
+                            }
+                            else
+                                routingContext.response().reset();
+                        });
+                }, t ->
+                {
+                    log.error("Error during checking for registered services.", t);
+                    routingContext.response() // create response object
+                                  .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                                  .end(); // complete with response action
+                });
+        });
+    }
+
+    /**
+     * Send a request body to a backend service without decoding it. The response
+     * is returned paused as soon as its headers arrive, its body is read by the
+     * caller. A response that arrives after the caller lost interest, e.g. the
+     * slower one of a hedged pair, is drained so its connection is released.
+     */
+    private Single<HttpClientResponse> proxyRequest(Service service,
+                                                    Buffer request)
+    {
+        var options = new RequestOptions().setMethod(HttpMethod.GET)
+                                          .setHost(service.getHost())
+                                          .setPort(service.getPort().intValue())
+                                          .setURI(CHAT_MESSAGES_URI.getPath());
+        return Single.create(emitter ->
+        {
+            // 0: waiting, 1: delivered, 2: disposed before the response arrived
+            var state = new AtomicInteger();
+            emitter.setCancellable(() -> state.compareAndSet(0, 2));
+            this.client.getHttpClient()
+                       .flatMap(httpClient -> httpClient.rxRequest(options))
+                       .flatMap(clientRequest -> clientRequest.putHeader(HttpHeaderNames.CONTENT_TYPE.toString(), HttpHeaderValues.APPLICATION_JSON.toString())
+                                                              .rxSend(request))
+                       .doOnSuccess(HttpClientResponse::pause)
+                       .subscribe(response ->
+                       {
+                           if (state.compareAndSet(0, 1))
+                               emitter.onSuccess(response);
+                           else
+                               discard(response);
+                       }, emitter::tryOnError);
+        });
+    }
+
+    /**
+     * Forward all requests of a service discovery request and respond with the
+     * aggregated results
+     */
+    private void respondBatch(RoutingContext routingContext,
+                              String function,
+                              List<Service> services,
+                              List<Request> requests)
+    {
+        log.info("Forwarding batch of {} requests to {} function services", requests.size(), function);
+        this.forwardBatch(function, services, requests) //
+            .map(ContentCodec.JSON.writerFor(BatchResponse.class)::writeValueAsString) // encode before responding, failures end with 500
+            .subscribe(batchResponse -> routingContext.response() // create response object
+                                                      .setStatusCode(HttpResponseStatus.OK.code()) // set response code 200
+                                                      .putHeader(HttpHeaderNames.CONTENT_TYPE.toString(), HttpHeaderValues.APPLICATION_JSON.toString())
+                                                      .end(batchResponse), // complete with response action
+                       t ->
+                       {
+                           log.error("Error during the forward of batch to backend services.", t);
+                           routingContext.response() // create response object
+                                         .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                                         .end(); // complete with response action
+                       });
+    }
+
+    /**
+     * Forward a list of requests, either one by one spread over the services, or
+     * grouped per selected service into one batch call per service. Failures of
+     * single requests or groups are reported in their results.
+     *
+     * @return the results in the order of the requests
+     */
+    Single<BatchResponse> forwardBatch(String function,
+                                       List<Service> services,
+                                       List<Request> requests)
+    {
+        Observable<BatchResult> results;
+        if (this.params.getBatchForwarding() == BatchForwarding.SPREAD)
+        {
+            results = Observable.range(0, requests.size()) //
+                                .flatMap(index ->
+                                {
+                                    var request = requests.get(index);
+                                    this.retryBudget.deposit();
+                                    return this.forward(function,
+                                                        services,
+                                                        request.getUser(),
+                                                        null,
+                                                        service -> this.forwardRequest(service, function, request),
+                                                        HttpResponse::statusCode)
+                                               .map(resp -> batchResult(index, resp))
+                                               .onErrorReturn(t -> failedResult(index, t))
+                                               .toObservable();
+                                }, BATCH_CONCURRENCY);
+        }
+        else
+        {
+            // group requests by the service selected for each of them, counting the
+            // requests already assigned as outstanding so that load aware
+            // strategies spread the batch
+            var groups = new LinkedHashMap<Service, List<Integer>>();
+            try
+            {
+                for (var index = 0; index < requests.size(); index++)
+                {
+                    var service = this.findService(function, services, requests.get(index).getUser());
+                    this.inflight.started(service);
+                    groups.computeIfAbsent(service, s -> new ArrayList<>()).add(index);
+                }
+            }
+            finally
+            {
+                groups.forEach((service,
+                                indexes) -> indexes.forEach(index -> this.inflight.completed(service)));
+            }
+
+            results = Observable.fromIterable(groups.entrySet()) //
+                                .flatMap(group ->
+                                {
+                                    var indexes = group.getValue();
+                                    var batch = indexes.stream().map(requests::get).collect(Collectors.toList());
+                                    this.retryBudget.deposit();
+                                    return this.forward(function,
+                                                        services,
+                                                        batch.get(0).getUser(),
+                                                        group.getKey(),
+                                                        service -> this.forwardBatchRequest(service, function, batch),
+                                                        HttpResponse::statusCode)
+                                               .flatMapObservable(resp -> Observable.fromIterable(batchResults(indexes, resp)))
+                                               .onErrorResumeNext((Throwable t) -> Observable.fromIterable(indexes).map(index -> failedResult(index, t)));
+                                });
+        }
+
+        return results.toSortedList(Comparator.comparing(BatchResult::getIndex)) //
+                      .map(list -> new BatchResponseBuilder().withResults(list).build());
     }
 
-    private Service findService(Optional<List<Service>> list) throws JsonMappingException, JsonProcessingException
+    private static BatchResult batchResult(int index,
+                                           HttpResponse<Buffer> response)
     {
-        Service service = null;
-        if (list.isPresent())
+        var result = new BatchResultBuilder().withIndex(Long.valueOf(index)) //
+                                             .withStatus(Long.valueOf(response.statusCode()));
+        if (isSuccess(response) && response.body() != null)
         {
-            var services = list.get();
-            service = services.get(new Random().nextInt(services.size()));
+            try
+            {
+                result.withMessage(ContentCodec.JSON.decode(response.body(), Message.class));
+            }
+            catch (IOException e)
+            {
+                log.warn("Response to request {} is not a message: {}", index, e.getMessage());
+            }
         }
-        return service;
+        return result.build();
+    }
+
+    /**
+     * Split the response of a batch call into the results of its requests
+     */
+    private static List<BatchResult> batchResults(List<Integer> indexes,
+                                                  HttpResponse<Buffer> response)
+    {
+        List<Message> messages = List.of();
+        if (isSuccess(response) && response.body() != null)
+        {
+            try
+            {
+                messages = ContentCodec.JSON.decode(response.body(), MESSAGE_LIST);
+            }
+            catch (IOException e)
+            {
+                log.warn("Response to batch is not a list of messages: {}", e.getMessage());
+            }
+        }
+
+        var results = new ArrayList<BatchResult>(indexes.size());
+        for (var i = 0; i < indexes.size(); i++)
+        {
+            var index = indexes.get(i);
+            if (!isSuccess(response))
+                results.add(statusResult(index, response.statusCode()));
+            else if (i < messages.size())
+            {
+                results.add(new BatchResultBuilder().withIndex(Long.valueOf(index)) //
+                                                    .withStatus(Long.valueOf(response.statusCode()))
+                                                    .withMessage(messages.get(i))
+                                                    .build());
+            }
+            else
+                results.add(statusResult(index, HttpResponseStatus.BAD_GATEWAY.code()));
+        }
+        return results;
+    }
+
+    private static BatchResult failedResult(int index,
+                                            Throwable t)
+    {
+        log.warn("Forwarding of request {} failed: {}", index, t.getMessage());
+        return statusResult(index, HttpResponseStatus.INTERNAL_SERVER_ERROR.code());
+    }
+
+    private static BatchResult statusResult(int index,
+                                            int status)
+    {
+        return new BatchResultBuilder().withIndex(Long.valueOf(index)) //
+                                       .withStatus(Long.valueOf(status))
+                                       .build();
+    }
+
+    private static boolean isSuccess(HttpResponse<Buffer> response)
+    {
+        return response.statusCode() >= 200 && response.statusCode() < 300;
+    }
+
+    /**
+     * Forward a request to one of the services of a function. Connection failures
+     * and gateway errors are retried on a service that has not been tried yet,
+     * as long as the retry budget allows it.
+     *
+     * @param sender Sends the request to the selected service
+     * @param status Extracts the status code of a response
+     */
+    private <T> Single<T> forward(String function,
+                                  List<Service> services,
+                                  String routingKey,
+                                  Sender<T> sender,
+                                  ToIntFunction<T> status)
+    {
+        return this.forward(function, services, routingKey, null, sender, status);
+    }
+
+    /**
+     * @param preferred The service used for the first attempt, null to let the
+     *                  load balancer select it
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Single<T> forward(String function,
+                                  List<Service> services,
+                                  String routingKey,
+                                  Service preferred,
+                                  Sender<T> sender,
+                                  ToIntFunction<T> status)
+    {
+        Set<Service> tried = ConcurrentHashMap.newKeySet();
+        return Single.defer(() -> this.hedge(function, services, routingKey, preferred, tried, sender, status))
+                     .flatMap(resp -> RETRY_STATUS_CODES.contains(status.applyAsInt(resp)) ? Single.<T>error(new RetryableResponse(resp, status.applyAsInt(resp)))
+                                                                                           : Single.just(resp))
+                     .retry((attempts,
+                             t) ->
+                     {
+                         var retry = attempts <= this.params.getRetryMax() && isRetryable(t) && this.retryBudget.tryWithdraw();
+                         if (retry)
+                             log.warn("Retrying request of function {} after {}", function, t.getMessage());
+                         if (retry && t instanceof RetryableResponse)
+                             discard(((RetryableResponse) t).response);
+                         return retry;
+                     })
+                     .onErrorResumeNext(t -> t instanceof RetryableResponse ? Single.just((T) ((RetryableResponse) t).response) : Single.error(t));
+    }
+
+    /**
+     * Send a request to the selected service. If hedging is enabled and the
+     * service does not respond within the configured latency percentile of the
+     * function, send the same request to another service and use the response
+     * that arrives first.
+     */
+    private <T> Single<T> hedge(String function,
+                                List<Service> services,
+                                String routingKey,
+                                Service preferred,
+                                Set<Service> tried,
+                                Sender<T> sender,
+                                ToIntFunction<T> status) throws Exception
+    {
+        var candidates = untried(services, tried);
+        var selectedService = preferred != null && tried.isEmpty() ? preferred
+                                                                   : this.findService(function, services, candidates.isEmpty() ? services : candidates, routingKey);
+        tried.add(selectedService);
+        log.info("Selected service: {}", selectedService);
+
+        var request = this.track(function, selectedService, sender.send(selectedService), status);
+        var latencies = this.latencies.get(function);
+        if (!this.params.isHedging() || latencies == null || latencies.count() < MIN_HEDGING_SAMPLES)
+            return request;
+
+        var delay = latencies.percentile(this.params.getHedgingPercentile());
+        var hedged = Single.timer(delay, TimeUnit.MILLISECONDS) //
+                           .flatMap(tick ->
+                           {
+                               var others = untried(services, tried);
+                               if (others.isEmpty() || !this.retryBudget.tryWithdraw())
+                                   return Single.<T>never();
+
+                               var hedgedService = this.findService(function, services, others, routingKey);
+                               tried.add(hedgedService);
+                               log.info("No response within {}ms, hedging request to service: {}", delay, hedgedService);
+                               return this.track(function, hedgedService, sender.send(hedgedService), status);
+                           });
+        return Single.ambArray(request, hedged);
+    }
+
+    /**
+     * Track requests in flight for load based balancing, and results and latency
+     * for outlier detection and hedging
+     */
+    private <T> Single<T> track(String function,
+                                Service service,
+                                Single<T> response,
+                                ToIntFunction<T> status)
+    {
+        var started = new AtomicLong();
+        return response.doOnSubscribe(d ->
+        {
+            started.set(System.currentTimeMillis());
+            this.inflight.started(service);
+        })
+                       .doOnSuccess(resp ->
+                       {
+                           if (status.applyAsInt(resp) >= HttpResponseStatus.INTERNAL_SERVER_ERROR.code())
+                           {
+                               this.outlierDetector.failure(service);
+                               return;
+                           }
+                           var latency = System.currentTimeMillis() - started.get();
+                           this.outlierDetector.success(service, latency);
+                           this.latencies.computeIfAbsent(function, f -> new LatencyHistogram()).record(latency);
+                       })
+                       .doOnError(t -> this.outlierDetector.failure(service))
+                       .doFinally(() -> this.inflight.completed(service));
+    }
+
+    /**
+     * Release a response that will not be read. A streamed response is resumed
+     * so its body is dropped and the connection returns to the pool, a buffered
+     * response has already been read.
+     */
+    private static void discard(Object response)
+    {
+        if (response instanceof HttpClientResponse)
+            ((HttpClientResponse) response).resume();
+    }
+
+    private static List<Service> untried(List<Service> services,
+                                         Set<Service> tried)
+    {
+        if (tried.isEmpty())
+            return services;
+        return services.stream().filter(service -> !tried.contains(service)).collect(Collectors.toList());
+    }
+
+    private static boolean isRetryable(Throwable t)
+    {
+        return t instanceof RetryableResponse || t instanceof ConnectException || t instanceof NoRouteToHostException;
+    }
+
+    /**
+     * @return the user of the first request, so that requests of the same user
+     *         share the routing key
+     */
+    private static String routingKey(ServiceDiscovery serviceDiscovery)
+    {
+        return serviceDiscovery.getRequests() //
+                               .filter(requests -> !requests.isEmpty())
+                               .map(requests -> requests.get(0).getUser())
+                               .orElse(null);
+    }
+
+    /**
+     * Get the registered services of a function, from the registry replica if it
+     * is enabled and current, otherwise through the service cache. Functions are
+     * only replicated once the registry returned services for them.
+     */
+    private Single<List<Service>> lookup(String function)
+    {
+        if (this.replica == null)
+            return this.serviceCache.get(function);
+
+        var services = this.replica.get(function);
+        if (services.isPresent())
+            return Single.just(services.get());
+
+        return this.serviceCache.get(function).doOnSuccess(registered ->
+        {
+            if (!registered.isEmpty())
+                this.replica.replicate(function);
+        });
+    }
+
+    private Service findService(String function,
+                                List<Service> services,
+                                String routingKey)
+    {
+        return this.findService(function, services, services, routingKey);
+    }
+
+    /**
+     * @param candidates The registered services that have not been tried yet
+     */
+    private Service findService(String function,
+                                List<Service> services,
+                                List<Service> candidates,
+                                String routingKey)
+    {
+        var loadBalancer = this.loadBalancers.computeIfAbsent(function, f ->
+        {
+            var strategy = this.params.getLoadBalancer(f);
+            log.info("Using {} load balancer for function {}", strategy, f);
+            return LoadBalancer.create(strategy, this.inflight);
+        });
+        return loadBalancer.select(services, this.outlierDetector.filter(candidates), routingKey);
     }
 
     // Send request to Server side - return Message
-    private Single<HttpResponse<Buffer>> forwardRequest(RoutingContext routingContext,
-                                                        Service service,
-                                                        ServiceDiscovery serviceDiscovery) throws JsonProcessingException
+    private Single<HttpResponse<Buffer>> forwardRequest(Service service,
+                                                        String function,
+                                                        Request request) throws JsonProcessingException
     {
         var servicePort = service.getPort().intValue();
         var serviceHost = service.getHost();
@@ -221,37 +775,76 @@ public class RequestHandler
                  servicePort,
                  serviceUri);
 
-        var requests = serviceDiscovery.getRequests();
-        if (requests.isEmpty())
+        if (request == null)
         {
             return this.client.get()
                               .flatMap(webClient -> webClient.get(servicePort, serviceHost, serviceUri)
                                                              .rxSend()
-                                                             .doOnSubscribe(d -> log.info("Forwarding empty request to {} function services",
-                                                                                          serviceDiscovery.getFunction()))
+                                                             .doOnSubscribe(d -> log.info("Forwarding empty request to {} function services", function))
                                                              .doOnSuccess(resp -> log.info("Forward response with code:{}, result message {} and body:{}",
                                                                                            resp.statusCode(),
                                                                                            resp.statusMessage(),
                                                                                            resp.bodyAsString()))
                                                              .doOnError(ar -> log.error("Something went wrong during checking registry: {}", ar.getMessage())));
         }
-        else
-        {
-            var request = requests.get().get(0);
-            log.info("Request to forward {}", request);
-            var data = new JsonObject(json.writeValueAsString(request));
-            log.info("Forwarding to backend service {}", data);
 
-            return this.client.get()
-                              .flatMap(webClient -> webClient.get(servicePort, serviceHost, serviceUri)
-                                                             .rxSendJsonObject(data)
-                                                             .doOnSubscribe(d -> log.info("Forwarding request to {} function services",
-                                                                                          serviceDiscovery.getFunction()))
-                                                             .doOnSuccess(resp -> log.info("Forward response with code:{}, result message {} and body:{}",
-                                                                                           resp.statusCode(),
-                                                                                           resp.statusMessage(),
-                                                                                           resp.bodyAsString()))
-                                                             .doOnError(ar -> log.error("Something went wrong during checking registry: {}", ar.getMessage())));
+        log.info("Request to forward {}", request);
+        var data = Buffer.buffer(ContentCodec.JSON.writerFor(Request.class).writeValueAsBytes(request));
+        log.info("Forwarding to backend service {}", data);
+
+        return this.client.get()
+                          .flatMap(webClient -> webClient.get(servicePort, serviceHost, serviceUri)
+                                                         .putHeader(HttpHeaderNames.CONTENT_TYPE.toString(), HttpHeaderValues.APPLICATION_JSON.toString())
+                                                         .rxSendBuffer(data)
+                                                         .doOnSubscribe(d -> log.info("Forwarding request to {} function services", function))
+                                                         .doOnSuccess(resp -> log.info("Forward response with code:{}, result message {} and body:{}",
+                                                                                       resp.statusCode(),
+                                                                                       resp.statusMessage(),
+                                                                                       resp.bodyAsString()))
+                                                         .doOnError(ar -> log.error("Something went wrong during checking registry: {}", ar.getMessage())));
+    }
+
+    /**
+     * Send a list of requests to the batch endpoint of a service
+     */
+    private Single<HttpResponse<Buffer>> forwardBatchRequest(Service service,
+                                                             String function,
+                                                             List<Request> requests) throws JsonProcessingException
+    {
+        var data = Buffer.buffer(ContentCodec.JSON.writerFor(REQUEST_LIST).writeValueAsBytes(requests));
+        return this.client.get()
+                          .flatMap(webClient -> webClient.get(service.getPort().intValue(), service.getHost(), CHAT_MESSAGES_BATCH_URI.getPath())
+                                                         .putHeader(HttpHeaderNames.CONTENT_TYPE.toString(), HttpHeaderValues.APPLICATION_JSON.toString())
+                                                         .rxSendBuffer(data)
+                                                         .doOnSubscribe(d -> log.info("Forwarding batch of {} requests to {} function service {}",
+                                                                                      requests.size(),
+                                                                                      function,
+                                                                                      service.getName()))
+                                                         .doOnError(ar -> log.error("Forwarding of batch failed: {}", ar.getMessage())));
+    }
+
+    /**
+     * Gateway error response of a backend service that may be retried
+     */
+    private static final class RetryableResponse extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+        private final transient Object response;
+
+        private RetryableResponse(Object response,
+                                  int statusCode)
+        {
+            super("response " + statusCode, null, false, false);
+            this.response = response;
         }
     }
+
+    /**
+     * Sends a request to a backend service
+     */
+    @FunctionalInterface
+    private interface Sender<T>
+    {
+        Single<T> send(Service service) throws Exception;
+    }
 }
@@ -0,0 +1,78 @@
+package com.intracom.sd;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Limit of the additional requests sent as retries or hedged requests.
+ * <p>
+ * Every original request deposits a fraction of a retry, every retry withdraws
+ * a whole one. A small number of retries per second is always allowed so that
+ * low traffic can still be retried. When all backends fail, retries are capped
+ * to the ratio of the traffic instead of multiplying it.
+ */
+public class RetryBudget
+{
+    private static final double MAX_BALANCE_REQUESTS = 1000;
+
+    private final double ratio;
+    private final int minPerSecond;
+    private final LongSupplier clock;
+    private double balance = 0;
+    private long second = -1;
+    private int reserved = 0;
+
+    /**
+     * @param ratio        The retries allowed per original request
+     * @param minPerSecond The retries allowed per second regardless of the
+     *                     ratio
+     * @param clock        The source of the current time in milliseconds
+     */
+    RetryBudget(double ratio,
+                int minPerSecond,
+                LongSupplier clock)
+    {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.clock = clock;
+    }
+
+    public RetryBudget(HandlerParameters params)
+    {
+        this(params.getRetryBudgetRatio(), params.getRetryBudgetMinPerSecond(), System::currentTimeMillis);
+    }
+
+    /**
+     * Record an original request
+     */
+    public synchronized void deposit()
+    {
+        this.balance = Math.min(this.balance + this.ratio, Math.max(this.ratio * MAX_BALANCE_REQUESTS, 1));
+    }
+
+    /**
+     * Take a retry from the budget
+     *
+     * @return true if the retry may be sent
+     */
+    public synchronized boolean tryWithdraw()
+    {
+        var now = this.clock.getAsLong() / 1000;
+        if (now != this.second)
+        {
+            this.second = now;
+            this.reserved = this.minPerSecond;
+        }
+
+        if (this.reserved > 0)
+        {
+            this.reserved--;
+            return true;
+        }
+        if (this.balance >= 1)
+        {
+            this.balance -= 1;
+            return true;
+        }
+        return false;
+    }
+}
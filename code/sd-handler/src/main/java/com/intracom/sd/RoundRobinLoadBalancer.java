@@ -0,0 +1,21 @@
+package com.intracom.sd;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.intracom.model.Service;
+
+/**
+ * Selection of the services in turn
+ */
+public class RoundRobinLoadBalancer implements LoadBalancer
+{
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override
+    public Service select(List<Service> services,
+                          String routingKey)
+    {
+        return services.get(Math.floorMod(this.next.getAndIncrement(), services.size()));
+    }
+}
@@ -0,0 +1,146 @@
+package com.intracom.sd;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.netty.buffer.ByteBufInputStream;
+import io.vertx.reactivex.core.buffer.Buffer;
+
+/**
+ * The fields of a service discovery request needed for routing, read with the
+ * streaming parser without binding the request to the model.
+ * <p>
+ * Only the function name, the user of the first request and the position of
+ * the first request in the body are extracted. The first request is forwarded
+ * as a slice of the received body, so it is neither decoded nor encoded again.
+ */
+public class RoutingFields
+{
+    private static final JsonFactory factory = new JsonFactory();
+
+    private final String function;
+    private final String user;
+    private final int requests;
+    private final int requestStart;
+    private final int requestEnd;
+
+    private RoutingFields(String function,
+                          String user,
+                          int requests,
+                          int requestStart,
+                          int requestEnd)
+    {
+        this.function = function;
+        this.user = user;
+        this.requests = requests;
+        this.requestStart = requestStart;
+        this.requestEnd = requestEnd;
+    }
+
+    /**
+     * Parse the routing fields of a service discovery request
+     *
+     * @param body The received request body
+     * @return the routing fields
+     * @throws IOException if the body is not a valid JSON object
+     */
+    public static RoutingFields parse(Buffer body) throws IOException
+    {
+        String function = null;
+        String user = null;
+        var requests = 0;
+        var requestStart = 0;
+        var requestEnd = 0;
+
+        try (var parser = factory.createParser((InputStream) new ByteBufInputStream(body.getDelegate().getByteBuf())))
+        {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new JsonParseException(parser, "Service discovery request is not an object");
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME)
+            {
+                var field = parser.getCurrentName();
+                var token = parser.nextToken();
+                if ("function".equals(field) && token == JsonToken.VALUE_STRING)
+                {
+                    function = parser.getText();
+                }
+                else if ("requests".equals(field) && token == JsonToken.START_ARRAY)
+                {
+                    while (parser.nextToken() != JsonToken.END_ARRAY)
+                    {
+                        if (requests++ == 0)
+                        {
+                            if (parser.currentToken() != JsonToken.START_OBJECT)
+                                throw new JsonParseException(parser, "Request is not an object");
+
+                            requestStart = (int) parser.getTokenLocation().getByteOffset();
+                            user = parseUser(parser);
+                            requestEnd = (int) parser.getCurrentLocation().getByteOffset();
+                        }
+                        else
+                            parser.skipChildren();
+                    }
+                }
+                else
+                    parser.skipChildren();
+            }
+        }
+        return new RoutingFields(function, user, requests, requestStart, requestEnd);
+    }
+
+    /**
+     * Read the fields of a request up to its end, keeping the user
+     */
+    private static String parseUser(JsonParser parser) throws IOException
+    {
+        String user = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME)
+        {
+            var field = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.VALUE_STRING && "user".equals(field))
+                user = parser.getText();
+            else
+                parser.skipChildren();
+        }
+        return user;
+    }
+
+    /**
+     * @return the function name, null if missing
+     */
+    public String getFunction()
+    {
+        return this.function;
+    }
+
+    /**
+     * @return the user of the first request, null if missing
+     */
+    public String getUser()
+    {
+        return this.user;
+    }
+
+    /**
+     * @return the number of requests
+     */
+    public int getRequests()
+    {
+        return this.requests;
+    }
+
+    /**
+     * @param body The body these fields were parsed from
+     * @return the first request, sharing the memory of the body
+     */
+    public Buffer getFirstRequest(Buffer body)
+    {
+        return body.slice(this.requestStart, this.requestEnd);
+    }
+}
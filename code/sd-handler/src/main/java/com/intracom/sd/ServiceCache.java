@@ -0,0 +1,301 @@
+package com.intracom.sd;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intracom.common.web.ContentCodec;
+import com.intracom.common.web.WebClient;
+import com.intracom.model.Service;
+import com.intracom.model.ServiceRegistry;
+import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.buffer.Buffer;
+
+/**
+ * Local cache of the services registered per function.
+ * <p>
+ * Lookups are answered from memory while an entry is younger than the TTL.
+ * Functions looked up within the TTL are refreshed in the background using the
+ * registry entity tag, so unchanged registrations cost a 304 response only.
+ * Functions not looked up within the TTL and the max stale time are evicted.
+ * If the registry cannot be reached, entries are served stale for a bounded
+ * time before lookups fail. Registries that support it answer in Smile.
+ */
+public class ServiceCache
+{
+    private static final Logger log = LoggerFactory.getLogger(ServiceCache.class);
+    private static final URI REGISTRY_URI = URI.create("/registrations");
+
+    private final WebClient client;
+    private final String registryHost;
+    private final int registryPort;
+    private final long ttlMillis;
+    private final long maxStaleMillis;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Single<Entry>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+    private Disposable refresher = null;
+
+    /**
+     * @param client         The client used for registry lookups
+     * @param registryHost   The registry host
+     * @param registryPort   The registry port
+     * @param ttlMillis      The time an entry is served without refresh
+     * @param maxStaleMillis The additional time an entry is served while the
+     *                       registry is unreachable
+     */
+    public ServiceCache(WebClient client,
+                        String registryHost,
+                        int registryPort,
+                        long ttlMillis,
+                        long maxStaleMillis)
+    {
+        this.client = client;
+        this.registryHost = registryHost;
+        this.registryPort = registryPort;
+        this.ttlMillis = ttlMillis;
+        this.maxStaleMillis = maxStaleMillis;
+    }
+
+    public ServiceCache(WebClient client,
+                        HandlerParameters params)
+    {
+        this(client,
+             params.getRegistryHost(),
+             params.getRegistryPort(),
+             TimeUnit.SECONDS.toMillis(params.getCacheTtl()),
+             TimeUnit.SECONDS.toMillis(params.getCacheMaxStale()));
+    }
+
+    /**
+     * Get the registered services of a function
+     * 
+     * @param function The function name
+     * @return the registered services, empty if the function has no registered
+     *         services
+     */
+    public Single<List<Service>> get(String function)
+    {
+        return Single.defer(() ->
+        {
+            var entry = this.entries.get(function);
+            var now = System.currentTimeMillis();
+            if (entry != null && now - entry.updated < this.ttlMillis)
+            {
+                this.hits.incrementAndGet();
+                entry.read = now;
+                return Single.just(entry.services);
+            }
+            if (entry != null && now - entry.updated < this.ttlMillis + this.maxStaleMillis)
+            {
+                // expired entry is still usable, refresh it in the background
+                this.staleHits.incrementAndGet();
+                entry.read = now;
+                this.refresh(function).subscribe(() -> log.debug("Refreshed services of function {}", function),
+                                                 t -> log.debug("Refresh of function {} failed: {}", function, t.getMessage()));
+                return Single.just(entry.services);
+            }
+
+            this.misses.incrementAndGet();
+            return this.load(function).map(loaded ->
+            {
+                loaded.read = System.currentTimeMillis();
+                return loaded.services;
+            });
+        });
+    }
+
+    /**
+     * Start periodic refresh of the cached functions that were looked up within
+     * the TTL, and eviction of the functions not looked up within the TTL and
+     * the max stale time
+     */
+    public Completable start()
+    {
+        return Completable.fromAction(() ->
+        {
+            if (this.refresher == null)
+            {
+                var period = Math.max(this.ttlMillis / 2, 1L);
+                this.refresher = Flowable.interval(period, period, TimeUnit.MILLISECONDS)
+                                         .onBackpressureDrop()
+                                         .concatMapCompletable(tick -> Flowable.fromIterable(this.entries.keySet())
+                                                                               .filter(this::isRead)
+                                                                               .flatMapCompletable(function -> this.refresh(function).onErrorComplete())
+                                                                               .doOnComplete(() -> log.debug("Service cache statistics {}", this)))
+                                         .subscribe(() -> log.info("Stopped refreshing service cache."),
+                                                    t -> log.error("Stopped refreshing service cache. Cause: {}", t.toString()));
+            }
+        });
+    }
+
+    public Completable stop()
+    {
+        return Completable.fromAction(() ->
+        {
+            if (this.refresher != null)
+            {
+                this.refresher.dispose();
+                this.refresher = null;
+            }
+        });
+    }
+
+    public long getHits()
+    {
+        return this.hits.get();
+    }
+
+    public long getStaleHits()
+    {
+        return this.staleHits.get();
+    }
+
+    public long getMisses()
+    {
+        return this.misses.get();
+    }
+
+    public long getRefreshFailures()
+    {
+        return this.refreshFailures.get();
+    }
+
+    /**
+     * Remove all cached functions
+     */
+    public void invalidate()
+    {
+        this.entries.clear();
+    }
+
+    @Override
+    public String toString()
+    {
+        var statistics = new JsonObject();
+        statistics.put("functions", this.entries.size());
+        statistics.put("hits", this.hits.get());
+        statistics.put("staleHits", this.staleHits.get());
+        statistics.put("misses", this.misses.get());
+        statistics.put("refreshFailures", this.refreshFailures.get());
+        return statistics.encode();
+    }
+
+    /**
+     * Evict the function if it was not looked up within the TTL and the max
+     * stale time
+     *
+     * @return true if the function was looked up within the TTL and should be
+     *         refreshed
+     */
+    private boolean isRead(String function)
+    {
+        var entry = this.entries.get(function);
+        if (entry == null)
+            return false;
+
+        var idle = System.currentTimeMillis() - entry.read;
+        if (idle >= this.ttlMillis + this.maxStaleMillis)
+        {
+            log.debug("Evict services of function {} not looked up for {} ms", function, idle);
+            this.entries.remove(function, entry);
+        }
+        return idle < this.ttlMillis;
+    }
+
+    private Completable refresh(String function)
+    {
+        return this.load(function) //
+                   .ignoreElement()
+                   .doOnError(t ->
+                   {
+                       this.refreshFailures.incrementAndGet();
+                       log.warn("Failed to refresh services of function {}: {}", function, t.getMessage());
+                   });
+    }
+
+    /**
+     * Fetch the services of a function from the registry. Concurrent loads of
+     * the same function share one registry request.
+     */
+    private Single<Entry> load(String function)
+    {
+        return this.pending.computeIfAbsent(function, f -> this.fetch(f) //
+                                                               .doOnSuccess(entry -> this.entries.put(f, entry))
+                                                               .doFinally(() -> this.pending.remove(f))
+                                                               .cache());
+    }
+
+    private Single<Entry> fetch(String function)
+    {
+        var current = this.entries.get(function);
+        var data = new ServiceRegistryBuilder().withFunction(function).build();
+
+        return this.client.get() // get client
+                          .flatMap(webClient ->
+                          {
+                              var request = webClient.get(this.registryPort, this.registryHost, REGISTRY_URI.getPath());
+                              if (current != null && current.entityTag != null)
+                                  request.putHeader(HttpHeaderNames.IF_NONE_MATCH.toString(), current.entityTag);
+                              return request.putHeader(HttpHeaderNames.CONTENT_TYPE.toString(), ContentCodec.JSON.getMediaType())
+                                            .putHeader(HttpHeaderNames.ACCEPT.toString(), ContentCodec.PREFER_SMILE)
+                                            .rxSendBuffer(Buffer.buffer(ContentCodec.JSON.writerFor(ServiceRegistry.class).writeValueAsBytes(data)));
+                          })
+                          .doOnSubscribe(d -> log.debug("Check registry for {} function services", function))
+                          .map(resp ->
+                          {
+                              var now = System.currentTimeMillis();
+                              var read = current == null ? now : current.read;
+                              var entityTag = resp.getHeader(HttpHeaderNames.ETAG.toString());
+                              if (resp.statusCode() == HttpResponseStatus.NOT_MODIFIED.code() && current != null)
+                                  return new Entry(current.services, current.entityTag, now, read);
+                              if (resp.statusCode() == HttpResponseStatus.NO_CONTENT.code())
+                                  return new Entry(List.<Service>of(), null, now, read);
+                              if (resp.statusCode() == HttpResponseStatus.FOUND.code())
+                              {
+                                  var serviceRegistry = ContentCodec.ofContentType(resp.getHeader(HttpHeaderNames.CONTENT_TYPE.toString()))
+                                                                    .decode(resp.body(), ServiceRegistry.class);
+                                  log.info("Service registry response {}", serviceRegistry);
+                                  return new Entry(List.copyOf(serviceRegistry.getServices().orElse(List.of())), entityTag, now, read);
+                              }
+                              throw new IllegalStateException("Registry lookup failed with code:" + resp.statusCode() + ", result message:"
+                                                              + resp.statusMessage());
+                          })
+                          .doOnError(t -> log.error("Something went wrong during checking registry: {}", t.getMessage()));
+    }
+
+    private static final class Entry
+    {
+        private final List<Service> services;
+        private final String entityTag;
+        private final long updated;
+        private volatile long read;
+
+        private Entry(List<Service> services,
+                      String entityTag,
+                      long updated,
+                      long read)
+        {
+            this.services = services;
+            this.entityTag = entityTag;
+            this.updated = updated;
+            this.read = read;
+        }
+    }
+}
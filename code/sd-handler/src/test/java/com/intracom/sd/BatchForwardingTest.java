@@ -0,0 +1,278 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intracom.common.utilities.Jackson;
+import com.intracom.common.web.VertxBuilder;
+import com.intracom.common.web.WebClient;
+import com.intracom.common.web.WebServer;
+import com.intracom.model.BatchResponse;
+import com.intracom.model.BatchResult;
+import com.intracom.model.Message;
+import com.intracom.model.Message.MessageBuilder;
+import com.intracom.model.Request;
+import com.intracom.model.Request.RequestBuilder;
+import com.intracom.model.Service;
+import com.intracom.model.Service.ServiceBuilder;
+import com.intracom.sd.HandlerParameters.HandlerParametersBuilder;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.ext.web.Router;
+import io.vertx.reactivex.ext.web.RoutingContext;
+
+public class BatchForwardingTest
+{
+    private static final Logger log = LoggerFactory.getLogger(BatchForwardingTest.class);
+    private static final String FIRST_SERVER_LOCAL_HOST = "127.0.0.84";
+    private static final String SECOND_SERVER_LOCAL_HOST = "127.0.0.85";
+    private static final URI CHAT_MESSAGES_URI = URI.create("/chat/messages");
+    private static final URI CHAT_MESSAGES_BATCH_URI = URI.create("/chat/messages/batch");
+    private static final ObjectMapper json = Jackson.om();
+
+    private final Vertx vertx = new VertxBuilder().build();
+    private final WebServer firstServer = WebServer.builder() //
+                                                   .withHost(FIRST_SERVER_LOCAL_HOST)
+                                                   .withPort(this.getAvailablePort(FIRST_SERVER_LOCAL_HOST))
+                                                   .build(this.vertx);
+    private final WebServer secondServer = WebServer.builder() //
+                                                    .withHost(SECOND_SERVER_LOCAL_HOST)
+                                                    .withPort(this.getAvailablePort(SECOND_SERVER_LOCAL_HOST))
+                                                    .build(this.vertx);
+    private final WebClient internalClient = WebClient.builder().build(this.vertx);
+
+    private final AtomicInteger singleCalls = new AtomicInteger();
+    private final AtomicInteger batchCalls = new AtomicInteger();
+    private final AtomicInteger secondStatus = new AtomicInteger();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private List<Service> services;
+
+    @BeforeClass
+    private void beforeClass()
+    {
+        this.firstServer.configureRouter(router -> this.simulateChatServer(router, HttpResponseStatus.ACCEPTED::code));
+        this.secondServer.configureRouter(router -> this.simulateChatServer(router, this.secondStatus::get));
+        this.firstServer.startListener().blockingAwait();
+        this.secondServer.startListener().blockingAwait();
+
+        this.services = List.of(new ServiceBuilder().withHost(FIRST_SERVER_LOCAL_HOST) //
+                                                    .withPort(Double.valueOf(this.firstServer.actualPort()))
+                                                    .withName("first-service")
+                                                    .withTimestamp(new DateTime())
+                                                    .build(),
+                                new ServiceBuilder().withHost(SECOND_SERVER_LOCAL_HOST) //
+                                                    .withPort(Double.valueOf(this.secondServer.actualPort()))
+                                                    .withName("second-service")
+                                                    .withTimestamp(new DateTime())
+                                                    .build());
+    }
+
+    @AfterClass
+    private void afterClass()
+    {
+        this.firstServer.shutdown().blockingAwait();
+        this.secondServer.shutdown().blockingAwait();
+        this.vertx.close();
+    }
+
+    @BeforeMethod
+    private void beforeMethod()
+    {
+        this.singleCalls.set(0);
+        this.batchCalls.set(0);
+        this.batchSizes.clear();
+        this.secondStatus.set(HttpResponseStatus.ACCEPTED.code());
+    }
+
+    @Test
+    public void groupedBatch()
+    {
+        var response = this.createHandler(BatchForwarding.GROUPED).forwardBatch("chat", this.services, this.requests(6)).blockingGet();
+
+        this.assertResults(response, 6);
+        assertEquals(this.batchCalls.get(), 2, "One batch call per service expected");
+        assertEquals(this.singleCalls.get(), 0, "No single calls expected");
+    }
+
+    @Test
+    public void groupedBatchLeastOutstanding()
+    {
+        var handler = this.createHandler(BatchForwarding.GROUPED, LoadBalancingStrategy.LEAST_OUTSTANDING);
+        var response = handler.forwardBatch("chat", this.services, this.requests(100)).blockingGet();
+
+        // the requests already assigned count as outstanding while grouping
+        this.assertResults(response, 100);
+        assertEquals(this.batchSizes, List.of(50, 50), "Requests must be spread evenly over both services");
+    }
+
+    @Test
+    public void spreadBatch()
+    {
+        var response = this.createHandler(BatchForwarding.SPREAD).forwardBatch("chat", this.services, this.requests(6)).blockingGet();
+
+        this.assertResults(response, 6);
+        assertEquals(this.singleCalls.get(), 6, "One call per request expected");
+        assertEquals(this.batchCalls.get(), 0, "No batch calls expected");
+    }
+
+    @Test
+    public void groupedBatchRetry()
+    {
+        this.secondStatus.set(HttpResponseStatus.SERVICE_UNAVAILABLE.code());
+        var response = this.createHandler(BatchForwarding.GROUPED).forwardBatch("chat", this.services, this.requests(4)).blockingGet();
+
+        // the group of the unavailable service is retried on the other one
+        this.assertResults(response, 4);
+        assertEquals(this.batchCalls.get(), 3, "Failed group must be retried once");
+    }
+
+    @Test
+    public void partialFailure()
+    {
+        this.secondStatus.set(HttpResponseStatus.NOT_FOUND.code());
+        var response = this.createHandler(BatchForwarding.SPREAD).forwardBatch("chat", this.services, this.requests(4)).blockingGet();
+
+        var results = response.getResults();
+        assertEquals(results.size(), 4);
+        for (int i = 0; i < results.size(); i++)
+        {
+            var result = results.get(i);
+            assertEquals(result.getIndex().intValue(), i, "Results must keep the order of requests");
+            if (result.getStatus() == HttpResponseStatus.NOT_FOUND.code())
+                assertTrue(result.getMessage().isEmpty(), "Failed result must not contain a message");
+            else
+                assertEquals(result.getMessage().get().getOwner().get(), "user-" + i);
+        }
+        assertTrue(results.stream().anyMatch(result -> result.getStatus() == HttpResponseStatus.NOT_FOUND.code()), "Client errors must be reported");
+    }
+
+    private void assertResults(BatchResponse response,
+                               int size)
+    {
+        log.info("Batch response {}", response);
+        var results = response.getResults();
+        assertEquals(results.size(), size, "One result per request expected");
+        for (int i = 0; i < size; i++)
+        {
+            BatchResult result = results.get(i);
+            assertEquals(result.getIndex().intValue(), i, "Results must keep the order of requests");
+            assertEquals(result.getStatus().intValue(), HttpResponseStatus.ACCEPTED.code());
+            assertEquals(result.getMessage().get().getOwner().get(), "user-" + i, "Result must answer its own request");
+        }
+    }
+
+    private List<Request> requests(int size)
+    {
+        var requests = new ArrayList<Request>();
+        for (int i = 0; i < size; i++)
+            requests.add(new RequestBuilder("user-" + i, "message " + i, new DateTime(), List.of()).build());
+        return requests;
+    }
+
+    private RequestHandler createHandler(BatchForwarding batchForwarding)
+    {
+        return this.createHandler(batchForwarding, LoadBalancingStrategy.ROUND_ROBIN);
+    }
+
+    private RequestHandler createHandler(BatchForwarding batchForwarding,
+                                         LoadBalancingStrategy loadBalancer)
+    {
+        var parameters = new HandlerParametersBuilder(0, "127.0.0.1", 0, "1.1.1.1").withLoadBalancer(loadBalancer)
+                                                                                   .withBatchForwarding(batchForwarding)
+                                                                                   .build();
+        return new RequestHandler(null, this.internalClient, parameters);
+    }
+
+    /**
+     * Simulate the single and batch endpoints of the chat server
+     */
+    private void simulateChatServer(Router router,
+                                    IntSupplier status)
+    {
+        router.get(CHAT_MESSAGES_BATCH_URI.getPath()).handler(rc -> rc.request().bodyHandler(buffer ->
+        {
+            this.batchCalls.incrementAndGet();
+            this.reply(rc, status.getAsInt(), () ->
+            {
+                List<Request> requests = json.readValue(buffer.getBytes(), new TypeReference<List<Request>>()
+                {
+                });
+                this.batchSizes.add(requests.size());
+                var replies = new ArrayList<Message>();
+                requests.forEach(request -> replies.add(reply(request)));
+                return json.writeValueAsString(replies);
+            });
+        }));
+        router.get(CHAT_MESSAGES_URI.getPath()).handler(rc -> rc.request().bodyHandler(buffer ->
+        {
+            this.singleCalls.incrementAndGet();
+            this.reply(rc, status.getAsInt(), () -> json.writeValueAsString(reply(json.readValue(buffer.getBytes(), Request.class))));
+        }));
+    }
+
+    private void reply(RoutingContext rc,
+                       int status,
+                       Callable<String> body)
+    {
+        try
+        {
+            if (status == HttpResponseStatus.ACCEPTED.code())
+                rc.response().setStatusCode(status).end(body.call());
+            else
+                rc.response().setStatusCode(status).end();
+        }
+        catch (Exception e)
+        {
+            rc.response().setStatusCode(HttpResponseStatus.BAD_REQUEST.code()).end();
+        }
+    }
+
+    private static Message reply(Request request)
+    {
+        return new MessageBuilder().withId(1L) //
+                                   .withUser("server")
+                                   .withMessage("reply")
+                                   .withRecipient(false)
+                                   .withOwner(request.getUser())
+                                   .build();
+    }
+
+    public Integer getAvailablePort(String host)
+    {
+        var port = 0;
+        try
+        {
+            var address = InetAddress.getByName(host);
+            try (var socket = new ServerSocket(0, 100, address))
+            {
+                port = socket.getLocalPort();
+            }
+        }
+        catch (Exception e)
+        {
+            log.error("Failed to get available port for {}", host);
+        }
+        return port;
+    }
+}
@@ -0,0 +1,231 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intracom.common.utilities.Jackson;
+import com.intracom.common.web.VertxBuilder;
+import com.intracom.common.web.WebClient;
+import com.intracom.common.web.WebServer;
+import com.intracom.model.Message.MessageBuilder;
+import com.intracom.model.Request;
+import com.intracom.model.Request.RequestBuilder;
+import com.intracom.model.Service;
+import com.intracom.model.Service.ServiceBuilder;
+import com.intracom.model.ServiceDiscovery.ServiceDiscoveryBuilder;
+import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
+import com.intracom.sd.HandlerParameters.HandlerParametersBuilder;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.Vertx;
+
+public class ForwardRetryTest
+{
+    private static final Logger log = LoggerFactory.getLogger(ForwardRetryTest.class);
+    private static final String FAILING_SERVER_LOCAL_HOST = "127.0.0.77";
+    private static final String HEALTHY_SERVER_LOCAL_HOST = "127.0.0.78";
+    private static final String REGISTRY_SERVER_LOCAL_HOST = "127.0.0.79";
+    private static final String HANDLER_SERVER_LOCAL_HOST = "127.0.0.80";
+    private static final URI CHAT_MESSAGES_URI = URI.create("/chat/messages");
+    private static final URI REGISTRY_URI = URI.create("/registrations");
+    private static final ObjectMapper json = Jackson.om();
+
+    private final Vertx vertx = new VertxBuilder().build();
+    private final WebServer failingServer = WebServer.builder() //
+                                                     .withHost(FAILING_SERVER_LOCAL_HOST)
+                                                     .withPort(this.getAvailablePort(FAILING_SERVER_LOCAL_HOST))
+                                                     .build(this.vertx);
+    private final WebServer healthyServer = WebServer.builder() //
+                                                     .withHost(HEALTHY_SERVER_LOCAL_HOST)
+                                                     .withPort(this.getAvailablePort(HEALTHY_SERVER_LOCAL_HOST))
+                                                     .build(this.vertx);
+    private final WebServer registryServiceServer = WebServer.builder() //
+                                                             .withHost(REGISTRY_SERVER_LOCAL_HOST)
+                                                             .withPort(this.getAvailablePort(REGISTRY_SERVER_LOCAL_HOST))
+                                                             .build(this.vertx);
+    private final WebServer handlerServiceServer = WebServer.builder() //
+                                                            .withHost(HANDLER_SERVER_LOCAL_HOST)
+                                                            .withPort(this.getAvailablePort(HANDLER_SERVER_LOCAL_HOST))
+                                                            .build(this.vertx);
+    private final WebClient internalClient = WebClient.builder().build(this.vertx);
+    private final io.vertx.reactivex.ext.web.client.WebClient externalClient = io.vertx.reactivex.ext.web.client.WebClient.create(this.vertx);
+
+    private final AtomicInteger failingStatus = new AtomicInteger();
+    private final AtomicLong failingDelay = new AtomicLong();
+    private final AtomicInteger failingRequests = new AtomicInteger();
+    private final AtomicInteger healthyRequests = new AtomicInteger();
+    private RequestHandler requestHandler;
+
+    @BeforeClass
+    private void beforeClass() throws JsonProcessingException, NumberFormatException, UnknownHostException
+    {
+        var message = json.writeValueAsString(new MessageBuilder().withId(666L) //
+                                                                  .withUser("user") //
+                                                                  .withMessage("response message")
+                                                                  .withRecipient(false) //
+                                                                  .build());
+
+        this.failingServer.configureRouter(router -> router.get(CHAT_MESSAGES_URI.getPath()).handler(rc -> rc.request().bodyHandler(buffer ->
+        {
+            this.failingRequests.incrementAndGet();
+            this.vertx.setTimer(Math.max(this.failingDelay.get(), 1L), id -> rc.response().setStatusCode(this.failingStatus.get()).end(message));
+        })));
+        this.healthyServer.configureRouter(router -> router.get(CHAT_MESSAGES_URI.getPath()).handler(rc -> rc.request().bodyHandler(buffer ->
+        {
+            this.healthyRequests.incrementAndGet();
+            rc.response().end(message);
+        })));
+        this.failingServer.startListener().blockingAwait();
+        this.healthyServer.startListener().blockingAwait();
+
+        var services = new ArrayList<Service>();
+        services.add(new ServiceBuilder().withHost(FAILING_SERVER_LOCAL_HOST) //
+                                         .withPort(Double.valueOf(this.failingServer.actualPort()))
+                                         .withName("failing-service")
+                                         .withTimestamp(new DateTime())
+                                         .build());
+        services.add(new ServiceBuilder().withHost(HEALTHY_SERVER_LOCAL_HOST) //
+                                         .withPort(Double.valueOf(this.healthyServer.actualPort()))
+                                         .withName("healthy-service")
+                                         .withTimestamp(new DateTime())
+                                         .build());
+        var responseData = json.writeValueAsString(new ServiceRegistryBuilder().withFunction("chat") //
+                                                                               .withServices(services)
+                                                                               .build());
+        this.registryServiceServer.configureRouter(router -> router.get(REGISTRY_URI.getPath())
+                                                                   .handler(rc -> rc.request()
+                                                                                    .bodyHandler(buffer -> rc.response()
+                                                                                                             .setStatusCode(HttpResponseStatus.FOUND.code())
+                                                                                                             .end(responseData))));
+        this.registryServiceServer.startListener().blockingAwait();
+
+        var parameters = new HandlerParametersBuilder(this.handlerServiceServer.actualPort(),
+                                                      REGISTRY_SERVER_LOCAL_HOST,
+                                                      this.registryServiceServer.actualPort(),
+                                                      "1.1.1.1").withLoadBalancer(LoadBalancingStrategy.ROUND_ROBIN) //
+                                                                .withOutlierConsecutiveErrors(1000)
+                                                                .withRetryMax(2)
+                                                                .withRetryBudget(0.2, 100)
+                                                                .withHedging(true)
+                                                                .build();
+        this.requestHandler = new RequestHandler(this.handlerServiceServer, this.internalClient, parameters);
+        this.requestHandler.createRouters();
+        this.handlerServiceServer.startListener().blockingAwait();
+    }
+
+    @AfterClass
+    private void afterClass()
+    {
+        this.externalClient.close();
+        this.handlerServiceServer.shutdown().blockingAwait();
+        this.registryServiceServer.shutdown().blockingAwait();
+        this.failingServer.shutdown().blockingAwait();
+        this.healthyServer.shutdown().blockingAwait();
+        this.vertx.close();
+    }
+
+    @BeforeMethod
+    private void beforeMethod()
+    {
+        this.failingStatus.set(HttpResponseStatus.OK.code());
+        this.failingDelay.set(0);
+        this.failingRequests.set(0);
+        this.healthyRequests.set(0);
+    }
+
+    @Test
+    public void retryOnOtherService() throws JsonProcessingException
+    {
+        this.failingStatus.set(HttpResponseStatus.SERVICE_UNAVAILABLE.code());
+        for (int i = 0; i < 10; i++)
+            assertEquals(this.send(), HttpResponseStatus.OK.code(), "Gateway errors must be retried");
+
+        assertTrue(this.failingRequests.get() > 0, "Failing service not selected");
+        assertEquals(this.healthyRequests.get(), 10, "Every request must reach the healthy service");
+    }
+
+    @Test
+    public void noRetryOnClientError() throws JsonProcessingException
+    {
+        this.failingStatus.set(HttpResponseStatus.NOT_FOUND.code());
+        var statuses = new ArrayList<Integer>();
+        for (int i = 0; i < 4; i++)
+            statuses.add(this.send());
+
+        assertTrue(statuses.contains(HttpResponseStatus.NOT_FOUND.code()), "Client errors must not be retried");
+        assertEquals(this.failingRequests.get() + this.healthyRequests.get(), 4, "Wrong number of forwarded requests");
+    }
+
+    @Test
+    public void hedgeSlowService() throws JsonProcessingException
+    {
+        // learn the latency of the function
+        for (int i = 0; i < 40; i++)
+            assertEquals(this.send(), HttpResponseStatus.OK.code());
+
+        this.failingDelay.set(2000L);
+        this.failingRequests.set(0);
+        this.healthyRequests.set(0);
+        for (int i = 0; i < 4; i++)
+        {
+            var start = System.currentTimeMillis();
+            assertEquals(this.send(), HttpResponseStatus.OK.code());
+            var elapsed = System.currentTimeMillis() - start;
+            log.info("Request answered after {}ms", elapsed);
+            assertTrue(elapsed < 1000L, "Slow service must be hedged, request took " + elapsed + "ms");
+        }
+        assertTrue(this.failingRequests.get() > 0, "Slow service not selected");
+        assertEquals(this.healthyRequests.get(), 4, "Every request must reach the fast service");
+    }
+
+    private int send() throws JsonProcessingException
+    {
+        var requests = new ArrayList<Request>();
+        requests.add(new RequestBuilder("user", "message", new DateTime(), List.of()).build());
+        var serviceDiscovery = new ServiceDiscoveryBuilder().withFunction("chat") //
+                                                            .withRequests(requests)
+                                                            .build();
+        return this.externalClient.get(this.handlerServiceServer.actualPort(), HANDLER_SERVER_LOCAL_HOST, CHAT_MESSAGES_URI.getPath())
+                                  .rxSendJsonObject(new JsonObject(json.writeValueAsString(serviceDiscovery)))
+                                  .blockingGet()
+                                  .statusCode();
+    }
+
+    public Integer getAvailablePort(String host)
+    {
+        var port = 0;
+        try
+        {
+            var address = InetAddress.getByName(host);
+            try (var socket = new ServerSocket(0, 100, address))
+            {
+                port = socket.getLocalPort();
+            }
+        }
+        catch (Exception e)
+        {
+            log.error("Failed to get available port for {}", host);
+        }
+        return port;
+    }
+}
@@ -0,0 +1,143 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.intracom.model.Service;
+import com.intracom.model.Service.ServiceBuilder;
+
+public class LoadBalancerTest
+{
+    private List<Service> services;
+    private InflightRequests inflight;
+
+    @BeforeMethod
+    private void beforeMethod()
+    {
+        this.inflight = new InflightRequests();
+        var data = new ArrayList<Service>();
+        for (var i = 1; i <= 4; i++)
+        {
+            data.add(new ServiceBuilder().withHost("127.0.0." + i) //
+                                         .withPort(Double.valueOf(8080))
+                                         .withName("chat-server-" + i)
+                                         .withTimestamp(new DateTime())
+                                         .build());
+        }
+        this.services = List.copyOf(data);
+    }
+
+    @Test
+    private void roundRobin()
+    {
+        var loadBalancer = LoadBalancer.create(LoadBalancingStrategy.ROUND_ROBIN, this.inflight);
+        for (var i = 0; i < 8; i++)
+            assertEquals(loadBalancer.select(this.services, null), this.services.get(i % this.services.size()));
+    }
+
+    @Test
+    private void leastOutstanding()
+    {
+        var loadBalancer = LoadBalancer.create(LoadBalancingStrategy.LEAST_OUTSTANDING, this.inflight);
+        this.services.forEach(this.inflight::started);
+        this.services.forEach(this.inflight::started);
+        this.inflight.completed(this.services.get(2));
+
+        assertEquals(loadBalancer.select(this.services, null), this.services.get(2));
+    }
+
+    @Test
+    private void powerOfTwoChoices()
+    {
+        var loadBalancer = LoadBalancer.create(LoadBalancingStrategy.POWER_OF_TWO_CHOICES, this.inflight);
+        var busy = this.services.get(0);
+        for (var i = 0; i < 10; i++)
+            this.inflight.started(busy);
+
+        // the busiest service loses every comparison
+        for (var i = 0; i < 100; i++)
+            assertNotEquals(loadBalancer.select(this.services, null), busy);
+    }
+
+    @Test
+    private void consistentHash()
+    {
+        var loadBalancer = LoadBalancer.create(LoadBalancingStrategy.CONSISTENT_HASH, this.inflight);
+        var selected = new HashSet<Service>();
+        for (var i = 0; i < 100; i++)
+        {
+            var user = "user-" + i;
+            var service = loadBalancer.select(this.services, user);
+            assertEquals(loadBalancer.select(this.services, user), service);
+            selected.add(service);
+        }
+        assertEquals(selected.size(), this.services.size());
+
+        // removal of a service only moves the users of that service
+        var removed = this.services.get(3);
+        var remaining = List.copyOf(this.services.subList(0, 3));
+        for (var i = 0; i < 100; i++)
+        {
+            var user = "user-" + i;
+            var before = loadBalancer.select(this.services, user);
+            var after = loadBalancer.select(remaining, user);
+            assertTrue(before.equals(removed) || before.equals(after));
+        }
+    }
+
+    @Test
+    private void consistentHashKeepsRing()
+    {
+        var loadBalancer = new ConsistentHashLoadBalancer();
+        loadBalancer.select(this.services, "user-0");
+        var ring = loadBalancer.ring;
+
+        // lists without ejected or tried services, and a new snapshot of the same
+        // services, reuse the nodes of the ring
+        var ejected = this.services.get(1);
+        var filtered = List.of(this.services.get(0), this.services.get(2), this.services.get(3));
+        for (var i = 0; i < 100; i++)
+        {
+            var user = "user-" + i;
+            var before = loadBalancer.select(this.services, user);
+            var after = loadBalancer.select(this.services, filtered, user);
+            assertTrue(filtered.contains(after));
+            assertTrue(before.equals(ejected) || before.equals(after));
+        }
+        assertSame(loadBalancer.ring, ring);
+
+        var renewed = new ArrayList<>(this.services);
+        assertEquals(loadBalancer.select(renewed, "user-0"), loadBalancer.select(this.services, "user-0"));
+
+        // a new service rebuilds the ring
+        var added = new ArrayList<>(this.services);
+        added.add(new ServiceBuilder().withHost("127.0.0.5").withPort(Double.valueOf(8080)).withName("chat-server-5").build());
+        loadBalancer.select(added, "user-0");
+        assertNotSame(loadBalancer.ring, ring);
+
+        // a removed service leaves the ring
+        ring = loadBalancer.ring;
+        var removed = List.copyOf(this.services.subList(1, 4));
+        loadBalancer.select(removed, "user-0");
+        assertNotSame(loadBalancer.ring, ring);
+    }
+
+    @Test
+    private void strategyFromParameters()
+    {
+        var loadBalancers = HandlerParameters.parseLoadBalancers("chat=consistent-hash, echo=round-robin");
+        assertEquals(loadBalancers.get("chat"), LoadBalancingStrategy.CONSISTENT_HASH);
+        assertEquals(loadBalancers.get("echo"), LoadBalancingStrategy.ROUND_ROBIN);
+    }
+}
@@ -0,0 +1,120 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.joda.time.DateTime;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.intracom.model.Service;
+import com.intracom.model.Service.ServiceBuilder;
+
+public class OutlierDetectorTest
+{
+    private static final long BASE_EJECTION_MILLIS = 1000L;
+
+    private final AtomicLong now = new AtomicLong();
+    private List<Service> services;
+    private OutlierDetector detector;
+
+    @BeforeMethod
+    private void beforeMethod()
+    {
+        this.now.set(0);
+        this.detector = new OutlierDetector(3, 100L, BASE_EJECTION_MILLIS, 8 * BASE_EJECTION_MILLIS, 50, 3.0, this.now::get);
+        var data = new ArrayList<Service>();
+        for (var i = 1; i <= 4; i++)
+        {
+            data.add(new ServiceBuilder().withHost("127.0.0." + i) //
+                                         .withPort(Double.valueOf(8080))
+                                         .withName("chat-server-" + i)
+                                         .withTimestamp(new DateTime())
+                                         .build());
+        }
+        this.services = List.copyOf(data);
+        this.services.forEach(service -> this.detector.success(service, 5));
+    }
+
+    @Test
+    private void consecutiveErrors()
+    {
+        var failing = this.services.get(1);
+        this.detector.failure(failing);
+        this.detector.failure(failing);
+        this.detector.success(failing, 5);
+        this.detector.failure(failing);
+        this.detector.failure(failing);
+        assertFalse(this.detector.isEjected(failing));
+        assertSame(this.detector.filter(this.services), this.services);
+
+        this.detector.failure(failing);
+        assertTrue(this.detector.isEjected(failing));
+        assertEquals(this.detector.filter(this.services).size(), 3);
+        assertFalse(this.detector.filter(this.services).contains(failing));
+
+        this.now.set(BASE_EJECTION_MILLIS);
+        assertFalse(this.detector.isEjected(failing));
+    }
+
+    @Test
+    private void exponentialReadmission()
+    {
+        var failing = this.services.get(0);
+        for (var ejection = 1; ejection <= 5; ejection++)
+        {
+            for (var i = 0; i < 3; i++)
+                this.detector.failure(failing);
+            var expected = Math.min(BASE_EJECTION_MILLIS << (ejection - 1), 8 * BASE_EJECTION_MILLIS);
+            this.now.addAndGet(expected - 1);
+            assertTrue(this.detector.isEjected(failing), "ejection " + ejection);
+            this.now.incrementAndGet();
+            assertFalse(this.detector.isEjected(failing), "ejection " + ejection);
+        }
+
+        // healthy intervals reduce the next ejection time
+        for (var i = 0; i < 4; i++)
+        {
+            this.now.addAndGet(100);
+            this.services.forEach(service -> this.detector.success(service, 5));
+            this.detector.sweep();
+        }
+        for (var i = 0; i < 3; i++)
+            this.detector.failure(failing);
+        this.now.addAndGet(4 * BASE_EJECTION_MILLIS - 1);
+        assertTrue(this.detector.isEjected(failing));
+        this.now.incrementAndGet();
+        assertFalse(this.detector.isEjected(failing));
+    }
+
+    @Test
+    private void maxEjectionPercent()
+    {
+        this.services.forEach(service ->
+        {
+            for (var i = 0; i < 3; i++)
+                this.detector.failure(service);
+        });
+        assertEquals(this.services.stream().filter(this.detector::isEjected).count(), 2);
+        assertEquals(this.detector.filter(this.services).size(), 2);
+    }
+
+    @Test
+    private void latencyOutlier()
+    {
+        var slow = this.services.get(3);
+        for (var i = 0; i < 20; i++)
+        {
+            this.services.forEach(service -> this.detector.success(service, service == slow ? 200 : 20));
+        }
+        this.detector.sweep();
+        assertTrue(this.detector.isEjected(slow));
+        assertEquals(this.services.stream().filter(this.detector::isEjected).count(), 1);
+    }
+}
@@ -0,0 +1,239 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intracom.common.utilities.Jackson;
+import com.intracom.common.web.VertxBuilder;
+import com.intracom.common.web.WebClient;
+import com.intracom.common.web.WebServer;
+import com.intracom.model.RegistrationEvent;
+import com.intracom.model.RegistrationEvent.RegistrationEventBuilder;
+import com.intracom.model.RegistryWatch;
+import com.intracom.model.RegistryWatch.RegistryWatchBuilder;
+import com.intracom.model.Service;
+import com.intracom.model.Service.ServiceBuilder;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.vertx.reactivex.core.Vertx;
+
+public class RegistryReplicaTest
+{
+    private static final Logger log = LoggerFactory.getLogger(RegistryReplicaTest.class);
+    private static final String REGISTRY_SERVER_LOCAL_HOST = "127.0.0.86";
+    private static final URI REGISTRY_WATCH_URI = URI.create("/registrations/watch");
+    private static final ObjectMapper json = Jackson.om();
+
+    private final Vertx vertx = new VertxBuilder().build();
+    private final WebServer registryServer = WebServer.builder() //
+                                                      .withHost(REGISTRY_SERVER_LOCAL_HOST)
+                                                      .withPort(this.getAvailablePort(REGISTRY_SERVER_LOCAL_HOST))
+                                                      .build(this.vertx);
+    private final WebClient internalClient = WebClient.builder().build(this.vertx);
+
+    // watch responses per function and known version, unknown versions time out with 304
+    private final ConcurrentHashMap<String, RegistryWatch> changes = new ConcurrentHashMap<>();
+    private final Set<String> watched = ConcurrentHashMap.newKeySet();
+    private RegistryReplica replica;
+
+    @BeforeClass
+    private void beforeClass()
+    {
+        this.registryServer.configureRouter(router -> router.get(REGISTRY_WATCH_URI.getPath()).handler(rc ->
+        {
+            var function = rc.request().getParam("function");
+            this.watched.add(function);
+            var version = Long.parseLong(rc.request().getParam("version"));
+            var timeout = Long.parseLong(rc.request().getParam("timeout"));
+            var watch = this.changes.get(key(function, version));
+            if (watch != null)
+            {
+                rc.response().setStatusCode(HttpResponseStatus.OK.code()).end(this.encode(watch));
+                return;
+            }
+            rc.vertx().setTimer(TimeUnit.SECONDS.toMillis(timeout), id ->
+            {
+                if (!rc.response().ended() && !rc.response().closed())
+                    rc.response().setStatusCode(HttpResponseStatus.NOT_MODIFIED.code()).end();
+            });
+        }));
+        this.registryServer.startListener().blockingAwait();
+
+        this.replica = new RegistryReplica(this.internalClient, REGISTRY_SERVER_LOCAL_HOST, this.registryServer.actualPort(), 1L, 1000L, 3000L);
+    }
+
+    @AfterClass
+    private void afterClass()
+    {
+        this.replica.stop().blockingAwait();
+        this.vertx.close();
+    }
+
+    @Test
+    public void replicateFromFirstVersion() throws InterruptedException
+    {
+        // the history of a function starts at version 1, so the registry answers
+        // the first watch with changes instead of a resync
+        this.changes.put(key("echo", 0L),
+                         new RegistryWatchBuilder().withFunction("echo") //
+                                                   .withVersion(2L)
+                                                   .withResync(false)
+                                                   .withEvents(List.of(event(RegistrationEvent.Type.ADDED, 1L, "first"),
+                                                                       event(RegistrationEvent.Type.ADDED, 2L, "second")))
+                                                   .build());
+
+        assertTrue(this.replica.get("echo").isEmpty(), "Replica must be cold before the first watch response");
+        this.replica.replicate("echo");
+        this.await(() -> this.replica.get("echo").isPresent());
+        assertEquals(names(this.replica.get("echo")), List.of("first", "second"));
+        assertEquals(this.replica.getVersion("echo"), 2L);
+
+        this.changes.put(key("echo", 2L),
+                         new RegistryWatchBuilder().withFunction("echo") //
+                                                   .withVersion(3L)
+                                                   .withResync(false)
+                                                   .withEvents(List.of(event(RegistrationEvent.Type.ADDED, 3L, "third")))
+                                                   .build());
+        this.await(() -> this.replica.getVersion("echo") == 3L);
+        assertEquals(names(this.replica.get("echo")), List.of("first", "second", "third"));
+    }
+
+    @Test(dependsOnMethods = "replicateFromFirstVersion")
+    public void stopIdleReplication() throws InterruptedException
+    {
+        // lookups alone do not start a watch
+        assertTrue(this.replica.get("unknown").isEmpty());
+        Thread.sleep(500);
+        assertFalse(this.watched.contains("unknown"), "Lookup of a function must not start its replication");
+
+        // a function that is not looked up any more stops being replicated
+        this.await(() -> this.replica.getVersion("echo") == 0L);
+        assertTrue(this.replica.get("echo").isEmpty(), "Idle function must not be replicated");
+    }
+
+    @Test(dependsOnMethods = "stopIdleReplication")
+    public void replicateChanges() throws InterruptedException
+    {
+        this.changes.put(key("chat", 0L),
+                         new RegistryWatchBuilder().withFunction("chat") //
+                                                   .withVersion(3L)
+                                                   .withResync(true)
+                                                   .withServices(List.of(service("first"), service("second")))
+                                                   .build());
+
+        // cold function falls back to the registry
+        assertTrue(this.replica.get("chat").isEmpty(), "Replica must be cold before the first watch response");
+        assertEquals(this.replica.getReplicationLag("chat"), -1L);
+        this.replica.replicate("chat");
+
+        this.await(() -> this.replica.get("chat").isPresent());
+        assertEquals(names(this.replica.get("chat")), List.of("first", "second"));
+        assertEquals(this.replica.getVersion("chat"), 3L);
+        assertEquals(this.replica.getReplicationLag("chat"), 0L, "Replica with established watch must be current");
+
+        this.changes.put(key("chat", 3L),
+                         new RegistryWatchBuilder().withFunction("chat") //
+                                                   .withVersion(5L)
+                                                   .withResync(false)
+                                                   .withEvents(List.of(event(RegistrationEvent.Type.REMOVED, 4L, "first"),
+                                                                       event(RegistrationEvent.Type.ADDED, 5L, "third")))
+                                                   .build());
+        this.await(() -> this.replica.getVersion("chat") == 5L);
+        assertEquals(names(this.replica.get("chat")), List.of("second", "third"));
+        assertEquals(this.replica.getResyncs(), 1L, "Changes must be applied without resync");
+
+        // lost registry, replica turns cold once the lag exceeds the maximum
+        this.registryServer.shutdown().blockingAwait();
+        this.await(() -> this.replica.get("chat").isEmpty());
+        assertTrue(this.replica.getReplicationLag("chat") > 1000L, "Lag must grow while the registry is unreachable");
+        assertTrue(this.replica.getWatchFailures() > 0);
+        log.info("Registry replica statistics {}", this.replica);
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException
+    {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++)
+            Thread.sleep(100);
+        assertTrue(condition.getAsBoolean(), "Condition not reached in time");
+    }
+
+    private String encode(RegistryWatch watch)
+    {
+        try
+        {
+            return json.writeValueAsString(watch);
+        }
+        catch (Exception e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String key(String function,
+                              long version)
+    {
+        return function + "@" + version;
+    }
+
+    private static List<String> names(Optional<List<Service>> services)
+    {
+        return services.orElseThrow().stream().map(Service::getName).collect(Collectors.toList());
+    }
+
+    private static RegistrationEvent event(RegistrationEvent.Type type,
+                                           long version,
+                                           String name)
+    {
+        return new RegistrationEventBuilder().withType(type) //
+                                             .withVersion(version)
+                                             .withService(service(name))
+                                             .build();
+    }
+
+    private static Service service(String name)
+    {
+        return new ServiceBuilder().withHost("127.0.0.1") //
+                                   .withPort(8080.0)
+                                   .withName(name)
+                                   .withTimestamp(new DateTime())
+                                   .build();
+    }
+
+    public Integer getAvailablePort(String host)
+    {
+        var port = 0;
+        try
+        {
+            var address = InetAddress.getByName(host);
+            try (var socket = new ServerSocket(0, 100, address))
+            {
+                port = socket.getLocalPort();
+            }
+        }
+        catch (Exception e)
+        {
+            log.error("Failed to get available port for {}", host);
+        }
+        return port;
+    }
+}
@@ -0,0 +1,56 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.Test;
+
+public class RetryBudgetTest
+{
+    @Test
+    private void minimumPerSecond()
+    {
+        var now = new AtomicLong();
+        var budget = new RetryBudget(0.1, 3, now::get);
+        for (var i = 0; i < 3; i++)
+            assertTrue(budget.tryWithdraw());
+        assertFalse(budget.tryWithdraw());
+
+        now.addAndGet(1000L);
+        assertTrue(budget.tryWithdraw());
+    }
+
+    @Test
+    private void ratioOfRequests()
+    {
+        var budget = new RetryBudget(0.1, 0, () -> 0L);
+        var retries = 0;
+        for (var i = 0; i < 1000; i++)
+        {
+            budget.deposit();
+            if (budget.tryWithdraw())
+                retries++;
+        }
+        assertEquals(retries, 100, 1);
+    }
+
+    @Test
+    private void latencyPercentile()
+    {
+        var histogram = new LatencyHistogram();
+        assertEquals(histogram.percentile(95), 0L);
+
+        for (var i = 1; i <= 100; i++)
+            histogram.record(i);
+        assertEquals(histogram.count(), 100L);
+
+        // buckets are 25% wide
+        var p95 = histogram.percentile(95);
+        assertTrue(p95 >= 95 && p95 <= 95 * 1.25, "p95 " + p95);
+        var p50 = histogram.percentile(50);
+        assertTrue(p50 >= 50 && p50 <= 50 * 1.25, "p50 " + p50);
+    }
+}
@@ -0,0 +1,62 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intracom.common.utilities.Jackson;
+import com.intracom.model.Request;
+import com.intracom.model.Request.RequestBuilder;
+import com.intracom.model.ServiceDiscovery.ServiceDiscoveryBuilder;
+
+import io.vertx.reactivex.core.buffer.Buffer;
+
+public class RoutingFieldsTest
+{
+    private static final ObjectMapper json = Jackson.om();
+
+    @Test
+    private void parseRoutingFields() throws IOException
+    {
+        var requests = new ArrayList<Request>();
+        requests.add(new RequestBuilder("user-1", "first \"quoted\" message", new DateTime(), List.of("user-2")).build());
+        requests.add(new RequestBuilder("user-2", "second message", new DateTime(), List.of()).build());
+        var body = Buffer.buffer(json.writeValueAsString(new ServiceDiscoveryBuilder().withRequests(requests) //
+                                                                                      .withFunction("chat")
+                                                                                      .build()));
+
+        var fields = RoutingFields.parse(body);
+        assertEquals(fields.getFunction(), "chat");
+        assertEquals(fields.getUser(), "user-1");
+        assertEquals(fields.getRequests(), 2);
+
+        assertEquals(fields.getFirstRequest(body).toString(), json.writeValueAsString(requests.get(0)));
+    }
+
+    @Test
+    private void missingFields() throws IOException
+    {
+        var fields = RoutingFields.parse(Buffer.buffer("{\"other\":{\"function\":\"nested\"},\"requests\":[]}"));
+        assertNull(fields.getFunction());
+        assertEquals(fields.getRequests(), 0);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    private void invalidRequest() throws IOException
+    {
+        RoutingFields.parse(Buffer.buffer("{\"function\":\"chat\",\"requests\":[1]}"));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    private void truncatedBody() throws IOException
+    {
+        RoutingFields.parse(Buffer.buffer("{\"function\":\"chat\",\"requests\":[{\"user\":"));
+    }
+}
@@ -0,0 +1,214 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intracom.common.utilities.Jackson;
+import com.intracom.common.web.VertxBuilder;
+import com.intracom.common.web.WebClient;
+import com.intracom.common.web.WebServer;
+import com.intracom.model.Service;
+import com.intracom.model.Service.ServiceBuilder;
+import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.vertx.reactivex.core.Vertx;
+
+public class ServiceCacheTest
+{
+    private static final Logger log = LoggerFactory.getLogger(ServiceCacheTest.class);
+    private static final String REGISTRY_SERVER_LOCAL_HOST = "127.0.0.75";
+    private static final URI REGISTRY_URI = URI.create("/registrations");
+    private static final String ENTITY_TAG = "\"7\"";
+    private static final ObjectMapper json = Jackson.om();
+
+    private final Vertx vertx = new VertxBuilder().build();
+    private final WebServer registryServiceServer = WebServer.builder() //
+                                                             .withHost(REGISTRY_SERVER_LOCAL_HOST)
+                                                             .withPort(this.getAvailablePort(REGISTRY_SERVER_LOCAL_HOST))
+                                                             .build(this.vertx);
+    private final WebClient internalClient = WebClient.builder().build(this.vertx);
+    private final AtomicInteger lookups = new AtomicInteger();
+    private final AtomicInteger revalidations = new AtomicInteger();
+    private final AtomicBoolean available = new AtomicBoolean(true);
+
+    @BeforeClass
+    private void beforeClass() throws JsonProcessingException
+    {
+        Service service = new ServiceBuilder().withHost("127.0.0.1") //
+                                              .withPort(Double.valueOf(8080))
+                                              .withName("internal-service")
+                                              .withTimestamp(new DateTime())
+                                              .build();
+        var data = new ArrayList<Service>();
+        data.add(service);
+        var responseData = json.writeValueAsString(new ServiceRegistryBuilder().withFunction("chat") //
+                                                                               .withServices(data)
+                                                                               .build());
+
+        this.registryServiceServer.configureRouter(router -> router.get(REGISTRY_URI.getPath()).handler(rc ->
+        {
+            rc.request().bodyHandler(buffer ->
+            {
+                this.lookups.incrementAndGet();
+                log.info("Simulated registry server received {}", buffer.toString());
+                if (!this.available.get())
+                {
+                    rc.response().setStatusCode(HttpResponseStatus.SERVICE_UNAVAILABLE.code()).end();
+                }
+                else if (ENTITY_TAG.equals(rc.request().getHeader("If-None-Match")))
+                {
+                    this.revalidations.incrementAndGet();
+                    rc.response().setStatusCode(HttpResponseStatus.NOT_MODIFIED.code()).putHeader("ETag", ENTITY_TAG).end();
+                }
+                else
+                {
+                    rc.response() //
+                      .setStatusCode(HttpResponseStatus.FOUND.code()) //
+                      .putHeader("ETag", ENTITY_TAG)
+                      .end(responseData);
+                }
+            });
+        }));
+
+        this.registryServiceServer.startListener().blockingAwait();
+    }
+
+    @AfterClass
+    private void afterClass()
+    {
+        this.internalClient.close().blockingAwait();
+        this.registryServiceServer.shutdown().blockingAwait();
+        this.vertx.close();
+    }
+
+    @BeforeMethod
+    private void beforeMethod()
+    {
+        this.lookups.set(0);
+        this.revalidations.set(0);
+        this.available.set(true);
+    }
+
+    @Test
+    public void cacheHitTest()
+    {
+        var cache = this.createCache(60_000L, 60_000L);
+        for (int i = 0; i < 5; i++)
+            assertEquals(cache.get("chat").blockingGet().size(), 1, "Wrong number of cached services");
+
+        assertEquals(this.lookups.get(), 1, "Registry must be asked once");
+        assertEquals(cache.getMisses(), 1L, "Wrong number of misses");
+        assertEquals(cache.getHits(), 4L, "Wrong number of hits");
+    }
+
+    @Test
+    public void revalidationTest() throws InterruptedException
+    {
+        var cache = this.createCache(200L, 60_000L);
+        cache.start().blockingAwait();
+        try
+        {
+            assertEquals(cache.get("chat").blockingGet().size(), 1, "Wrong number of services");
+            Thread.sleep(500L);
+
+            assertTrue(this.revalidations.get() > 0, "Background refresh must revalidate with entity tag");
+            assertEquals(cache.get("chat").blockingGet().size(), 1, "Revalidated entry must keep services");
+            assertEquals(cache.getMisses(), 1L, "Revalidated entry must not miss");
+        }
+        finally
+        {
+            cache.stop().blockingAwait();
+        }
+    }
+
+    @Test
+    public void idleEvictionTest() throws InterruptedException
+    {
+        var cache = this.createCache(100L, 200L);
+        cache.start().blockingAwait();
+        try
+        {
+            assertEquals(cache.get("chat").blockingGet().size(), 1, "Wrong number of services");
+            Thread.sleep(400L);
+
+            // entries not looked up are neither refreshed nor kept
+            var lookups = this.lookups.get();
+            Thread.sleep(300L);
+            assertEquals(this.lookups.get(), lookups, "Idle entry must not be refreshed");
+            assertEquals(cache.get("chat").blockingGet().size(), 1, "Wrong number of services");
+            assertEquals(cache.getMisses(), 2L, "Idle entry must be evicted");
+        }
+        finally
+        {
+            cache.stop().blockingAwait();
+        }
+    }
+
+    @Test
+    public void staleWhileUnavailableTest() throws InterruptedException
+    {
+        var cache = this.createCache(100L, 400L);
+        assertEquals(cache.get("chat").blockingGet().size(), 1, "Wrong number of services");
+
+        this.available.set(false);
+        Thread.sleep(200L);
+
+        // expired but within max stale
+        assertEquals(cache.get("chat").blockingGet().size(), 1, "Stale entry must be served while registry is unavailable");
+        assertTrue(cache.getStaleHits() > 0, "Stale hit not counted");
+
+        Thread.sleep(500L);
+
+        // beyond max stale
+        var observer = cache.get("chat").test();
+        observer.awaitTerminalEvent();
+        observer.assertError(IllegalStateException.class);
+        assertTrue(cache.getRefreshFailures() > 0, "Refresh failure not counted");
+    }
+
+    private ServiceCache createCache(long ttlMillis,
+                                     long maxStaleMillis)
+    {
+        return new ServiceCache(this.internalClient,
+                                REGISTRY_SERVER_LOCAL_HOST,
+                                this.registryServiceServer.actualPort(),
+                                ttlMillis,
+                                maxStaleMillis);
+    }
+
+    public Integer getAvailablePort(String host)
+    {
+        var port = 0;
+        try
+        {
+            var address = InetAddress.getByName(host);
+            try (var socket = new ServerSocket(0, 100, address))
+            {
+                port = socket.getLocalPort();
+            }
+        }
+        catch (Exception e)
+        {
+            log.error("Failed to get available port for {}", host);
+        }
+        return port;
+    }
+}
@@ -0,0 +1,157 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intracom.common.utilities.Jackson;
+import com.intracom.common.web.VertxBuilder;
+import com.intracom.common.web.WebClient;
+import com.intracom.common.web.WebServer;
+import com.intracom.model.Request;
+import com.intracom.model.Request.RequestBuilder;
+import com.intracom.model.Service;
+import com.intracom.model.Service.ServiceBuilder;
+import com.intracom.model.ServiceDiscovery.ServiceDiscoveryBuilder;
+import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
+import com.intracom.sd.HandlerParameters.HandlerParametersBuilder;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
+
+public class StreamingProxyTest
+{
+    private static final Logger log = LoggerFactory.getLogger(StreamingProxyTest.class);
+    private static final String BACKEND_SERVER_LOCAL_HOST = "127.0.0.81";
+    private static final String REGISTRY_SERVER_LOCAL_HOST = "127.0.0.82";
+    private static final String HANDLER_SERVER_LOCAL_HOST = "127.0.0.83";
+    private static final URI CHAT_MESSAGES_URI = URI.create("/chat/messages");
+    private static final URI REGISTRY_URI = URI.create("/registrations");
+    private static final ObjectMapper json = Jackson.om();
+
+    private final Vertx vertx = new VertxBuilder().build();
+    private final WebServer backendServiceServer = WebServer.builder() //
+                                                            .withHost(BACKEND_SERVER_LOCAL_HOST)
+                                                            .withPort(this.getAvailablePort(BACKEND_SERVER_LOCAL_HOST))
+                                                            .build(this.vertx);
+    private final WebServer registryServiceServer = WebServer.builder() //
+                                                             .withHost(REGISTRY_SERVER_LOCAL_HOST)
+                                                             .withPort(this.getAvailablePort(REGISTRY_SERVER_LOCAL_HOST))
+                                                             .build(this.vertx);
+    private final WebServer handlerServiceServer = WebServer.builder() //
+                                                            .withHost(HANDLER_SERVER_LOCAL_HOST)
+                                                            .withPort(this.getAvailablePort(HANDLER_SERVER_LOCAL_HOST))
+                                                            .build(this.vertx);
+    private final WebClient internalClient = WebClient.builder().build(this.vertx);
+    private final io.vertx.reactivex.ext.web.client.WebClient externalClient = io.vertx.reactivex.ext.web.client.WebClient.create(this.vertx);
+
+    @BeforeClass
+    private void beforeClass() throws JsonProcessingException
+    {
+        // backend echoes the forwarded request
+        this.backendServiceServer.configureRouter(router -> router.get(CHAT_MESSAGES_URI.getPath())
+                                                                  .handler(rc -> rc.request()
+                                                                                   .bodyHandler(buffer -> rc.response()
+                                                                                                            .putHeader("Content-Type", "application/json")
+                                                                                                            .end(buffer))));
+        this.backendServiceServer.startListener().blockingAwait();
+
+        var services = new ArrayList<Service>();
+        services.add(new ServiceBuilder().withHost(BACKEND_SERVER_LOCAL_HOST) //
+                                         .withPort(Double.valueOf(this.backendServiceServer.actualPort()))
+                                         .withName("internal-service")
+                                         .withTimestamp(new DateTime())
+                                         .build());
+        var responseData = json.writeValueAsString(new ServiceRegistryBuilder().withFunction("chat") //
+                                                                               .withServices(services)
+                                                                               .build());
+        this.registryServiceServer.configureRouter(router -> router.get(REGISTRY_URI.getPath())
+                                                                   .handler(rc -> rc.request()
+                                                                                    .bodyHandler(buffer -> rc.response()
+                                                                                                             .setStatusCode(HttpResponseStatus.FOUND.code())
+                                                                                                             .end(responseData))));
+        this.registryServiceServer.startListener().blockingAwait();
+
+        var parameters = new HandlerParametersBuilder(this.handlerServiceServer.actualPort(),
+                                                      REGISTRY_SERVER_LOCAL_HOST,
+                                                      this.registryServiceServer.actualPort(),
+                                                      "1.1.1.1").withStreamingProxy(true).build();
+        var requestHandler = new RequestHandler(this.handlerServiceServer, this.internalClient, parameters);
+        requestHandler.createRouters();
+        this.handlerServiceServer.startListener().blockingAwait();
+    }
+
+    @AfterClass
+    private void afterClass()
+    {
+        this.externalClient.close();
+        this.handlerServiceServer.shutdown().blockingAwait();
+        this.registryServiceServer.shutdown().blockingAwait();
+        this.backendServiceServer.shutdown().blockingAwait();
+        this.vertx.close();
+    }
+
+    @Test
+    public void streamLargeRequest() throws JsonProcessingException
+    {
+        var requests = new ArrayList<Request>();
+        requests.add(new RequestBuilder("user", "x".repeat(2 * 1024 * 1024), new DateTime(), List.of("other")).build());
+        var body = json.writeValueAsString(new ServiceDiscoveryBuilder().withFunction("chat") //
+                                                                        .withRequests(requests)
+                                                                        .build());
+
+        var response = this.externalClient.get(this.handlerServiceServer.actualPort(), HANDLER_SERVER_LOCAL_HOST, CHAT_MESSAGES_URI.getPath())
+                                          .rxSendBuffer(Buffer.buffer(body))
+                                          .blockingGet();
+
+        assertEquals(response.statusCode(), HttpResponseStatus.OK.code());
+        assertEquals(response.getHeader("Content-Type"), "application/json");
+        assertEquals(response.bodyAsString(), json.writeValueAsString(requests.get(0)), "Backend must receive the first request unchanged");
+    }
+
+    @Test
+    public void invalidRequest()
+    {
+        var response = this.externalClient.get(this.handlerServiceServer.actualPort(), HANDLER_SERVER_LOCAL_HOST, CHAT_MESSAGES_URI.getPath())
+                                          .rxSendBuffer(Buffer.buffer("{\"function\":\"chat\",\"requests\":["))
+                                          .blockingGet();
+        assertEquals(response.statusCode(), HttpResponseStatus.BAD_REQUEST.code());
+
+        response = this.externalClient.get(this.handlerServiceServer.actualPort(), HANDLER_SERVER_LOCAL_HOST, CHAT_MESSAGES_URI.getPath())
+                                      .rxSendBuffer(Buffer.buffer("{\"function\":\"chat\",\"requests\":[]}"))
+                                      .blockingGet();
+        assertEquals(response.statusCode(), HttpResponseStatus.BAD_REQUEST.code());
+    }
+
+    public Integer getAvailablePort(String host)
+    {
+        var port = 0;
+        try
+        {
+            var address = InetAddress.getByName(host);
+            try (var socket = new ServerSocket(0, 100, address))
+            {
+                port = socket.getLocalPort();
+            }
+        }
+        catch (Exception e)
+        {
+            log.error("Failed to get available port for {}", host);
+        }
+        return port;
+    }
+}
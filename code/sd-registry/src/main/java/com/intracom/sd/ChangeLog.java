@@ -0,0 +1,65 @@
+package com.intracom.sd;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.intracom.model.RegistrationEvent;
+
+/**
+ * Bounded history of the latest registration changes of one function.
+ * <p>
+ * Watchers resume from the version they hold. Once the change that follows
+ * that version has been dropped from the history, the watcher has to resync
+ * with the complete registrations instead.
+ */
+public class ChangeLog
+{
+    private final int capacity;
+    private final ArrayDeque<RegistrationEvent> events;
+    private long floor;
+
+    /**
+     * @param capacity The maximum number of retained changes
+     * @param floor    The version before the first change of the history
+     */
+    public ChangeLog(int capacity,
+                     long floor)
+    {
+        this.capacity = capacity;
+        this.events = new ArrayDeque<>(capacity);
+        this.floor = floor;
+    }
+
+    public synchronized void append(RegistrationEvent event)
+    {
+        if (this.events.size() == this.capacity)
+            this.floor = this.events.removeFirst().getVersion();
+        this.events.addLast(event);
+    }
+
+    /**
+     * @param version The version held by the watcher
+     * @return the changes after the given version in version order, or null if
+     *         some of them are no longer retained
+     */
+    public synchronized List<RegistrationEvent> since(long version)
+    {
+        if (version < this.floor)
+            return null;
+
+        var result = new ArrayList<RegistrationEvent>();
+        var iterator = this.events.descendingIterator();
+        while (iterator.hasNext())
+        {
+            var event = iterator.next();
+            if (event.getVersion() <= version)
+                break;
+            result.add(event);
+        }
+        // collected newest first
+        Collections.reverse(result);
+        return result;
+    }
+}
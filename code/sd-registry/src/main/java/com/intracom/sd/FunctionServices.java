@@ -0,0 +1,191 @@
+package com.intracom.sd;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+import com.intracom.model.Service;
+
+/**
+ * Immutable snapshot of the services registered for one function.
+ * <p>
+ * Services are kept in registration order and indexed by service (pod) name,
+ * so lookups by name never scan the list. Every modification returns a new
+ * snapshot; a renewal of an existing service reuses the name index and only
+ * copies the service array.
+ * <p>
+ * Each snapshot carries the version assigned by {@link Registrations} when it
+ * was created, so clients can tell whether the registrations they hold are
+ * still current.
+ */
+public final class FunctionServices
+{
+    private static final FunctionServices EMPTY = new FunctionServices(new Service[0], Map.of(), 0L);
+
+    private final Service[] services;
+    private final Map<String, Integer> index;
+    private final List<Service> view;
+    private final long version;
+
+    private FunctionServices(Service[] services,
+                             Map<String, Integer> index,
+                             long version)
+    {
+        this.services = services;
+        this.index = index;
+        this.view = Collections.unmodifiableList(Arrays.asList(services));
+        this.version = version;
+    }
+
+    public static FunctionServices empty()
+    {
+        return EMPTY;
+    }
+
+    /**
+     * @return immutable list of the services in registration order
+     */
+    public List<Service> getServices()
+    {
+        return this.view;
+    }
+
+    /**
+     * @return the version of this snapshot, 0 for the empty snapshot
+     */
+    public long getVersion()
+    {
+        return this.version;
+    }
+
+    public int size()
+    {
+        return this.services.length;
+    }
+
+    public boolean isEmpty()
+    {
+        return this.services.length == 0;
+    }
+
+    public boolean contains(String name)
+    {
+        return this.index.containsKey(name);
+    }
+
+    /**
+     * @return the service registered with the given name or null if none exists
+     */
+    public Service get(String name)
+    {
+        var position = this.index.get(name);
+        return position == null ? null : this.services[position];
+    }
+
+    /**
+     * Add the service or replace the existing service with the same name, keeping
+     * its position.
+     * 
+     * @param version The version of the new snapshot
+     */
+    public FunctionServices upsert(Service service,
+                                   long version)
+    {
+        var position = this.index.get(service.getName());
+        if (position != null)
+        {
+            var newServices = this.services.clone();
+            newServices[position] = service;
+            return new FunctionServices(newServices, this.index, version);
+        }
+
+        var newServices = Arrays.copyOf(this.services, this.services.length + 1);
+        newServices[this.services.length] = service;
+        var newIndex = new HashMap<>(this.index);
+        newIndex.put(service.getName(), this.services.length);
+        return new FunctionServices(newServices, newIndex, version);
+    }
+
+    /**
+     * Add the services or replace the existing services with the same names, in
+     * one copy of the snapshot; a later service replaces an earlier one with the
+     * same name.
+     * 
+     * @param version The version of the new snapshot
+     */
+    public FunctionServices upsertAll(List<Service> services,
+                                      long version)
+    {
+        var newServices = Arrays.copyOf(this.services, this.services.length + services.size());
+        var newIndex = new HashMap<String, Integer>((this.services.length + services.size()) * 2);
+        newIndex.putAll(this.index);
+        var size = this.services.length;
+        for (var service : services)
+        {
+            var position = newIndex.putIfAbsent(service.getName(), size);
+            if (position == null)
+                newServices[size++] = service;
+            else
+                newServices[position] = service;
+        }
+        return new FunctionServices(size == newServices.length ? newServices : Arrays.copyOf(newServices, size), newIndex, version);
+    }
+
+    /**
+     * Remove the service with the given name.
+     * 
+     * @param version The version of the new snapshot
+     * @return the new snapshot or this snapshot if the service does not exist
+     */
+    public FunctionServices remove(String name,
+                                   long version)
+    {
+        var position = this.index.get(name);
+        if (position == null)
+            return this;
+
+        var newServices = new Service[this.services.length - 1];
+        System.arraycopy(this.services, 0, newServices, 0, position);
+        System.arraycopy(this.services, position + 1, newServices, position, newServices.length - position);
+        return of(newServices, version);
+    }
+
+    /**
+     * Keep only the services that match the predicate.
+     * 
+     * @param version Supplies the version of the new snapshot, only called if a
+     *                service is removed
+     * @return the new snapshot or this snapshot if all services are kept
+     */
+    public FunctionServices retain(Predicate<Service> predicate,
+                                   LongSupplier version)
+    {
+        var newServices = new Service[this.services.length];
+        var size = 0;
+        for (var service : this.services)
+        {
+            if (predicate.test(service))
+                newServices[size++] = service;
+        }
+        return size == this.services.length ? this : of(Arrays.copyOf(newServices, size), version.getAsLong());
+    }
+
+    private static FunctionServices of(Service[] services,
+                                       long version)
+    {
+        var index = new HashMap<String, Integer>(services.length * 2);
+        for (int i = 0; i < services.length; i++)
+            index.put(services[i].getName(), i);
+        return new FunctionServices(services, index, version);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.view.toString();
+    }
+}
@@ -1,61 +1,98 @@
 package com.intracom.sd;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.net.InetAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.UnknownHostException;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.reflect.TypeToken;
+
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
-import io.kubernetes.client.openapi.Configuration;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1Pod;
 import io.kubernetes.client.util.Config;
+import io.kubernetes.client.util.Watch;
 import io.reactivex.Completable;
-import io.reactivex.Single;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.schedulers.Schedulers;
+import io.vertx.core.json.JsonObject;
 
 /**
- * 
+ * Removes the registrations of pods that no longer exist.
+ * <p>
+ * The pods of the namespace matching the configured label and field selectors
+ * are listed once, registrations of pods that are not listed are expired, and
+ * the resource version of the list is kept. From then on the pods are watched
+ * from that resource version, so only changes are transferred: deleted and
+ * terminating pods leave the pod index and their registrations are removed as
+ * the events arrive. Watches that end are resumed from the last resource
+ * version seen; if the API server no longer has it (410 Gone), the pods are
+ * listed again.
  */
 public class RegistrationExpirationHandler
 {
     private static final Logger log = LoggerFactory.getLogger(RegistrationExpirationHandler.class);
+    private static final Type WATCH_TYPE = new TypeToken<Watch.Response<V1Pod>>()
+    {
+    }.getType();
+    private static final int HTTP_GONE = 410;
+    private static final int WATCH_TIMEOUT_SECONDS = 300;
+    private static final long WATCH_RESTART_DELAY_MILLIS = 1000L;
+
+    private final RegistryParameters params;
+    private final Registrations registrations;
+    private final ApiClient apiClient;
+    private final CoreV1Api coreV1Api;
+    private final Set<String> pods = ConcurrentHashMap.newKeySet();
+    private final AtomicLong lists = new AtomicLong();
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong deletions = new AtomicLong();
+    private volatile String resourceVersion = null;
+    private volatile Watch<V1Pod> watch = null;
+    private volatile boolean running = false;
     private Disposable disposable;
-    private CoreV1Api coreV1Api;
-    private RegistryParameters params;
-    private Registrations registrations;
 
     public RegistrationExpirationHandler(RegistryParameters params,
-                                         Registrations registrations) throws URISyntaxException, IOException, ApiException
+                                         Registrations registrations) throws URISyntaxException, IOException
+    {
+        this(params, registrations, clusterClient());
+    }
+
+    /**
+     * @param apiClient The client of the Kubernetes API server, without read
+     *                  timeout
+     */
+    RegistrationExpirationHandler(RegistryParameters params,
+                                  Registrations registrations,
+                                  ApiClient apiClient)
     {
         this.params = params;
         this.registrations = registrations;
-
-        // kubernetes
-        ApiClient apiClient = Config.fromCluster();
-        apiClient.setReadTimeout(0); // infinite timeout
-        apiClient.setBasePath(this.normalize(apiClient.getBasePath()));
-
-        // set default configuration for the api client
-        Configuration.setDefaultApiClient(apiClient);
+        this.apiClient = apiClient;
         this.coreV1Api = new CoreV1Api(apiClient);
-
-        var pods = this.getPods();
-        log.info("Initial pods identified in namespace {} -> {}", pods.size(), pods);
-
         this.disposable = null;
     }
 
-    private String normalize(String basePath) throws URISyntaxException, UnknownHostException
+    private static ApiClient clusterClient() throws URISyntaxException, IOException
+    {
+        ApiClient apiClient = Config.fromCluster();
+        apiClient.setReadTimeout(0); // infinite timeout, watches are long running
+        apiClient.setBasePath(normalize(apiClient.getBasePath()));
+        return apiClient;
+    }
+
+    private static String normalize(String basePath) throws URISyntaxException, UnknownHostException
     {
         var oldUri = new URI(basePath);
         var normalizedAddress = InetAddress.getByName(oldUri.getHost()).getHostAddress();
@@ -76,54 +113,233 @@ public class RegistrationExpirationHandler
         return this.disposable;
     }
 
-    // TODO: use this to clear pods that do not exist
-    private List<String> getPods()
+    public Completable start()
+    {
+        return Completable.fromAction(() ->
+        {
+            if (this.disposable == null)
+            {
+                this.running = true;
+                this.disposable = Completable.fromAction(this::reconcile)
+                                             .subscribeOn(Schedulers.io())
+                                             .doOnError(e -> log.warn("Watching namespaced pods failed, retrying in {} seconds. Cause: {}",
+                                                                      this.params.getCheckPeriod(),
+                                                                      e.toString()))
+                                             .retryWhen(handler -> handler.delay(this.params.getCheckPeriod(), TimeUnit.SECONDS))
+                                             .repeatWhen(handler -> handler.delay(WATCH_RESTART_DELAY_MILLIS, TimeUnit.MILLISECONDS))
+                                             .doOnSubscribe(d -> log.info("Start monitoring namespaced pods"))
+                                             .subscribe(() -> log.info("Stopped monitoring namespaced pods"),
+                                                        t -> log.error("Stopped monitoring namespaced pods. Cause: {}", t.toString()));
+            }
+        });
+    }
+
+    public Completable stop()
+    {
+        return Completable.fromAction(() ->
+        {
+            this.running = false;
+            if (this.disposable != null)
+            {
+                this.disposable.dispose();
+                this.disposable = null;
+            }
+            var current = this.watch;
+            if (current != null)
+                current.close();
+        });
+    }
+
+    /**
+     * @return the number of full pod lists
+     */
+    public long getLists()
+    {
+        return this.lists.get();
+    }
+
+    /**
+     * @return the number of pod events received by watches
+     */
+    public long getEvents()
+    {
+        return this.events.get();
+    }
+
+    /**
+     * @return the number of pods removed from the index
+     */
+    public long getDeletions()
+    {
+        return this.deletions.get();
+    }
+
+    /**
+     * @return the resource version the next watch starts from, null if the pods
+     *         have to be listed first
+     */
+    public String getResourceVersion()
+    {
+        return this.resourceVersion;
+    }
+
+    @Override
+    public String toString()
+    {
+        var statistics = new JsonObject();
+        statistics.put("pods", this.pods.size());
+        statistics.put("resourceVersion", this.resourceVersion);
+        statistics.put("lists", this.lists.get());
+        statistics.put("events", this.events.get());
+        statistics.put("deletions", this.deletions.get());
+        return statistics.encode();
+    }
+
+    /**
+     * List the pods if needed, then watch them until the watch ends
+     */
+    private void reconcile() throws ApiException, IOException
     {
-        List<String> pods = new ArrayList<>();
         try
         {
-            pods = this.coreV1Api.listNamespacedPod(this.params.getNamespace(), // namespace
-                                                    null, // pretty
-                                                    false, // allow watch bookmarks
-                                                    null, // _continue
-                                                    null, // field selector
-                                                    null, // label selector
-                                                    null, // limit integer value
-                                                    null, // resource version
-                                                    null, // resource version watch
-                                                    null, // timeout seconds
-                                                    false) // watch
-                                 .getItems()
-                                 .stream()
-                                 .map(pod -> pod.getMetadata().getName())
-                                 .collect(Collectors.toList());
+            if (this.resourceVersion == null)
+                this.list();
+
+            var call = this.coreV1Api.listNamespacedPodCall(this.params.getNamespace(), // namespace
+                                                            null, // pretty
+                                                            true, // allow watch bookmarks
+                                                            null, // _continue
+                                                            this.selector(this.params.getPodFieldSelector()), // field selector
+                                                            this.selector(this.params.getPodLabelSelector()), // label selector
+                                                            null, // limit integer value
+                                                            this.resourceVersion, // resource version
+                                                            null, // resource version match
+                                                            WATCH_TIMEOUT_SECONDS, // timeout seconds
+                                                            true, // watch
+                                                            null); // callback
+            try (Watch<V1Pod> podWatch = Watch.createWatch(this.apiClient, call, WATCH_TYPE))
+            {
+                this.watch = podWatch;
+                log.debug("Watching namespaced pods from resource version {}", this.resourceVersion);
+                for (var event : podWatch)
+                {
+                    if (!this.running || !this.apply(event))
+                        break;
+                }
+            }
+        }
+        catch (ApiException | IOException | RuntimeException e)
+        {
+            // stopping interrupts the list or closes the watch during the iteration
+            if (this.running)
+                throw e;
+
+            log.debug("Stopped reconciling pods: {}", e.toString());
         }
-        catch (ApiException e)
+        finally
         {
-            throw new RuntimeException("Fetching of the list of namespaced pods returned error", e);
+            this.watch = null;
         }
+    }
 
-        log.info("{} pods identified in namespace: {}", pods.size(), pods);
-        return pods;
+    private void list() throws ApiException
+    {
+        var podList = this.coreV1Api.listNamespacedPod(this.params.getNamespace(), // namespace
+                                                       null, // pretty
+                                                       null, // allow watch bookmarks
+                                                       null, // _continue
+                                                       this.selector(this.params.getPodFieldSelector()), // field selector
+                                                       this.selector(this.params.getPodLabelSelector()), // label selector
+                                                       null, // limit integer value
+                                                       null, // resource version
+                                                       null, // resource version match
+                                                       null, // timeout seconds
+                                                       false); // watch
+
+        var listed = new HashSet<String>();
+        podList.getItems().stream().filter(pod -> !isTerminating(pod)).forEach(pod -> listed.add(pod.getMetadata().getName()));
+        this.pods.retainAll(listed);
+        this.pods.addAll(listed);
+        this.resourceVersion = podList.getMetadata().getResourceVersion();
+        this.lists.incrementAndGet();
+        log.info("{} pods identified in namespace {} at resource version {}", listed.size(), this.params.getNamespace(), this.resourceVersion);
+
+        this.registrations.applyExpiration(listed).blockingAwait();
     }
 
-    public Completable start()
+    /**
+     * Apply a watch event to the pod index
+     *
+     * @return false if the watch has to be restarted
+     */
+    private boolean apply(Watch.Response<V1Pod> event)
     {
-        return Completable.fromAction(() ->
+        this.events.incrementAndGet();
+        if ("ERROR".equals(event.type))
         {
-            Single.fromCallable(this::getPods)
-                  .subscribeOn(Schedulers.io())
-                  .retryWhen(handler -> handler.delay(this.params.getCheckPeriod(), TimeUnit.SECONDS))
-                  .doOnSubscribe(d -> log.info("Start monitoring namespaced pods"))
-                  .flatMapCompletable(pods -> this.registrations.applyExpiration(pods))
-                  .doOnSubscribe(s -> log.debug("Starting check of registred services"))
-                  .doOnError(e -> log.error("Stopped check of registred services due to unexpected error", e))
-                  .subscribe(() -> log.info("Started check of registred services"), t -> log.error("Error starting registration timeout engine", t));
-        });
+            var code = event.status == null ? null : event.status.getCode();
+            log.info("Watch of namespaced pods ended with status {}, {}", code, code != null && code == HTTP_GONE ? "listing pods again" : "resuming");
+            if (code != null && code == HTTP_GONE)
+                this.resourceVersion = null;
+            return false;
+        }
+
+        var pod = event.object;
+        if (pod == null || pod.getMetadata() == null)
+            return true;
+
+        if (pod.getMetadata().getResourceVersion() != null)
+            this.resourceVersion = pod.getMetadata().getResourceVersion();
+
+        var name = pod.getMetadata().getName();
+        switch (event.type)
+        {
+            case "ADDED":
+            case "MODIFIED":
+                if (isTerminating(pod))
+                    this.delete(name, false);
+                else
+                    this.pods.add(name);
+                break;
+            case "DELETED":
+                this.delete(name, true);
+                break;
+            default: // BOOKMARK only carries the resource version
+                break;
+        }
+        return true;
     }
 
-    public Completable stop()
+    /**
+     * Remove a pod from the index and its registrations. A terminating pod is
+     * reported by several events, its registrations are removed at the first
+     * one. Once it is deleted, registrations it renewed while terminating and
+     * registrations of pods that were never indexed are removed as well.
+     *
+     * @param deleted true if the pod no longer exists
+     */
+    private void delete(String name,
+                        boolean deleted)
+    {
+        if (this.pods.remove(name))
+        {
+            this.deletions.incrementAndGet();
+            log.info("Pod {} deleted, removing its registrations", name);
+        }
+        else if (!deleted)
+        {
+            return;
+        }
+        this.registrations.removeService(name).blockingAwait();
+    }
+
+    private String selector(String selector)
+    {
+        return selector == null || selector.isBlank() ? null : selector;
+    }
+
+    private static boolean isTerminating(V1Pod pod)
     {
-        return Completable.fromAction(() -> this.disposable.dispose());
+        return pod.getMetadata().getDeletionTimestamp() != null;
     }
 }
@@ -1,24 +1,45 @@
 package com.intracom.sd;
 
+import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import com.fasterxml.jackson.datatype.joda.JodaModule;
-import com.intracom.common.utilities.Jackson;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.intracom.common.web.ContentCodec;
 import com.intracom.common.web.WebServer;
+import com.intracom.model.BulkRegistration;
+import com.intracom.model.BulkRegistrationResponse;
+import com.intracom.model.BulkRegistrationResponse.BulkRegistrationResponseBuilder;
+import com.intracom.model.LeaseRenewal;
+import com.intracom.model.RegistrationResult;
+import com.intracom.model.RegistrationResult.RegistrationResultBuilder;
+import com.intracom.model.RegistryWatch;
+import com.intracom.model.Replication;
 import com.intracom.model.Service;
 import com.intracom.model.ServiceRegistry;
 import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
 
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.Single;
 import io.reactivex.functions.Predicate;
+import io.vertx.reactivex.core.RxHelper;
+import io.vertx.reactivex.core.buffer.Buffer;
 import io.vertx.reactivex.ext.web.RoutingContext;
 
 /**
@@ -27,16 +48,42 @@ import io.vertx.reactivex.ext.web.RoutingContext;
 public class RegistrationHandler
 {
     private static final Logger log = LoggerFactory.getLogger(RegistrationHandler.class);
-    private static final ObjectMapper json = Jackson.om();
+    private static final Map<ContentCodec, ObjectWriter> registryWriters = ContentCodec.writersFor(ServiceRegistry.class);
+    private static final Map<ContentCodec, ObjectWriter> watchWriters = ContentCodec.writersFor(RegistryWatch.class);
+    private static final Map<ContentCodec, ObjectWriter> bulkWriters = ContentCodec.writersFor(BulkRegistrationResponse.class);
+    static final Map<ContentCodec, ObjectWriter> replicationWriters = ContentCodec.writersFor(Replication.class);
     private static final URI REGISTRY_URI = URI.create("/registrations");
+    private static final URI REGISTRY_WATCH_URI = URI.create("/registrations/watch");
+    private static final URI REGISTRY_LEASE_URI = URI.create("/registrations/lease");
+    private static final URI REGISTRY_BULK_URI = URI.create("/registrations/bulk");
+    public static final String LEASE_ID_HEADER = "Lease-Id";
+    public static final URI REGISTRY_REPLICATION_URI = URI.create("/registrations/replication");
+    private static final long DEFAULT_WATCH_TIMEOUT_SECONDS = 30L;
+    private static final long MAX_WATCH_TIMEOUT_SECONDS = 300L;
 
     private final WebServer server;
     private final Registrations registrations;
+    private final RegistrationLog registrationLog;
+    private final Map<ContentCodec, ConcurrentHashMap<String, EncodedRegistrations>> encodedRegistrations = new EnumMap<>(ContentCodec.class);
 
     public RegistrationHandler(RegistryParameters params,
                                Registrations registrations)
+    {
+        this(params, registrations, null);
+    }
+
+    /**
+     * @param registrationLog The log registrations are persisted to before they
+     *                        are confirmed, null if they are not persisted
+     */
+    public RegistrationHandler(RegistryParameters params,
+                               Registrations registrations,
+                               RegistrationLog registrationLog)
     {
         this.registrations = registrations;
+        this.registrationLog = registrationLog;
+        for (var codec : ContentCodec.values())
+            this.encodedRegistrations.put(codec, new ConcurrentHashMap<>());
         this.server = WebServer.builder() // create new webserver
                                .withHost(params.getServiceAddress()) // set registry address
                                .withPort(params.getPort()) // set registry port
@@ -47,13 +94,28 @@ public class RegistrationHandler
                                                     .handler(this::getRegisteredServices));
         this.server.configureRouter(router -> router.put(REGISTRY_URI.getPath()) //
                                                     .handler(this::registerServices));
+        this.server.configureRouter(router -> router.put(REGISTRY_LEASE_URI.getPath()) //
+                                                    .handler(this::renewRegistration));
+        this.server.configureRouter(router -> router.post(REGISTRY_BULK_URI.getPath()) //
+                                                    .handler(this::registerBulk));
         this.server.configureRouter(router -> router.delete(REGISTRY_URI.getPath()) //
                                                     .handler(this::deleteRegistrations));
+        this.server.configureRouter(router -> router.get(REGISTRY_WATCH_URI.getPath()) //
+                                                    .handler(this::watchRegistrations));
+        this.server.configureRouter(router -> router.get(REGISTRY_REPLICATION_URI.getPath()) //
+                                                    .handler(this::getReplication));
+        this.server.configureRouter(router -> router.post(REGISTRY_REPLICATION_URI.getPath()) //
+                                                    .handler(this::replicateRegistrations));
     }
 
     public Completable start()
     {
         return Completable.complete() //
+                          .andThen(ContentCodec.warmUp(ServiceRegistry.class,
+                                                       RegistryWatch.class,
+                                                       BulkRegistration.class,
+                                                       BulkRegistrationResponse.class,
+                                                       Replication.class))
                           .andThen(this.server.startListener()) //
                           .onErrorResumeNext(t -> this.stop().andThen(Completable.error(t)));
     }
@@ -77,11 +139,11 @@ public class RegistrationHandler
             log.info("Handling request for extraction of registered services");
             try
             {
-                ServiceRegistry serviceRegistry = json.readValue(buffer.toJsonObject().toString(), ServiceRegistry.class);
+                ServiceRegistry serviceRegistry = requestCodec(routingContext).decode(buffer, ServiceRegistry.class);
                 var function = serviceRegistry.getFunction();
                 log.info("Searching services belonging to function {}", function);
 
-                List<Service> registeredServices = registrations.getRegistrations(function);
+                FunctionServices registeredServices = registrations.getFunctionServices(function);
                 if (registeredServices.isEmpty())
                 {
                     log.warn("Failed to identify any registered services");
@@ -89,20 +151,29 @@ public class RegistrationHandler
                                   .setStatusCode(HttpResponseStatus.NO_CONTENT.code()) // set response code 204
                                   .end(); // complete with response action
                 }
+                else if (isNotModified(routingContext.request().getHeader(HttpHeaderNames.IF_NONE_MATCH.toString()), this.registrations.getInstance(), registeredServices.getVersion()))
+                {
+                    log.debug("Registered services of function {} not modified", function);
+                    routingContext.response() // create response object
+                                  .setStatusCode(HttpResponseStatus.NOT_MODIFIED.code()) // set response code 304
+                                  .putHeader(HttpHeaderNames.ETAG.toString(), toEntityTag(this.registrations.getInstance(), registeredServices.getVersion()))
+                                  .end(); // complete with response action
+                }
                 else
                 {
-                    ServiceRegistry newServiceRegistry = new ServiceRegistryBuilder(serviceRegistry).withServices(registeredServices) //
-                                                                                                    .build();
-                    log.info("Found registered services {}", newServiceRegistry);
+                    var codec = responseCodec(routingContext);
+                    var body = this.getEncodedRegistrations(codec, function, registeredServices);
+                    log.info("Found {} registered services for function {}", registeredServices.size(), function);
 
                     routingContext.response() // create response object
                                   .setStatusCode(HttpResponseStatus.FOUND.code()) // set response code 302
-                                  .end(json.registerModule(new JodaModule()) //
-                                           .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS) //
-                                           .writeValueAsString(newServiceRegistry)); // complete with response action
+                                  .putHeader(HttpHeaderNames.CONTENT_TYPE.toString(), codec.getMediaType())
+                                  .putHeader(HttpHeaderNames.VARY.toString(), HttpHeaderNames.ACCEPT.toString())
+                                  .putHeader(HttpHeaderNames.ETAG.toString(), toEntityTag(this.registrations.getInstance(), registeredServices.getVersion()))
+                                  .end(body); // complete with response action
                 }
             }
-            catch (JsonProcessingException e)
+            catch (IOException e)
             {
                 log.error("Fetch registration request data with invalid format");
                 routingContext.response() // create response object
@@ -112,6 +183,186 @@ public class RegistrationHandler
         });
     }
 
+    /**
+     * Long-poll for changes of the registrations of a function.
+     * <p>
+     * Query parameters: {@code function} to watch, {@code version} already known
+     * by the watcher (0 for none) and optional {@code timeout} in seconds. The
+     * request completes with the changes after the version as soon as they
+     * exist, or with 304 Not Modified if nothing changed until the timeout.
+     * <p>
+     * The optional {@code instance} parameter names the registry instance the
+     * version was received from. Versions of other instances are unrelated, so
+     * such watchers are resynchronized immediately.
+     */
+    public void watchRegistrations(RoutingContext routingContext)
+    {
+        var request = routingContext.request();
+        var function = request.getParam("function");
+        long version;
+        long timeout;
+        try
+        {
+            version = Long.parseLong(request.getParam("version", "0"));
+            timeout = Math.min(Long.parseLong(request.getParam("timeout", String.valueOf(DEFAULT_WATCH_TIMEOUT_SECONDS))), MAX_WATCH_TIMEOUT_SECONDS);
+        }
+        catch (NumberFormatException e)
+        {
+            version = -1;
+            timeout = -1;
+        }
+
+        if (function == null || function.isBlank() || version < 0 || timeout < 0)
+        {
+            log.error("Watch request with invalid parameters {}", request.params());
+            routingContext.response() // create response object
+                          .setStatusCode(HttpResponseStatus.BAD_REQUEST.code()) // set response code 400
+                          .end(); // complete with response action
+            return;
+        }
+
+        var instance = request.getParam("instance");
+        if (instance != null && !instance.equals(this.registrations.getInstance()))
+        {
+            log.info("Resync watcher of function {} with version of instance {}", function, instance);
+            try
+            {
+                this.respondChanges(routingContext, encodeChanges(routingContext, this.registrations.getResync(function)));
+            }
+            catch (JsonProcessingException e)
+            {
+                log.error("Failed to encode registrations of function {}", function, e);
+                routingContext.response() // create response object
+                              .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                              .end(); // complete with response action
+            }
+            return;
+        }
+
+        final var knownVersion = version;
+        final var scheduler = RxHelper.scheduler(routingContext.vertx().getOrCreateContext());
+        log.debug("Watching function {} from version {} for {} seconds", function, knownVersion, timeout);
+
+        // subscribe to changes before the first check, so no change is missed in between
+        var disposable = Observable.merge(this.registrations.getChanges().filter(function::equals), Observable.just(function))
+                                   .observeOn(scheduler)
+                                   .map(f -> this.registrations.getChangesSince(f, knownVersion))
+                                   .filter(Optional::isPresent)
+                                   .map(Optional::get)
+                                   .firstElement()
+                                   .map(changes -> encodeChanges(routingContext, changes))
+                                   .timeout(timeout, TimeUnit.SECONDS, scheduler)
+                                   .subscribe(changes ->
+                                   {
+                                       log.info("Sending changes of function {} up to version {}", function, changes.version);
+                                       this.respondChanges(routingContext, changes);
+                                   }, t ->
+                                   {
+                                       if (routingContext.response().ended() || routingContext.response().closed())
+                                           return;
+
+                                       if (t instanceof TimeoutException)
+                                       {
+                                           routingContext.response() // create response object
+                                                         .setStatusCode(HttpResponseStatus.NOT_MODIFIED.code()) // set response code 304
+                                                         .putHeader(HttpHeaderNames.ETAG.toString(), toEntityTag(this.registrations.getInstance(), knownVersion))
+                                                         .end(); // complete with response action
+                                       }
+                                       else
+                                       {
+                                           log.error("Failed to watch registrations of function {}", function, t);
+                                           routingContext.response() // create response object
+                                                         .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                                                         .end(); // complete with response action
+                                       }
+                                   });
+
+        // stop watching if the watcher goes away
+        routingContext.response().closeHandler(v -> disposable.dispose());
+    }
+
+    private void respondChanges(RoutingContext routingContext,
+                                EncodedRegistrations changes)
+    {
+        routingContext.response() // create response object
+                      .setStatusCode(HttpResponseStatus.OK.code()) // set response code 200
+                      .putHeader(HttpHeaderNames.CONTENT_TYPE.toString(), responseCodec(routingContext).getMediaType())
+                      .putHeader(HttpHeaderNames.ETAG.toString(), toEntityTag(this.registrations.getInstance(), changes.version))
+                      .end(changes.body);
+    }
+
+    /**
+     * Encode the changes in the codec of the response before it is started, so
+     * a failure can still be answered with an error status
+     */
+    private static EncodedRegistrations encodeChanges(RoutingContext routingContext,
+                                                      RegistryWatch changes) throws JsonProcessingException
+    {
+        return new EncodedRegistrations(changes.getVersion(), Buffer.buffer(watchWriters.get(responseCodec(routingContext)).writeValueAsBytes(changes)));
+    }
+
+    /**
+     * Get all registrations and tombstones of this instance, used by joining
+     * registry instances for their initial state
+     */
+    public void getReplication(RoutingContext routingContext)
+    {
+        try
+        {
+            var codec = responseCodec(routingContext);
+            var replication = this.registrations.getReplication(this.registrations.getReplicatedFunctions());
+            routingContext.response() // create response object
+                          .setStatusCode(HttpResponseStatus.OK.code()) // set response code 200
+                          .putHeader(HttpHeaderNames.CONTENT_TYPE.toString(), codec.getMediaType())
+                          .end(Buffer.buffer(replicationWriters.get(codec).writeValueAsBytes(replication)));
+        }
+        catch (JsonProcessingException e)
+        {
+            log.error("Failed to encode registrations for replication", e);
+            routingContext.response() // create response object
+                          .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                          .end(); // complete with response action
+        }
+    }
+
+    /**
+     * Merge the registrations replicated by another registry instance
+     */
+    public void replicateRegistrations(RoutingContext routingContext)
+    {
+        routingContext.request().bodyHandler(buffer ->
+        {
+            try
+            {
+                var replication = requestCodec(routingContext).decode(buffer, Replication.class);
+                log.debug("Replication from instance {} with {} functions", replication.getInstance(), replication.getFunctions().size());
+
+                // every function is merged on the event loop of its shard
+                Observable.fromIterable(replication.getFunctions())
+                          .flatMapSingle(state -> this.registrations.execute(state.getFunction(), () -> this.registrations.merge(state)))
+                          .ignoreElements()
+                          .observeOn(RxHelper.scheduler(routingContext.vertx().getOrCreateContext()))
+                          .subscribe(() -> routingContext.response() // create response object
+                                                         .setStatusCode(HttpResponseStatus.NO_CONTENT.code()) // set response code 204
+                                                         .end(), // complete with response action
+                                     t ->
+                                     {
+                                         log.error("Failed to merge replicated registrations", t);
+                                         routingContext.response() // create response object
+                                                       .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                                                       .end(); // complete with response action
+                                     });
+            }
+            catch (IOException e)
+            {
+                log.error("Replication request data with invalid format");
+                routingContext.response() // create response object
+                              .setStatusCode(HttpResponseStatus.BAD_REQUEST.code()) // set response code 400
+                              .end(); // complete with response action
+            }
+        });
+    }
+
     public void registerServices(RoutingContext routingContext)
     {
         routingContext.request().bodyHandler(buffer ->
@@ -119,26 +370,39 @@ public class RegistrationHandler
             log.info("Handling registration request");
             try
             {
-                ServiceRegistry serviceRegistry = json.readValue(buffer.toJsonObject().toString(), ServiceRegistry.class);
+                ServiceRegistry serviceRegistry = requestCodec(routingContext).decode(buffer, ServiceRegistry.class);
                 log.info("Registration request with data: {}", serviceRegistry);
 
-                boolean result = registrations.addRegistration(serviceRegistry);
-                if (result)
-                {
-                    log.error("Successfully registered service");
-                    routingContext.response() // create response object
-                                  .setStatusCode(HttpResponseStatus.CREATED.code()) // set response code 201
-                                  .end(); // complete with response action
-                }
-                else
-                {
-                    log.error("Failed to register service");
-                    routingContext.response() // create response object
-                                  .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
-                                  .end(); // complete with response action
-                }
+                // registrations are changed on the event loop of the function's shard
+                this.registrations.execute(serviceRegistry.getFunction(), () -> this.registrations.addRegistration(serviceRegistry))
+                                  .flatMap(result -> this.sync(serviceRegistry.getFunction()).toSingleDefault(result))
+                                  .observeOn(RxHelper.scheduler(routingContext.vertx().getOrCreateContext()))
+                                  .subscribe(result ->
+                                  {
+                                      if (result)
+                                      {
+                                          log.error("Successfully registered service");
+                                          routingContext.response() // create response object
+                                                        .setStatusCode(HttpResponseStatus.CREATED.code()) // set response code 201
+                                                        .putHeader(LEASE_ID_HEADER, Registrations.getLeaseId(serviceRegistry.getServices().get().get(0)))
+                                                        .end(); // complete with response action
+                                      }
+                                      else
+                                      {
+                                          log.error("Failed to register service");
+                                          routingContext.response() // create response object
+                                                        .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                                                        .end(); // complete with response action
+                                      }
+                                  }, t ->
+                                  {
+                                      log.error("Failed to register service", t);
+                                      routingContext.response() // create response object
+                                                    .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                                                    .end(); // complete with response action
+                                  });
             }
-            catch (JsonProcessingException e)
+            catch (IOException e)
             {
                 log.error("Registration request data with invalid format");
                 routingContext.response() // create response object
@@ -148,26 +412,348 @@ public class RegistrationHandler
         });
     }
 
-    public void deleteRegistrations(RoutingContext routingContext)
+    /**
+     * Renew the lease of a registered service. Only the timestamp of the service
+     * is moved forward, the request carries no body.
+     * <p>
+     * Query parameters: {@code function} and {@code name} of the service and the
+     * optional {@code lease} id returned on registration. The request completes
+     * with 204 No Content if the lease was renewed, or with 404 Not Found if the
+     * service has to register again because it is not registered or its lease id
+     * changed.
+     */
+    public void renewRegistration(RoutingContext routingContext)
+    {
+        var request = routingContext.request();
+        var function = request.getParam("function");
+        var name = request.getParam("name");
+        var leaseId = request.getParam("lease");
+        if (function == null || function.isBlank() || name == null || name.isBlank())
+        {
+            log.error("Lease renewal with invalid parameters {}", request.params());
+            routingContext.response() // create response object
+                          .setStatusCode(HttpResponseStatus.BAD_REQUEST.code()) // set response code 400
+                          .end(); // complete with response action
+            return;
+        }
+
+        this.registrations.execute(function, () -> this.registrations.renewRegistration(function, name, leaseId))
+                          .flatMap(result -> this.sync(function).toSingleDefault(result))
+                          .observeOn(RxHelper.scheduler(routingContext.vertx().getOrCreateContext()))
+                          .subscribe(result ->
+                          {
+                              if (result)
+                              {
+                                  log.debug("Renewed lease of service {} of function {}", name, function);
+                                  routingContext.response() // create response object
+                                                .setStatusCode(HttpResponseStatus.NO_CONTENT.code()) // set response code 204
+                                                .end(); // complete with response action
+                              }
+                              else
+                              {
+                                  log.info("No lease of service {} of function {} to renew", name, function);
+                                  routingContext.response() // create response object
+                                                .setStatusCode(HttpResponseStatus.NOT_FOUND.code()) // set response code 404
+                                                .end(); // complete with response action
+                              }
+                          }, t ->
+                          {
+                              log.error("Failed to renew lease of service {} of function {}", name, function, t);
+                              routingContext.response() // create response object
+                                            .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                                            .end(); // complete with response action
+                          });
+    }
+
+    /**
+     * Register many services of many functions and renew many leases in one
+     * request.
+     * <p>
+     * The services of each function are applied together in one snapshot swap.
+     * The response lists the result of every registered service and every
+     * renewal in request order, with the status code the single request would
+     * have returned: 201 for registered services, 204 for renewed leases, 404
+     * for unknown leases and 400 for invalid items.
+     */
+    public void registerBulk(RoutingContext routingContext)
     {
         routingContext.request().bodyHandler(buffer ->
         {
-            log.info("Handling registration cleanup");
-            registrations.clearFunctions();
-            if (registrations.getFunctions().isEmpty())
+            BulkRegistration bulk;
+            try
             {
-                log.error("All registrationed deleted successfully");
-                routingContext.response() // create response object
-                              .setStatusCode(HttpResponseStatus.OK.code()) // set response code 200
-                              .end(); // complete with response action
+                bulk = requestCodec(routingContext).decode(buffer, BulkRegistration.class);
             }
-            else
+            catch (IOException e)
             {
-                log.error("Failed to cleanup all registrations");
+                log.error("Bulk registration request data with invalid format");
                 routingContext.response() // create response object
-                              .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                              .setStatusCode(HttpResponseStatus.BAD_REQUEST.code()) // set response code 400
                               .end(); // complete with response action
+                return;
             }
+
+            // group the valid services by function, keeping the position of their results
+            var registered = new ArrayList<Service>();
+            var registeredFunctions = new ArrayList<String>();
+            var groups = new LinkedHashMap<String, List<Integer>>();
+            for (var serviceRegistry : bulk.getRegistrations().orElse(List.of()))
+            {
+                for (var service : serviceRegistry.getServices().orElse(List.of()))
+                {
+                    if (isValid(serviceRegistry.getFunction()) && isValid(service))
+                        groups.computeIfAbsent(serviceRegistry.getFunction(), f -> new ArrayList<>()).add(registered.size());
+                    registered.add(service);
+                    registeredFunctions.add(serviceRegistry.getFunction());
+                }
+            }
+            var renewals = bulk.getRenewals().orElse(List.of());
+            var registrationStatus = new AtomicLongArray(registered.size());
+            var renewalStatus = new AtomicLongArray(renewals.size());
+            log.info("Bulk registration of {} services of {} functions and {} lease renewals", registered.size(), groups.size(), renewals.size());
+
+            var registrations = Observable.fromIterable(groups.entrySet()).flatMapSingle(group ->
+            {
+                var services = new ArrayList<Service>(group.getValue().size());
+                group.getValue().forEach(position -> services.add(registered.get(position)));
+                return this.registrations.execute(group.getKey(), () -> this.registrations.addRegistrations(group.getKey(), services))
+                                         .doOnSuccess(result -> group.getValue()
+                                                                     .forEach(position -> registrationStatus.set(position,
+                                                                                                                 result ? HttpResponseStatus.CREATED.code()
+                                                                                                                        : HttpResponseStatus.INTERNAL_SERVER_ERROR.code())));
+            });
+            var renewed = Observable.range(0, renewals.size()).filter(index -> isValid(renewals.get(index))).flatMapSingle(index ->
+            {
+                var renewal = renewals.get(index);
+                return this.registrations.execute(renewal.getFunction(),
+                                                  () -> this.registrations.renewRegistration(renewal.getFunction(),
+                                                                                             renewal.getName(),
+                                                                                             renewal.getLease().orElse(null)))
+                                         .doOnSuccess(result -> renewalStatus.set(index,
+                                                                                  result ? HttpResponseStatus.NO_CONTENT.code() : HttpResponseStatus.NOT_FOUND.code()));
+            });
+
+            var codec = responseCodec(routingContext);
+            Observable.merge(registrations, renewed)
+                      .ignoreElements()
+                      .andThen(this.sync())
+                      .andThen(Single.fromCallable(() ->
+                      {
+                          var registrationResults = new ArrayList<RegistrationResult>(registered.size());
+                          for (int i = 0; i < registered.size(); i++)
+                          {
+                              var service = registered.get(i);
+                              var status = registrationStatus.get(i);
+                              registrationResults.add(new RegistrationResultBuilder().withFunction(registeredFunctions.get(i)) //
+                                                                                     .withName(service.getName())
+                                                                                     .withStatus(status == 0 ? HttpResponseStatus.BAD_REQUEST.code() : status)
+                                                                                     .withLease(status == HttpResponseStatus.CREATED.code() ? Registrations.getLeaseId(service) : null)
+                                                                                     .build());
+                          }
+                          var renewalResults = new ArrayList<RegistrationResult>(renewals.size());
+                          for (int i = 0; i < renewals.size(); i++)
+                          {
+                              var status = renewalStatus.get(i);
+                              renewalResults.add(new RegistrationResultBuilder().withFunction(renewals.get(i).getFunction()) //
+                                                                                .withName(renewals.get(i).getName())
+                                                                                .withStatus(status == 0 ? HttpResponseStatus.BAD_REQUEST.code() : status)
+                                                                                .build());
+                          }
+                          var response = new BulkRegistrationResponseBuilder().withRegistrations(registrationResults) //
+                                                                              .withRenewals(renewalResults)
+                                                                              .build();
+                          return Buffer.buffer(bulkWriters.get(codec).writeValueAsBytes(response));
+                      }))
+                      .observeOn(RxHelper.scheduler(routingContext.vertx().getOrCreateContext()))
+                      .subscribe(body ->
+                      {
+                          routingContext.response() // create response object
+                                        .setStatusCode(HttpResponseStatus.OK.code()) // set response code 200
+                                        .putHeader(HttpHeaderNames.CONTENT_TYPE.toString(), codec.getMediaType())
+                                        .end(body); // complete with response action
+                      }, t ->
+                      {
+                          log.error("Failed to apply bulk registration", t);
+                          routingContext.response() // create response object
+                                        .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                                        .end(); // complete with response action
+                      });
         });
     }
+
+    public void deleteRegistrations(RoutingContext routingContext)
+    {
+        routingContext.request().bodyHandler(buffer ->
+        {
+            log.info("Handling registration cleanup");
+            this.registrations.clear()
+                              .andThen(this.sync())
+                              .observeOn(RxHelper.scheduler(routingContext.vertx().getOrCreateContext()))
+                              .subscribe(() ->
+                              {
+                                  this.encodedRegistrations.values().forEach(Map::clear);
+                                  if (registrations.getFunctions().isEmpty())
+                                  {
+                                      log.error("All registrationed deleted successfully");
+                                      routingContext.response() // create response object
+                                                    .setStatusCode(HttpResponseStatus.OK.code()) // set response code 200
+                                                    .end(); // complete with response action
+                                  }
+                                  else
+                                  {
+                                      log.error("Failed to cleanup all registrations");
+                                      routingContext.response() // create response object
+                                                    .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                                                    .end(); // complete with response action
+                                  }
+                              }, t ->
+                              {
+                                  log.error("Failed to cleanup all registrations", t);
+                                  routingContext.response() // create response object
+                                                .setStatusCode(HttpResponseStatus.INTERNAL_SERVER_ERROR.code()) // set response code 500
+                                                .end(); // complete with response action
+                              });
+        });
+    }
+
+    private static boolean isValid(String value)
+    {
+        return value != null && !value.isBlank();
+    }
+
+    private static boolean isValid(Service service)
+    {
+        return service != null && isValid(service.getName()) && isValid(service.getHost()) && service.getPort() != null;
+    }
+
+    private static boolean isValid(LeaseRenewal renewal)
+    {
+        return renewal != null && isValid(renewal.getFunction()) && isValid(renewal.getName());
+    }
+
+    /**
+     * @return completes when the changes applied so far are persisted
+     */
+    private Completable sync()
+    {
+        if (this.registrationLog == null)
+            return Completable.complete();
+
+        return Completable.defer(() -> this.registrationLog.sync(this.registrations.getJournaled()));
+    }
+
+    /**
+     * @return completes when the changes of the function applied so far are
+     *         persisted
+     */
+    private Completable sync(String function)
+    {
+        if (this.registrationLog == null)
+            return Completable.complete();
+
+        return Completable.defer(() -> this.registrationLog.sync(this.registrations.getJournaled(function)));
+    }
+
+    /**
+     * @return the codec of the request body, from its Content-Type header
+     */
+    private static ContentCodec requestCodec(RoutingContext routingContext)
+    {
+        return ContentCodec.ofContentType(routingContext.request().getHeader(HttpHeaderNames.CONTENT_TYPE.toString()));
+    }
+
+    /**
+     * @return the codec of the response body, Smile if the client accepts it
+     */
+    private static ContentCodec responseCodec(RoutingContext routingContext)
+    {
+        return ContentCodec.negotiate(routingContext.request().getHeader(HttpHeaderNames.ACCEPT.toString()));
+    }
+
+    /**
+     * Get the encoded response body for the version of a function. The body is
+     * encoded once per version and codec and shared by all lookups until the
+     * registrations of the function change; lease renewals keep the version, so
+     * they do not evict it.
+     */
+    private Buffer getEncodedRegistrations(ContentCodec codec,
+                                           String function,
+                                           FunctionServices services) throws JsonProcessingException
+    {
+        var encodedRegistrations = this.encodedRegistrations.get(codec);
+        var cached = encodedRegistrations.get(function);
+        if (cached != null && cached.version == services.getVersion())
+            return cached.body;
+
+        var serviceRegistry = new ServiceRegistryBuilder().withFunction(function) //
+                                                          .withServices(services.getServices())
+                                                          .build();
+        var encoded = new EncodedRegistrations(services.getVersion(), Buffer.buffer(registryWriters.get(codec).writeValueAsBytes(serviceRegistry)));
+        log.debug("Encoded registered services {}", serviceRegistry);
+
+        // a stale entry written by a concurrent lookup is detected by the version check above
+        encodedRegistrations.put(function, encoded);
+        return encoded.body;
+    }
+
+    /**
+     * Lease renewals change the timestamps of the services but keep the
+     * version, so the bodies of a version are equivalent, not identical.
+     *
+     * @param instance The registry instance the version belongs to
+     * @param version  The version of the function registrations
+     * @return the weak entity tag of the version
+     */
+    public static String toEntityTag(String instance,
+                                     long version)
+    {
+        return "W/" + opaqueTag(instance, version);
+    }
+
+    private static String opaqueTag(String instance,
+                                    long version)
+    {
+        return "\"" + instance + "." + version + "\"";
+    }
+
+    /**
+     * Check the If-None-Match header of a lookup against the current version
+     * 
+     * @param ifNoneMatch The header value, may be null
+     * @param instance    This registry instance
+     * @param version     The current version of the function registrations
+     * @return true if the client already holds the current version
+     */
+    static boolean isNotModified(String ifNoneMatch,
+                                 String instance,
+                                 long version)
+    {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank())
+            return false;
+
+        // weak comparison, as required for If-None-Match
+        var entityTag = opaqueTag(instance, version);
+        for (var tag : ifNoneMatch.split(","))
+        {
+            tag = tag.trim();
+            if (tag.startsWith("W/"))
+                tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(entityTag))
+                return true;
+        }
+        return false;
+    }
+
+    private static final class EncodedRegistrations
+    {
+        private final long version;
+        private final Buffer body;
+
+        private EncodedRegistrations(long version,
+                                     Buffer body)
+        {
+            this.version = version;
+            this.body = body;
+        }
+    }
 }
@@ -0,0 +1,559 @@
+package com.intracom.sd;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.intracom.common.utilities.Jackson;
+import com.intracom.model.FunctionState;
+
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.subjects.BehaviorSubject;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Write-ahead log of the registrations, so a restarted registry serves the
+ * registrations it had instead of waiting for every service to register again.
+ * <p>
+ * Every registration and removal is {@link Registrations#setJournal
+ * journaled} to the log on the thread that applied it, which gives the record
+ * its position, and is appended to the current log segment by a single writer
+ * thread. The writer takes all records queued while the previous write was in
+ * progress, writes them at once and forces them to disk with one fsync, so the
+ * number of fsyncs does not grow with the number of registrations. Writers wait
+ * for the position of their records with {@link #sync(long)}.
+ * <p>
+ * Periodically the writer starts a new segment and writes a snapshot of all
+ * registrations, then deletes the older segments. A snapshot numbered n
+ * contains everything written to the segments before n. At startup the latest
+ * snapshot and the segments from its number on are replayed. Records are
+ * stored as length, CRC32 and JSON of a function state; a torn record at the
+ * end of a segment ends its replay.
+ * <p>
+ * A failed write is repeated once in a new segment, so later records are not
+ * appended after a torn record. If that fails too, the records of the batch
+ * are lost and their waiters fail.
+ */
+public class RegistrationLog
+{
+    private static final Logger log = LoggerFactory.getLogger(RegistrationLog.class);
+    private static final ObjectMapper json = Jackson.om();
+    private static final ObjectWriter recordWriter = json.writerFor(FunctionState.class) //
+                                                         .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private static final ObjectReader recordReader = json.readerFor(FunctionState.class);
+    private static final Pattern SEGMENT = Pattern.compile("segment-(\\d+)\\.log");
+    private static final Pattern SNAPSHOT = Pattern.compile("snapshot-(\\d+)\\.snap");
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+
+    private final Registrations registrations;
+    private final Path directory;
+    private final long snapshotIntervalMillis;
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final AtomicLong appended = new AtomicLong();
+    private final BehaviorSubject<Long> durable = BehaviorSubject.createDefault(0L);
+    private final ConcurrentSkipListMap<Long, Long> lost = new ConcurrentSkipListMap<>();
+    private final AtomicBoolean snapshotDue = new AtomicBoolean(false);
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong snapshots = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final SegmentOpener segmentOpener;
+    private volatile boolean running = false;
+    private FileChannel segment = null;
+    private long segmentNumber = 0;
+    private Thread writer = null;
+    private Disposable snapshotTimer = null;
+
+    public RegistrationLog(RegistryParameters params,
+                           Registrations registrations)
+    {
+        this(params,
+             registrations,
+             file -> FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    /**
+     * @param segmentOpener Opens the channel records of a new segment are
+     *                      appended to
+     */
+    RegistrationLog(RegistryParameters params,
+                    Registrations registrations,
+                    SegmentOpener segmentOpener)
+    {
+        this.registrations = registrations;
+        this.segmentOpener = segmentOpener;
+        this.directory = params.getDataDir().isBlank() ? null : Paths.get(params.getDataDir());
+        this.snapshotIntervalMillis = TimeUnit.SECONDS.toMillis(params.getSnapshotInterval());
+    }
+
+    /**
+     * Replay the persisted registrations, then start logging changes. Must
+     * complete before registrations are accepted.
+     */
+    public Completable start()
+    {
+        if (this.directory == null)
+            return Completable.fromAction(() -> log.info("No data directory configured, registrations are not persisted"));
+
+        return Completable.fromAction(() ->
+        {
+            if (this.running)
+                return;
+
+            Files.createDirectories(this.directory);
+            var started = System.nanoTime();
+            var replayed = this.recover();
+            log.info("Replayed {} registration records from {} in {} ms",
+                     replayed,
+                     this.directory,
+                     TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+
+            // compact whatever was replayed before the first new record
+            this.startSegment(this.segmentNumber + 1);
+            this.writeSnapshot();
+
+            this.running = true;
+            this.registrations.setJournal(this::append);
+            this.writer = new Thread(this::write, "registration-log");
+            this.writer.setDaemon(true);
+            this.writer.start();
+            this.snapshotTimer = Flowable.interval(this.snapshotIntervalMillis, this.snapshotIntervalMillis, TimeUnit.MILLISECONDS)
+                                         .subscribe(tick ->
+                                         {
+                                             this.snapshotDue.set(true);
+                                             this.queue.offer(Entry.WAKEUP);
+                                         });
+        });
+    }
+
+    public Completable stop()
+    {
+        return Completable.fromAction(() ->
+        {
+            if (!this.running)
+                return;
+
+            this.registrations.setJournal(null);
+            this.running = false;
+            this.snapshotTimer.dispose();
+            this.queue.offer(Entry.WAKEUP);
+            this.writer.join(TimeUnit.SECONDS.toMillis(10));
+            this.segment.close();
+            log.info("Stopped registration log {}", this);
+        });
+    }
+
+    /**
+     * @return completes when all records appended so far are on disk, fails if
+     *         the batch of the last record could not be written
+     */
+    public Completable sync()
+    {
+        return this.sync(this.appended.get());
+    }
+
+    /**
+     * @param target The position returned by {@link #append} for the last
+     *               record to wait for, see {@link Registrations#getJournaled}
+     * @return completes when the records up to the position are on disk, fails
+     *         if the batch of the record at the position could not be written
+     */
+    public Completable sync(long target)
+    {
+        if (!this.running || target <= 0)
+            return Completable.complete();
+
+        return this.durable.filter(position -> position >= target) //
+                           .firstOrError()
+                           .flatMapCompletable(position -> this.isLost(target) ? Completable.error(new IOException("Registration record " + target + " was not written"))
+                                                                               : Completable.complete());
+    }
+
+    public long getRecords()
+    {
+        return this.records.get();
+    }
+
+    public long getCommits()
+    {
+        return this.commits.get();
+    }
+
+    public long getSnapshots()
+    {
+        return this.snapshots.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        var statistics = new JsonObject();
+        statistics.put("directory", String.valueOf(this.directory));
+        statistics.put("segment", this.segmentNumber);
+        statistics.put("records", this.records.get());
+        statistics.put("commits", this.commits.get());
+        statistics.put("snapshots", this.snapshots.get());
+        statistics.put("failures", this.failures.get());
+        return statistics.encode();
+    }
+
+    /**
+     * Queue a record, called on the thread that applied the change. A record
+     * that cannot be encoded is queued without data, so its waiters fail.
+     *
+     * @return the position of the record
+     */
+    long append(FunctionState record)
+    {
+        byte[] encoded = null;
+        try
+        {
+            encoded = recordWriter.writeValueAsBytes(record);
+        }
+        catch (IOException e)
+        {
+            this.failures.incrementAndGet();
+            log.error("Failed to encode registration record {}", record, e);
+        }
+
+        synchronized (this.queue)
+        {
+            var position = this.appended.incrementAndGet();
+            this.queue.offer(new Entry(position, encoded));
+            return position;
+        }
+    }
+
+    /**
+     * Writer loop, group commits all queued records with a single fsync
+     */
+    private void write()
+    {
+        var batch = new ArrayList<Entry>();
+        var unencoded = new ArrayList<Long>();
+        while (this.running || !this.queue.isEmpty())
+        {
+            var first = Long.MAX_VALUE;
+            var position = 0L;
+            var written = true;
+            try
+            {
+                batch.add(this.queue.take());
+                this.queue.drainTo(batch);
+
+                var buffers = new ArrayList<ByteBuffer>(batch.size());
+                for (var entry : batch)
+                {
+                    if (entry == Entry.WAKEUP)
+                        continue;
+
+                    if (entry.data == null)
+                        unencoded.add(entry.position);
+                    else
+                        buffers.add(frame(entry.data));
+                    first = Math.min(first, entry.position);
+                    position = Math.max(position, entry.position);
+                }
+
+                if (buffers.isEmpty())
+                {
+                    unencoded.forEach(lost -> this.lose(lost, lost));
+                    if (position > 0)
+                        this.durable.onNext(position);
+                }
+                else
+                {
+                    written = false;
+                    var data = buffers.toArray(new ByteBuffer[0]);
+                    try
+                    {
+                        this.commit(data);
+                    }
+                    catch (IOException e)
+                    {
+                        // a partial record ends the replay of its segment, so the
+                        // batch is written again to a new one
+                        this.failures.incrementAndGet();
+                        log.warn("Failed to write registration log, retrying in a new segment: {}", e.toString());
+                        this.startSegment(this.segmentNumber + 1);
+                        buffers.forEach(ByteBuffer::rewind);
+                        this.commit(data);
+                    }
+                    written = true;
+                    unencoded.forEach(lost -> this.lose(lost, lost));
+                    this.records.addAndGet(buffers.size());
+                    this.commits.incrementAndGet();
+                    this.durable.onNext(position);
+                }
+
+                if (this.snapshotDue.getAndSet(false))
+                {
+                    this.startSegment(this.segmentNumber + 1);
+                    this.writeSnapshot();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (IOException e)
+            {
+                this.failures.incrementAndGet();
+                if (written)
+                {
+                    log.error("Failed to write registration snapshot", e);
+                }
+                else
+                {
+                    // waiters of the batch fail, the registrations stay valid in memory
+                    log.error("Failed to write registration records {} to {}", first, position, e);
+                    this.lose(first, position);
+                    this.durable.onNext(position);
+                    this.restartSegment();
+                }
+            }
+            finally
+            {
+                batch.clear();
+                unencoded.clear();
+            }
+        }
+    }
+
+    /**
+     * Continue with a new segment after a lost batch, so later records do not
+     * follow a partial one. If that fails, the closed segment fails the next
+     * write, which tries again.
+     */
+    private void restartSegment()
+    {
+        try
+        {
+            this.startSegment(this.segmentNumber + 1);
+        }
+        catch (IOException e)
+        {
+            log.error("Failed to start a new registration log segment: {}", e.toString());
+        }
+    }
+
+    private void commit(ByteBuffer[] data) throws IOException
+    {
+        while (data[data.length - 1].hasRemaining())
+            this.segment.write(data);
+        this.segment.force(false);
+    }
+
+    /**
+     * Remember records that could not be written, consecutive failed batches
+     * are merged into one range
+     */
+    private void lose(long first,
+                      long last)
+    {
+        var previous = this.lost.lastEntry();
+        if (previous != null && previous.getValue() == first - 1)
+            this.lost.put(previous.getKey(), last);
+        else
+            this.lost.put(first, last);
+    }
+
+    private boolean isLost(long position)
+    {
+        var range = this.lost.floorEntry(position);
+        return range != null && range.getValue() >= position;
+    }
+
+    /**
+     * Replay the latest snapshot and the segments written after it
+     *
+     * @return the number of replayed records
+     */
+    private long recover() throws IOException
+    {
+        var snapshotFiles = this.list(SNAPSHOT);
+        var first = snapshotFiles.isEmpty() ? 0L : number(snapshotFiles.get(snapshotFiles.size() - 1), SNAPSHOT);
+        var replayed = 0L;
+        if (!snapshotFiles.isEmpty())
+            replayed += this.replay(snapshotFiles.get(snapshotFiles.size() - 1));
+
+        for (var file : this.list(SEGMENT))
+        {
+            var number = number(file, SEGMENT);
+            this.segmentNumber = Math.max(this.segmentNumber, number);
+            if (number >= first)
+                replayed += this.replay(file);
+        }
+        this.segmentNumber = Math.max(this.segmentNumber, first);
+        return replayed;
+    }
+
+    private long replay(Path file) throws IOException
+    {
+        var count = 0L;
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            while (true)
+            {
+                var length = input.readInt();
+                var checksum = input.readInt();
+                if (length < 0 || length > MAX_RECORD_SIZE)
+                    throw new IOException("Invalid record length " + length);
+
+                var data = new byte[length];
+                input.readFully(data);
+                var crc = new CRC32();
+                crc.update(data);
+                if ((int) crc.getValue() != checksum)
+                    throw new IOException("Invalid record checksum");
+
+                this.registrations.replay(recordReader.readValue(data));
+                count++;
+            }
+        }
+        catch (EOFException e)
+        {
+            log.debug("Replayed {} records of {}", count, file);
+        }
+        catch (IOException e)
+        {
+            log.warn("Replay of {} stopped after {} records: {}", file, count, e.getMessage());
+        }
+        return count;
+    }
+
+    /**
+     * Close the current segment and continue with a new one
+     */
+    private void startSegment(long number) throws IOException
+    {
+        if (this.segment != null)
+            this.segment.close();
+
+        this.segmentNumber = number;
+        this.segment = this.segmentOpener.open(this.directory.resolve(String.format("segment-%020d.log", number)));
+    }
+
+    /**
+     * Write the snapshot of the segments before the current one, then delete
+     * them and the older snapshots. Changes applied while the snapshot is taken
+     * are also in the current segment and are applied again on replay.
+     */
+    private void writeSnapshot() throws IOException
+    {
+        var number = this.segmentNumber;
+        var target = this.directory.resolve(String.format("snapshot-%020d.snap", number));
+        var temporary = this.directory.resolve(target.getFileName() + ".tmp");
+        var replication = this.registrations.getReplication(this.registrations.getReplicatedFunctions());
+
+        try (var channel = FileChannel.open(temporary,
+                                            StandardOpenOption.CREATE,
+                                            StandardOpenOption.WRITE,
+                                            StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            for (var state : replication.getFunctions())
+            {
+                var buffer = frame(recordWriter.writeValueAsBytes(state));
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        this.snapshots.incrementAndGet();
+
+        for (var file : this.list(SNAPSHOT))
+        {
+            if (number(file, SNAPSHOT) < number)
+                Files.deleteIfExists(file);
+        }
+        for (var file : this.list(SEGMENT))
+        {
+            if (number(file, SEGMENT) < number)
+                Files.deleteIfExists(file);
+        }
+        log.info("Wrote snapshot of {} functions to {}", replication.getFunctions().size(), target);
+    }
+
+    private List<Path> list(Pattern pattern) throws IOException
+    {
+        try (var files = Files.list(this.directory))
+        {
+            return files.filter(file -> pattern.matcher(file.getFileName().toString()).matches())
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+
+    private static long number(Path file,
+                               Pattern pattern)
+    {
+        var matcher = pattern.matcher(file.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : 0L;
+    }
+
+    private static ByteBuffer frame(byte[] data)
+    {
+        var crc = new CRC32();
+        crc.update(data);
+        var buffer = ByteBuffer.allocate(HEADER_SIZE + data.length);
+        buffer.putInt(data.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(data);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Opens the channel of a log segment
+     */
+    interface SegmentOpener
+    {
+        FileChannel open(Path file) throws IOException;
+    }
+
+    private static final class Entry
+    {
+        private static final Entry WAKEUP = new Entry(0L, null);
+
+        private final long position;
+        private final byte[] data;
+
+        private Entry(long position,
+                      byte[] data)
+        {
+            this.position = position;
+            this.data = data;
+        }
+    }
+}
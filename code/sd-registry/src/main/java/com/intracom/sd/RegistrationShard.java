@@ -0,0 +1,868 @@
+package com.intracom.sd;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToLongFunction;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intracom.model.FunctionState;
+import com.intracom.model.FunctionState.FunctionStateBuilder;
+import com.intracom.model.RegistrationEvent;
+import com.intracom.model.RegistrationEvent.RegistrationEventBuilder;
+import com.intracom.model.RegistryWatch;
+import com.intracom.model.RegistryWatch.RegistryWatchBuilder;
+import com.intracom.model.Removal;
+import com.intracom.model.Removal.RemovalBuilder;
+import com.intracom.model.Service;
+import com.intracom.model.Service.ServiceBuilder;
+import com.intracom.model.ServiceRegistry;
+
+import io.reactivex.Completable;
+import io.reactivex.Observable;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+
+/**
+ * Registration data of the functions of one shard of {@link Registrations}.
+ * <p>
+ * Every function maps to an immutable snapshot of its services, indexed by
+ * service name. Writers build a new snapshot and swap it atomically, readers
+ * always get a complete list without locking or copying.
+ * <p>
+ * Snapshot versions are taken from one sequence shared by all functions of
+ * the shard, so the version of a function keeps increasing even if the
+ * function is removed and registered again.
+ * <p>
+ * Every change is also recorded as an event in a bounded per-function
+ * {@link ChangeLog}, so watchers can resume from the version they hold.
+ * <p>
+ * Registrations of other registry instances are merged by service timestamp,
+ * the latest registration or removal of a service wins. Removals are kept as
+ * timestamped tombstones until they are pruned, so an older registration
+ * replicated late does not bring a removed service back. Versions are local to
+ * each instance, so they are only meaningful together with the instance id.
+ * <p>
+ * Every applied registration and removal is appended to the
+ * {@link #setJournal journal} once the new snapshot is visible, on the thread
+ * that applied it, so it can be persisted and {@link #replay replayed} after a
+ * restart. The journal returns the position of the record, and
+ * {@link #getJournaled()} tells callers which position to wait for.
+ * <p>
+ * Every registration holds a lease that ends one lease TTL after the service
+ * timestamp, so it is renewed by every registration of the service. Leases are
+ * kept in a {@link TimingWheel}, advanced by {@link #expireLeases}, and
+ * services with an ended lease are removed like local removals. Services
+ * without timestamp hold no lease.
+ * <p>
+ * A {@link #renewRegistration renewal} only moves the timestamp of a service
+ * forward. The new snapshot keeps the version of the function, so watchers are
+ * not woken and nothing is recorded in the change log, but the renewed service
+ * is still journaled and replicated so every instance extends the lease.
+ */
+class RegistrationShard
+{
+    private static final Logger log = LoggerFactory.getLogger(RegistrationShard.class);
+    private static final DateTime NO_TIMESTAMP = new DateTime(0L);
+    private static final int LEASE_WHEEL_SIZE = 512;
+    private static final ToLongFunction<FunctionState> NO_JOURNAL = record -> 0L;
+
+    private final ConcurrentHashMap<String, FunctionServices> functions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ChangeLog> changeLogs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, DateTime>> removals = new ConcurrentHashMap<>();
+    private final Subject<String> changes = PublishSubject.<String>create().toSerialized();
+    private final Subject<String> localChanges = PublishSubject.<String>create().toSerialized();
+    private final AtomicLong journaled = new AtomicLong();
+    private final String instance;
+    private final AtomicLong versions = new AtomicLong();
+    private final int historySize;
+    private final long leaseTtlMillis;
+    private final TimingWheel<Lease> leases;
+    private final AtomicLong expiredLeases = new AtomicLong();
+    private volatile ToLongFunction<FunctionState> journal = NO_JOURNAL;
+
+    /**
+     * @param historySize The number of changes per function retained for
+     *                    resuming watchers
+     * @param instance    The id of the registry instance
+     * @param leaseTtl    The duration of leases in milliseconds
+     * @param leaseTick   The resolution of lease expiration in milliseconds
+     */
+    RegistrationShard(int historySize,
+                      String instance,
+                      long leaseTtl,
+                      long leaseTick)
+    {
+        this.historySize = historySize;
+        this.instance = instance;
+        this.leaseTtlMillis = leaseTtl;
+        this.leases = new TimingWheel<>(leaseTick, LEASE_WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    /**
+     * @return read only view of all functions and their service snapshots
+     */
+    public Map<String, FunctionServices> getFunctions()
+    {
+        return Collections.unmodifiableMap(this.functions);
+    }
+
+    public void clearFunctions()
+    {
+        var cleared = Set.copyOf(this.functions.keySet());
+        var records = new ArrayList<FunctionState>();
+        cleared.forEach(function -> this.functions.computeIfPresent(function, (func,
+                                                                               services) ->
+        {
+            services.getServices().forEach(service ->
+            {
+                var removedAt = nextTimestamp(service);
+                this.removalsOf(func).put(service.getName(), removedAt);
+                records.add(removal(func, service.getName(), removedAt));
+            });
+            return null;
+        }));
+        records.forEach(this::journal);
+        this.changeLogs.clear();
+        cleared.forEach(this.changes::onNext);
+        cleared.forEach(this.localChanges::onNext);
+    }
+
+    /**
+     * @return the names of functions as their registrations change, emitted on
+     *         the thread that applied the change
+     */
+    public Observable<String> getChanges()
+    {
+        return this.changes;
+    }
+
+    /**
+     * @return the names of functions as their registrations change by requests
+     *         to this instance, excluding changes merged from other instances
+     */
+    public Observable<String> getLocalChanges()
+    {
+        return this.localChanges;
+    }
+
+    /**
+     * @param journal Appends every registration and removal applied to the
+     *                shard, as a function state with a single service or
+     *                removal, and returns the position of the record. Called on
+     *                the thread that applied the change, in the order the
+     *                changes of each function were applied. {@code null} stops
+     *                journaling.
+     */
+    public void setJournal(ToLongFunction<FunctionState> journal)
+    {
+        this.journal = journal == null ? NO_JOURNAL : journal;
+    }
+
+    /**
+     * @return the highest position returned by the journal, so a caller that
+     *         applied a change knows the position its records are at or before
+     */
+    public long getJournaled()
+    {
+        return this.journaled.get();
+    }
+
+    /**
+     * Get the changes of a function after the given version
+     * 
+     * @param function The function name
+     * @param version  The version already known by the watcher
+     * @return the changes as events, the complete registrations if the changes
+     *         are no longer available, or empty if the watcher is up to date
+     */
+    public Optional<RegistryWatch> getChangesSince(String function,
+                                                   long version)
+    {
+        var services = this.getFunctionServices(function);
+        if (services.getVersion() == version)
+            return Optional.empty();
+
+        var changeLog = this.changeLogs.get(function);
+        var events = changeLog == null ? null : changeLog.since(version);
+        if (events != null && !events.isEmpty())
+        {
+            return Optional.of(new RegistryWatchBuilder().withFunction(function) //
+                                                         .withInstance(this.instance)
+                                                         .withVersion(events.get(events.size() - 1).getVersion())
+                                                         .withResync(false)
+                                                         .withEvents(events)
+                                                         .build());
+        }
+
+        log.info("Changes of function {} since version {} not available, resync with version {}", function, version, services.getVersion());
+        return Optional.of(this.getResync(function));
+    }
+
+    /**
+     * Get the complete registrations of a function for a watcher that cannot
+     * resume from the version it holds
+     * 
+     * @param function The function name
+     * @return the current registrations of the function
+     */
+    public RegistryWatch getResync(String function)
+    {
+        var services = this.getFunctionServices(function);
+        return new RegistryWatchBuilder().withFunction(function) //
+                                         .withInstance(this.instance)
+                                         .withVersion(services.getVersion())
+                                         .withResync(true)
+                                         .withServices(services.getServices())
+                                         .build();
+    }
+
+    /**
+     * Get list of registred services
+     * 
+     * @param function The function name to be used for the retrieval of registred
+     *                 services
+     * @return immutable list of services or empty list if there are no
+     *         registrations for specific function
+     */
+    public List<Service> getRegistrations(String function)
+    {
+        var services = this.functions.get(function);
+        if (services == null)
+        {
+            log.warn("No registrations for function {}", function);
+            return List.of();
+        }
+        return services.getServices();
+    }
+
+    /**
+     * Get the current snapshot of a function
+     * 
+     * @param function The function name
+     * @return the snapshot of registered services, empty if the function is not
+     *         registered
+     */
+    public FunctionServices getFunctionServices(String function)
+    {
+        var services = this.functions.get(function);
+        return services == null ? FunctionServices.empty() : services;
+    }
+
+    /**
+     * @param function The function name
+     * @return the current version of the function registrations, 0 if the
+     *         function is not registered
+     */
+    public long getVersion(String function)
+    {
+        return this.getFunctionServices(function).getVersion();
+    }
+
+    /**
+     * @param function The function name
+     * @param name     The service (pod) name
+     * @return true if a service with this name is registered for the function
+     */
+    public boolean hasRegistration(String function,
+                                   String name)
+    {
+        var services = this.functions.get(function);
+        return services != null && services.contains(name);
+    }
+
+    /**
+     * Remove a single service from a function
+     * 
+     * @param function The function name
+     * @param name     The service (pod) name
+     * @return true if the service was registered and has been removed
+     */
+    public boolean removeRegistration(String function,
+                                      String name)
+    {
+        var removed = new AtomicBoolean(false);
+        this.functions.computeIfPresent(function, (func,
+                                                   services) ->
+        {
+            var removedService = services.get(name);
+            if (removedService == null)
+                return services;
+
+            var version = this.versions.incrementAndGet();
+            this.record(func, RegistrationEvent.Type.REMOVED, removedService, version);
+            this.removalsOf(func).put(name, nextTimestamp(removedService));
+            removed.set(true);
+            return services.remove(name, version);
+        });
+        if (removed.get())
+        {
+            log.info("Removed service {} from function {}", name, function);
+            this.journal(removal(function, name, this.removalsOf(function).get(name)));
+            this.changes.onNext(function);
+            this.localChanges.onNext(function);
+        }
+        return removed.get();
+    }
+
+    /**
+     * Renew the lease of a registered service without registering it again
+     * 
+     * @param function The function name
+     * @param name     The service (pod) name
+     * @param leaseId  The lease id returned on registration, null to renew
+     *                 whatever is registered under the name
+     * @return true if the service is registered with the lease id and its lease
+     *         has been renewed
+     */
+    public boolean renewRegistration(String function,
+                                     String name,
+                                     String leaseId)
+    {
+        var renewed = new AtomicReference<Service>();
+        this.functions.computeIfPresent(function, (func,
+                                                   services) ->
+        {
+            var current = services.get(name);
+            if (current == null || (leaseId != null && !leaseId.equals(leaseId(current))))
+                return services;
+
+            var service = new ServiceBuilder(current).withTimestamp(nextTimestamp(current)).build();
+            renewed.set(service);
+            return services.upsert(service, services.getVersion());
+        });
+
+        var service = renewed.get();
+        if (service == null)
+        {
+            log.debug("No lease {} of service {} of function {} to renew", leaseId, name, function);
+            return false;
+        }
+
+        this.lease(function, service);
+        this.journal(registration(function, service));
+        this.localChanges.onNext(function);
+        return true;
+    }
+
+    /**
+     * @return the id of the lease held by the registration of a service. It only
+     *         depends on the address of the service, so it is the same on every
+     *         registry instance and changes when the service moves.
+     */
+    static String leaseId(Service service)
+    {
+        return Integer.toHexString((service.getHost() + ":" + service.getPort()).hashCode());
+    }
+
+    public boolean addRegistration(ServiceRegistry serviceRegistry)
+    {
+        var result = false;
+
+        // get input function name
+        String inFunction = serviceRegistry.getFunction();
+        log.info("New registration for function {}", inFunction);
+
+        // get input service data
+        Service inService = this.getInService(serviceRegistry);
+        log.info("New registration for service {}", inService);
+        if (inService == null)
+            return result;
+
+        // update functions and list of services
+        var services = this.updateFunctions(inFunction, inService);
+        this.lease(inFunction, inService);
+        this.journal(registration(inFunction, inService));
+        this.changes.onNext(inFunction);
+        this.localChanges.onNext(inFunction);
+
+        // confirm changes
+        return this.confirm(inFunction, inService, services);
+    }
+
+    /**
+     * Register several services of one function at once. All services are
+     * applied in one snapshot swap, so readers see either none or all of them.
+     * 
+     * @param function The function name
+     * @param services The services to register, a later service replaces an
+     *                 earlier one with the same name
+     * @return true if all services are registered
+     */
+    public boolean addRegistrations(String function,
+                                    List<Service> services)
+    {
+        if (services.isEmpty())
+            return true;
+
+        log.info("New registration of {} services for function {}", services.size(), function);
+        var snapshot = this.functions.compute(function, (func,
+                                                         existingServices) ->
+        {
+            var current = existingServices == null ? FunctionServices.empty() : existingServices;
+            var removed = this.removalsOf(func);
+            var names = new HashSet<String>();
+            var version = 0L;
+            for (var service : services)
+            {
+                version = this.versions.incrementAndGet();
+                var updated = current.contains(service.getName()) || !names.add(service.getName());
+                this.record(func, updated ? RegistrationEvent.Type.UPDATED : RegistrationEvent.Type.ADDED, service, version);
+
+                // a local registration always wins over an earlier removal
+                removed.remove(service.getName());
+            }
+            return current.upsertAll(services, version);
+        });
+
+        services.forEach(service -> this.lease(function, service));
+        this.journal(new FunctionStateBuilder().withFunction(function) //
+                                               .withServices(List.copyOf(services))
+                                               .build());
+        this.changes.onNext(function);
+        this.localChanges.onNext(function);
+        return services.stream().allMatch(service -> snapshot.contains(service.getName()));
+    }
+
+    private Service getInService(ServiceRegistry serviceRegistry)
+    {
+        Optional<List<Service>> inServices = serviceRegistry.getServices();
+        List<Service> inServicesData = new ArrayList<>();
+        Service inServiceData = null;
+
+        // check if multiple services added at once
+        if (inServices.isPresent())
+        {
+            inServicesData = inServices.get();
+            if (inServicesData.isEmpty() || inServicesData.size() > 1)
+                log.error("Registration contains none {} or more than 1 services {}.", //
+                          inServicesData.isEmpty(), //
+                          inServicesData.size());
+            else
+                inServiceData = inServicesData.get(0);
+        }
+        else
+            log.info("Registration does not contain any services");
+        return inServiceData;
+    }
+
+    /**
+     * Replace the snapshot of the function with a copy that contains the input
+     * service. The copy is created while holding the bin lock of the function, so
+     * concurrent writers of the same function are serialized while readers keep
+     * using the previous snapshot.
+     * 
+     * @return the snapshot that was installed for the function
+     */
+    private FunctionServices updateFunctions(String inFunction,
+                                             Service inService)
+    {
+        return this.functions.compute(inFunction, (function,
+                                                   existingServices) ->
+        {
+            // check if specific function exists
+            if (existingServices == null)
+            {
+                log.info("Existing registration does not contain function {}", function);
+                existingServices = FunctionServices.empty();
+            }
+            else
+                log.debug("Function {} has {} services registred.", function, existingServices.size());
+
+            var version = this.versions.incrementAndGet();
+            if (!existingServices.contains(inService.getName()))
+            {
+                log.info("Adding service {} that does not exist in registred services for function {}", inService.getName(), function);
+                this.record(function, RegistrationEvent.Type.ADDED, inService, version);
+            }
+            else
+                this.record(function, RegistrationEvent.Type.UPDATED, inService, version);
+
+            // a local registration always wins over an earlier removal
+            this.removalsOf(function).remove(inService.getName());
+            return existingServices.upsert(inService, version);
+        });
+    }
+
+    private boolean confirm(String inFunction,
+                            Service inService,
+                            FunctionServices services)
+    {
+        boolean result = false;
+
+        // check if function added successfully
+        if (services == null)
+        {
+            log.error("Failed to add function {}", inFunction);
+            return result;
+        }
+        else
+        {
+            // check if service exists
+            if (services.isEmpty())
+                log.error("No Services for function {}", inFunction);
+            else if (!inService.equals(services.get(inService.getName())))
+                log.error("Invalid number of services indentified in function {}", inFunction);
+            else
+                result = true;
+        }
+        return result;
+    }
+
+    public Completable applyExpiration(Collection<String> pods)
+    {
+        return Completable.fromAction(() ->
+        {
+            var alive = pods instanceof Set ? (Set<String>) pods : new HashSet<>(pods);
+            var registrations = functions.keySet();
+            if (!registrations.isEmpty())
+            {
+                log.info("Registrations identified {}", registrations.size());
+
+                registrations.forEach(functionName ->
+                {
+                    var records = new ArrayList<FunctionState>();
+                    var current = functions.get(functionName);
+                    var updated = functions.computeIfPresent(functionName, (function,
+                                                                            services) ->
+                    {
+                        log.info("Current function {} services {}", function, services);
+
+                        var newServiceList = services.retain(service -> alive.contains(service.getName()), versions::incrementAndGet);
+                        if (newServiceList != services)
+                        {
+                            var version = newServiceList.getVersion();
+                            services.getServices()
+                                    .stream()
+                                    .filter(service -> !newServiceList.contains(service.getName()))
+                                    .forEach(service ->
+                                    {
+                                        var removedAt = nextTimestamp(service);
+                                        this.record(function, RegistrationEvent.Type.REMOVED, service, version);
+                                        this.removalsOf(function).put(service.getName(), removedAt);
+                                        records.add(removal(function, service.getName(), removedAt));
+                                    });
+                        }
+                        log.info("New function {} services {}", function, newServiceList);
+
+                        return newServiceList;
+                    });
+                    if (updated != current)
+                    {
+                        records.forEach(this::journal);
+                        changes.onNext(functionName);
+                        localChanges.onNext(functionName);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * @return the names of all functions with registered or removed services
+     */
+    public Set<String> getReplicatedFunctions()
+    {
+        var result = new HashSet<>(this.functions.keySet());
+        result.addAll(this.removals.keySet());
+        return result;
+    }
+
+    /**
+     * Get the registrations and tombstones of a function for replication to
+     * other registry instances
+     * 
+     * @param function The function name
+     * @return the replicated state of the function
+     */
+    public FunctionState getFunctionState(String function)
+    {
+        var removed = new ArrayList<Removal>();
+        this.removals.getOrDefault(function, new ConcurrentHashMap<>())
+                     .forEach((name,
+                               timestamp) -> removed.add(new RemovalBuilder().withName(name).withTimestamp(timestamp).build()));
+        return new FunctionStateBuilder().withFunction(function) //
+                                         .withServices(this.getRegistrations(function))
+                                         .withRemovals(removed)
+                                         .build();
+    }
+
+    /**
+     * Merge the state of a function replicated by another registry instance. A
+     * service is registered or replaced if it is newer than the registered
+     * service and its last removal, and removed if the removal is newer than the
+     * registered service.
+     * 
+     * @param state The replicated state of the function
+     * @return true if the registrations of the function changed
+     */
+    public boolean merge(FunctionState state)
+    {
+        var changed = new AtomicBoolean(false);
+        var records = new ArrayList<FunctionState>();
+        this.functions.compute(state.getFunction(), (function,
+                                                     existingServices) ->
+        {
+            records.clear();
+            var services = existingServices == null ? FunctionServices.empty() : existingServices;
+            var removed = this.removalsOf(function);
+
+            for (var removal : state.getRemovals().orElse(List.of()))
+            {
+                var removedAt = removed.get(removal.getName());
+                if (removedAt == null || removal.getTimestamp().isAfter(removedAt))
+                {
+                    removed.put(removal.getName(), removal.getTimestamp());
+                    records.add(removal(function, removal.getName(), removal.getTimestamp()));
+                }
+                var current = services.get(removal.getName());
+                if (current != null && !timestamp(current).isAfter(removal.getTimestamp()))
+                {
+                    var version = this.versions.incrementAndGet();
+                    this.record(function, RegistrationEvent.Type.REMOVED, current, version);
+                    services = services.remove(removal.getName(), version);
+                    changed.set(true);
+                }
+            }
+
+            for (var service : state.getServices().orElse(List.of()))
+            {
+                var current = services.get(service.getName());
+                var removedAt = removed.get(service.getName());
+                if ((current == null || isNewer(service, current)) && (removedAt == null || timestamp(service).isAfter(removedAt)))
+                {
+                    var version = this.versions.incrementAndGet();
+                    this.record(function, current == null ? RegistrationEvent.Type.ADDED : RegistrationEvent.Type.UPDATED, service, version);
+                    services = services.upsert(service, version);
+                    removed.remove(service.getName());
+                    records.add(registration(function, service));
+                    changed.set(true);
+                }
+            }
+
+            return existingServices == null && services.isEmpty() ? null : services;
+        });
+
+        records.forEach(record -> record.getServices().orElse(List.of()).forEach(service -> this.lease(state.getFunction(), service)));
+        records.forEach(this::journal);
+        if (changed.get())
+        {
+            log.info("Merged replicated registrations of function {}", state.getFunction());
+            this.changes.onNext(state.getFunction());
+        }
+        return changed.get();
+    }
+
+    /**
+     * Apply a journal record or a snapshot of a function, without publishing
+     * it again. Registrations always replace the registered service, like local
+     * registrations, removals keep the latest tombstone and remove the service
+     * unless it was registered after the removal.
+     * 
+     * @param record The function state to apply
+     */
+    public void replay(FunctionState record)
+    {
+        this.functions.compute(record.getFunction(), (function,
+                                                      existingServices) ->
+        {
+            var services = existingServices == null ? FunctionServices.empty() : existingServices;
+            var removed = this.removalsOf(function);
+
+            for (var removal : record.getRemovals().orElse(List.of()))
+            {
+                removed.merge(removal.getName(), removal.getTimestamp(), (a,
+                                                                          b) -> a.isAfter(b) ? a : b);
+                var current = services.get(removal.getName());
+                if (current != null && !timestamp(current).isAfter(removal.getTimestamp()))
+                    services = services.remove(removal.getName(), this.versions.incrementAndGet());
+            }
+
+            var registered = record.getServices().orElse(List.of());
+            if (!registered.isEmpty())
+            {
+                registered.forEach(service -> removed.remove(service.getName()));
+                services = services.upsertAll(registered, this.versions.addAndGet(registered.size()));
+            }
+
+            return services.isEmpty() ? null : services;
+        });
+        this.removals.computeIfPresent(record.getFunction(), (function,
+                                                             removed) -> removed.isEmpty() ? null : removed);
+        record.getServices().ifPresent(services -> services.forEach(service -> this.lease(record.getFunction(), service)));
+    }
+
+    /**
+     * Remove the services whose lease ended before the given time
+     * 
+     * @param now The current time in milliseconds
+     */
+    public void expireLeases(long now)
+    {
+        this.leases.advance(now, (lease,
+                                  deadline) ->
+        {
+            var expired = new AtomicReference<Service>();
+            this.functions.computeIfPresent(lease.function, (function,
+                                                             services) ->
+            {
+                var current = services.get(lease.name);
+                if (current == null || leaseDeadline(current, this.leaseTtlMillis) != deadline)
+                    return services; // removed or renewed since
+
+                var version = this.versions.incrementAndGet();
+                this.record(function, RegistrationEvent.Type.REMOVED, current, version);
+                this.removalsOf(function).put(lease.name, nextTimestamp(current));
+                expired.set(current);
+                return services.remove(lease.name, version);
+            });
+
+            if (expired.get() != null)
+            {
+                log.info("Lease of service {} of function {} expired", lease.name, lease.function);
+                this.expiredLeases.incrementAndGet();
+                this.journal(removal(lease.function, lease.name, this.removalsOf(lease.function).get(lease.name)));
+                this.changes.onNext(lease.function);
+                this.localChanges.onNext(lease.function);
+            }
+        });
+    }
+
+    /**
+     * @return the number of services removed because their lease ended
+     */
+    public long getExpiredLeases()
+    {
+        return this.expiredLeases.get();
+    }
+
+    /**
+     * Drop the tombstones of services removed before the given time
+     */
+    public void pruneRemovals(DateTime before)
+    {
+        this.removals.forEach((function,
+                               removed) -> removed.values().removeIf(timestamp -> timestamp.isBefore(before)));
+        this.removals.values().removeIf(ConcurrentHashMap::isEmpty);
+    }
+
+    private ConcurrentHashMap<String, DateTime> removalsOf(String function)
+    {
+        return this.removals.computeIfAbsent(function, f -> new ConcurrentHashMap<>());
+    }
+
+    private void lease(String function,
+                       Service service)
+    {
+        if (service.getTimestamp().isPresent())
+            this.leases.schedule(new Lease(function, service.getName()), leaseDeadline(service, this.leaseTtlMillis));
+    }
+
+    private static long leaseDeadline(Service service,
+                                      long leaseTtl)
+    {
+        return service.getTimestamp().map(timestamp -> timestamp.getMillis() + leaseTtl).orElse(Long.MAX_VALUE);
+    }
+
+    /**
+     * Append a record to the journal and remember its position
+     */
+    private void journal(FunctionState record)
+    {
+        var position = this.journal.applyAsLong(record);
+        this.journaled.accumulateAndGet(position, Math::max);
+    }
+
+    private static FunctionState registration(String function,
+                                              Service service)
+    {
+        return new FunctionStateBuilder().withFunction(function) //
+                                         .withServices(List.of(service))
+                                         .build();
+    }
+
+    private static FunctionState removal(String function,
+                                         String name,
+                                         DateTime timestamp)
+    {
+        return new FunctionStateBuilder().withFunction(function) //
+                                         .withRemovals(List.of(new RemovalBuilder().withName(name) //
+                                                                                   .withTimestamp(timestamp)
+                                                                                   .build()))
+                                         .build();
+    }
+
+    private static DateTime timestamp(Service service)
+    {
+        return service.getTimestamp().orElse(NO_TIMESTAMP);
+    }
+
+    /**
+     * A removal or renewal is never older than the registration it replaces, even
+     * if the clock of the registering service is ahead
+     */
+    private static DateTime nextTimestamp(Service service)
+    {
+        var now = new DateTime();
+        var registered = timestamp(service);
+        return registered.isBefore(now) ? now : registered.plusMillis(1);
+    }
+
+    /**
+     * Order registrations of the same service by timestamp, equal timestamps by
+     * address, so all instances pick the same winner
+     */
+    private static boolean isNewer(Service service,
+                                   Service current)
+    {
+        var compared = timestamp(service).compareTo(timestamp(current));
+        if (compared != 0)
+            return compared > 0;
+        return (service.getHost() + ":" + service.getPort()).compareTo(current.getHost() + ":" + current.getPort()) > 0;
+    }
+
+    /**
+     * Record a change in the history of the function. Called while the function
+     * snapshot is being replaced, so events are recorded in version order.
+     */
+    private void record(String function,
+                        RegistrationEvent.Type type,
+                        Service service,
+                        long version)
+    {
+        var event = new RegistrationEventBuilder().withType(type) //
+                                                  .withVersion(version)
+                                                  .withService(service)
+                                                  .build();
+        this.changeLogs.computeIfAbsent(function, f -> new ChangeLog(this.historySize, version - 1)) //
+                       .append(event);
+    }
+
+    /**
+     * Key of the lease of a service in the timing wheel
+     */
+    private static final class Lease
+    {
+        private final String function;
+        private final String name;
+
+        private Lease(String function,
+                      String name)
+        {
+            this.function = function;
+            this.name = name;
+        }
+    }
+}
@@ -1,199 +1,589 @@
 package com.intracom.sd;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
 
+import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.intracom.model.FunctionState;
+import com.intracom.model.RegistryWatch;
+import com.intracom.model.Replication;
+import com.intracom.model.Replication.ReplicationBuilder;
 import com.intracom.model.Service;
 import com.intracom.model.ServiceRegistry;
 
 import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.vertx.reactivex.core.AbstractVerticle;
+import io.vertx.reactivex.core.RxHelper;
+import io.vertx.reactivex.core.Vertx;
 
 /**
- * Registration data used to store all services for all available functions
+ * Registration data used to store all services for all available functions.
+ * <p>
+ * Functions are partitioned by a hash of their name across a fixed number of
+ * {@link RegistrationShard shards}. Once started, every shard is owned by its
+ * own verticle, so the registrations of a shard are changed on one event loop
+ * while different shards are changed in parallel on different event loops.
+ * Work on a function is moved to the event loop of its shard with
+ * {@link #execute}. Before start, or without Vert.x, work runs on the calling
+ * thread.
+ * <p>
+ * All shards share the id of the registry instance. Every function stays in
+ * one shard, so its versions come from a single sequence.
+ * <p>
+ * Once started, every shard also expires the leases of its services on its
+ * own event loop once per lease tick.
  */
 public class Registrations
 {
     private static final Logger log = LoggerFactory.getLogger(Registrations.class);
-    private ConcurrentHashMap<String, List<Service>> functions = new ConcurrentHashMap<>();
+    private static final int DEFAULT_HISTORY_SIZE = 256;
+    private static final long DEFAULT_LEASE_TTL_MILLIS = TimeUnit.SECONDS.toMillis(180);
+    private static final long DEFAULT_LEASE_TICK_MILLIS = 1000L;
+
+    private final Vertx vertx;
+    private final long leaseTickMillis;
+    private final RegistrationShard[] shards;
+    private final Scheduler[] schedulers;
+    private final List<String> deployments = new ArrayList<>();
+    private final String instance = UUID.randomUUID().toString();
+    private final Observable<String> changes;
+    private final Observable<String> localChanges;
 
     public Registrations()
     {
-        // empty constructor
+        this(DEFAULT_HISTORY_SIZE);
+    }
+
+    /**
+     * @param historySize The number of changes per function retained for
+     *                    resuming watchers
+     */
+    public Registrations(int historySize)
+    {
+        this(null, 1, historySize);
+    }
+
+    /**
+     * @param vertx  The Vert.x instance the shards are deployed to
+     * @param shards The number of shards
+     */
+    public Registrations(Vertx vertx,
+                         int shards)
+    {
+        this(vertx, shards, DEFAULT_HISTORY_SIZE);
+    }
+
+    /**
+     * @param vertx       The Vert.x instance the shards are deployed to
+     * @param shards      The number of shards
+     * @param historySize The number of changes per function retained for
+     *                    resuming watchers
+     */
+    public Registrations(Vertx vertx,
+                         int shards,
+                         int historySize)
+    {
+        this(vertx, shards, historySize, DEFAULT_LEASE_TTL_MILLIS, DEFAULT_LEASE_TICK_MILLIS);
+    }
+
+    /**
+     * @param vertx     The Vert.x instance the shards are deployed to
+     * @param shards    The number of shards
+     * @param leaseTtl  The duration of leases in milliseconds
+     * @param leaseTick The resolution of lease expiration in milliseconds
+     */
+    public Registrations(Vertx vertx,
+                         int shards,
+                         long leaseTtl,
+                         long leaseTick)
+    {
+        this(vertx, shards, DEFAULT_HISTORY_SIZE, leaseTtl, leaseTick);
+    }
+
+    /**
+     * @param vertx       The Vert.x instance the shards are deployed to
+     * @param shards      The number of shards
+     * @param historySize The number of changes per function retained for
+     *                    resuming watchers
+     * @param leaseTtl    The duration of leases in milliseconds
+     * @param leaseTick   The resolution of lease expiration in milliseconds
+     */
+    public Registrations(Vertx vertx,
+                         int shards,
+                         int historySize,
+                         long leaseTtl,
+                         long leaseTick)
+    {
+        if (shards < 1)
+            throw new IllegalArgumentException("Invalid number of registration shards " + shards);
+
+        this.vertx = vertx;
+        this.leaseTickMillis = leaseTick;
+        this.shards = new RegistrationShard[shards];
+        this.schedulers = new Scheduler[shards];
+        var shardChanges = new ArrayList<Observable<String>>(shards);
+        var shardLocalChanges = new ArrayList<Observable<String>>(shards);
+        for (int i = 0; i < shards; i++)
+        {
+            this.shards[i] = new RegistrationShard(historySize, this.instance, leaseTtl, leaseTick);
+            shardChanges.add(this.shards[i].getChanges());
+            shardLocalChanges.add(this.shards[i].getLocalChanges());
+        }
+        this.changes = Observable.merge(shardChanges);
+        this.localChanges = Observable.merge(shardLocalChanges);
+    }
+
+    /**
+     * Deploy one verticle per shard, which also starts expiring leases
+     */
+    public Completable start()
+    {
+        if (this.vertx == null)
+            return Completable.complete();
+
+        return Flowable.range(0, this.shards.length)
+                       .concatMapCompletable(index ->
+                       {
+                           var verticle = new ShardVerticle(this.shards[index], this.leaseTickMillis);
+                           return this.vertx.rxDeployVerticle(verticle) //
+                                            .doOnSuccess(deployment ->
+                                            {
+                                                this.deployments.add(deployment);
+                                                this.schedulers[index] = verticle.scheduler;
+                                            })
+                                            .ignoreElement();
+                       })
+                       .doOnComplete(() -> log.info("Started {} registration shards", this.shards.length));
+    }
+
+    public Completable stop()
+    {
+        return Completable.defer(() ->
+        {
+            var undeployments = new ArrayList<Completable>();
+            this.deployments.forEach(deployment -> undeployments.add(this.vertx.rxUndeploy(deployment)));
+            this.deployments.clear();
+            for (int i = 0; i < this.schedulers.length; i++)
+                this.schedulers[i] = null;
+            return Completable.merge(undeployments);
+        });
+    }
+
+    /**
+     * Run a task on the event loop that owns the shard of the function
+     *
+     * @param function The function name
+     * @param task     The task, reading or changing registrations of the function
+     * @return the result of the task
+     */
+    public <T> Single<T> execute(String function,
+                                 Callable<T> task)
+    {
+        var scheduler = this.schedulers[this.index(function)];
+        var single = Single.fromCallable(task);
+        return scheduler == null ? single : single.subscribeOn(scheduler);
     }
 
-    public ConcurrentHashMap<String, List<Service>> getFunctions()
+    /**
+     * @return the number of shards
+     */
+    public int getShards()
     {
-        return this.functions;
+        return this.shards.length;
+    }
+
+    /**
+     * @return read only copy of all functions and their service snapshots
+     */
+    public Map<String, FunctionServices> getFunctions()
+    {
+        if (this.shards.length == 1)
+            return this.shards[0].getFunctions();
+
+        var result = new HashMap<String, FunctionServices>();
+        for (var shard : this.shards)
+            result.putAll(shard.getFunctions());
+        return Collections.unmodifiableMap(result);
     }
 
     public void clearFunctions()
     {
-        this.functions.clear();
+        for (var shard : this.shards)
+            shard.clearFunctions();
+    }
+
+    /**
+     * Remove all functions, each shard on its own event loop
+     */
+    public Completable clear()
+    {
+        var clears = new ArrayList<Completable>(this.shards.length);
+        for (int i = 0; i < this.shards.length; i++)
+        {
+            var shard = this.shards[i];
+            var clear = Completable.fromAction(shard::clearFunctions);
+            clears.add(this.schedulers[i] == null ? clear : clear.subscribeOn(this.schedulers[i]));
+        }
+        return Completable.merge(clears);
+    }
+
+    /**
+     * @return the id of this registry instance, the scope of its versions
+     */
+    public String getInstance()
+    {
+        return this.instance;
+    }
+
+    /**
+     * @return the names of functions as their registrations change, emitted on
+     *         the thread that applied the change
+     */
+    public Observable<String> getChanges()
+    {
+        return this.changes;
+    }
+
+    /**
+     * @return the names of functions as their registrations change by requests
+     *         to this instance, excluding changes merged from other instances
+     */
+    public Observable<String> getLocalChanges()
+    {
+        return this.localChanges;
+    }
+
+    /**
+     * @param journal Appends every registration and removal applied and returns
+     *                its position, see {@link RegistrationShard#setJournal}
+     */
+    public void setJournal(ToLongFunction<FunctionState> journal)
+    {
+        for (var shard : this.shards)
+            shard.setJournal(journal);
+    }
+
+    /**
+     * @return the journal position of the changes of the function applied so
+     *         far
+     */
+    public long getJournaled(String function)
+    {
+        return this.shard(function).getJournaled();
+    }
+
+    /**
+     * @return the journal position of all changes applied so far
+     */
+    public long getJournaled()
+    {
+        var journaled = 0L;
+        for (var shard : this.shards)
+            journaled = Math.max(journaled, shard.getJournaled());
+        return journaled;
+    }
+
+    /**
+     * Get the changes of a function after the given version
+     *
+     * @param function The function name
+     * @param version  The version already known by the watcher
+     * @return the changes as events, the complete registrations if the changes
+     *         are no longer available, or empty if the watcher is up to date
+     */
+    public Optional<RegistryWatch> getChangesSince(String function,
+                                                   long version)
+    {
+        return this.shard(function).getChangesSince(function, version);
+    }
+
+    /**
+     * Get the complete registrations of a function for a watcher that cannot
+     * resume from the version it holds
+     *
+     * @param function The function name
+     * @return the current registrations of the function
+     */
+    public RegistryWatch getResync(String function)
+    {
+        return this.shard(function).getResync(function);
     }
 
     /**
      * Get list of registred services
-     * 
+     *
      * @param function The function name to be used for the retrieval of registred
      *                 services
-     * @return list of services or null if there are no registrations for specific
-     *         function
+     * @return immutable list of services or empty list if there are no
+     *         registrations for specific function
      */
     public List<Service> getRegistrations(String function)
     {
-        List<Service> services = new ArrayList<Service>();
-        if (this.functions.containsKey(function))
-            services = this.functions.get(function);
-        else
-            log.warn("No registrations for function {}", function);
-        return services;
+        return this.shard(function).getRegistrations(function);
     }
 
-    public boolean addRegistration(ServiceRegistry serviceRegistry)
+    /**
+     * Get the current snapshot of a function
+     *
+     * @param function The function name
+     * @return the snapshot of registered services, empty if the function is not
+     *         registered
+     */
+    public FunctionServices getFunctionServices(String function)
+    {
+        return this.shard(function).getFunctionServices(function);
+    }
+
+    /**
+     * @param function The function name
+     * @return the current version of the function registrations, 0 if the
+     *         function is not registered
+     */
+    public long getVersion(String function)
+    {
+        return this.shard(function).getVersion(function);
+    }
+
+    /**
+     * @param function The function name
+     * @param name     The service (pod) name
+     * @return true if a service with this name is registered for the function
+     */
+    public boolean hasRegistration(String function,
+                                   String name)
     {
-        var result = false;
+        return this.shard(function).hasRegistration(function, name);
+    }
 
-        // get input function name
-        String inFunction = serviceRegistry.getFunction();
-        log.info("New registration for function {}", inFunction);
+    /**
+     * Remove a single service from a function
+     *
+     * @param function The function name
+     * @param name     The service (pod) name
+     * @return true if the service was registered and has been removed
+     */
+    public boolean removeRegistration(String function,
+                                      String name)
+    {
+        return this.shard(function).removeRegistration(function, name);
+    }
 
-        // get input service data
-        Service inService = this.getInService(serviceRegistry);
-        log.info("New registration for service {}", inService);
-        if (inService == null)
-            return result;
+    /**
+     * Register several services of one function at once, in a single snapshot
+     * swap
+     *
+     * @param function The function name
+     * @param services The services to register
+     * @return true if all services are registered
+     */
+    public boolean addRegistrations(String function,
+                                    List<Service> services)
+    {
+        return this.shard(function).addRegistrations(function, services);
+    }
 
-        // update functions and list of services
-        this.updateFunctions(inFunction, inService);
+    /**
+     * Renew the lease of a registered service without registering it again
+     *
+     * @param function The function name
+     * @param name     The service (pod) name
+     * @param leaseId  The lease id returned on registration, null to renew
+     *                 whatever is registered under the name
+     * @return true if the service is registered with the lease id and its lease
+     *         has been renewed
+     */
+    public boolean renewRegistration(String function,
+                                     String name,
+                                     String leaseId)
+    {
+        return this.shard(function).renewRegistration(function, name, leaseId);
+    }
 
-        // confirm changes
-        return this.confirm(inFunction, inService);
+    /**
+     * @return the id of the lease held by the registration of the service
+     */
+    public static String getLeaseId(Service service)
+    {
+        return RegistrationShard.leaseId(service);
     }
 
-    private Service getInService(ServiceRegistry serviceRegistry)
+    public boolean addRegistration(ServiceRegistry serviceRegistry)
     {
-        Optional<List<Service>> inServices = serviceRegistry.getServices();
-        List<Service> inServicesData = new ArrayList<>();
-        Service inServiceData = null;
+        return this.shard(serviceRegistry.getFunction()).addRegistration(serviceRegistry);
+    }
 
-        // check if multiple services added at once
-        if (inServices.isPresent())
+    /**
+     * Remove every registration of a service that is not in the given pods
+     *
+     * @param pods The names of the existing pods
+     */
+    public Completable applyExpiration(Collection<String> pods)
+    {
+        var expirations = new ArrayList<Completable>(this.shards.length);
+        for (int i = 0; i < this.shards.length; i++)
         {
-            inServicesData = inServices.get();
-            if (inServicesData.isEmpty() || inServicesData.size() > 1)
-                log.error("Registration contains none {} or more than 1 services {}.", //
-                          inServicesData.isEmpty(), //
-                          inServicesData.size());
-            else
-                inServiceData = inServicesData.get(0);
+            var expiration = this.shards[i].applyExpiration(pods);
+            expirations.add(this.schedulers[i] == null ? expiration : expiration.subscribeOn(this.schedulers[i]));
         }
-        else
-            log.info("Registration does not contain any services");
-        return inServiceData;
+        return Completable.merge(expirations);
     }
 
-    private void updateFunctions(String inFunction,
-                                 Service inService)
+    /**
+     * Remove a service from all functions it is registered for, each shard on
+     * its own event loop
+     *
+     * @param name The service (pod) name
+     */
+    public Completable removeService(String name)
     {
-        // check if specific function exists
-        if (this.functions.containsKey(inFunction))
-        {
-            // get existing services for specific function
-            List<Service> existingServices = this.functions.get(inFunction);
-            log.info("Function {} has {} services registred.", inFunction, existingServices.size());
-
-            // get existing service that matches input service data
-            Service existingService = existingServices.stream() // stream existing services
-                                                      .filter(service -> service.getName().equals(inService.getName())) // keep only services that match
-                                                      .findFirst() // find any service that match
-                                                      .orElse(null); // if none services match return null
-
-            // check if input service match
-            if (existingService == null)
-            {
-                log.info("Adding service {} that does not exist in registred services for function {}", inService.getName(), inFunction);
-                existingServices.add(inService);
-                this.functions.put(inFunction, existingServices);
-            }
-            else
-            {
-                // remove old service from list
-                existingServices.remove(existingService);
-                existingServices.add(inService);
-                this.functions.put(inFunction, existingServices);
-            }
-        }
-        else
+        var removals = new ArrayList<Completable>(this.shards.length);
+        for (int i = 0; i < this.shards.length; i++)
         {
-            log.info("Existing registration does not contain function {}", inFunction);
-            List<Service> newServices = new ArrayList<Service>();
-            newServices.add(inService);
-            this.functions.put(inFunction, newServices);
+            var shard = this.shards[i];
+            var removal = Completable.fromAction(() -> shard.getFunctions().keySet().forEach(function -> shard.removeRegistration(function, name)));
+            removals.add(this.schedulers[i] == null ? removal : removal.subscribeOn(this.schedulers[i]));
         }
+        return Completable.merge(removals);
     }
 
-    private boolean confirm(String inFunction,
-                            Service inService)
+    /**
+     * @return the number of services removed because their lease ended
+     */
+    public long getExpiredLeases()
     {
-        boolean result = false;
+        var result = 0L;
+        for (var shard : this.shards)
+            result += shard.getExpiredLeases();
+        return result;
+    }
 
-        // check if function added successfully
-        if (!this.functions.containsKey(inFunction))
+    /**
+     * @return the names of all functions with registered or removed services
+     */
+    public Set<String> getReplicatedFunctions()
+    {
+        var result = new HashSet<String>();
+        for (var shard : this.shards)
+            result.addAll(shard.getReplicatedFunctions());
+        return result;
+    }
+
+    /**
+     * Get the registrations and tombstones of a function for replication to
+     * other registry instances
+     *
+     * @param function The function name
+     * @return the replicated state of the function
+     */
+    public FunctionState getFunctionState(String function)
+    {
+        return this.shard(function).getFunctionState(function);
+    }
+
+    /**
+     * @param functions The function names
+     * @return the replicated state of the functions sent by this instance
+     */
+    public Replication getReplication(Collection<String> functions)
+    {
+        var states = new ArrayList<FunctionState>(functions.size());
+        functions.forEach(function -> states.add(this.getFunctionState(function)));
+        return new ReplicationBuilder().withInstance(this.instance) //
+                                       .withFunctions(states)
+                                       .build();
+    }
+
+    /**
+     * Merge the state of a function replicated by another registry instance,
+     * see {@link RegistrationShard#merge}
+     *
+     * @param state The replicated state of the function
+     * @return true if the registrations of the function changed
+     */
+    public boolean merge(FunctionState state)
+    {
+        return this.shard(state.getFunction()).merge(state);
+    }
+
+    /**
+     * Apply a journal record or snapshot of a function, see
+     * {@link RegistrationShard#replay}
+     */
+    public void replay(FunctionState record)
+    {
+        this.shard(record.getFunction()).replay(record);
+    }
+
+    /**
+     * Drop the tombstones of services removed before the given time
+     */
+    public void pruneRemovals(DateTime before)
+    {
+        for (var shard : this.shards)
+            shard.pruneRemovals(before);
+    }
+
+    private RegistrationShard shard(String function)
+    {
+        return this.shards[this.index(function)];
+    }
+
+    private int index(String function)
+    {
+        if (this.shards.length == 1)
+            return 0;
+
+        var hash = function == null ? 0 : function.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), this.shards.length);
+    }
+
+    /**
+     * Verticle owning a shard, provides the scheduler of its event loop and
+     * advances its leases
+     */
+    private static final class ShardVerticle extends AbstractVerticle
+    {
+        private final RegistrationShard shard;
+        private final long leaseTickMillis;
+        private Scheduler scheduler;
+        private long timer;
+
+        private ShardVerticle(RegistrationShard shard,
+                              long leaseTickMillis)
         {
-            log.error("Failed to add function {}", inFunction);
-            return result;
+            this.shard = shard;
+            this.leaseTickMillis = leaseTickMillis;
         }
-        else
+
+        @Override
+        public void start()
         {
-            // check if services exist
-            List<Service> services = this.functions.get(inFunction);
-            if (services.isEmpty())
-                log.error("No Services for function {}", inFunction);
-            else
-            {
-                int count = services.stream() // stream services
-                                    .filter(service -> service.equals(inService)) // keep only services that match
-                                    .collect(Collectors.toList()) // collect match services in list
-                                    .size(); // get size of list
-                if (count == 0 || count > 1)
-                    log.error("Invalid number of services indentified in function {}", inFunction);
-                else
-                    result = true;
-            }
+            this.scheduler = RxHelper.scheduler(this.vertx.getOrCreateContext());
+            this.timer = this.vertx.setPeriodic(this.leaseTickMillis, id -> this.shard.expireLeases(System.currentTimeMillis()));
         }
-        return result;
-    }
 
-    public Completable applyExpiration(List<String> pods)
-    {
-        return Completable.fromAction(() ->
+        @Override
+        public void stop()
         {
-            var registrations = functions.entrySet();
-            if (!registrations.isEmpty())
-            {
-                log.info("Registrations identified {}", registrations.size());
-
-                registrations.stream() //
-                             .forEach(func ->
-                             {
-                                 var functionName = func.getKey();
-                                 var services = func.getValue();
-                                 log.info("Current function {} services {}", functionName, services);
-
-                                 var newServiceList = services.stream() //
-                                                              .filter(service -> pods.contains(service.getName()))
-                                                              .collect(Collectors.toList());
-                                 log.info("New function {} services {}", functionName, newServiceList);
-
-                                 functions.put(functionName, newServiceList);
-                             });
-            }
-        });
+            this.vertx.cancelTimer(this.timer);
+        }
     }
 }
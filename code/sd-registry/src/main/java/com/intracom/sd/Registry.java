@@ -2,6 +2,7 @@ package com.intracom.sd;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,8 +19,10 @@ public class Registry
     private static final Logger log = LoggerFactory.getLogger(Registry.class);
     private final RegistrationHandler handler;
     private final Registrations registrations;
+    private final RegistrationLog registrationLog;
+    private final RegistryReplicator replicator;
     private final RegistryParameters params;
-//    private final RegistrationExpirationHandler expirationHandler;
+    private final RegistrationExpirationHandler expirationHandler;
     private final TerminateHook termination;
 
     public Registry(TerminateHook termination,
@@ -27,17 +30,25 @@ public class Registry
     {
         this.termination = termination;
         this.params = params;
-        this.registrations = new Registrations();
-// TODO: use expiration handler for expiration/clearing of invalid services
-//        this.expirationHandler = new RegistrationExpirationHandler(this.params, this.registrations);
-        this.handler = new RegistrationHandler(this.params, this.registrations);
+        this.registrations = new Registrations(this.params.getVertx(),
+                                               this.params.getShards(),
+                                               TimeUnit.SECONDS.toMillis(this.params.getLeaseTtl()),
+                                               this.params.getLeaseTick());
+        // registrations also expire by lease, watching the pods removes deleted pods earlier
+        this.expirationHandler = this.params.getPodReconciliation() ? new RegistrationExpirationHandler(this.params, this.registrations) : null;
+        this.registrationLog = new RegistrationLog(this.params, this.registrations);
+        this.handler = new RegistrationHandler(this.params, this.registrations, this.registrationLog);
+        this.replicator = new RegistryReplicator(this.params, this.registrations);
     }
 
     private Completable run()
     {
         return Completable.complete() //
+                          .andThen(this.registrationLog.start())
+                          .andThen(this.registrations.start())
                           .andThen(this.handler.start())
-//                          .andThen(this.expirationHandler.start())
+                          .andThen(this.replicator.start())
+                          .andThen(this.expirationHandler == null ? Completable.complete() : this.expirationHandler.start())
                           .andThen(this.termination.get())
                           .andThen(this.stop())
                           .onErrorResumeNext(t -> this.stop().andThen(Completable.error(t)));
@@ -53,14 +64,11 @@ public class Registry
 
         return Completable.complete() //
                           .doOnSubscribe(disposable -> log.info("Initiated gracefull shutdown"))
-//                          .andThen(Completable.fromAction(() ->
-//                          {
-//                              if (this.expirationHandler.getDisposable() != null && !this.expirationHandler.getDisposable().isDisposed())
-//                                  this.expirationHandler.stop();
-//                              else
-//                                  Completable.complete();
-//                          }))
+                          .andThen(this.expirationHandler == null ? Completable.complete() : this.expirationHandler.stop().onErrorComplete(logError))
+                          .andThen(this.replicator.stop().onErrorComplete(logError))
                           .andThen(this.handler.stop().onErrorComplete(logError))
+                          .andThen(this.registrations.stop().onErrorComplete(logError))
+                          .andThen(this.registrationLog.stop().onErrorComplete(logError))
                           .andThen(this.params.getVertx().rxClose().onErrorComplete(logError));
     }
 
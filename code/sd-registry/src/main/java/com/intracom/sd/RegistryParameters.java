@@ -14,12 +14,30 @@ import io.vertx.reactivex.core.Vertx;
  */
 public class RegistryParameters
 {
+    private static final long DEFAULT_REPLICATION_INTERVAL = 10L;
+    private static final long DEFAULT_REMOVAL_RETENTION = 600L;
+    private static final int DEFAULT_SHARDS = Runtime.getRuntime().availableProcessors();
+    private static final long DEFAULT_SNAPSHOT_INTERVAL = 300L;
+    private static final long DEFAULT_LEASE_TTL = 180L;
+    private static final long DEFAULT_LEASE_TICK = 1000L;
+
     private final Vertx vertx = new VertxBuilder().build();
     private String host;
     private int port;
     private String namespace;
     private long checkPeriod;
     private String serviceAddress;
+    private String peers = "";
+    private long replicationInterval = DEFAULT_REPLICATION_INTERVAL;
+    private long removalRetention = DEFAULT_REMOVAL_RETENTION;
+    private int shards = DEFAULT_SHARDS;
+    private String dataDir = "";
+    private long snapshotInterval = DEFAULT_SNAPSHOT_INTERVAL;
+    private long leaseTtl = DEFAULT_LEASE_TTL;
+    private long leaseTick = DEFAULT_LEASE_TICK;
+    private boolean podReconciliation = false;
+    private String podLabelSelector = "";
+    private String podFieldSelector = "";
 
     private RegistryParameters(String host,
                                int port,
@@ -64,6 +82,101 @@ public class RegistryParameters
         return this.serviceAddress;
     }
 
+    /**
+     * @return comma separated host[:port] list of the registry instances that
+     *         registrations are replicated to, hosts may resolve to several
+     *         instances
+     */
+    public String getPeers()
+    {
+        return this.peers;
+    }
+
+    /**
+     * @return seconds between the replication of all registrations to the peers
+     */
+    public long getReplicationInterval()
+    {
+        return this.replicationInterval;
+    }
+
+    /**
+     * @return seconds that removed services are remembered, so older
+     *         replicated registrations do not restore them
+     */
+    public long getRemovalRetention()
+    {
+        return this.removalRetention;
+    }
+
+    /**
+     * @return the number of shards the functions are partitioned across, each
+     *         owned by its own event loop
+     */
+    public int getShards()
+    {
+        return this.shards;
+    }
+
+    /**
+     * @return the directory registrations are persisted to, empty if they are
+     *         kept in memory only
+     */
+    public String getDataDir()
+    {
+        return this.dataDir;
+    }
+
+    /**
+     * @return seconds between snapshots of the persisted registrations
+     */
+    public long getSnapshotInterval()
+    {
+        return this.snapshotInterval;
+    }
+
+    /**
+     * @return seconds a registration stays valid after the service timestamp,
+     *         unless the service registers again
+     */
+    public long getLeaseTtl()
+    {
+        return this.leaseTtl;
+    }
+
+    /**
+     * @return milliseconds between lease expiration checks
+     */
+    public long getLeaseTick()
+    {
+        return this.leaseTick;
+    }
+
+    /**
+     * @return true if registrations of deleted pods are removed as the pods of
+     *         the namespace are watched
+     */
+    public boolean getPodReconciliation()
+    {
+        return this.podReconciliation;
+    }
+
+    /**
+     * @return label selector of the watched pods, empty for all pods
+     */
+    public String getPodLabelSelector()
+    {
+        return this.podLabelSelector;
+    }
+
+    /**
+     * @return field selector of the watched pods, empty for all pods
+     */
+    public String getPodFieldSelector()
+    {
+        return this.podFieldSelector;
+    }
+
     @Override
     public String toString()
     {
@@ -73,16 +186,39 @@ public class RegistryParameters
         parameters.put("Namespace", this.namespace);
         parameters.put("Registrations check period", this.checkPeriod);
         parameters.put("Service address", serviceAddress);
+        parameters.put("Peers", peers);
+        parameters.put("Replication interval", replicationInterval);
+        parameters.put("Removal retention", removalRetention);
+        parameters.put("Registration shards", shards);
+        parameters.put("Data directory", dataDir);
+        parameters.put("Snapshot interval", snapshotInterval);
+        parameters.put("Lease TTL", leaseTtl);
+        parameters.put("Lease tick", leaseTick);
+        parameters.put("Pod reconciliation", podReconciliation);
+        parameters.put("Pod label selector", podLabelSelector);
+        parameters.put("Pod field selector", podFieldSelector);
         return parameters.encode();
     }
 
     public static RegistryParameters fromEnvironment() throws NumberFormatException, UnknownHostException
     {
-        return new RegistryParameters(EnvParams.get("REGISTRY_HOSTNAME", "sd-registry"),
-                                      Integer.parseInt(EnvParams.get("REGISTRY_PORT", "8080")),
-                                      EnvParams.get("NAMESPACE", "best"),
-                                      Long.parseLong(EnvParams.get("CHECK_PERIOD", "60")),
-                                      EnvParams.get("SERVICE_ADDRESS", InetAddress.getLocalHost().getHostAddress()));
+        var params = new RegistryParameters(EnvParams.get("REGISTRY_HOSTNAME", "sd-registry"),
+                                            Integer.parseInt(EnvParams.get("REGISTRY_PORT", "8080")),
+                                            EnvParams.get("NAMESPACE", "best"),
+                                            Long.parseLong(EnvParams.get("CHECK_PERIOD", "60")),
+                                            EnvParams.get("SERVICE_ADDRESS", InetAddress.getLocalHost().getHostAddress()));
+        params.peers = EnvParams.get("REGISTRY_PEERS", "");
+        params.replicationInterval = Long.parseLong(EnvParams.get("REPLICATION_INTERVAL", DEFAULT_REPLICATION_INTERVAL));
+        params.removalRetention = Long.parseLong(EnvParams.get("REMOVAL_RETENTION", DEFAULT_REMOVAL_RETENTION));
+        params.shards = Integer.parseInt(EnvParams.get("REGISTRY_SHARDS", DEFAULT_SHARDS));
+        params.dataDir = EnvParams.get("DATA_DIR", "");
+        params.snapshotInterval = Long.parseLong(EnvParams.get("SNAPSHOT_INTERVAL", DEFAULT_SNAPSHOT_INTERVAL));
+        params.leaseTtl = Long.parseLong(EnvParams.get("LEASE_TTL", DEFAULT_LEASE_TTL));
+        params.leaseTick = Long.parseLong(EnvParams.get("LEASE_TICK", DEFAULT_LEASE_TICK));
+        params.podReconciliation = Boolean.parseBoolean(EnvParams.get("POD_RECONCILIATION", false));
+        params.podLabelSelector = EnvParams.get("POD_LABEL_SELECTOR", "");
+        params.podFieldSelector = EnvParams.get("POD_FIELD_SELECTOR", "");
+        return params;
     }
 
     public static class RegistryParametersBuilder
@@ -143,5 +279,71 @@ public class RegistryParameters
             this.instance.serviceAddress = serviceAddress;
             return this;
         }
+
+        public RegistryParametersBuilder withPeers(String peers)
+        {
+            this.instance.peers = peers;
+            return this;
+        }
+
+        public RegistryParametersBuilder withReplicationInterval(long replicationInterval)
+        {
+            this.instance.replicationInterval = replicationInterval;
+            return this;
+        }
+
+        public RegistryParametersBuilder withRemovalRetention(long removalRetention)
+        {
+            this.instance.removalRetention = removalRetention;
+            return this;
+        }
+
+        public RegistryParametersBuilder withShards(int shards)
+        {
+            this.instance.shards = shards;
+            return this;
+        }
+
+        public RegistryParametersBuilder withDataDir(String dataDir)
+        {
+            this.instance.dataDir = dataDir;
+            return this;
+        }
+
+        public RegistryParametersBuilder withSnapshotInterval(long snapshotInterval)
+        {
+            this.instance.snapshotInterval = snapshotInterval;
+            return this;
+        }
+
+        public RegistryParametersBuilder withLeaseTtl(long leaseTtl)
+        {
+            this.instance.leaseTtl = leaseTtl;
+            return this;
+        }
+
+        public RegistryParametersBuilder withLeaseTick(long leaseTick)
+        {
+            this.instance.leaseTick = leaseTick;
+            return this;
+        }
+
+        public RegistryParametersBuilder withPodReconciliation(boolean podReconciliation)
+        {
+            this.instance.podReconciliation = podReconciliation;
+            return this;
+        }
+
+        public RegistryParametersBuilder withPodLabelSelector(String podLabelSelector)
+        {
+            this.instance.podLabelSelector = podLabelSelector;
+            return this;
+        }
+
+        public RegistryParametersBuilder withPodFieldSelector(String podFieldSelector)
+        {
+            this.instance.podFieldSelector = podFieldSelector;
+            return this;
+        }
     }
 }
@@ -0,0 +1,263 @@
+package com.intracom.sd;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.intracom.common.web.ContentCodec;
+import com.intracom.common.web.WebClient;
+import com.intracom.model.Replication;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.buffer.Buffer;
+
+/**
+ * Replication of registrations between registry instances.
+ * <p>
+ * Every instance accepts registrations and pushes the functions changed by them
+ * to all peers shortly after the change. In addition, all registrations are
+ * pushed to the peers periodically, so peers that missed a push, restarted or
+ * joined later converge. A starting instance also pulls the registrations of
+ * its peers once. Replicated registrations are merged by timestamp, see
+ * {@link Registrations#merge}. Replication between instances is encoded in
+ * Smile.
+ * <p>
+ * Peers are resolved on every replication, so a headless service name that
+ * resolves to all registry pods can be used as peer. The own address is
+ * skipped.
+ */
+public class RegistryReplicator
+{
+    private static final Logger log = LoggerFactory.getLogger(RegistryReplicator.class);
+    private static final long PUSH_DELAY_MILLIS = 100L;
+
+    private final Registrations registrations;
+    private final WebClient client;
+    private final List<String> peers = new ArrayList<>();
+    private final String serviceAddress;
+    private final int port;
+    private final long intervalMillis;
+    private final long removalRetentionMillis;
+    private final AtomicLong pushes = new AtomicLong();
+    private final AtomicLong pushFailures = new AtomicLong();
+    private Disposable pusher = null;
+    private Disposable antiEntropy = null;
+
+    public RegistryReplicator(RegistryParameters params,
+                              Registrations registrations)
+    {
+        this.registrations = registrations;
+        this.client = WebClient.builder().build(params.getVertx());
+        this.serviceAddress = params.getServiceAddress();
+        this.port = params.getPort();
+        this.intervalMillis = TimeUnit.SECONDS.toMillis(params.getReplicationInterval());
+        this.removalRetentionMillis = TimeUnit.SECONDS.toMillis(params.getRemovalRetention());
+        for (var peer : params.getPeers().split(","))
+        {
+            if (!peer.isBlank())
+                this.peers.add(peer.trim());
+        }
+    }
+
+    /**
+     * Pull the registrations of the peers, then start replicating changes
+     */
+    public Completable start()
+    {
+        if (this.peers.isEmpty())
+            return Completable.fromAction(() -> log.info("No registry peers configured, replication disabled"));
+
+        return this.pull() //
+                   .andThen(Completable.fromAction(() ->
+                   {
+                       if (this.pusher == null)
+                       {
+                           this.pusher = this.registrations.getLocalChanges()
+                                                           .buffer(PUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS)
+                                                           .filter(functions -> !functions.isEmpty())
+                                                           .concatMapCompletable(functions -> this.push(new LinkedHashSet<>(functions)))
+                                                           .subscribe(() -> log.info("Stopped pushing registrations."),
+                                                                      t -> log.error("Stopped pushing registrations. Cause: {}", t.toString()));
+                       }
+                       if (this.antiEntropy == null)
+                       {
+                           this.antiEntropy = Flowable.interval(this.intervalMillis, this.intervalMillis, TimeUnit.MILLISECONDS)
+                                                      .onBackpressureDrop()
+                                                      .concatMapCompletable(tick ->
+                                                      {
+                                                          this.registrations.pruneRemovals(new DateTime().minus(this.removalRetentionMillis));
+                                                          return this.push(this.registrations.getReplicatedFunctions());
+                                                      })
+                                                      .subscribe(() -> log.info("Stopped replicating registrations."),
+                                                                 t -> log.error("Stopped replicating registrations. Cause: {}", t.toString()));
+                       }
+                   }));
+    }
+
+    public Completable stop()
+    {
+        return Completable.fromAction(() ->
+        {
+            if (this.pusher != null)
+            {
+                this.pusher.dispose();
+                this.pusher = null;
+            }
+            if (this.antiEntropy != null)
+            {
+                this.antiEntropy.dispose();
+                this.antiEntropy = null;
+            }
+        }).andThen(this.client.close());
+    }
+
+    public long getPushes()
+    {
+        return this.pushes.get();
+    }
+
+    public long getPushFailures()
+    {
+        return this.pushFailures.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        var statistics = new JsonObject();
+        statistics.put("peers", this.peers.toString());
+        statistics.put("pushes", this.pushes.get());
+        statistics.put("pushFailures", this.pushFailures.get());
+        return statistics.encode();
+    }
+
+    /**
+     * Push the state of the functions to all peers. Failures are logged and
+     * repaired by the next periodic push.
+     */
+    private Completable push(Collection<String> functions)
+    {
+        return Single.fromCallable(() -> Buffer.buffer(RegistrationHandler.replicationWriters.get(ContentCodec.SMILE).writeValueAsBytes(this.registrations.getReplication(functions))))
+                     .flatMapCompletable(body -> this.resolvePeers() //
+                                                     .flattenAsFlowable(peers -> peers)
+                                                     .flatMapCompletable(peer -> this.send(peer, body)))
+                     .doOnError(t -> log.error("Failed to replicate registrations", t))
+                     .onErrorComplete();
+    }
+
+    private Completable send(Peer peer,
+                             Buffer body)
+    {
+        return this.client.get() // get client
+                          .flatMap(webClient -> webClient.post(peer.port, peer.host, RegistrationHandler.REGISTRY_REPLICATION_URI.getPath())
+                                                         .putHeader(HttpHeaderNames.CONTENT_TYPE.toString(), ContentCodec.SMILE.getMediaType())
+                                                         .rxSendBuffer(body))
+                          .flatMapCompletable(resp ->
+                          {
+                              if (resp.statusCode() != HttpResponseStatus.NO_CONTENT.code())
+                                  return Completable.error(new IllegalStateException("Replication failed with code:" + resp.statusCode()));
+                              return Completable.complete();
+                          })
+                          .doOnComplete(this.pushes::incrementAndGet)
+                          .doOnError(t ->
+                          {
+                              this.pushFailures.incrementAndGet();
+                              log.warn("Failed to replicate registrations to {}: {}", peer, t.getMessage());
+                          })
+                          .onErrorComplete();
+    }
+
+    /**
+     * Merge the registrations of all reachable peers
+     */
+    private Completable pull()
+    {
+        return this.resolvePeers()
+                   .flattenAsFlowable(peers -> peers)
+                   .flatMapCompletable(peer -> this.client.get()
+                                                          .flatMap(webClient -> webClient.get(peer.port, peer.host, RegistrationHandler.REGISTRY_REPLICATION_URI.getPath())
+                                                                                         .putHeader(HttpHeaderNames.ACCEPT.toString(), ContentCodec.PREFER_SMILE)
+                                                                                         .rxSend())
+                                                          .flatMapCompletable(resp ->
+                                                          {
+                                                              if (resp.statusCode() != HttpResponseStatus.OK.code())
+                                                                  return Completable.error(new IllegalStateException("Replication pull failed with code:" + resp.statusCode()));
+
+                                                              var replication = ContentCodec.ofContentType(resp.getHeader(HttpHeaderNames.CONTENT_TYPE.toString()))
+                                                                                            .decode(resp.body(), Replication.class);
+                                                              log.info("Pulled {} functions from registry instance {}", replication.getFunctions().size(), peer);
+                                                              return Flowable.fromIterable(replication.getFunctions())
+                                                                             .concatMapCompletable(state -> this.registrations.execute(state.getFunction(), () -> this.registrations.merge(state))
+                                                                                                                              .ignoreElement());
+                                                          })
+                                                          .doOnError(t -> log.warn("Failed to pull registrations from {}: {}", peer, t.getMessage()))
+                                                          .onErrorComplete());
+    }
+
+    /**
+     * Resolve the configured peers to the addresses of all registry instances
+     * except this one
+     */
+    private Single<List<Peer>> resolvePeers()
+    {
+        return Single.<List<Peer>>fromCallable(() ->
+        {
+            var result = new ArrayList<Peer>();
+            for (var peer : this.peers)
+            {
+                var separator = peer.lastIndexOf(':');
+                var host = separator < 0 ? peer : peer.substring(0, separator);
+                var peerPort = separator < 0 ? this.port : Integer.parseInt(peer.substring(separator + 1));
+                try
+                {
+                    for (var address : InetAddress.getAllByName(host))
+                    {
+                        var peerAddress = address.getHostAddress();
+                        if (!(peerAddress.equals(this.serviceAddress) && peerPort == this.port))
+                            result.add(new Peer(peerAddress, peerPort));
+                    }
+                }
+                catch (UnknownHostException e)
+                {
+                    log.warn("Failed to resolve registry peer {}", peer);
+                }
+            }
+            return result;
+        }).subscribeOn(Schedulers.io());
+    }
+
+    private static final class Peer
+    {
+        private final String host;
+        private final int port;
+
+        private Peer(String host,
+                     int port)
+        {
+            this.host = host;
+            this.port = port;
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.host + ":" + this.port;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.intracom.sd;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.List;
 import java.util.Optional;
@@ -8,8 +9,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.intracom.common.utilities.Jackson;
+import com.intracom.common.web.ContentCodec;
 import com.intracom.common.web.WebServer;
 import com.intracom.model.Service;
 import com.intracom.model.ServiceRegistry;
@@ -28,7 +28,6 @@ public class RequestHandler
     private final WebServer serverHandler;
     private final String function;
     private ServiceRegistry serviceRegistry;
-    private static final ObjectMapper json = Jackson.om();
 
     public RequestHandler(WebServer serverHandler,
                           String function)
@@ -49,13 +48,12 @@ public class RequestHandler
                                                                {
                                                                    try
                                                                    {
-                                                                       this.serviceRegistry = json.readValue(buffer.toJsonObject().toString(),
-                                                                                                             ServiceRegistry.class);
+                                                                       this.serviceRegistry = ContentCodec.JSON.decode(buffer, ServiceRegistry.class);
                                                                        log.info("Received service registry request: {}", this.serviceRegistry);
                                                                        rc.response() //
                                                                          .end();
                                                                    }
-                                                                   catch (JsonProcessingException e)
+                                                                   catch (IOException e)
                                                                    {
                                                                        e.printStackTrace();
                                                                    }
@@ -0,0 +1,123 @@
+package com.intracom.sd;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Hashed timing wheel. Timeouts are hashed by their deadline tick into a fixed
+ * number of slots, so scheduling is O(1) and every tick only visits the
+ * timeouts of one slot. Timeouts more than one revolution ahead wait for the
+ * remaining rounds in their slot.
+ * <p>
+ * Timeouts cannot be cancelled. Owners that reschedule a key check on expiry
+ * whether the deadline is still current and ignore stale timeouts.
+ */
+class TimingWheel<K>
+{
+    private final long tickMillis;
+    private final List<List<Timeout<K>>> slots;
+    private final int mask;
+    private long tick;
+    private long pending = 0;
+
+    /**
+     * @param tickMillis The duration of a tick, the resolution of deadlines
+     * @param size       The number of slots, rounded up to a power of two
+     * @param nowMillis  The current time
+     */
+    TimingWheel(long tickMillis,
+                int size,
+                long nowMillis)
+    {
+        if (tickMillis < 1)
+            throw new IllegalArgumentException("Invalid tick duration " + tickMillis);
+
+        var slotCount = Integer.highestOneBit(Math.max(size, 1) - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = Math.max(slotCount, 1) - 1;
+        this.slots = new ArrayList<>(this.mask + 1);
+        for (int i = 0; i <= this.mask; i++)
+            this.slots.add(new ArrayList<>());
+        this.tick = Math.floorDiv(nowMillis, tickMillis);
+    }
+
+    /**
+     * Schedule a timeout. Deadlines that already passed expire on the next tick.
+     *
+     * @param key            The key reported on expiry
+     * @param deadlineMillis The time the timeout expires
+     */
+    synchronized void schedule(K key,
+                               long deadlineMillis)
+    {
+        var deadlineTick = Math.max(Math.floorDiv(deadlineMillis + this.tickMillis - 1, this.tickMillis), this.tick + 1);
+        var rounds = (deadlineTick - this.tick - 1) / (this.mask + 1);
+        this.slots.get((int) (deadlineTick & this.mask)).add(new Timeout<>(key, deadlineMillis, rounds));
+        this.pending++;
+    }
+
+    /**
+     * Advance the wheel to the current time
+     *
+     * @param nowMillis The current time
+     * @param expired   Receives the key and deadline of every expired timeout
+     */
+    void advance(long nowMillis,
+                 BiConsumer<K, Long> expired)
+    {
+        var due = new ArrayList<Timeout<K>>();
+        synchronized (this)
+        {
+            var now = Math.floorDiv(nowMillis, this.tickMillis);
+            while (this.tick < now)
+            {
+                this.tick++;
+                var slot = this.slots.get((int) (this.tick & this.mask));
+                if (slot.isEmpty())
+                    continue;
+
+                var remaining = new ArrayList<Timeout<K>>();
+                for (var timeout : slot)
+                {
+                    if (timeout.rounds > 0)
+                    {
+                        timeout.rounds--;
+                        remaining.add(timeout);
+                    }
+                    else
+                        due.add(timeout);
+                }
+                this.slots.set((int) (this.tick & this.mask), remaining);
+            }
+            this.pending -= due.size();
+        }
+
+        // callbacks run outside the lock, so they may schedule again
+        due.forEach(timeout -> expired.accept(timeout.key, timeout.deadlineMillis));
+    }
+
+    /**
+     * @return the number of scheduled timeouts, including stale ones
+     */
+    synchronized long getPending()
+    {
+        return this.pending;
+    }
+
+    private static final class Timeout<K>
+    {
+        private final K key;
+        private final long deadlineMillis;
+        private long rounds;
+
+        private Timeout(K key,
+                        long deadlineMillis,
+                        long rounds)
+        {
+            this.key = key;
+            this.deadlineMillis = deadlineMillis;
+            this.rounds = rounds;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.intracom.model.Service.ServiceBuilder;
+import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
+import com.intracom.sd.RegistryParameters.RegistryParametersBuilder;
+
+import io.kubernetes.client.openapi.ApiClient;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.MultiMap;
+import io.vertx.reactivex.core.http.HttpServer;
+import io.vertx.reactivex.core.http.HttpServerResponse;
+
+/**
+ * Pod reconciliation against a fake Kubernetes API server serving pod lists and
+ * watches
+ */
+public class RegistrationExpirationHandlerTest
+{
+    private static final Logger log = LoggerFactory.getLogger(RegistrationExpirationHandlerTest.class);
+    private static final String API_HOST = "127.0.0.90";
+    private static final String PODS_PATH = "/api/v1/namespaces/best/pods";
+
+    private final List<MultiMap> listRequests = new CopyOnWriteArrayList<>();
+    private final List<MultiMap> watchRequests = new CopyOnWriteArrayList<>();
+    private final List<HttpServerResponse> watches = new CopyOnWriteArrayList<>();
+    private RegistryParameters params;
+    private HttpServer apiServer;
+    private int port;
+
+    @BeforeClass
+    public void beforeClass()
+    {
+        this.port = this.getAvailablePort(API_HOST);
+        this.params = new RegistryParametersBuilder("sd-registry", 8080, "best", 1L, "127.0.0.1").withPodLabelSelector("app=chat-server") //
+                                                                                                 .withPodFieldSelector("status.phase!=Failed")
+                                                                                                 .build();
+        this.apiServer = this.params.getVertx().createHttpServer();
+        this.apiServer.requestHandler(request ->
+        {
+            if (!request.path().equals(PODS_PATH))
+            {
+                request.response().setStatusCode(404).end();
+                return;
+            }
+
+            if ("true".equals(request.getParam("watch")))
+            {
+                log.info("Watch request {}", request.uri());
+                this.watchRequests.add(request.params());
+                request.response().setChunked(true).putHeader("Content-Type", "application/json");
+                this.watches.add(request.response());
+                return;
+            }
+
+            log.info("List request {}", request.uri());
+            this.listRequests.add(request.params());
+            var items = new JsonArray().add(pod("pod-1", "5", null)).add(pod("pod-2", "6", null));
+            request.response()
+                   .putHeader("Content-Type", "application/json")
+                   .end(new JsonObject().put("kind", "PodList")
+                                        .put("apiVersion", "v1")
+                                        .put("metadata", new JsonObject().put("resourceVersion", "10" + this.listRequests.size()))
+                                        .put("items", items)
+                                        .encode());
+        });
+        this.apiServer.rxListen(this.port, API_HOST).blockingGet();
+    }
+
+    @AfterClass
+    public void afterClass()
+    {
+        this.apiServer.rxClose().blockingAwait();
+        this.params.getVertx().close();
+    }
+
+    @Test
+    public void reconcilePods() throws InterruptedException
+    {
+        var registrations = new Registrations();
+        for (var name : List.of("pod-1", "pod-2", "pod-3", "pod-4"))
+            registrations.addRegistration(new ServiceRegistryBuilder().withFunction("chat") //
+                                                                      .withServices(List.of(new ServiceBuilder().withHost("10.0.0.1") //
+                                                                                                                .withName(name)
+                                                                                                                .withPort(Double.valueOf(8080))
+                                                                                                                .withTimestamp(new DateTime())
+                                                                                                                .build()))
+                                                                      .build());
+
+        var apiClient = new ApiClient();
+        apiClient.setBasePath("http://" + API_HOST + ":" + this.port);
+        apiClient.setReadTimeout(0);
+        var handler = new RegistrationExpirationHandler(this.params, registrations, apiClient);
+        handler.start().blockingAwait();
+        try
+        {
+            // services of pods missing from the list are expired once
+            this.await(() -> this.watchRequests.size() == 1);
+            assertFalse(registrations.hasRegistration("chat", "pod-3"), "Unlisted pod must be expired");
+            assertFalse(registrations.hasRegistration("chat", "pod-4"), "Unlisted pod must be expired");
+            assertTrue(registrations.hasRegistration("chat", "pod-1"));
+            assertEquals(this.listRequests.get(0).get("labelSelector"), "app=chat-server");
+            assertEquals(this.listRequests.get(0).get("fieldSelector"), "status.phase!=Failed");
+
+            // watch continues from the list, deletions are applied incrementally
+            assertEquals(this.watchRequests.get(0).get("resourceVersion"), "101");
+            assertEquals(this.watchRequests.get(0).get("labelSelector"), "app=chat-server");
+            this.send(0, "DELETED", pod("pod-2", "11", null));
+            this.await(() -> !registrations.hasRegistration("chat", "pod-2"));
+            assertEquals(handler.getResourceVersion(), "11");
+
+            // terminating pods leave before they are deleted
+            this.send(0, "MODIFIED", pod("pod-1", "12", "2022-01-01T00:00:00Z"));
+            this.await(() -> !registrations.hasRegistration("chat", "pod-1"));
+            assertEquals(handler.getDeletions(), 2L);
+
+            // further events of the terminating pod leave its renewed registration
+            // until the pod is deleted
+            registrations.addRegistration(new ServiceRegistryBuilder().withFunction("chat") //
+                                                                      .withServices(List.of(new ServiceBuilder().withHost("10.0.0.1") //
+                                                                                                                .withName("pod-1")
+                                                                                                                .withPort(Double.valueOf(8080))
+                                                                                                                .withTimestamp(new DateTime())
+                                                                                                                .build()))
+                                                                      .build());
+            this.send(0, "MODIFIED", pod("pod-1", "13", "2022-01-01T00:00:00Z"));
+            this.send(0, "ADDED", pod("pod-5", "14", null));
+            this.await(() -> "14".equals(handler.getResourceVersion()));
+            assertTrue(registrations.hasRegistration("chat", "pod-1"), "Repeated termination events must not remove registrations");
+            this.send(0, "DELETED", pod("pod-1", "15", "2022-01-01T00:00:00Z"));
+            this.await(() -> !registrations.hasRegistration("chat", "pod-1"));
+            assertEquals(handler.getDeletions(), 2L);
+
+            // expired resource version lists the pods again
+            this.watches.get(0).write(new JsonObject().put("type", "ERROR")
+                                                      .put("object",
+                                                           new JsonObject().put("kind", "Status")
+                                                                           .put("apiVersion", "v1")
+                                                                           .put("status", "Failure")
+                                                                           .put("reason", "Expired")
+                                                                           .put("code", 410))
+                                                      .encode()
+                                      + "\n");
+            this.await(() -> this.watchRequests.size() == 2);
+            assertEquals(handler.getLists(), 2L, "Gone watch must list pods again");
+            assertEquals(this.watchRequests.get(1).get("resourceVersion"), "102");
+            log.info("Reconciliation statistics {}", handler);
+        }
+        finally
+        {
+            handler.stop().blockingAwait();
+        }
+    }
+
+    private void send(int watch,
+                      String type,
+                      JsonObject pod)
+    {
+        this.watches.get(watch).write(new JsonObject().put("type", type).put("object", pod).encode() + "\n");
+    }
+
+    private static JsonObject pod(String name,
+                                  String resourceVersion,
+                                  String deletionTimestamp)
+    {
+        var metadata = new JsonObject().put("name", name) //
+                                       .put("namespace", "best")
+                                       .put("resourceVersion", resourceVersion);
+        if (deletionTimestamp != null)
+            metadata.put("deletionTimestamp", deletionTimestamp);
+        return new JsonObject().put("kind", "Pod") //
+                               .put("apiVersion", "v1")
+                               .put("metadata", metadata);
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException
+    {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++)
+            Thread.sleep(50);
+        assertTrue(condition.getAsBoolean(), "Condition not reached in time");
+    }
+
+    public Integer getAvailablePort(String host)
+    {
+        var port = 0;
+        try
+        {
+            var address = InetAddress.getByName(host);
+            try (var socket = new ServerSocket(0, 100, address))
+            {
+                port = socket.getLocalPort();
+            }
+        }
+        catch (Exception e)
+        {
+            log.error("Failed to get available port for {}", host);
+        }
+        return port;
+    }
+}
@@ -3,10 +3,12 @@ package com.intracom.sd;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
@@ -20,6 +22,12 @@ import org.testng.annotations.Test;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.intracom.common.utilities.Jackson;
+import com.intracom.common.web.ContentCodec;
+import com.intracom.model.BulkRegistration.BulkRegistrationBuilder;
+import com.intracom.model.BulkRegistrationResponse;
+import com.intracom.model.LeaseRenewal.LeaseRenewalBuilder;
+import com.intracom.model.RegistrationEvent;
+import com.intracom.model.RegistryWatch;
 import com.intracom.model.Service;
 import com.intracom.model.Service.ServiceBuilder;
 import com.intracom.model.ServiceRegistry;
@@ -28,7 +36,9 @@ import com.intracom.sd.RegistryParameters.RegistryParametersBuilder;
 
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.vertx.core.http.HttpVersion;
-import io.vertx.core.json.JsonObject;;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.buffer.Buffer;
+import io.vertx.reactivex.ext.web.client.HttpResponse;
 
 public class RegistrationHandlerTest
 {
@@ -160,4 +170,296 @@ public class RegistrationHandlerTest
             assertTrue(expectedServiceDt.get().compareTo(registeredServiceDt.get()) == 0, "Error registred service date time is wrong");
         }
     }
+
+    @Test
+    public void getRegisteredServicesTest() throws JsonProcessingException
+    {
+        var firstService = new ServiceBuilder().withHost("test-host") //
+                                               .withName("test-pod-name") //
+                                               .withPort(Double.valueOf("666"))
+                                               .withTimestamp(new DateTime())
+                                               .build();
+        assertTrue(this.registrations.addRegistration(this.getServiceRegistry("lookup-function", firstService)), "Failed to add registration");
+
+        var firstLookup = this.lookup("lookup-function");
+        assertTrue(firstLookup.getServices().get().size() == 1, "Error wrong number of registered services in first lookup");
+
+        // repeated lookup without changes must return the same registrations
+        assertTrue(firstLookup.equals(this.lookup("lookup-function")), "Error repeated lookup returned different registrations");
+
+        // change of registrations must be visible in the next lookup
+        var secondService = new ServiceBuilder().withHost("test-host") //
+                                                .withName("test-pod-name-2") //
+                                                .withPort(Double.valueOf("667"))
+                                                .withTimestamp(new DateTime())
+                                                .build();
+        assertTrue(this.registrations.addRegistration(this.getServiceRegistry("lookup-function", secondService)), "Failed to add registration");
+
+        var secondLookup = this.lookup("lookup-function");
+        assertTrue(secondLookup.getServices().get().size() == 2, "Error wrong number of registered services in second lookup");
+        assertTrue(secondLookup.getServices().get().get(1).getName().equals("test-pod-name-2"), "Error new service missing from lookup");
+    }
+
+    @Test
+    public void notModifiedLookupTest() throws JsonProcessingException
+    {
+        var service = new ServiceBuilder().withHost("test-host") //
+                                          .withName("test-pod-name") //
+                                          .withPort(Double.valueOf("666"))
+                                          .withTimestamp(new DateTime())
+                                          .build();
+        assertTrue(this.registrations.addRegistration(this.getServiceRegistry("etag-function", service)), "Failed to add registration");
+
+        var query = new JsonObject(json.writeValueAsString(new ServiceRegistryBuilder().withFunction("etag-function").build()));
+        var first = this.client.get(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, REGISTRY_URI.getPath())
+                               .rxSendJsonObject(query)
+                               .blockingGet();
+        var entityTag = first.getHeader("ETag");
+        assertTrue(first.statusCode() == HttpResponseStatus.FOUND.code(), "Error unexpected lookup response code");
+        assertTrue(entityTag != null, "Error entity tag missing from lookup response");
+        assertTrue(entityTag.equals(RegistrationHandler.toEntityTag(this.registrations.getInstance(), this.registrations.getVersion("etag-function"))),
+                   "Error entity tag does not match registrations version");
+
+        var second = this.client.get(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, REGISTRY_URI.getPath())
+                                .putHeader("If-None-Match", entityTag)
+                                .rxSendJsonObject(query)
+                                .blockingGet();
+        assertTrue(second.statusCode() == HttpResponseStatus.NOT_MODIFIED.code(), "Error unchanged registrations not reported as not modified");
+        assertTrue(second.body() == null || second.body().length() == 0, "Error not modified response contains body");
+
+        // lease renewal keeps the version, its weak entity tag and the encoded body
+        assertTrue(entityTag.startsWith("W/"), "Error entity tag must be weak");
+        assertTrue(this.registrations.renewRegistration("etag-function", "test-pod-name", null), "Failed to renew lease");
+        var afterRenewal = this.client.get(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, REGISTRY_URI.getPath())
+                                      .putHeader("If-None-Match", entityTag)
+                                      .rxSendJsonObject(query)
+                                      .blockingGet();
+        assertTrue(afterRenewal.statusCode() == HttpResponseStatus.NOT_MODIFIED.code(), "Error lease renewal reported as modification");
+        var cached = this.client.get(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, REGISTRY_URI.getPath())
+                                .rxSendJsonObject(query)
+                                .blockingGet();
+        assertTrue(cached.body().equals(first.body()), "Error lease renewal evicted the encoded registrations");
+
+        // renewal creates a new version
+        var renewed = new ServiceBuilder(service).withTimestamp(new DateTime().plusSeconds(1)).build();
+        assertTrue(this.registrations.addRegistration(this.getServiceRegistry("etag-function", renewed)), "Failed to renew registration");
+
+        var third = this.client.get(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, REGISTRY_URI.getPath())
+                               .putHeader("If-None-Match", entityTag)
+                               .rxSendJsonObject(query)
+                               .blockingGet();
+        assertTrue(third.statusCode() == HttpResponseStatus.FOUND.code(), "Error changed registrations reported as not modified");
+        assertFalse(entityTag.equals(third.getHeader("ETag")), "Error entity tag not changed after renewal");
+    }
+
+    @Test
+    public void renewLeaseTest() throws JsonProcessingException
+    {
+        var service = new ServiceBuilder().withHost("test-host") //
+                                          .withName("test-pod-name") //
+                                          .withPort(Double.valueOf("666"))
+                                          .withTimestamp(new DateTime())
+                                          .build();
+        var registered = this.client.put(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, REGISTRY_URI.getPath())
+                                    .rxSendJsonObject(new JsonObject(json.writeValueAsString(this.getServiceRegistry("lease-function", service))))
+                                    .blockingGet();
+        var leaseId = registered.getHeader(RegistrationHandler.LEASE_ID_HEADER);
+        assertTrue(registered.statusCode() == HttpResponseStatus.CREATED.code(), "Error unexpected registration response code");
+        assertTrue(Registrations.getLeaseId(service).equals(leaseId), "Error lease id missing from registration response");
+        var version = this.registrations.getVersion("lease-function");
+
+        var renewed = this.client.put(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, "/registrations/lease")
+                                 .addQueryParam("function", "lease-function")
+                                 .addQueryParam("name", "test-pod-name")
+                                 .addQueryParam("lease", leaseId)
+                                 .rxSend()
+                                 .blockingGet();
+        assertTrue(renewed.statusCode() == HttpResponseStatus.NO_CONTENT.code(), "Error lease not renewed");
+        assertTrue(this.registrations.getVersion("lease-function") == version, "Error renewal changed the registrations version");
+
+        var unknown = this.client.put(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, "/registrations/lease")
+                                 .addQueryParam("function", "lease-function")
+                                 .addQueryParam("name", "test-pod-unknown")
+                                 .rxSend()
+                                 .blockingGet();
+        assertTrue(unknown.statusCode() == HttpResponseStatus.NOT_FOUND.code(), "Error unknown service lease renewed");
+
+        var invalid = this.client.put(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, "/registrations/lease")
+                                 .addQueryParam("function", "lease-function")
+                                 .rxSend()
+                                 .blockingGet();
+        assertTrue(invalid.statusCode() == HttpResponseStatus.BAD_REQUEST.code(), "Error renewal without service name accepted");
+    }
+
+    @Test
+    public void bulkRegistrationTest() throws IOException
+    {
+        var services = new ArrayList<Service>();
+        for (int i = 0; i < 3; i++)
+            services.add(new ServiceBuilder().withHost("test-host") //
+                                             .withName("test-pod-" + i)
+                                             .withPort(Double.valueOf(666 + i))
+                                             .withTimestamp(new DateTime())
+                                             .build());
+        var invalid = new ServiceBuilder().withHost("test-host").withPort(Double.valueOf("666")).build();
+        assertTrue(this.registrations.addRegistration(this.getServiceRegistry("bulk-function-b", services.get(2))), "Failed to add registration");
+
+        var bulk = new BulkRegistrationBuilder().withRegistrations(List.of(new ServiceRegistryBuilder().withFunction("bulk-function-a") //
+                                                                                                       .withServices(List.of(services.get(0), invalid, services.get(1)))
+                                                                                                       .build()))
+                                                .withRenewals(List.of(new LeaseRenewalBuilder().withFunction("bulk-function-b") //
+                                                                                               .withName("test-pod-2")
+                                                                                               .withLease(Registrations.getLeaseId(services.get(2)))
+                                                                                               .build(),
+                                                                      new LeaseRenewalBuilder().withFunction("bulk-function-b") //
+                                                                                               .withName("test-pod-unknown")
+                                                                                               .build()))
+                                                .build();
+        var response = this.client.post(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, "/registrations/bulk")
+                                  .rxSendBuffer(Buffer.buffer(json.writeValueAsBytes(bulk)))
+                                  .blockingGet();
+        assertTrue(response.statusCode() == HttpResponseStatus.OK.code(), "Error unexpected bulk registration response code");
+
+        var result = json.readValue(response.bodyAsString(), BulkRegistrationResponse.class);
+        var registered = result.getRegistrations();
+        assertTrue(registered.size() == 3, "Error missing bulk registration results");
+        assertTrue(registered.get(0).getStatus() == HttpResponseStatus.CREATED.code(), "Error service not registered");
+        assertTrue(registered.get(0).getLease().get().equals(Registrations.getLeaseId(services.get(0))), "Error lease id missing from result");
+        assertTrue(registered.get(1).getStatus() == HttpResponseStatus.BAD_REQUEST.code(), "Error invalid service registered");
+        assertTrue(registered.get(2).getStatus() == HttpResponseStatus.CREATED.code(), "Error service not registered");
+        assertTrue(this.registrations.getRegistrations("bulk-function-a").size() == 2, "Error bulk registration not applied");
+
+        var renewed = result.getRenewals();
+        assertTrue(renewed.get(0).getStatus() == HttpResponseStatus.NO_CONTENT.code(), "Error lease not renewed");
+        assertTrue(renewed.get(1).getStatus() == HttpResponseStatus.NOT_FOUND.code(), "Error unknown lease renewed");
+
+        var malformed = this.client.post(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, "/registrations/bulk")
+                                   .rxSendBuffer(Buffer.buffer("{\"unknown\": []}"))
+                                   .blockingGet();
+        assertTrue(malformed.statusCode() == HttpResponseStatus.BAD_REQUEST.code(), "Error malformed bulk registration accepted");
+    }
+
+    @Test
+    public void smileLookupTest() throws IOException
+    {
+        var service = new ServiceBuilder().withHost("test-host") //
+                                          .withName("test-pod-name") //
+                                          .withPort(Double.valueOf("666"))
+                                          .withTimestamp(new DateTime())
+                                          .build();
+        assertTrue(this.registrations.addRegistration(this.getServiceRegistry("smile-function", service)), "Failed to add registration");
+
+        var query = Buffer.buffer(ContentCodec.SMILE.getMapper().writeValueAsBytes(new ServiceRegistryBuilder().withFunction("smile-function").build()));
+        var response = this.client.get(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, REGISTRY_URI.getPath())
+                                  .putHeader("Content-Type", ContentCodec.SMILE.getMediaType())
+                                  .putHeader("Accept", ContentCodec.PREFER_SMILE)
+                                  .rxSendBuffer(query)
+                                  .blockingGet();
+        assertTrue(response.statusCode() == HttpResponseStatus.FOUND.code(), "Error unexpected lookup response code");
+        assertTrue(ContentCodec.SMILE.getMediaType().equals(response.getHeader("Content-Type")), "Error lookup not answered in Smile");
+        var serviceRegistry = ContentCodec.SMILE.decode(response.body().getBytes(), ServiceRegistry.class);
+        assertTrue(serviceRegistry.getServices().get().get(0).getName().equals("test-pod-name"), "Error unexpected Smile lookup response");
+
+        // clients without Accept header keep getting JSON
+        var json = this.client.get(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, REGISTRY_URI.getPath())
+                              .rxSendJsonObject(new JsonObject().put("function", "smile-function"))
+                              .blockingGet();
+        assertTrue(json.getHeader("Content-Type").equals("application/json"), "Error lookup not answered in JSON");
+        assertTrue(json.bodyAsJsonObject().getString("function").equals("smile-function"), "Error unexpected JSON lookup response");
+    }
+
+    @Test
+    public void entityTagMatchTest()
+    {
+        assertFalse(RegistrationHandler.isNotModified(null, "a", 5L), "Missing header must not match");
+        assertTrue(RegistrationHandler.isNotModified("\"a.5\"", "a", 5L), "Same version must match");
+        assertTrue(RegistrationHandler.isNotModified("\"a.3\", W/\"a.5\"", "a", 5L), "Weak tag in list must match");
+        assertTrue(RegistrationHandler.isNotModified("*", "a", 5L), "Wildcard must match");
+        assertFalse(RegistrationHandler.isNotModified("\"a.4\"", "a", 5L), "Older version must not match");
+        assertFalse(RegistrationHandler.isNotModified("\"b.5\"", "a", 5L), "Same version of other instance must not match");
+    }
+
+    @Test
+    public void watchRegistrationsTest() throws JsonProcessingException
+    {
+        var service = new ServiceBuilder().withHost("test-host") //
+                                          .withName("test-pod-name") //
+                                          .withPort(Double.valueOf("666"))
+                                          .withTimestamp(new DateTime())
+                                          .build();
+        assertTrue(this.registrations.addRegistration(this.getServiceRegistry("watch-function", service)), "Failed to add registration");
+
+        // new watcher receives all registrations immediately
+        var initial = this.watch("watch-function", 0L, 5L);
+        assertTrue(initial.statusCode() == HttpResponseStatus.OK.code(), "Error unexpected watch response code");
+        var initialChanges = json.readValue(initial.bodyAsString(), RegistryWatch.class);
+        assertTrue(initialChanges.getResync(), "Error initial watch must resync");
+        assertTrue(initialChanges.getServices().get().size() == 1, "Error wrong number of services in initial watch");
+
+        // watcher with current version waits for next change
+        var pending = this.client.get(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, "/registrations/watch")
+                                 .addQueryParam("function", "watch-function")
+                                 .addQueryParam("version", String.valueOf(initialChanges.getVersion()))
+                                 .addQueryParam("timeout", "10")
+                                 .rxSend()
+                                 .test();
+        assertFalse(pending.awaitTerminalEvent(500, TimeUnit.MILLISECONDS), "Error watch completed without changes");
+
+        var newService = new ServiceBuilder().withHost("test-host") //
+                                             .withName("test-pod-name-2") //
+                                             .withPort(Double.valueOf("667"))
+                                             .withTimestamp(new DateTime())
+                                             .build();
+        assertTrue(this.registrations.addRegistration(this.getServiceRegistry("watch-function", newService)), "Failed to add registration");
+
+        pending.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        pending.assertNoErrors();
+        var response = pending.values().get(0);
+        assertTrue(response.statusCode() == HttpResponseStatus.OK.code(), "Error unexpected watch response code");
+        var changes = json.readValue(response.bodyAsString(), RegistryWatch.class);
+        assertFalse(changes.getResync(), "Error watch with known version must not resync");
+        assertTrue(changes.getEvents().get().size() == 1, "Error wrong number of changes");
+        assertTrue(changes.getEvents().get().get(0).getType() == RegistrationEvent.Type.ADDED, "Error wrong change type");
+        assertTrue(changes.getEvents().get().get(0).getService().getName().equals("test-pod-name-2"), "Error wrong changed service");
+
+        // no changes until timeout
+        var idle = this.watch("watch-function", changes.getVersion(), 1L);
+        assertTrue(idle.statusCode() == HttpResponseStatus.NOT_MODIFIED.code(), "Error idle watch must time out with not modified");
+    }
+
+    private HttpResponse<Buffer> watch(String function,
+                                       long version,
+                                       long timeout)
+    {
+        return this.client.get(REGISTRY_SERVER_LOCAL_PORT, REGISTRY_SERVER_LOCAL_HOST, "/registrations/watch")
+                          .addQueryParam("function", function)
+                          .addQueryParam("version", String.valueOf(version))
+                          .addQueryParam("timeout", String.valueOf(timeout))
+                          .rxSend()
+                          .blockingGet();
+    }
+
+    private ServiceRegistry getServiceRegistry(String function,
+                                               Service service)
+    {
+        List<Service> services = new ArrayList<>();
+        services.add(service);
+        return new ServiceRegistryBuilder().withFunction(function) //
+                                           .withServices(services)
+                                           .build();
+    }
+
+    private ServiceRegistry lookup(String function) throws JsonProcessingException
+    {
+        var query = new ServiceRegistryBuilder().withFunction(function).build();
+        var response = this.client.get(REGISTRY_SERVER_LOCAL_PORT, //
+                                       REGISTRY_SERVER_LOCAL_HOST, //
+                                       REGISTRY_URI.getPath())
+                                  .putHeader("Content-Type", "application/json")
+                                  .rxSendJsonObject(new JsonObject(json.writeValueAsString(query)))
+                                  .blockingGet();
+        log.info("Lookup response with code:{} and body:{}", response.statusCode(), response.bodyAsString());
+        assertTrue(response.statusCode() == HttpResponseStatus.FOUND.code(), "Error unexpected lookup response code");
+        return json.readValue(response.bodyAsString(), ServiceRegistry.class);
+    }
 }
@@ -0,0 +1,204 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import org.joda.time.DateTime;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.intracom.model.Service.ServiceBuilder;
+import com.intracom.model.ServiceRegistry;
+import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
+import com.intracom.sd.RegistryParameters.RegistryParametersBuilder;
+
+import io.reactivex.Flowable;
+import io.reactivex.schedulers.Schedulers;
+
+public class RegistrationLogTest
+{
+    private Path directory;
+    private RegistryParameters params;
+
+    @BeforeMethod
+    public void beforeMethod() throws IOException
+    {
+        this.directory = Files.createTempDirectory("registrations");
+        this.params = new RegistryParametersBuilder("sd-registry", 8080, "best", 60L, "127.0.0.1").withDataDir(this.directory.toString()) //
+                                                                                                  .withSnapshotInterval(1L)
+                                                                                                  .build();
+    }
+
+    @AfterMethod
+    public void afterMethod() throws IOException
+    {
+        this.params.getVertx().close();
+        try (var files = Files.walk(this.directory))
+        {
+            for (var file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList()))
+                Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void replayAfterRestartTest() throws InterruptedException
+    {
+        var registrations = new Registrations();
+        var registrationLog = new RegistrationLog(this.params, registrations);
+        registrationLog.start().blockingAwait();
+
+        // concurrent registrations share commits
+        Flowable.range(0, 200)
+                .parallel(8)
+                .runOn(Schedulers.io())
+                .map(i -> registrations.addRegistration(serviceRegistry("function-" + (i % 4), "pod-" + i)))
+                .sequential()
+                .blockingSubscribe();
+        assertEquals(registrations.getJournaled(), 200L, "Every record must have a position once applied");
+        registrationLog.sync().blockingAwait();
+        assertEquals(registrationLog.getRecords(), 200L);
+        assertTrue(registrationLog.getCommits() <= registrationLog.getRecords(), "Records must be group committed");
+
+        // changes after a snapshot are replayed from the new segment
+        var snapshots = registrationLog.getSnapshots();
+        this.await(() -> registrationLog.getSnapshots() > snapshots);
+        assertTrue(registrations.removeRegistration("function-1", "pod-1"));
+        registrations.addRegistration(serviceRegistry("function-4", "pod-200"));
+        registrationLog.sync().blockingAwait();
+        registrationLog.stop().blockingAwait();
+
+        var restarted = new Registrations();
+        var restartedLog = new RegistrationLog(this.params, restarted);
+        restartedLog.start().blockingAwait();
+        assertEquals(restarted.getFunctions().size(), 5, "All functions must be replayed");
+        assertEquals(restarted.getRegistrations("function-0").size(), 50);
+        assertEquals(restarted.getRegistrations("function-1").size(), 49);
+        assertFalse(restarted.hasRegistration("function-1", "pod-1"), "Removed service must stay removed");
+        assertTrue(restarted.getFunctionState("function-1").getRemovals().get().size() == 1, "Removal must be replayed");
+        assertTrue(restarted.hasRegistration("function-4", "pod-200"));
+        restartedLog.stop().blockingAwait();
+    }
+
+    @Test
+    public void tornRecordTest() throws IOException
+    {
+        var registrations = new Registrations();
+        var registrationLog = new RegistrationLog(this.params, registrations);
+        registrationLog.start().blockingAwait();
+        registrations.addRegistration(serviceRegistry("function", "pod-1"));
+        registrations.addRegistration(serviceRegistry("function", "pod-2"));
+        registrationLog.sync().blockingAwait();
+        registrationLog.stop().blockingAwait();
+
+        // crash in the middle of a write leaves a partial record
+        List<Path> segments;
+        try (var files = Files.list(this.directory))
+        {
+            segments = files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().collect(Collectors.toList());
+        }
+        Files.write(segments.get(segments.size() - 1), new byte[] { 0, 0, 0, 42, 1, 2 }, StandardOpenOption.APPEND);
+
+        var restarted = new Registrations();
+        var restartedLog = new RegistrationLog(this.params, restarted);
+        restartedLog.start().blockingAwait();
+        assertEquals(restarted.getRegistrations("function").size(), 2, "Complete records must be replayed");
+        restartedLog.stop().blockingAwait();
+    }
+
+    @Test
+    public void failedWriteTest() throws IOException
+    {
+        var registrations = new Registrations();
+        var failing = new AtomicBoolean(true);
+        var registrationLog = new RegistrationLog(this.params, registrations, file -> segment(file, failing.getAndSet(false)));
+        registrationLog.start().blockingAwait();
+
+        // the failed batch is written to a new segment, later records follow it
+        registrations.addRegistration(serviceRegistry("function", "pod-1"));
+        registrationLog.sync(registrations.getJournaled("function")).blockingAwait();
+        registrations.addRegistration(serviceRegistry("function", "pod-2"));
+        registrationLog.sync(registrations.getJournaled("function")).blockingAwait();
+        registrations.addRegistration(serviceRegistry("function", "pod-3"));
+        registrationLog.sync(registrations.getJournaled("function")).blockingAwait();
+        registrationLog.stop().blockingAwait();
+
+        var restarted = new Registrations();
+        var restartedLog = new RegistrationLog(this.params, restarted);
+        restartedLog.start().blockingAwait();
+        assertEquals(restarted.getRegistrations("function").size(), 3, "Records after a failed write must be replayed");
+        restartedLog.stop().blockingAwait();
+    }
+
+    @Test
+    public void lostRecordsTest() throws IOException
+    {
+        var registrations = new Registrations();
+        var failing = new AtomicBoolean(true);
+        var registrationLog = new RegistrationLog(this.params, registrations, file -> segment(file, failing.get()));
+        registrationLog.start().blockingAwait();
+
+        // no new segment can be created either, so the records are lost
+        try (var files = Files.list(this.directory))
+        {
+            for (var file : files.collect(Collectors.toList()))
+                Files.delete(file);
+        }
+        Files.delete(this.directory);
+        registrations.addRegistration(serviceRegistry("function", "pod-1"));
+        var position = registrations.getJournaled("function");
+        assertTrue(registrationLog.sync(position).blockingGet() instanceof IOException, "Waiters of lost records must fail");
+
+        // the log recovers once segments can be written again
+        failing.set(false);
+        Files.createDirectories(this.directory);
+        registrations.addRegistration(serviceRegistry("function", "pod-2"));
+        registrationLog.sync(registrations.getJournaled("function")).blockingAwait();
+        assertTrue(registrationLog.sync(position).blockingGet() instanceof IOException, "Lost records must stay lost");
+        registrationLog.stop().blockingAwait();
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException
+    {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++)
+            Thread.sleep(50);
+        assertTrue(condition.getAsBoolean(), "Condition not reached in time");
+    }
+
+    /**
+     * Open a segment, a closed one fails the next write
+     */
+    private static FileChannel segment(Path file,
+                                       boolean closed) throws IOException
+    {
+        var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (closed)
+            channel.close();
+        return channel;
+    }
+
+    private static ServiceRegistry serviceRegistry(String function,
+                                                   String name)
+    {
+        var service = new ServiceBuilder().withHost("10.0.0.1") //
+                                          .withName(name)
+                                          .withPort(Double.valueOf(8080))
+                                          .withTimestamp(new DateTime())
+                                          .build();
+        return new ServiceRegistryBuilder().withFunction(function) //
+                                           .withServices(List.of(service))
+                                           .build();
+    }
+}
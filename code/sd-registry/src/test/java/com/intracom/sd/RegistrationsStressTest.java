@@ -0,0 +1,189 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intracom.common.utilities.Jackson;
+import com.intracom.model.Service;
+import com.intracom.model.Service.ServiceBuilder;
+import com.intracom.model.ServiceRegistry;
+import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
+
+/**
+ * Concurrent heartbeats and lookups against the same function. Every service
+ * is registered before the readers start, so any snapshot with fewer, more or
+ * duplicate services is a torn read.
+ */
+public class RegistrationsStressTest
+{
+    private static final Logger log = LoggerFactory.getLogger(RegistrationsStressTest.class);
+    private static final ObjectMapper json = Jackson.om();
+    private static final String FUNCTION = "stress-function";
+    private static final int SERVICES = 64;
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final long DURATION_MILLIS = 2000L;
+
+    private Registrations registrations;
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void beforeMethod()
+    {
+        this.registrations = new Registrations();
+        this.executor = Executors.newFixedThreadPool(WRITERS + READERS + 1);
+    }
+
+    @AfterMethod
+    public void afterMethod() throws InterruptedException
+    {
+        this.executor.shutdownNow();
+        this.executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void concurrentHeartbeatsAndLookupsTest() throws InterruptedException
+    {
+        var pods = IntStream.range(0, SERVICES).mapToObj(this::podName).collect(Collectors.toList());
+        pods.forEach(pod -> assertTrue(this.registrations.addRegistration(this.getServiceRegistry(pod)), "Failed to add registration"));
+        assertEquals(this.registrations.getRegistrations(FUNCTION).size(), SERVICES, "Wrong number of initial services");
+
+        var running = new AtomicBoolean(true);
+        var start = new CountDownLatch(1);
+        var done = new CountDownLatch(WRITERS + READERS + 1);
+        var errors = new ConcurrentLinkedQueue<Throwable>();
+        var reads = new AtomicLong();
+        var writes = new AtomicLong();
+
+        for (int i = 0; i < WRITERS; i++)
+        {
+            this.executor.execute(() -> this.run(start, done, errors, () ->
+            {
+                while (running.get())
+                {
+                    var pod = pods.get(ThreadLocalRandom.current().nextInt(SERVICES));
+                    if (!this.registrations.addRegistration(this.getServiceRegistry(pod)))
+                        throw new AssertionError("Failed to renew registration of " + pod);
+                    writes.incrementAndGet();
+                }
+            }));
+        }
+
+        for (int i = 0; i < READERS; i++)
+        {
+            this.executor.execute(() -> this.run(start, done, errors, () ->
+            {
+                while (running.get())
+                {
+                    var services = this.registrations.getRegistrations(FUNCTION);
+                    var names = new HashSet<String>();
+                    var iterated = 0;
+                    for (var service : services)
+                    {
+                        names.add(service.getName());
+                        iterated++;
+                    }
+                    if (iterated != SERVICES || names.size() != SERVICES || services.size() != SERVICES)
+                        throw new AssertionError("Torn read with " + iterated + " services, " + names.size() + " distinct names");
+
+                    // serialization on the event loop walks the same snapshot
+                    json.writeValueAsBytes(services);
+                    reads.incrementAndGet();
+                }
+            }));
+        }
+
+        // expiration with all pods alive must never shrink the function either
+        this.executor.execute(() -> this.run(start, done, errors, () ->
+        {
+            while (running.get())
+                this.registrations.applyExpiration(pods).blockingAwait();
+        }));
+
+        start.countDown();
+        Thread.sleep(DURATION_MILLIS);
+        running.set(false);
+        assertTrue(done.await(10, TimeUnit.SECONDS), "Stress workers did not terminate");
+
+        log.info("Stress test completed with {} reads and {} writes", reads.get(), writes.get());
+        assertTrue(errors.isEmpty(), "Unexpected errors " + errors);
+        assertTrue(reads.get() > 0 && writes.get() > 0, "Stress workers did not make progress");
+
+        List<Service> services = this.registrations.getRegistrations(FUNCTION);
+        assertEquals(services.size(), SERVICES, "Wrong number of final services");
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void snapshotIsImmutableTest()
+    {
+        this.registrations.addRegistration(this.getServiceRegistry(this.podName(0)));
+        this.registrations.getRegistrations(FUNCTION).clear();
+    }
+
+    private void run(CountDownLatch start,
+                     CountDownLatch done,
+                     ConcurrentLinkedQueue<Throwable> errors,
+                     Task task)
+    {
+        try
+        {
+            start.await();
+            task.run();
+        }
+        catch (Throwable t)
+        {
+            errors.add(t);
+        }
+        finally
+        {
+            done.countDown();
+        }
+    }
+
+    private String podName(int index)
+    {
+        return "stress-pod-" + index;
+    }
+
+    private ServiceRegistry getServiceRegistry(String pod)
+    {
+        Service service = new ServiceBuilder().withHost("test-host") //
+                                              .withName(pod) //
+                                              .withPort(Double.valueOf("666"))
+                                              .withTimestamp(new DateTime())
+                                              .build();
+        List<Service> services = new ArrayList<>();
+        services.add(service);
+        return new ServiceRegistryBuilder().withFunction(FUNCTION) //
+                                           .withServices(services)
+                                           .build();
+    }
+
+    @FunctionalInterface
+    private interface Task
+    {
+        void run() throws Exception;
+    }
+}
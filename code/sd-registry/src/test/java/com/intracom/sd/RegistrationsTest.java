@@ -1,12 +1,16 @@
 package com.intracom.sd;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
@@ -15,6 +19,8 @@ import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.intracom.common.web.VertxBuilder;
+import com.intracom.model.RegistrationEvent;
 import com.intracom.model.Service;
 import com.intracom.model.Service.ServiceBuilder;
 import com.intracom.model.ServiceRegistry;
@@ -94,6 +100,235 @@ public class RegistrationsTest
 
     }
 
+    @Test
+    public void renewRegistrationTest()
+    {
+        this.registrations.addRegistration(this.getServiceRegistry(null));
+        this.registrations.addRegistration(this.getServiceRegistry(this.getService("test-pod-name-2")));
+
+        // renew first service with new timestamp
+        var renewedService = new ServiceBuilder().withHost("test-host-renewed") //
+                                                 .withName("test-pod-name") //
+                                                 .withPort(Double.valueOf("666"))
+                                                 .withTimestamp(new DateTime().plusSeconds(60))
+                                                 .build();
+        assertTrue(this.registrations.addRegistration(this.getServiceRegistry(renewedService)), "Failed to renew registration");
+
+        List<Service> extractedServices = this.registrations.getRegistrations("test-function");
+        assertTrue(extractedServices.size() == 2, "Renewal must not add a new service");
+        assertTrue(extractedServices.get(0).equals(renewedService), "Renewed service must keep its position");
+        assertTrue(extractedServices.get(1).getName().equals("test-pod-name-2"), "Other services must not change");
+    }
+
+    @Test
+    public void renewLeaseTest()
+    {
+        var service = this.getService("test-pod-name");
+        this.registrations.addRegistration(this.getServiceRegistry(service));
+        var version = this.registrations.getVersion("test-function");
+        var leaseId = Registrations.getLeaseId(service);
+
+        // renewal moves the timestamp forward without a new version
+        assertTrue(this.registrations.renewRegistration("test-function", "test-pod-name", leaseId), "Failed to renew lease");
+        var renewed = this.registrations.getFunctionServices("test-function").get("test-pod-name");
+        assertTrue(renewed.getTimestamp().get().isAfter(service.getTimestamp().get()), "Renewal must move the timestamp forward");
+        assertEquals(renewed.getHost(), service.getHost());
+        assertEquals(this.registrations.getVersion("test-function"), version, "Renewal must not change the version");
+        assertFalse(this.registrations.getChangesSince("test-function", version).isPresent(), "Renewal must not be a change");
+        assertTrue(this.registrations.renewRegistration("test-function", "test-pod-name", null), "Renewal without lease id must renew by name");
+
+        // unknown services and moved services have to register again
+        assertFalse(this.registrations.renewRegistration("test-function", "test-pod-unknown", null));
+        assertFalse(this.registrations.renewRegistration("other-function", "test-pod-name", leaseId));
+        var moved = new ServiceBuilder(service).withHost("test-host-moved").build();
+        assertFalse(this.registrations.renewRegistration("test-function", "test-pod-name", Registrations.getLeaseId(moved)), "Lease id of another address must not renew");
+    }
+
+    @Test
+    public void removeRegistrationTest()
+    {
+        this.registrations.addRegistration(this.getServiceRegistry(null));
+        this.registrations.addRegistration(this.getServiceRegistry(this.getService("test-pod-name-2")));
+        this.registrations.addRegistration(this.getServiceRegistry(this.getService("test-pod-name-3")));
+
+        assertTrue(this.registrations.hasRegistration("test-function", "test-pod-name-2"), "Service unexpectedly missing");
+        assertTrue(this.registrations.removeRegistration("test-function", "test-pod-name-2"), "Failed to remove service");
+        assertFalse(this.registrations.hasRegistration("test-function", "test-pod-name-2"), "Service unexpectedly registered");
+        assertFalse(this.registrations.removeRegistration("test-function", "test-pod-name-2"), "Service unexpectedly removed twice");
+
+        List<Service> extractedServices = this.registrations.getRegistrations("test-function");
+        assertTrue(extractedServices.size() == 2, "Wrong number of services in registered test-function");
+        assertTrue(extractedServices.get(0).getName().equals("test-pod-name"), "Wrong order of remaining services");
+        assertTrue(extractedServices.get(1).getName().equals("test-pod-name-3"), "Wrong order of remaining services");
+        assertTrue(this.registrations.hasRegistration("test-function", "test-pod-name-3"), "Index not updated after removal");
+    }
+
+    @Test
+    public void applyExpirationTest()
+    {
+        this.registrations.addRegistration(this.getServiceRegistry(null));
+        this.registrations.addRegistration(this.getServiceRegistry(this.getService("test-pod-name-2")));
+        var version = this.registrations.getVersion("test-function");
+
+        // only a removal takes a version
+        this.registrations.applyExpiration(Set.of("test-pod-name", "test-pod-name-2")).blockingAwait();
+        assertEquals(this.registrations.getVersion("test-function"), version, "Expiration without removal must not change the version");
+        this.registrations.applyExpiration(Set.of("test-pod-name")).blockingAwait();
+        assertEquals(this.registrations.getVersion("test-function"), version + 1, "Expiration must take the next version");
+        assertFalse(this.registrations.hasRegistration("test-function", "test-pod-name-2"), "Expired service unexpectedly registered");
+    }
+
+    @Test
+    public void changesSinceVersionTest()
+    {
+        this.registrations.addRegistration(this.getServiceRegistry(null));
+        var version = this.registrations.getVersion("test-function");
+        assertTrue(this.registrations.getChangesSince("test-function", version).isEmpty(), "Up to date watcher unexpectedly received changes");
+
+        this.registrations.addRegistration(this.getServiceRegistry(this.getService("test-pod-name-2")));
+        this.registrations.removeRegistration("test-function", "test-pod-name");
+
+        var changes = this.registrations.getChangesSince("test-function", version).get();
+        assertFalse(changes.getResync(), "Changes unexpectedly require resync");
+        assertTrue(changes.getVersion() == this.registrations.getVersion("test-function"), "Changes do not end at current version");
+
+        var events = changes.getEvents().get();
+        assertTrue(events.size() == 2, "Wrong number of changes");
+        assertTrue(events.get(0).getType() == RegistrationEvent.Type.ADDED, "Wrong type of first change");
+        assertTrue(events.get(0).getService().getName().equals("test-pod-name-2"), "Wrong service of first change");
+        assertTrue(events.get(1).getType() == RegistrationEvent.Type.REMOVED, "Wrong type of second change");
+        assertTrue(events.get(1).getService().getName().equals("test-pod-name"), "Wrong service of second change");
+    }
+
+    @Test
+    public void addRegistrationsTest()
+    {
+        this.registrations.addRegistration(this.getServiceRegistry(null));
+        var version = this.registrations.getVersion("test-function");
+
+        var renewed = this.getService("test-pod-name");
+        var added = this.getService("test-pod-name-2");
+        var replaced = this.getService("test-pod-name-2");
+        assertTrue(this.registrations.addRegistrations("test-function", List.of(added, renewed, replaced)), "Failed to add registrations");
+
+        assertEquals(this.registrations.getRegistrations("test-function"), List.of(renewed, replaced), "Wrong services after bulk registration");
+        assertEquals(this.registrations.getVersion("test-function"), version + 3, "Snapshot not at version of last registration");
+
+        var events = this.registrations.getChangesSince("test-function", version).get().getEvents().get();
+        assertEquals(events.size(), 3, "Wrong number of changes");
+        assertTrue(events.get(0).getType() == RegistrationEvent.Type.ADDED, "Wrong type of new service");
+        assertTrue(events.get(1).getType() == RegistrationEvent.Type.UPDATED, "Wrong type of renewed service");
+        assertTrue(events.get(2).getType() == RegistrationEvent.Type.UPDATED, "Wrong type of repeated service");
+    }
+
+    @Test
+    public void changesResyncTest()
+    {
+        var registrations = new Registrations(2);
+        registrations.addRegistration(this.getServiceRegistry(null));
+        var version = registrations.getVersion("test-function");
+
+        // more changes than retained in history
+        registrations.addRegistration(this.getServiceRegistry(this.getService("test-pod-name-2")));
+        registrations.addRegistration(this.getServiceRegistry(this.getService("test-pod-name-3")));
+        registrations.addRegistration(this.getServiceRegistry(this.getService("test-pod-name-4")));
+
+        var changes = registrations.getChangesSince("test-function", version).get();
+        assertTrue(changes.getResync(), "Lost changes must require resync");
+        assertTrue(changes.getServices().get().size() == 4, "Resync must contain all registered services");
+        assertTrue(changes.getVersion() == registrations.getVersion("test-function"), "Resync must have current version");
+
+        // new watcher always starts with resync
+        assertTrue(registrations.getChangesSince("test-function", 0L).get().getResync(), "New watcher must resync");
+    }
+
+    @Test
+    public void shardedRegistrationsTest()
+    {
+        var vertx = new VertxBuilder().build();
+        var registrations = new Registrations(vertx, 4);
+        try
+        {
+            registrations.start().blockingAwait();
+
+            // every function is always changed on the event loop of its shard
+            var threads = new HashMap<String, Set<String>>();
+            for (int i = 0; i < 16; i++)
+            {
+                var function = "test-function-" + (i % 8);
+                var serviceRegistry = new ServiceRegistryBuilder().withFunction(function) //
+                                                                  .withServices(List.of(this.getService("test-pod-name-" + i)))
+                                                                  .build();
+                var thread = registrations.execute(function, () ->
+                {
+                    registrations.addRegistration(serviceRegistry);
+                    return Thread.currentThread().getName();
+                }).blockingGet();
+                threads.computeIfAbsent(function, f -> new HashSet<>()).add(thread);
+            }
+            threads.values().forEach(names -> assertEquals(names.size(), 1, "Function must stay on one event loop"));
+            var eventLoops = new HashSet<String>();
+            threads.values().forEach(eventLoops::addAll);
+            assertTrue(eventLoops.size() > 1, "Functions must be spread across event loops");
+
+            // reads are served across all shards
+            assertEquals(registrations.getFunctions().size(), 8, "All functions must be visible");
+            assertEquals(registrations.getRegistrations("test-function-3").size(), 2, "Wrong number of services");
+            assertEquals(registrations.getReplication(registrations.getReplicatedFunctions()).getFunctions().size(), 8);
+        }
+        finally
+        {
+            registrations.stop().blockingAwait();
+            vertx.close();
+        }
+    }
+
+    @Test
+    public void leaseExpirationTest() throws InterruptedException
+    {
+        var vertx = new VertxBuilder().build();
+        var registrations = new Registrations(vertx, 2, 1000L, 50L);
+        try
+        {
+            registrations.start().blockingAwait();
+
+            // stale heartbeat expires, renewed heartbeat keeps the service
+            var stale = new ServiceBuilder().withHost("test-host") //
+                                            .withName("test-pod-stale")
+                                            .withPort(Double.valueOf("666"))
+                                            .withTimestamp(new DateTime().minusMillis(900))
+                                            .build();
+            registrations.addRegistration(this.getServiceRegistry(stale));
+            registrations.addRegistration(this.getServiceRegistry(this.getService("test-pod-renewed")));
+            assertTrue(registrations.hasRegistration("test-function", "test-pod-stale"));
+
+            for (int i = 0; i < 40 && registrations.hasRegistration("test-function", "test-pod-stale"); i++)
+            {
+                registrations.execute("test-function", () -> registrations.addRegistration(this.getServiceRegistry(this.getService("test-pod-renewed"))))
+                             .blockingGet();
+                Thread.sleep(50);
+            }
+            assertFalse(registrations.hasRegistration("test-function", "test-pod-stale"), "Stale service must expire");
+            assertTrue(registrations.hasRegistration("test-function", "test-pod-renewed"), "Renewed service must not expire");
+            assertEquals(registrations.getExpiredLeases(), 1L);
+            assertTrue(registrations.getFunctionState("test-function").getRemovals().get().size() == 1, "Expiration must leave a tombstone");
+        }
+        finally
+        {
+            registrations.stop().blockingAwait();
+            vertx.close();
+        }
+    }
+
+    private Service getService(String name)
+    {
+        return new ServiceBuilder().withHost("test-host") //
+                                   .withName(name) //
+                                   .withPort(Double.valueOf("666"))
+                                   .withTimestamp(new DateTime())
+                                   .build();
+    }
+
     private ServiceRegistry getServiceRegistry(Service service)
     {
         if (service == null)
@@ -0,0 +1,217 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intracom.common.utilities.Jackson;
+import com.intracom.model.FunctionState.FunctionStateBuilder;
+import com.intracom.model.RegistryWatch;
+import com.intracom.model.Service;
+import com.intracom.model.Service.ServiceBuilder;
+import com.intracom.model.ServiceRegistry;
+import com.intracom.model.ServiceRegistry.ServiceRegistryBuilder;
+import com.intracom.sd.RegistryParameters.RegistryParametersBuilder;
+
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Replication between three registry instances on local addresses
+ */
+public class RegistryReplicationTest
+{
+    private static final Logger log = LoggerFactory.getLogger(RegistryReplicationTest.class);
+    private static final URI REGISTRY_URI = URI.create("/registrations");
+    private static final List<String> REGISTRY_LOCAL_HOSTS = List.of("127.0.0.87", "127.0.0.88", "127.0.0.89");
+    private static final ObjectMapper json = Jackson.om();
+
+    private final List<Instance> instances = new ArrayList<>();
+    private io.vertx.reactivex.ext.web.client.WebClient client;
+
+    @BeforeClass
+    public void beforeClass()
+    {
+        var ports = new ArrayList<Integer>();
+        var peers = new ArrayList<String>();
+        for (var host : REGISTRY_LOCAL_HOSTS)
+        {
+            var port = this.getAvailablePort(host);
+            ports.add(port);
+            peers.add(host + ":" + port);
+        }
+
+        // the first two instances start empty, the third joins after registrations exist
+        for (int i = 0; i < REGISTRY_LOCAL_HOSTS.size(); i++)
+            this.instances.add(new Instance(REGISTRY_LOCAL_HOSTS.get(i), ports.get(i), String.join(",", peers)));
+        this.instances.get(0).start();
+        this.instances.get(1).start();
+
+        this.client = io.vertx.reactivex.ext.web.client.WebClient.create(this.instances.get(0).params.getVertx());
+    }
+
+    @AfterClass
+    public void afterClass()
+    {
+        this.client.close();
+        this.instances.forEach(Instance::stop);
+    }
+
+    @Test
+    public void replicateRegistrations() throws InterruptedException, JsonProcessingException
+    {
+        var first = this.instances.get(0);
+        var second = this.instances.get(1);
+        var third = this.instances.get(2);
+
+        // registration on any instance is visible on the others
+        var service = service("pod-1", "10.0.0.1", new DateTime());
+        this.register(first, "chat", service);
+        this.await(() -> second.registrations.hasRegistration("chat", "pod-1"));
+
+        var lookup = this.client.get(second.params.getPort(), second.params.getServiceAddress(), REGISTRY_URI.getPath())
+                                .rxSendJsonObject(new JsonObject(json.writeValueAsString(new ServiceRegistryBuilder().withFunction("chat").build())))
+                                .blockingGet();
+        assertEquals(lookup.statusCode(), HttpResponseStatus.FOUND.code(), "Replicated registration must be found");
+        assertEquals(json.readValue(lookup.bodyAsString(), ServiceRegistry.class).getServices().get().get(0).getName(), "pod-1");
+
+        // newer registration of the same service wins on all instances
+        this.register(second, "chat", service("pod-1", "10.0.0.2", new DateTime().plusSeconds(1)));
+        this.await(() -> "10.0.0.2".equals(first.registrations.getFunctionServices("chat").get("pod-1").getHost()));
+
+        // joining instance pulls the existing registrations
+        third.start();
+        assertTrue(third.registrations.hasRegistration("chat", "pod-1"), "Joining instance must pull registrations");
+        assertEquals(third.registrations.getFunctionServices("chat").get("pod-1").getHost(), "10.0.0.2");
+
+        // removal is replicated and older registrations do not restore the service
+        assertTrue(third.registrations.removeRegistration("chat", "pod-1"));
+        this.await(() -> !first.registrations.hasRegistration("chat", "pod-1") && !second.registrations.hasRegistration("chat", "pod-1"));
+        assertFalse(first.registrations.merge(new FunctionStateBuilder().withFunction("chat") //
+                                                                        .withServices(List.of(service))
+                                                                        .build()),
+                    "Older registration must not restore removed service");
+        assertFalse(first.registrations.hasRegistration("chat", "pod-1"));
+
+        log.info("Replication statistics {}", first.replicator);
+    }
+
+    @Test
+    public void watchOtherInstance() throws InterruptedException, JsonProcessingException
+    {
+        var first = this.instances.get(0);
+        var second = this.instances.get(1);
+        this.register(first, "watch", service("pod-2", "10.0.0.3", new DateTime()));
+        this.await(() -> second.registrations.hasRegistration("watch", "pod-2"));
+
+        // version of one instance is meaningless at the other, so the watcher is resynchronized
+        var version = first.registrations.getVersion("watch");
+        var response = this.client.get(second.params.getPort(), second.params.getServiceAddress(), "/registrations/watch")
+                                  .addQueryParam("function", "watch")
+                                  .addQueryParam("version", String.valueOf(version))
+                                  .addQueryParam("instance", first.registrations.getInstance())
+                                  .addQueryParam("timeout", "1")
+                                  .rxSend()
+                                  .blockingGet();
+        assertEquals(response.statusCode(), HttpResponseStatus.OK.code());
+        var watch = json.readValue(response.bodyAsString(), RegistryWatch.class);
+        assertTrue(watch.getResync(), "Watcher of other instance must resync");
+        assertEquals(watch.getInstance().get(), second.registrations.getInstance());
+        assertEquals(watch.getServices().get().size(), 1);
+    }
+
+    private void register(Instance instance,
+                          String function,
+                          Service service) throws JsonProcessingException
+    {
+        var serviceRegistry = new ServiceRegistryBuilder().withFunction(function) //
+                                                          .withServices(List.of(service))
+                                                          .build();
+        var response = this.client.put(instance.params.getPort(), instance.params.getServiceAddress(), REGISTRY_URI.getPath())
+                                  .rxSendJsonObject(new JsonObject(json.writeValueAsString(serviceRegistry)))
+                                  .blockingGet();
+        assertEquals(response.statusCode(), HttpResponseStatus.CREATED.code());
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException
+    {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++)
+            Thread.sleep(50);
+        assertTrue(condition.getAsBoolean(), "Condition not reached in time");
+    }
+
+    private static Service service(String name,
+                                   String host,
+                                   DateTime timestamp)
+    {
+        return new ServiceBuilder().withHost(host) //
+                                   .withName(name)
+                                   .withPort(Double.valueOf(8080))
+                                   .withTimestamp(timestamp)
+                                   .build();
+    }
+
+    public Integer getAvailablePort(String host)
+    {
+        var port = 0;
+        try
+        {
+            var address = InetAddress.getByName(host);
+            try (var socket = new ServerSocket(0, 100, address))
+            {
+                port = socket.getLocalPort();
+            }
+        }
+        catch (Exception e)
+        {
+            log.error("Failed to get available port for {}", host);
+        }
+        return port;
+    }
+
+    private static final class Instance
+    {
+        private final RegistryParameters params;
+        private final Registrations registrations = new Registrations();
+        private final RegistrationHandler handler;
+        private final RegistryReplicator replicator;
+
+        private Instance(String host,
+                         int port,
+                         String peers)
+        {
+            this.params = new RegistryParametersBuilder("sd-registry", port, "best", 60L, host).withPeers(peers) //
+                                                                                               .withReplicationInterval(1L)
+                                                                                               .build();
+            this.handler = new RegistrationHandler(this.params, this.registrations);
+            this.replicator = new RegistryReplicator(this.params, this.registrations);
+        }
+
+        private void start()
+        {
+            this.handler.start().andThen(this.replicator.start()).blockingAwait();
+        }
+
+        private void stop()
+        {
+            this.replicator.stop().andThen(this.handler.stop()).onErrorComplete().blockingAwait();
+            this.params.getVertx().close();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.intracom.sd;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class TimingWheelTest
+{
+    @Test
+    public void expireOnDeadlineTickTest()
+    {
+        var wheel = new TimingWheel<String>(100L, 8, 0L);
+        wheel.schedule("a", 250L);
+        wheel.schedule("b", 300L);
+        wheel.schedule("late", -1000L);
+
+        var expired = new ArrayList<String>();
+        wheel.advance(199L, (key,
+                             deadline) -> expired.add(key));
+        assertEquals(expired, List.of("late"), "Passed deadline must expire on the next tick");
+
+        wheel.advance(299L, (key,
+                             deadline) -> expired.add(key));
+        assertEquals(expired, List.of("late"), "Deadline must not expire early");
+
+        wheel.advance(300L, (key,
+                             deadline) -> expired.add(key));
+        assertEquals(expired, List.of("late", "a", "b"));
+        assertEquals(wheel.getPending(), 0L);
+    }
+
+    @Test
+    public void multipleRoundsTest()
+    {
+        // 8 slots of 100ms, deadline three revolutions ahead
+        var wheel = new TimingWheel<String>(100L, 8, 0L);
+        wheel.schedule("far", 2500L);
+
+        var deadlines = new ArrayList<Long>();
+        for (long now = 0; now < 2500L; now += 100L)
+        {
+            wheel.advance(now, (key,
+                                deadline) -> deadlines.add(deadline));
+            assertTrue(deadlines.isEmpty(), "Timeout expired in an earlier round at " + now);
+        }
+        wheel.advance(2500L, (key,
+                              deadline) -> deadlines.add(deadline));
+        assertEquals(deadlines, List.of(2500L), "Timeout must expire with its deadline");
+    }
+
+    @Test
+    public void rescheduleFromCallbackTest()
+    {
+        var wheel = new TimingWheel<String>(10L, 4, 0L);
+        wheel.schedule("renewed", 10L);
+
+        var expired = new ArrayList<Long>();
+        wheel.advance(10L, (key,
+                            deadline) ->
+        {
+            expired.add(deadline);
+            wheel.schedule(key, deadline + 100L);
+        });
+        wheel.advance(200L, (key,
+                             deadline) -> expired.add(deadline));
+        assertEquals(expired, List.of(10L, 110L));
+    }
+}